@@ -0,0 +1,101 @@
+package at.aau.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.aau.Rule;
+
+/**
+ * Benchmarks of the reconstruction of 10^6 ground instances of a rule from
+ * the arguments of ground debug atoms, e.g. of a large unsatisfiable core.
+ * The score is the time per ground instance.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class BulkInstantiationBenchmark {
+	private static final int INSTANCES = 1000000;
+	
+	/** The number of variables of the rule */
+	@Param({ "1", "3", "6" })
+	public int variables;
+	
+	private Rule rule;
+	
+	private List<String> terms;
+	
+	@Setup
+	public void setUp() {
+		rule = SyntheticPrograms.rule(1, variables);
+		terms = new ArrayList<String>(INSTANCES);
+		
+		for (int i = 0; i < INSTANCES; i ++) {
+			terms.add(SyntheticPrograms.groundArguments(variables, i));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(INSTANCES)
+	public int writeGroundedRules() throws IOException {
+		CountingSink sink = new CountingSink();
+		rule.writeGroundedRules(terms, sink);
+		
+		return sink.length;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(INSTANCES)
+	public void getGroundedRule(Blackhole blackhole) {
+		for (String term : terms) {
+			blackhole.consume(rule.getGroundedRule(term));
+		}
+	}
+	
+	/**
+	 * A sink that only counts the written characters, so the benchmark does
+	 * not measure the growth of a buffer.
+	 */
+	private static class CountingSink implements Appendable {
+		private int length;
+		
+		@Override
+		public Appendable append(CharSequence csq) {
+			length += csq.length();
+			return this;
+		}
+		
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) {
+			length += end - start;
+			return this;
+		}
+		
+		@Override
+		public Appendable append(char c) {
+			length ++;
+			return this;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package at.aau.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.aau.Rule;
+import at.aau.output.OutputBuilder;
+
+/**
+ * Benchmarks of the {@link OutputBuilder}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputBuilderBenchmark {
+	/** The number of rules of the debug rule map */
+	@Param({ "100", "1000", "10000" })
+	public int rules;
+	
+	private OutputBuilder outputBuilder;
+	
+	private Map<String, Rule> debugRuleMap;
+	
+	@Setup
+	public void setUp() {
+		outputBuilder = new OutputBuilder();
+		debugRuleMap = SyntheticPrograms.debugRuleMap(rules, 3);
+	}
+	
+	@Benchmark
+	public String buildRuleTable() {
+		return outputBuilder.buildRuleTable(debugRuleMap);
+	}
+}
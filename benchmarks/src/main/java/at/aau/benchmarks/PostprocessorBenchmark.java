@@ -0,0 +1,95 @@
+package at.aau.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.aau.Rule;
+import at.aau.io.ByteBuffers;
+import at.aau.postprocessing.GroundingProfile;
+import at.aau.postprocessing.PostprocessingException;
+import at.aau.postprocessing.Postprocessor;
+
+/**
+ * Benchmarks of the {@link Postprocessor} on synthetic grounded programs.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostprocessorBenchmark {
+	/** The number of facts, the grounded program has three rules per fact */
+	@Param({ "1000", "10000", "100000" })
+	public int facts;
+	
+	private Postprocessor postprocessor;
+	
+	private String groundedProgram;
+	
+	private ByteBuffer groundedBuffer;
+	
+	private ByteBuffer outputBuffer;
+	
+	private String postprocessedProgram;
+	
+	private Map<String, Rule> debugRuleMap;
+	
+	private GroundingProfile profile;
+	
+	@Setup
+	public void setUp() throws PostprocessingException {
+		postprocessor = new Postprocessor();
+		groundedProgram = SyntheticPrograms.groundedProgram(facts);
+		groundedBuffer = ByteBuffers.wrap(groundedProgram);
+		postprocessedProgram = postprocessor.performPostprocessing(groundedProgram,
+				SyntheticPrograms.DEBUG_CONSTANT_PREFIX, SyntheticPrograms.FACT_LITERAL, null);
+		
+		// some of the rules are not in the grounded program
+		debugRuleMap = SyntheticPrograms.debugRuleMap(32, 1);
+		profile = new GroundingProfile();
+	}
+	
+	@Benchmark
+	public ByteBuffer performPostprocessing() throws PostprocessingException {
+		outputBuffer = postprocessor.performPostprocessing(groundedBuffer.duplicate(),
+				SyntheticPrograms.DEBUG_CONSTANT_PREFIX, SyntheticPrograms.FACT_LITERAL, null, outputBuffer);
+		return outputBuffer;
+	}
+	
+	/** The same as {@link #performPostprocessing()}, with the profiling of the grounding */
+	@Benchmark
+	public ByteBuffer performPostprocessingProfiled() throws PostprocessingException {
+		outputBuffer = postprocessor.performPostprocessing(groundedBuffer.duplicate(),
+				SyntheticPrograms.DEBUG_CONSTANT_PREFIX, SyntheticPrograms.FACT_LITERAL, null, outputBuffer, profile);
+		return outputBuffer;
+	}
+	
+	@Benchmark
+	public String performPostprocessingString() {
+		return postprocessor.performPostprocessing(groundedProgram,
+				SyntheticPrograms.DEBUG_CONSTANT_PREFIX, SyntheticPrograms.FACT_LITERAL, null);
+	}
+	
+	@Benchmark
+	public List<String> getRemovedRules() {
+		return postprocessor.getRemovedRules(postprocessedProgram, debugRuleMap);
+	}
+}
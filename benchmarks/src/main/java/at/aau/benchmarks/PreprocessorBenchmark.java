@@ -0,0 +1,73 @@
+package at.aau.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.aau.Rule;
+import at.aau.preprocessing.Preprocessor;
+
+/**
+ * Benchmarks of the {@link Preprocessor} on synthetic programs.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreprocessorBenchmark {
+	/** The number of statements of the program */
+	@Param({ "100", "1000", "10000" })
+	public int statements;
+	
+	private Preprocessor preprocessor;
+	
+	private String program;
+	
+	/** The program without comments and assertions */
+	private String rewrittenProgram;
+	
+	@Setup
+	public void setUp() {
+		preprocessor = new Preprocessor();
+		program = SyntheticPrograms.nonGroundProgram(statements);
+		rewrittenProgram = preprocessor.rewriteAssertions(preprocessor.removeComments(program));
+	}
+	
+	@Benchmark
+	public String removeComments() {
+		return preprocessor.removeComments(program);
+	}
+	
+	@Benchmark
+	public String rewriteAssertions() {
+		return preprocessor.rewriteAssertions(program);
+	}
+	
+	@Benchmark
+	public String addDebugConstants() {
+		Map<String, Rule> debugRuleMap = new HashMap<String, Rule>();
+		return preprocessor.addDebugConstants(rewrittenProgram, SyntheticPrograms.DEBUG_CONSTANT_PREFIX, debugRuleMap);
+	}
+	
+	@Benchmark
+	public String addFactLiteral() {
+		return preprocessor.addFactLiteral(rewrittenProgram, SyntheticPrograms.FACT_LITERAL);
+	}
+}
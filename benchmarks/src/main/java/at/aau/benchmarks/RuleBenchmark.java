@@ -0,0 +1,65 @@
+package at.aau.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.aau.Rule;
+
+/**
+ * Benchmarks of the instantiation of a {@link Rule} with the arguments of a
+ * ground debug atom.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+	/** The number of variables of the rule */
+	@Param({ "1", "3", "6" })
+	public int variables;
+	
+	private Rule rule;
+	
+	private String arguments;
+	
+	private Map<String, String> substitution;
+	
+	@Setup
+	public void setUp() {
+		rule = SyntheticPrograms.rule(1, variables);
+		arguments = SyntheticPrograms.groundArguments(variables, 42);
+		substitution = rule.getSubstitution(arguments);
+	}
+	
+	@Benchmark
+	public Map<String, String> getSubstitution() {
+		return rule.getSubstitution(arguments);
+	}
+	
+	@Benchmark
+	public String getGroundedRule() {
+		return rule.getGroundedRule(arguments);
+	}
+	
+	@Benchmark
+	public String getGroundedRuleSubstitution() {
+		return rule.getGroundedRule(substitution);
+	}
+}
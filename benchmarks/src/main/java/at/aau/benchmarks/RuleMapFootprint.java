@@ -0,0 +1,80 @@
+package at.aau.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import at.aau.DebugRuleMap;
+import at.aau.Rule;
+import at.aau.preprocessing.Preprocessor;
+
+/**
+ * Measures the heap retained by the debug rule map of a large program, once
+ * for a {@link HashMap} and once for a {@link DebugRuleMap}. The retained size
+ * is the difference of the used heap after a full garbage collection with and
+ * without the maps. The program text is shared by all maps, so it is not
+ * included in the size of the {@link DebugRuleMap}.
+ * <p>
+ * Usage: <code>java -cp benchmarks/target/benchmarks.jar
+ * at.aau.benchmarks.RuleMapFootprint [statements] [maps]</code>
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public final class RuleMapFootprint {
+	private RuleMapFootprint() {
+	}
+	
+	public static void main(String[] args) {
+		int statements = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		int maps = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Preprocessor preprocessor = new Preprocessor();
+		String program = preprocessor.rewriteAssertions(preprocessor.removeComments(SyntheticPrograms.nonGroundProgram(statements)));
+		
+		long hashMap = measure(program, maps, false);
+		long debugRuleMap = measure(program, maps, true);
+		int rules = fill(program, new DebugRuleMap()).size();
+		
+		System.out.printf(Locale.ROOT, "%d rules, program text %d characters%n", rules, program.length());
+		System.out.printf(Locale.ROOT, "HashMap<String, Rule>: %8.1f KB, %6.1f bytes per rule%n", hashMap / 1024.0, (double) hashMap / rules);
+		System.out.printf(Locale.ROOT, "DebugRuleMap:          %8.1f KB, %6.1f bytes per rule (excluding the shared program text)%n",
+				debugRuleMap / 1024.0, (double) debugRuleMap / rules);
+	}
+	
+	/**
+	 * Returns the average number of bytes retained by a map of the program.
+	 */
+	private static long measure(String program, int maps, boolean compact) {
+		List<Map<String, Rule>> retained = new ArrayList<Map<String, Rule>>();
+		long before = usedHeap();
+		
+		for (int i = 0; i < maps; i ++) {
+			retained.add(fill(program, compact ? new DebugRuleMap() : new HashMap<String, Rule>()));
+		}
+		
+		long after = usedHeap();
+		
+		if (retained.size() != maps) {
+			throw new IllegalStateException();
+		}
+		
+		return (after - before) / maps;
+	}
+	
+	private static Map<String, Rule> fill(String program, Map<String, Rule> debugRuleMap) {
+		new Preprocessor().addDebugConstants(program, SyntheticPrograms.DEBUG_CONSTANT_PREFIX, debugRuleMap);
+		return debugRuleMap;
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		
+		for (int i = 0; i < 3; i ++) {
+			System.gc();
+		}
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
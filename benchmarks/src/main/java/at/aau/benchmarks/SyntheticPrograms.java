@@ -0,0 +1,174 @@
+package at.aau.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.aau.Rule;
+
+/**
+ * Generates synthetic logic programs and grounded programs of a given size.
+ * The programs are deterministic, so the results of different runs can be
+ * compared.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public final class SyntheticPrograms {
+	/** The fact literal of the grounded programs */
+	public static final String FACT_LITERAL = "_fl";
+	
+	/** The prefix of the debug constants */
+	public static final String DEBUG_CONSTANT_PREFIX = "_debug";
+	
+	private SyntheticPrograms() {
+	}
+	
+	/**
+	 * Creates a non-ground program with the given number of statements. The
+	 * program contains facts, normal rules, rules with aggregates,
+	 * constraints, assertions and comments.
+	 */
+	public static String nonGroundProgram(int statements) {
+		StringBuilder program = new StringBuilder();
+		
+		for (int i = 0; i < statements; i ++) {
+			switch (i % 8) {
+			case 0:
+				program.append("n(").append(i).append(").\n");
+				break;
+			case 1:
+				program.append("edge(").append(i - 1).append(",").append(i).append("). % edge ").append(i).append('\n');
+				break;
+			case 2:
+				program.append("p").append(i).append("(X,Y) :- n(X), n(Y), X < Y.\n");
+				break;
+			case 3:
+				program.append("q").append(i).append("(X) :- p").append(i - 1).append("(X,_), not r(X).\n");
+				break;
+			case 4:
+				program.append("1 { s(X,C) : color(C) } 1 :- n(X), t").append(i).append(".\n");
+				break;
+			case 5:
+				program.append(":- edge(X,Y), s(X,C), s(Y,C). % no two adjacent nodes with the same color\n");
+				break;
+			case 6:
+				program.append("reach(X,Z) :- reach(X,Y), edge(Y,Z), not blocked").append(i).append("(Z).\n");
+				break;
+			default:
+				program.append("assertTrue(n(").append(i - 7).append(")).\n");
+			}
+		}
+		
+		return program.toString();
+	}
+	
+	/**
+	 * Creates a grounded program in the smodels format with the given number
+	 * of facts, as the grounder outputs it for a program that was rewritten
+	 * by the preprocessor. Each fact comes with a debug rule guard and a
+	 * normal rule.
+	 */
+	public static String groundedProgram(int facts) {
+		StringBuilder rules = new StringBuilder();
+		StringBuilder symbols = new StringBuilder();
+		int fl = 2;
+		int negFl = 3;
+		
+		for (int i = 0; i < facts; i ++) {
+			int fact = 4 * i + 4;
+			int debug = fact + 1;
+			int head = fact + 2;
+			
+			rules.append("1 ").append(fact).append(" 1 0 ").append(fl).append('\n');
+			rules.append("1 ").append(debug).append(" 1 0 ").append(fact).append('\n');
+			rules.append("1 ").append(head).append(" 2 0 ").append(fact).append(' ').append(debug).append('\n');
+			
+			symbols.append(fact).append(" a(").append(i).append(")\n");
+			symbols.append(debug).append(' ').append(DEBUG_CONSTANT_PREFIX).append(i % 16 + 1).append('(').append(i).append(")\n");
+			symbols.append(head).append(" b(").append(i).append(",c").append(i % 7).append(")\n");
+		}
+		
+		rules.append("1 1 2 0 ").append(fl).append(' ').append(negFl).append('\n');
+		rules.append("8 2 ").append(fl).append(' ').append(negFl).append(" 0 0\n");
+		
+		return rules + "0\n" + fl + " " + FACT_LITERAL + "\n" + negFl + " -" + FACT_LITERAL + "\n"
+				+ symbols + "0\nB+\n0\nB-\n1\n0\n1\n";
+	}
+	
+	/**
+	 * Creates a debug rule map with the given number of rules. Every rule has
+	 * the given number of variables.
+	 */
+	public static Map<String, Rule> debugRuleMap(int rules, int variables) {
+		Map<String, Rule> debugRuleMap = new LinkedHashMap<String, Rule>();
+		
+		for (int i = 1; i <= rules; i ++) {
+			debugRuleMap.put(DEBUG_CONSTANT_PREFIX + i, rule(i, variables));
+		}
+		
+		return debugRuleMap;
+	}
+	
+	/**
+	 * Creates a rule with the given number of variables, e.g.
+	 * <code>h1(X1,X2) :- b(X1), b(X2), X1 != X2.</code>
+	 */
+	public static Rule rule(int id, int variables) {
+		List<String> vars = new ArrayList<String>();
+		
+		for (int v = 1; v <= variables; v ++) {
+			vars.add("X" + v);
+		}
+		
+		StringBuilder rule = new StringBuilder("h").append(id);
+		
+		if (!vars.isEmpty()) {
+			rule.append('(').append(join(vars)).append(')');
+		}
+		
+		rule.append(" :- ");
+		
+		for (String var : vars) {
+			rule.append("b(").append(var).append("), ");
+		}
+		
+		rule.append("not c").append(id);
+		
+		if (vars.size() > 1) {
+			rule.append(", ").append(vars.get(0)).append(" != ").append(vars.get(1));
+		}
+		
+		return new Rule(rule.append('.').toString(), vars);
+	}
+	
+	/**
+	 * Creates the arguments of a ground debug atom of a rule with the given
+	 * number of variables, e.g. <code>1,f(2,a)</code>.
+	 */
+	public static String groundArguments(int variables, int instance) {
+		String[] arguments = new String[variables];
+		
+		for (int v = 0; v < variables; v ++) {
+			arguments[v] = v % 2 == 0 ? String.valueOf(instance + v) : "f(" + (instance + v) + ",a)";
+		}
+		
+		return join(Arrays.asList(arguments));
+	}
+	
+	private static String join(List<String> values) {
+		StringBuilder joined = new StringBuilder();
+		
+		for (String value : values) {
+			if (joined.length() > 0) {
+				joined.append(',');
+			}
+			
+			joined.append(value);
+		}
+		
+		return joined.toString();
+	}
+}
@@ -0,0 +1,156 @@
+package at.aau.benchmarks.macro;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+import at.aau.DebugRuleMap;
+import at.aau.GringoWrapper;
+import at.aau.grounder.BufferGrounder;
+import at.aau.grounder.Grounder;
+import at.aau.grounder.GrounderGringoImpl;
+import at.aau.grounder.Grounders;
+import at.aau.grounder.GroundingException;
+import at.aau.io.ByteBuffers;
+import at.aau.postprocessing.PostprocessingException;
+import at.aau.preprocessing.SizeEstimate;
+import at.aau.preprocessing.SizeEstimator;
+import at.aau.statistics.Statistics;
+
+/**
+ * Compares the number of ground rules estimated by the {@link SizeEstimator}
+ * with the actual number of rules in the output of the grounder, which
+ * includes the rules of the debug constants, on the generated programs of the
+ * {@link MacroBenchmark}, and prints the ratio of the two as a table.
+ * <p>
+ * gringo is used if it can be started, the {@link StandInGrounder} otherwise.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class EstimatorBenchmark {
+	@Parameter(names = { "-h", "--help" }, help = true, description = "Print help information and exit")
+	private boolean printHelp = false;
+	
+	@Parameter(names = { "-g", "--grounder" }, description = "The command of the grounder, the stand-in grounder is used if it cannot be started")
+	private String grounderCommand = "gringo";
+	
+	@Parameter(names = { "-go", "--grounder-options" }, description = "Command line options passed to the grounder")
+	private String grounderOptions = "";
+	
+	@Parameter(names = { "--stand-in" }, description = "Always use the stand-in grounder")
+	private boolean standIn = false;
+	
+	@Parameter(names = { "--problems" }, description = "Comma separated list of the problems to run, e.g. 'hanoi,knights-tour'")
+	private List<String> problems = new ArrayList<String>();
+	
+	@Parameter(names = { "--sizes" }, description = "Comma separated list of instance sizes that replaces the default sizes of the problems")
+	private List<Integer> sizes = new ArrayList<Integer>();
+	
+	public static void main(String[] args) throws GroundingException, PostprocessingException {
+		EstimatorBenchmark benchmark = new EstimatorBenchmark();
+		JCommander cli;
+		
+		try {
+			cli = new JCommander(benchmark, args);
+		} catch (ParameterException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		
+		if (benchmark.printHelp) {
+			cli.setProgramName("estimator-benchmark");
+			cli.usage();
+			return;
+		}
+		
+		benchmark.run();
+	}
+	
+	private void run() throws GroundingException, PostprocessingException {
+		Grounder grounder;
+		String grounderName;
+		String version = standIn ? null : MacroBenchmark.getVersion(grounderCommand);
+		
+		if (null == version) {
+			grounder = new StandInGrounder();
+			grounderName = "stand-in grounder";
+		} else {
+			grounder = new GrounderGringoImpl(grounderCommand, grounderOptions);
+			grounderName = version;
+		}
+		
+		CountingGrounder countingGrounder = new CountingGrounder(grounder);
+		GringoWrapper wrapper = new GringoWrapper(countingGrounder, "_debug", false, false);
+		wrapper.setEstimating(true);
+		
+		System.out.println("Grounder: " + grounderName + "\n");
+		System.out.println("| Program        | Instance |  estimated |     actual | ratio |");
+		System.out.println("|----------------|----------|-----------:|-----------:|------:|");
+		
+		for (ProblemGenerator problem : MacroBenchmark.PROBLEMS) {
+			if (!problems.isEmpty() && !problems.contains(MacroBenchmark.getOptionName(problem))) {
+				continue;
+			}
+			
+			for (int size : getSizes(problem)) {
+				wrapper.ground(problem.generate(size), true, new DebugRuleMap());
+				SizeEstimate estimate = wrapper.getSizeEstimate();
+				int actual = countingGrounder.rules;
+				
+				System.out.println(String.format(Locale.ROOT, "| %-14s | %-8s | %10d | %10d | %5.2f |",
+						problem.getName(), problem.getInstanceName(size), estimate.getTotalRules(), actual,
+						actual > 0 ? (double) estimate.getTotalRules() / actual : 0.0));
+			}
+		}
+	}
+	
+	/**
+	 * Counts the rules of the last program grounded by the grounder.
+	 */
+	private static class CountingGrounder implements BufferGrounder {
+		private final Grounder grounder;
+		private int rules;
+		
+		public CountingGrounder(Grounder grounder) {
+			this.grounder = grounder;
+		}
+		
+		@Override
+		public String ground(String logicProgram) throws GroundingException {
+			return ByteBuffers.toString(ground(logicProgram, null));
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+			return ground(logicProgram, buffer, null);
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+			ByteBuffer grounded = Grounders.ground(grounder, logicProgram, buffer, statistics);
+			rules = MacroBenchmark.countRules(ByteBuffers.toString(grounded));
+			return grounded;
+		}
+	}
+	
+	private int[] getSizes(ProblemGenerator problem) {
+		if (sizes.isEmpty()) {
+			return problem.getDefaultSizes();
+		}
+		
+		int[] result = new int[sizes.size()];
+		
+		for (int i = 0; i < result.length; i ++) {
+			result[i] = sizes.get(i);
+		}
+		
+		return result;
+	}
+}
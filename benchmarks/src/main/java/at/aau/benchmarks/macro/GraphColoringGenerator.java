@@ -0,0 +1,64 @@
+package at.aau.benchmarks.macro;
+
+import java.util.Random;
+
+/**
+ * Generates 3-colorability problems of random graphs. The size is the number
+ * of nodes, each node has edges to its successor and to two random nodes.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class GraphColoringGenerator implements ProblemGenerator {
+	private static final String ENCODING
+			= "{ assign(X,C) } :- node(X), color(C).\n"
+			+ "colored(X) :- assign(X,C).\n"
+			+ ":- node(X), not colored(X).\n"
+			+ ":- assign(X,C1), assign(X,C2), C1 < C2.\n"
+			+ ":- edge(X,Y), assign(X,C), assign(Y,C).\n";
+	
+	private static final String[] COLORS = { "red", "green", "blue" };
+	
+	@Override
+	public String getName() {
+		return "Graph Coloring";
+	}
+	
+	@Override
+	public int[] getDefaultSizes() {
+		return new int[] { 125, 250, 500, 1000 };
+	}
+	
+	@Override
+	public String getInstanceName(int size) {
+		return String.valueOf(size);
+	}
+	
+	@Override
+	public String generate(int size) {
+		StringBuilder program = new StringBuilder(ENCODING);
+		Random random = new Random(size);
+		
+		for (String color : COLORS) {
+			program.append("color(").append(color).append(").\n");
+		}
+		
+		for (int node = 1; node <= size; node ++) {
+			program.append("node(").append(node).append(").\n");
+		}
+		
+		for (int node = 1; node <= size; node ++) {
+			program.append("edge(").append(node).append(',').append(node % size + 1).append(").\n");
+			
+			for (int i = 0; i < 2; i ++) {
+				int other = random.nextInt(size) + 1;
+				
+				if (other != node) {
+					program.append("edge(").append(node).append(',').append(other).append(").\n");
+				}
+			}
+		}
+		
+		return program.toString();
+	}
+}
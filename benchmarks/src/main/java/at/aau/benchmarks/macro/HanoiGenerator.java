@@ -0,0 +1,66 @@
+package at.aau.benchmarks.macro;
+
+/**
+ * Generates Towers of Hanoi planning problems with three pegs. The size is
+ * the number of steps, the number of disks grows with the number of steps.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class HanoiGenerator implements ProblemGenerator {
+	private static final String ENCODING
+			= "{ move(D,P,T) } :- disk(D), peg(P), step(T).\n"
+			+ ":- move(D1,P1,T), move(D2,P2,T), D1 < D2.\n"
+			+ ":- move(D,P1,T), move(D,P2,T), P1 < P2.\n"
+			+ "moved(D,T) :- move(D,P,T).\n"
+			+ "on(D,P,0) :- init_on(D,P).\n"
+			+ "on(D,P,T) :- move(D,P,T).\n"
+			+ "on(D,P,T) :- on(D,P,T1), next(T1,T), not moved(D,T).\n"
+			+ ":- move(D,P,T), on(D,P,T1), next(T1,T).\n"
+			+ "blocked(D1,P,T) :- on(D2,P,T1), next(T1,T), disk(D1), D2 < D1.\n"
+			+ ":- move(D,P,T), blocked(D,P,T).\n"
+			+ ":- move(D,P,T), on(D,P1,T1), next(T1,T), on(D2,P1,T1), D2 < D.\n"
+			+ ":- goal_on(D,P), last(T), not on(D,P,T).\n";
+	
+	@Override
+	public String getName() {
+		return "Hanoi";
+	}
+	
+	@Override
+	public int[] getDefaultSizes() {
+		return new int[] { 20, 40, 80, 120 };
+	}
+	
+	@Override
+	public String getInstanceName(int size) {
+		return disks(size) + "-" + size;
+	}
+	
+	@Override
+	public String generate(int size) {
+		StringBuilder program = new StringBuilder(ENCODING);
+		
+		for (int peg = 1; peg <= 3; peg ++) {
+			program.append("peg(").append(peg).append(").\n");
+		}
+		
+		for (int disk = 1; disk <= disks(size); disk ++) {
+			program.append("disk(").append(disk).append(").\n");
+			program.append("init_on(").append(disk).append(",1).\n");
+			program.append("goal_on(").append(disk).append(",3).\n");
+		}
+		
+		for (int step = 1; step <= size; step ++) {
+			program.append("step(").append(step).append(").\n");
+			program.append("next(").append(step - 1).append(',').append(step).append(").\n");
+		}
+		
+		program.append("last(").append(size).append(").\n");
+		return program.toString();
+	}
+	
+	private static int disks(int steps) {
+		return 4 + steps / 20;
+	}
+}
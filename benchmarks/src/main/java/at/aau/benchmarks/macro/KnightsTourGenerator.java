@@ -0,0 +1,64 @@
+package at.aau.benchmarks.macro;
+
+/**
+ * Generates Knight's Tour problems. The size is the width of the quadratic
+ * board, the valid moves of the knight are part of the instance.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class KnightsTourGenerator implements ProblemGenerator {
+	private static final String ENCODING
+			= "{ move(X1,Y1,X2,Y2) } :- valid(X1,Y1,X2,Y2).\n"
+			+ "out(X,Y) :- move(X,Y,X1,Y1).\n"
+			+ "in(X,Y) :- move(X1,Y1,X,Y).\n"
+			+ ":- cell(X,Y), not out(X,Y).\n"
+			+ ":- cell(X,Y), not in(X,Y).\n"
+			+ ":- move(X,Y,A,B), move(X,Y,C,D), A < C.\n"
+			+ ":- move(X,Y,A,B), move(X,Y,A,D), B < D.\n"
+			+ ":- move(A,B,X,Y), move(C,D,X,Y), A < C.\n"
+			+ ":- move(A,B,X,Y), move(A,D,X,Y), B < D.\n"
+			+ "reached(X2,Y2) :- reached(X1,Y1), move(X1,Y1,X2,Y2).\n"
+			+ ":- cell(X,Y), not reached(X,Y).\n";
+	
+	private static final int[][] JUMPS = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+	
+	@Override
+	public String getName() {
+		return "Knights Tour";
+	}
+	
+	@Override
+	public int[] getDefaultSizes() {
+		return new int[] { 8, 12, 16, 20 };
+	}
+	
+	@Override
+	public String getInstanceName(int size) {
+		return String.valueOf(size);
+	}
+	
+	@Override
+	public String generate(int size) {
+		StringBuilder program = new StringBuilder(ENCODING);
+		program.append("reached(1,1).\n");
+		
+		for (int x = 1; x <= size; x ++) {
+			for (int y = 1; y <= size; y ++) {
+				program.append("cell(").append(x).append(',').append(y).append(").\n");
+				
+				for (int[] jump : JUMPS) {
+					int toX = x + jump[0];
+					int toY = y + jump[1];
+					
+					if (toX >= 1 && toX <= size && toY >= 1 && toY <= size) {
+						program.append("valid(").append(x).append(',').append(y).append(',')
+								.append(toX).append(',').append(toY).append(").\n");
+					}
+				}
+			}
+		}
+		
+		return program.toString();
+	}
+}
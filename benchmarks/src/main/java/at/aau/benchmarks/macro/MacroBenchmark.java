@@ -0,0 +1,286 @@
+package at.aau.benchmarks.macro;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+import at.aau.DebugRuleMap;
+import at.aau.GringoWrapper;
+import at.aau.grounder.Grounder;
+import at.aau.grounder.GrounderGringoImpl;
+import at.aau.grounder.GroundingException;
+import at.aau.postprocessing.PostprocessingException;
+
+/**
+ * Runs the complete pipeline of the {@link GringoWrapper} on generated
+ * programs of increasing size and prints the results as a table in the format
+ * of the README. For each instance, the program is grounded by the grounder
+ * alone and by the gringo-wrapper.
+ * <p>
+ * gringo is used if it can be started, the {@link StandInGrounder} otherwise.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class MacroBenchmark {
+	static final ProblemGenerator[] PROBLEMS = {
+		new GraphColoringGenerator(),
+		new HanoiGenerator(),
+		new KnightsTourGenerator(),
+		new PartnerUnitsGenerator()
+	};
+	
+	@Parameter(names = { "-h", "--help" }, help = true, description = "Print help information and exit")
+	private boolean printHelp = false;
+	
+	@Parameter(names = { "-g", "--grounder" }, description = "The command of the grounder, the stand-in grounder is used if it cannot be started")
+	private String grounderCommand = "gringo";
+	
+	@Parameter(names = { "-go", "--grounder-options" }, description = "Command line options passed to the grounder")
+	private String grounderOptions = "";
+	
+	@Parameter(names = { "--stand-in" }, description = "Always use the stand-in grounder")
+	private boolean standIn = false;
+	
+	@Parameter(names = { "--problems" }, description = "Comma separated list of the problems to run, e.g. 'hanoi,knights-tour'")
+	private List<String> problems = new ArrayList<String>();
+	
+	@Parameter(names = { "--sizes" }, description = "Comma separated list of instance sizes that replaces the default sizes of the problems")
+	private List<Integer> sizes = new ArrayList<Integer>();
+	
+	@Parameter(names = { "--warmup" }, description = "The number of unmeasured runs per instance")
+	private int warmup = 1;
+	
+	@Parameter(names = { "--repetitions" }, description = "The number of measured runs per instance, the median time is reported")
+	private int repetitions = 3;
+	
+	@Parameter(names = { "-o", "--output" }, description = "Write the table to the given file instead of the standard output")
+	private String outputFile = null;
+	
+	public static void main(String[] args) throws IOException, GroundingException, PostprocessingException {
+		MacroBenchmark benchmark = new MacroBenchmark();
+		JCommander cli;
+		
+		try {
+			cli = new JCommander(benchmark, args);
+		} catch (ParameterException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		
+		if (benchmark.printHelp) {
+			cli.setProgramName("macro-benchmark");
+			cli.usage();
+			return;
+		}
+		
+		benchmark.run();
+	}
+	
+	private void run() throws IOException, GroundingException, PostprocessingException {
+		Grounder grounder;
+		String grounderName;
+		String version = standIn ? null : getVersion(grounderCommand);
+		
+		if (null == version) {
+			grounder = new StandInGrounder();
+			grounderName = "stand-in grounder";
+		} else {
+			grounder = new GrounderGringoImpl(grounderCommand, grounderOptions);
+			grounderName = version;
+		}
+		
+		StringBuilder table = new StringBuilder();
+		table.append("Grounder: ").append(grounderName).append(", Java ").append(System.getProperty("java.version")).append("\n\n");
+		table.append("| Program        | Instance | #ng  |   #g g |    t | #g g-w |     t | inc |  heap MB |   rules/s |\n");
+		table.append("|----------------|----------|-----:|-------:|-----:|-------:|------:|----:|---------:|----------:|\n");
+		
+		for (ProblemGenerator problem : PROBLEMS) {
+			if (!problems.isEmpty() && !problems.contains(getOptionName(problem))) {
+				continue;
+			}
+			
+			for (int size : getSizes(problem)) {
+				String row = runInstance(grounder, problem, size);
+				table.append(row);
+				System.err.print(row);
+			}
+		}
+		
+		if (null == outputFile) {
+			System.out.print(table);
+		} else {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8);
+			
+			try {
+				writer.write(table.toString());
+			} finally {
+				writer.close();
+			}
+		}
+	}
+	
+	private String runInstance(Grounder grounder, ProblemGenerator problem, int size)
+			throws GroundingException, PostprocessingException {
+		String program = problem.generate(size);
+		int nonGroundRules = program.split("\n").length;
+		
+		// ground the program with the grounder alone
+		long[] grounderTimes = new long[repetitions];
+		int groundRules = 0;
+		
+		for (int run = -warmup; run < repetitions; run ++) {
+			long start = System.nanoTime();
+			String grounded = grounder.ground(program);
+			long time = System.nanoTime() - start;
+			
+			if (run >= 0) {
+				grounderTimes[run] = time;
+				groundRules = countRules(grounded);
+			}
+		}
+		
+		// ground the program with the gringo-wrapper
+		GringoWrapper wrapper = new GringoWrapper(grounder, "_debug", false, false);
+		long[] wrapperTimes = new long[repetitions];
+		int wrapperRules = 0;
+		long peakHeap = 0;
+		
+		for (int run = -warmup; run < repetitions; run ++) {
+			resetPeakHeap();
+			long start = System.nanoTime();
+			String grounded = wrapper.ground(program, true, new DebugRuleMap());
+			long time = System.nanoTime() - start;
+			
+			if (run >= 0) {
+				wrapperTimes[run] = time;
+				wrapperRules = countRules(grounded);
+				peakHeap = Math.max(peakHeap, getPeakHeap());
+			}
+		}
+		
+		double grounderTime = median(grounderTimes) / 1e9;
+		double wrapperTime = median(wrapperTimes) / 1e9;
+		
+		return String.format(Locale.ROOT, "| %-14s | %-8s | %4d | %6d | %4.2f | %6d | %5.2f | %3.1f | %8.1f | %9.0f |%n",
+				problem.getName(), problem.getInstanceName(size), nonGroundRules,
+				groundRules, grounderTime, wrapperRules, wrapperTime,
+				groundRules > 0 ? (double) wrapperRules / groundRules : 0.0,
+				peakHeap / (1024.0 * 1024.0), wrapperRules / wrapperTime);
+	}
+	
+	private int[] getSizes(ProblemGenerator problem) {
+		if (sizes.isEmpty()) {
+			return problem.getDefaultSizes();
+		}
+		
+		int[] result = new int[sizes.size()];
+		
+		for (int i = 0; i < result.length; i ++) {
+			result[i] = sizes.get(i);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Returns the name of the problem as used on the command line, e.g.
+	 * <code>knights-tour</code>.
+	 */
+	static String getOptionName(ProblemGenerator problem) {
+		return problem.getName().toLowerCase(Locale.ROOT).replace(' ', '-');
+	}
+	
+	/**
+	 * Returns the first line of the version output of the grounder, or
+	 * <code>null</code> if the grounder cannot be started.
+	 */
+	static String getVersion(String grounderCommand) {
+		try {
+			Process process = new ProcessBuilder(grounderCommand, "--version").redirectErrorStream(true).start();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			String version = reader.readLine();
+			
+			while (null != reader.readLine()) {
+				// wait for the end of the output
+			}
+			
+			return process.waitFor() == 0 && null != version ? version : null;
+		} catch (IOException | InterruptedException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Counts the rules of a grounded program in the smodels format, i.e. the
+	 * lines before the first line '0'.
+	 */
+	static int countRules(String groundedProgram) {
+		int rules = 0;
+		int start = 0;
+		
+		while (start < groundedProgram.length()) {
+			int end = groundedProgram.indexOf('\n', start);
+			
+			if (end < 0) {
+				end = groundedProgram.length();
+			}
+			
+			if (end - start == 1 && groundedProgram.charAt(start) == '0') {
+				break;
+			}
+			
+			rules ++;
+			start = end + 1;
+		}
+		
+		return rules;
+	}
+	
+	static double median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		
+		return sorted.length % 2 == 1
+				? sorted[sorted.length / 2]
+				: (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2.0;
+	}
+	
+	private static void resetPeakHeap() {
+		System.gc();
+		
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+	
+	private static long getPeakHeap() {
+		long peak = 0;
+		
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		
+		return peak;
+	}
+}
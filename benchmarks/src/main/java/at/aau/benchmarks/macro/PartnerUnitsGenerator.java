@@ -0,0 +1,69 @@
+package at.aau.benchmarks.macro;
+
+import java.util.Random;
+
+/**
+ * Generates partner units problems. The size is the number of zones and
+ * sensors, there is one unit for every two zones. Each zone is connected to
+ * two sensors and to a random sensor.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class PartnerUnitsGenerator implements ProblemGenerator {
+	private static final String ENCODING
+			= "{ unit2zone(U,Z) } :- unit(U), zone(Z).\n"
+			+ "{ unit2sensor(U,S) } :- unit(U), sensor(S).\n"
+			+ "assigned_zone(Z) :- unit2zone(U,Z).\n"
+			+ "assigned_sensor(S) :- unit2sensor(U,S).\n"
+			+ ":- zone(Z), not assigned_zone(Z).\n"
+			+ ":- sensor(S), not assigned_sensor(S).\n"
+			+ ":- unit2zone(U1,Z), unit2zone(U2,Z), U1 < U2.\n"
+			+ ":- unit2sensor(U1,S), unit2sensor(U2,S), U1 < U2.\n"
+			+ "partner(U1,U2) :- unit2zone(U1,Z), zone2sensor(Z,S), unit2sensor(U2,S), U1 != U2.\n"
+			+ ":- partner(U,U1), partner(U,U2), partner(U,U3), U1 < U2, U2 < U3.\n";
+	
+	@Override
+	public String getName() {
+		return "Partner Units";
+	}
+	
+	@Override
+	public int[] getDefaultSizes() {
+		return new int[] { 24, 30, 40, 60 };
+	}
+	
+	@Override
+	public String getInstanceName(int size) {
+		return String.valueOf(size);
+	}
+	
+	@Override
+	public String generate(int size) {
+		StringBuilder program = new StringBuilder(ENCODING);
+		Random random = new Random(size);
+		
+		for (int unit = 1; unit <= (size + 1) / 2; unit ++) {
+			program.append("unit(").append(unit).append(").\n");
+		}
+		
+		for (int zone = 1; zone <= size; zone ++) {
+			program.append("zone(z").append(zone).append(").\n");
+			program.append("sensor(s").append(zone).append(").\n");
+		}
+		
+		for (int zone = 1; zone <= size; zone ++) {
+			int next = zone % size + 1;
+			int other = random.nextInt(size) + 1;
+			
+			program.append("zone2sensor(z").append(zone).append(",s").append(zone).append(").\n");
+			program.append("zone2sensor(z").append(zone).append(",s").append(next).append(").\n");
+			
+			if (other != zone && other != next) {
+				program.append("zone2sensor(z").append(zone).append(",s").append(other).append(").\n");
+			}
+		}
+		
+		return program.toString();
+	}
+}
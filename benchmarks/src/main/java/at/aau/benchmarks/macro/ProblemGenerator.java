@@ -0,0 +1,32 @@
+package at.aau.benchmarks.macro;
+
+/**
+ * Generates the encoding and an instance of a problem of a given size as a
+ * single logic program. The generated programs are deterministic and contain
+ * one statement per line.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public interface ProblemGenerator {
+	/**
+	 * Returns the name of the problem as shown in the result table.
+	 */
+	public String getName();
+	
+	/**
+	 * Returns the sizes of the instances that are benchmarked by default.
+	 */
+	public int[] getDefaultSizes();
+	
+	/**
+	 * Returns the name of the instance of the given size as shown in the
+	 * result table.
+	 */
+	public String getInstanceName(int size);
+	
+	/**
+	 * Returns the encoding together with the instance of the given size.
+	 */
+	public String generate(int size);
+}
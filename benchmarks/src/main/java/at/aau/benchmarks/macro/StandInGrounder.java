@@ -0,0 +1,912 @@
+package at.aau.benchmarks.macro;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.aau.grounder.BufferGrounder;
+import at.aau.grounder.GroundingException;
+import at.aau.io.ByteBuffers;
+import at.aau.statistics.Statistics;
+
+/**
+ * A simple grounder that is used by the macro benchmarks if gringo is not
+ * available. It grounds the programs of the {@link ProblemGenerator}s
+ * bottom-up (semi-naive) and outputs the ground program in the smodels
+ * format, like gringo.
+ * <p>
+ * Only a fragment of the gringo input language is supported: facts, normal
+ * rules, constraints, disjunctive heads and choice heads without bounds or
+ * conditions, whose bodies consist of atoms, default negated atoms and
+ * comparisons of variables and constants. Arithmetic, intervals, aggregates
+ * and directives are not supported. Like gringo, the stand-in derives the
+ * facts of the program and removes them from the bodies of the ground rules,
+ * but it performs no other simplifications, so the grounded programs are
+ * usually somewhat larger.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class StandInGrounder implements BufferGrounder {
+	@Override
+	public String ground(String logicProgram) throws GroundingException {
+		return ByteBuffers.toString(ground(logicProgram, null));
+	}
+	
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+		return ground(logicProgram, buffer, null);
+	}
+	
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+		long start = System.nanoTime();
+		
+		Grounding grounding = new Grounding();
+		
+		for (String statement : splitStatements(logicProgram)) {
+			grounding.addRule(parseRule(statement));
+		}
+		
+		grounding.run();
+		buffer = grounding.write(ByteBuffers.reuse(buffer, logicProgram.length()));
+		buffer.flip();
+		
+		if (null != statistics) {
+			statistics.setProcessTime(System.nanoTime() - start);
+		}
+		
+		return buffer;
+	}
+	
+	// =========================================================================
+	// Parsing
+	// =========================================================================
+	
+	/**
+	 * Splits the program at each single '.' and removes comments.
+	 */
+	private static List<String> splitStatements(String logicProgram) throws GroundingException {
+		List<String> statements = new ArrayList<String>();
+		StringBuilder statement = new StringBuilder();
+		int length = logicProgram.length();
+		
+		for (int i = 0; i < length; i ++) {
+			char c = logicProgram.charAt(i);
+			
+			if ('%' == c) {
+				while (i < length && logicProgram.charAt(i) != '\n') {
+					i ++;
+				}
+			} else if ('.' == c && (i + 1 >= length || logicProgram.charAt(i + 1) != '.')
+					&& (i == 0 || logicProgram.charAt(i - 1) != '.')) {
+				if (statement.toString().trim().length() > 0) {
+					statements.add(statement.toString().trim());
+				}
+				
+				statement.setLength(0);
+			} else {
+				statement.append(c);
+			}
+		}
+		
+		if (statement.toString().trim().length() > 0) {
+			throw new GroundingException("The statement is not terminated by '.': " + statement);
+		}
+		
+		return statements;
+	}
+	
+	private static RuleTemplate parseRule(String statement) throws GroundingException {
+		RuleTemplate rule = new RuleTemplate(statement);
+		int neck = statement.indexOf(":-");
+		String head = (neck < 0 ? statement : statement.substring(0, neck)).trim();
+		
+		if (head.startsWith("{")) {
+			if (!head.endsWith("}")) {
+				throw unsupported(statement, "choice rules with bounds");
+			}
+			
+			rule.choice = true;
+			
+			for (String atom : split(head.substring(1, head.length() - 1), ";,")) {
+				rule.head.add(parseAtom(rule, atom, statement));
+			}
+		} else if (!head.isEmpty()) {
+			for (String atom : split(head, "|;")) {
+				rule.head.add(parseAtom(rule, atom, statement));
+			}
+		}
+		
+		if (neck >= 0) {
+			for (String literal : split(statement.substring(neck + 2), ",")) {
+				if (literal.startsWith("not ")) {
+					rule.negative.add(parseAtom(rule, literal.substring(4), statement));
+				} else if (null != Comparison.operator(literal)) {
+					String operator = Comparison.operator(literal);
+					int index = literal.indexOf(operator);
+					rule.comparisons.add(new Comparison(operator,
+							parseTerm(rule, literal.substring(0, index).trim(), statement),
+							parseTerm(rule, literal.substring(index + operator.length()).trim(), statement)));
+				} else {
+					rule.positive.add(parseAtom(rule, literal, statement));
+				}
+			}
+		}
+		
+		rule.checkSafety();
+		return rule;
+	}
+	
+	private static AtomTemplate parseAtom(RuleTemplate rule, String atom, String statement) throws GroundingException {
+		atom = atom.trim();
+		int open = atom.indexOf('(');
+		
+		if (open < 0) {
+			return new AtomTemplate(atom, new Term[0]);
+		}
+		
+		if (!atom.endsWith(")")) {
+			throw unsupported(statement, "the atom " + atom);
+		}
+		
+		List<String> arguments = split(atom.substring(open + 1, atom.length() - 1), ",");
+		Term[] terms = new Term[arguments.size()];
+		
+		for (int i = 0; i < terms.length; i ++) {
+			terms[i] = parseTerm(rule, arguments.get(i), statement);
+		}
+		
+		return new AtomTemplate(atom.substring(0, open).trim(), terms);
+	}
+	
+	private static Term parseTerm(RuleTemplate rule, String term, String statement) throws GroundingException {
+		term = term.trim();
+		
+		if (term.isEmpty() || term.equals("_") || term.contains("..") || term.matches(".*[-+*/\\\\].+")) {
+			throw unsupported(statement, "the term '" + term + "'");
+		}
+		
+		int open = term.indexOf('(');
+		
+		if (open >= 0) {
+			List<String> arguments = split(term.substring(open + 1, term.length() - 1), ",");
+			Term[] terms = new Term[arguments.size()];
+			
+			for (int i = 0; i < terms.length; i ++) {
+				terms[i] = parseTerm(rule, arguments.get(i), statement);
+			}
+			
+			return Term.function(term.substring(0, open), terms);
+		}
+		
+		String name = term.replaceFirst("^_*", "");
+		
+		if (!name.isEmpty() && Character.isUpperCase(name.charAt(0))) {
+			return Term.variable(rule.variable(term));
+		}
+		
+		return Term.constant(term);
+	}
+	
+	/**
+	 * Splits the given text at the given delimiters that are not nested in
+	 * parentheses or braces.
+	 */
+	private static List<String> split(String text, String delimiters) {
+		List<String> parts = new ArrayList<String>();
+		int depth = 0;
+		int start = 0;
+		
+		for (int i = 0; i < text.length(); i ++) {
+			char c = text.charAt(i);
+			
+			if ('(' == c || '{' == c) {
+				depth ++;
+			} else if (')' == c || '}' == c) {
+				depth --;
+			} else if (0 == depth && delimiters.indexOf(c) >= 0) {
+				parts.add(text.substring(start, i).trim());
+				start = i + 1;
+			}
+		}
+		
+		if (!text.substring(start).trim().isEmpty()) {
+			parts.add(text.substring(start).trim());
+		}
+		
+		return parts;
+	}
+	
+	private static GroundingException unsupported(String statement, String construct) {
+		return new GroundingException("The stand-in grounder does not support " + construct + " in: " + statement);
+	}
+	
+	// =========================================================================
+	// Grounding
+	// =========================================================================
+	
+	/**
+	 * The state of the grounding of a single program.
+	 */
+	private static class Grounding {
+		private final List<RuleTemplate> rules = new ArrayList<RuleTemplate>();
+		
+		private final Map<String, Predicate> predicates = new HashMap<String, Predicate>();
+		
+		/** The ground atoms in the order of their ids, starting with id 2 */
+		private final List<GroundAtom> atoms = new ArrayList<GroundAtom>();
+		
+		/** The ground rules as lists of atoms ids, see {@link #addInstance} */
+		private final List<int[]> instances = new ArrayList<int[]>();
+		
+		/** The non-ground rules of the ground rules, in the same order */
+		private final List<RuleTemplate> instanceRules = new ArrayList<RuleTemplate>();
+		
+		/** The default negated atoms of the ground rules, in the same order */
+		private final List<String[]> negativeInstances = new ArrayList<String[]>();
+		
+		/** The current iteration of the semi-naive evaluation */
+		private int generation;
+		
+		public void addRule(RuleTemplate rule) {
+			rules.add(rule);
+			
+			for (List<AtomTemplate> atoms : Arrays.asList(rule.head, rule.positive, rule.negative)) {
+				for (AtomTemplate atom : atoms) {
+					atom.predicate = predicates.get(atom.key);
+					
+					if (null == atom.predicate) {
+						atom.predicate = new Predicate(atom.arguments.length);
+						predicates.put(atom.key, atom.predicate);
+					}
+				}
+			}
+		}
+		
+		public void run() {
+			generation = 0;
+			boolean changed = true;
+			
+			while (changed) {
+				int atomCount = atoms.size();
+				
+				for (RuleTemplate rule : rules) {
+					if (rule.positive.isEmpty()) {
+						if (generation == 0) {
+							addInstance(rule, new String[rule.variables.size()], new GroundAtom[0]);
+						}
+					} else {
+						// each instance contains at least one atom of the last generation
+						for (int delta = 0; delta < rule.positive.size(); delta ++) {
+							instantiate(rule, 0, delta, new String[rule.variables.size()], new GroundAtom[rule.positive.size()]);
+						}
+					}
+				}
+				
+				changed = atoms.size() > atomCount;
+				generation ++;
+			}
+		}
+		
+		/**
+		 * Joins the positive body atoms of the rule, starting with the atom at
+		 * index <code>delta</code>, which is matched against the atoms of the
+		 * previous generation. The atoms before it are matched against older
+		 * atoms, and the atoms after it against all atoms up to the previous
+		 * generation. The remaining atoms are joined in the order of their
+		 * number of candidates.
+		 */
+		private void instantiate(RuleTemplate rule, int step, int delta, String[] binding, GroundAtom[] body) {
+			if (step == rule.positive.size()) {
+				addInstance(rule, binding, body);
+				return;
+			}
+			
+			int index = delta;
+			List<GroundAtom> candidates = null;
+			int first = 0;
+			
+			if (step == 0) {
+				candidates = rule.positive.get(delta).predicate.atoms;
+				first = rule.positive.get(delta).predicate.firstOfGeneration(generation - 1);
+			} else {
+				for (int i = 0; i < body.length; i ++) {
+					if (null == body[i]) {
+						List<GroundAtom> matching = rule.positive.get(i).candidates(binding);
+						
+						if (null == candidates || matching.size() < candidates.size()) {
+							index = i;
+							candidates = matching;
+						}
+					}
+				}
+			}
+			
+			AtomTemplate atom = rule.positive.get(index);
+			String[] saved = binding.clone();
+			
+			// atoms that are added while joining belong to the current generation
+			for (int c = first, size = candidates.size(); c < size; c ++) {
+				GroundAtom candidate = candidates.get(c);
+				
+				if (candidate.generation >= generation
+						|| (index == delta && candidate.generation != generation - 1)
+						|| (index < delta && candidate.generation >= generation - 1)) {
+					continue;
+				}
+				
+				if (atom.match(candidate.arguments, binding) && rule.holds(binding)) {
+					body[index] = candidate;
+					instantiate(rule, step + 1, delta, binding, body);
+				}
+				
+				System.arraycopy(saved, 0, binding, 0, saved.length);
+			}
+			
+			body[index] = null;
+		}
+		
+		private void addInstance(RuleTemplate rule, String[] binding, GroundAtom[] body) {
+			// [type, heads, head atoms..., positive body atoms...]
+			int[] instance = new int[2 + rule.head.size() + rule.positive.size()];
+			instance[0] = rule.type();
+			instance[1] = rule.head.size();
+			int i = 2;
+			
+			for (AtomTemplate head : rule.head) {
+				instance[i ++] = addAtom(head, binding).id;
+			}
+			
+			for (GroundAtom positive : body) {
+				instance[i ++] = positive.id;
+			}
+			
+			String[] negative = new String[rule.negative.size()];
+			
+			for (int j = 0; j < negative.length; j ++) {
+				negative[j] = rule.negative.get(j).text(binding);
+			}
+			
+			// like gringo, derive the head of rules whose body consists of facts
+			if (1 == instance[0] && 1 == instance[1] && 0 == negative.length) {
+				GroundAtom head = atoms.get(instance[2] - 2);
+				boolean fact = !head.fact;
+				
+				for (i = 3; i < instance.length && fact; i ++) {
+					fact = atoms.get(instance[i] - 2).fact;
+				}
+				
+				if (fact) {
+					head.fact = true;
+					head.definition = instances.size();
+				}
+			}
+			
+			instances.add(instance);
+			instanceRules.add(rule);
+			negativeInstances.add(negative);
+		}
+		
+		private GroundAtom addAtom(AtomTemplate atom, String[] binding) {
+			Predicate predicate = atom.predicate;
+			String text = atom.text(binding);
+			GroundAtom ground = predicate.get(text);
+			
+			if (null == ground) {
+				String[] arguments = new String[atom.arguments.length];
+				
+				for (int i = 0; i < arguments.length; i ++) {
+					arguments[i] = atom.arguments[i].evaluate(binding);
+				}
+				
+				ground = new GroundAtom(atoms.size() + 2, text, arguments, generation);
+				atoms.add(ground);
+				predicate.add(ground);
+			}
+			
+			return ground;
+		}
+		
+		public ByteBuffer write(ByteBuffer buffer) {
+			rules:
+			for (int r = 0; r < instances.size(); r ++) {
+				int[] instance = instances.get(r);
+				int heads = instance[1];
+				List<GroundAtom> negative = new ArrayList<GroundAtom>();
+				List<GroundAtom> positive = new ArrayList<GroundAtom>();
+				
+				if (1 == instance[0] && 1 == heads && atoms.get(instance[2] - 2).fact) {
+					// the fact is output once, without a body
+					if (atoms.get(instance[2] - 2).definition != r) {
+						continue;
+					}
+				} else {
+					for (int i = 2 + heads; i < instance.length; i ++) {
+						// facts are removed from the body
+						if (!atoms.get(instance[i] - 2).fact) {
+							positive.add(atoms.get(instance[i] - 2));
+						}
+					}
+				}
+				
+				String[] negativeAtoms = negativeInstances.get(r);
+				
+				for (int i = 0; i < negativeAtoms.length; i ++) {
+					GroundAtom atom = instanceRules.get(r).negative.get(i).predicate.get(negativeAtoms[i]);
+					
+					if (null != atom && atom.fact) {
+						// the body is false
+						continue rules;
+					} else if (null != atom) {
+						// the literal is true if the atom cannot be derived
+						negative.add(atom);
+					}
+				}
+				
+				int body = positive.size() + negative.size();
+				buffer = ByteBuffers.putInt(buffer, instance[0]);
+				
+				if (0 == heads) {
+					buffer = ByteBuffers.putAscii(buffer, " 1");
+				} else {
+					if (1 != instance[0]) {
+						buffer = ByteBuffers.putAscii(buffer, " ");
+						buffer = ByteBuffers.putInt(buffer, heads);
+					}
+					
+					for (int i = 2; i < 2 + heads; i ++) {
+						buffer = ByteBuffers.putAscii(buffer, " ");
+						buffer = ByteBuffers.putInt(buffer, instance[i]);
+					}
+				}
+				
+				buffer = ByteBuffers.putAscii(buffer, " ");
+				buffer = ByteBuffers.putInt(buffer, body);
+				buffer = ByteBuffers.putAscii(buffer, " ");
+				buffer = ByteBuffers.putInt(buffer, negative.size());
+				
+				for (GroundAtom atom : negative) {
+					buffer = ByteBuffers.putAscii(buffer, " ");
+					buffer = ByteBuffers.putInt(buffer, atom.id);
+				}
+				
+				for (GroundAtom atom : positive) {
+					buffer = ByteBuffers.putAscii(buffer, " ");
+					buffer = ByteBuffers.putInt(buffer, atom.id);
+				}
+				
+				buffer = ByteBuffers.putAscii(buffer, "\n");
+			}
+			
+			buffer = ByteBuffers.putAscii(buffer, "0\n");
+			
+			for (GroundAtom atom : atoms) {
+				buffer = ByteBuffers.putInt(buffer, atom.id);
+				buffer = ByteBuffers.putAscii(buffer, " ");
+				buffer = ByteBuffers.putAscii(buffer, atom.text);
+				buffer = ByteBuffers.putAscii(buffer, "\n");
+			}
+			
+			return ByteBuffers.putAscii(buffer, "0\nB+\n0\nB-\n1\n0\n1\n");
+		}
+	}
+	
+	/**
+	 * The ground atoms of a predicate, indexed by their arguments.
+	 */
+	private static class Predicate {
+		private final List<GroundAtom> atoms = new ArrayList<GroundAtom>();
+		
+		private final Map<String, GroundAtom> atomsByText = new HashMap<String, GroundAtom>();
+		
+		private final List<Map<String, List<GroundAtom>>> atomsByArgument = new ArrayList<Map<String, List<GroundAtom>>>();
+		
+		public Predicate(int arity) {
+			for (int i = 0; i < arity; i ++) {
+				atomsByArgument.add(new HashMap<String, List<GroundAtom>>());
+			}
+		}
+		
+		/**
+		 * Returns the index of the first atom of the given generation or a
+		 * later generation.
+		 */
+		public int firstOfGeneration(int generation) {
+			int low = 0;
+			int high = atoms.size();
+			
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				
+				if (atoms.get(middle).generation < generation) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			
+			return low;
+		}
+		
+		public GroundAtom get(String text) {
+			return atomsByText.get(text);
+		}
+		
+		public List<GroundAtom> lookup(int argument, String value) {
+			List<GroundAtom> atoms = atomsByArgument.get(argument).get(value);
+			return null == atoms ? Collections.<GroundAtom>emptyList() : atoms;
+		}
+		
+		public void add(GroundAtom atom) {
+			atoms.add(atom);
+			atomsByText.put(atom.text, atom);
+			
+			for (int i = 0; i < atom.arguments.length; i ++) {
+				List<GroundAtom> atoms = atomsByArgument.get(i).get(atom.arguments[i]);
+				
+				if (null == atoms) {
+					atoms = new ArrayList<GroundAtom>();
+					atomsByArgument.get(i).put(atom.arguments[i], atoms);
+				}
+				
+				atoms.add(atom);
+			}
+		}
+	}
+	
+	private static class GroundAtom {
+		private final int id;
+		private final String text;
+		private final String[] arguments;
+		private final int generation;
+		
+		/** Whether the atom is a fact */
+		private boolean fact;
+		
+		/** The index of the ground rule that derives the fact */
+		private int definition;
+		
+		public GroundAtom(int id, String text, String[] arguments, int generation) {
+			this.id = id;
+			this.text = text;
+			this.arguments = arguments;
+			this.generation = generation;
+		}
+	}
+	
+	// =========================================================================
+	// Non-ground rules
+	// =========================================================================
+	
+	private static class RuleTemplate {
+		private final String statement;
+		private final List<String> variables = new ArrayList<String>();
+		private final List<AtomTemplate> head = new ArrayList<AtomTemplate>();
+		private final List<AtomTemplate> positive = new ArrayList<AtomTemplate>();
+		private final List<AtomTemplate> negative = new ArrayList<AtomTemplate>();
+		private final List<Comparison> comparisons = new ArrayList<Comparison>();
+		private boolean choice;
+		
+		public RuleTemplate(String statement) {
+			this.statement = statement;
+		}
+		
+		/**
+		 * Returns the index of the variable with the given name.
+		 */
+		public int variable(String name) {
+			int index = variables.indexOf(name);
+			
+			if (index < 0) {
+				variables.add(name);
+				index = variables.size() - 1;
+			}
+			
+			return index;
+		}
+		
+		/**
+		 * Returns the smodels type of the ground instances of the rule.
+		 */
+		public int type() {
+			if (choice) {
+				return 3;
+			}
+			
+			return head.size() > 1 ? 8 : 1;
+		}
+		
+		/**
+		 * Returns whether the comparisons whose variables are bound hold.
+		 */
+		public boolean holds(String[] binding) {
+			for (Comparison comparison : comparisons) {
+				if (!comparison.holds(binding)) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Checks that each variable occurs in a positive body atom.
+		 */
+		public void checkSafety() throws GroundingException {
+			boolean[] bound = new boolean[variables.size()];
+			
+			for (AtomTemplate atom : positive) {
+				for (Term argument : atom.arguments) {
+					argument.markVariables(bound);
+				}
+			}
+			
+			for (int i = 0; i < bound.length; i ++) {
+				if (!bound[i]) {
+					throw new GroundingException("The variable " + variables.get(i) + " is unsafe in: " + statement);
+				}
+			}
+		}
+	}
+	
+	private static class AtomTemplate {
+		private final String name;
+		
+		/** The name and the arity of the predicate */
+		private final String key;
+		
+		private final Term[] arguments;
+		
+		/** The ground atoms of the predicate */
+		private Predicate predicate;
+		
+		public AtomTemplate(String name, Term[] arguments) {
+			this.name = name;
+			this.key = name + "/" + arguments.length;
+			this.arguments = arguments;
+		}
+		
+		/**
+		 * Returns the ground atoms of the predicate that may match the atom,
+		 * using the most selective index of the bound arguments.
+		 */
+		public List<GroundAtom> candidates(String[] binding) {
+			List<GroundAtom> candidates = predicate.atoms;
+			
+			for (int i = 0; i < arguments.length; i ++) {
+				String value = arguments[i].evaluate(binding);
+				
+				if (null != value) {
+					List<GroundAtom> matching = predicate.lookup(i, value);
+					
+					if (matching.size() < candidates.size()) {
+						candidates = matching;
+					}
+				}
+			}
+			
+			return candidates;
+		}
+		
+		/**
+		 * Matches the arguments against the arguments of a ground atom and
+		 * binds the unbound variables.
+		 */
+		public boolean match(String[] ground, String[] binding) {
+			for (int i = 0; i < arguments.length; i ++) {
+				if (!arguments[i].match(ground[i], binding)) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		public String text(String[] binding) {
+			if (arguments.length == 0) {
+				return name;
+			}
+			
+			StringBuilder text = new StringBuilder(name).append('(');
+			
+			for (int i = 0; i < arguments.length; i ++) {
+				if (i > 0) {
+					text.append(',');
+				}
+				
+				text.append(arguments[i].evaluate(binding));
+			}
+			
+			return text.append(')').toString();
+		}
+	}
+	
+	private static class Term {
+		/** The name of a constant or function, <code>null</code> for a variable */
+		private final String name;
+		
+		/** The index of a variable */
+		private final int variable;
+		
+		/** The arguments of a function, <code>null</code> for a constant */
+		private final Term[] arguments;
+		
+		private Term(String name, int variable, Term[] arguments) {
+			this.name = name;
+			this.variable = variable;
+			this.arguments = arguments;
+		}
+		
+		public static Term constant(String name) {
+			return new Term(name, -1, null);
+		}
+		
+		public static Term variable(int index) {
+			return new Term(null, index, null);
+		}
+		
+		public static Term function(String name, Term[] arguments) {
+			return new Term(name, -1, arguments);
+		}
+		
+		/**
+		 * Returns the ground term, or <code>null</code> if a variable of the
+		 * term is not bound yet.
+		 */
+		public String evaluate(String[] binding) {
+			if (null == name) {
+				return binding[variable];
+			}
+			
+			if (null == arguments) {
+				return name;
+			}
+			
+			StringBuilder text = new StringBuilder(name).append('(');
+			
+			for (int i = 0; i < arguments.length; i ++) {
+				String argument = arguments[i].evaluate(binding);
+				
+				if (null == argument) {
+					return null;
+				}
+				
+				text.append(i > 0 ? "," : "").append(argument);
+			}
+			
+			return text.append(')').toString();
+		}
+		
+		public boolean match(String ground, String[] binding) {
+			if (null == name && null == binding[variable]) {
+				binding[variable] = ground;
+				return true;
+			}
+			
+			// functions with unbound variables are compared after binding them
+			String value = evaluate(binding);
+			return null == value || value.equals(ground);
+		}
+		
+		public void markVariables(boolean[] bound) {
+			if (null == name) {
+				bound[variable] = true;
+			} else if (null != arguments) {
+				for (Term argument : arguments) {
+					argument.markVariables(bound);
+				}
+			}
+		}
+	}
+	
+	private static class Comparison {
+		private static final String[] OPERATORS = { "!=", "<>", "<=", ">=", "==", "<", ">", "=" };
+		
+		private final String operator;
+		private final Term left;
+		private final Term right;
+		
+		public Comparison(String operator, Term left, Term right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+		
+		/**
+		 * Returns the comparison operator of the literal, or <code>null</code>
+		 * if the literal is not a comparison.
+		 */
+		public static String operator(String literal) {
+			if (literal.indexOf('(') >= 0 && literal.indexOf('(') < firstOperatorIndex(literal)) {
+				return null;
+			}
+			
+			for (String operator : OPERATORS) {
+				if (literal.contains(operator)) {
+					return operator;
+				}
+			}
+			
+			return null;
+		}
+		
+		private static int firstOperatorIndex(String literal) {
+			for (int i = 0; i < literal.length(); i ++) {
+				if ("!<>=".indexOf(literal.charAt(i)) >= 0) {
+					return i;
+				}
+			}
+			
+			return Integer.MAX_VALUE;
+		}
+		
+		/**
+		 * Returns whether the comparison holds, or <code>true</code> if a
+		 * variable is not bound yet.
+		 */
+		public boolean holds(String[] binding) {
+			String leftValue = left.evaluate(binding);
+			String rightValue = right.evaluate(binding);
+			
+			if (null == leftValue || null == rightValue) {
+				return true;
+			}
+			
+			int difference = compare(leftValue, rightValue);
+			
+			switch (operator) {
+			case "<":
+				return difference < 0;
+			case "<=":
+				return difference <= 0;
+			case ">":
+				return difference > 0;
+			case ">=":
+				return difference >= 0;
+			case "!=":
+			case "<>":
+				return difference != 0;
+			default:
+				return difference == 0;
+			}
+		}
+		
+		/**
+		 * Compares two ground terms. Integers are smaller than all other
+		 * terms, other terms are compared by their text.
+		 */
+		private static int compare(String left, String right) {
+			boolean leftInteger = isInteger(left);
+			boolean rightInteger = isInteger(right);
+			
+			if (leftInteger && rightInteger) {
+				return Long.compare(Long.parseLong(left), Long.parseLong(right));
+			} else if (leftInteger != rightInteger) {
+				return leftInteger ? -1 : 1;
+			}
+			
+			return left.compareTo(right);
+		}
+		
+		private static boolean isInteger(String term) {
+			int start = term.startsWith("-") ? 1 : 0;
+			
+			if (term.length() == start) {
+				return false;
+			}
+			
+			for (int i = start; i < term.length(); i ++) {
+				if (term.charAt(i) < '0' || term.charAt(i) > '9') {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	}
+}
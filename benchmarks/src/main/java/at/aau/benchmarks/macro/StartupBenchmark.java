@@ -0,0 +1,244 @@
+package at.aau.benchmarks.macro;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+import at.aau.App;
+
+/**
+ * Measures the startup of the gringo-wrapper, i.e. the wall clock time of a
+ * fresh JVM that prints the version, rewrites a tiny program with
+ * <code>--rewrite-only</code> and grounds a tiny program. For such programs
+ * the time is dominated by the start of the JVM, the loading of the classes
+ * and the initialization of the wrapper, so a regression of the startup shows
+ * up here long before it shows up in the {@link MacroBenchmark}.
+ * <p>
+ * The wrapper is started with the classpath of the benchmark, or with the
+ * given start script, e.g. the one of a distribution built with the
+ * <code>cds</code> profile. gringo is used for the grounding if it can be
+ * started. Otherwise the {@link StandInGrounder} is used, which is only on the
+ * classpath of the benchmark, so the grounding is skipped for a start script.
+ * <p>
+ * Before the measurement, the wrapper is started once with
+ * <code>-Xlog:class+load</code> to report where its main class is loaded
+ * from, e.g. from a class-data sharing archive. The JVM silently ignores an
+ * archive that does not fit its settings, e.g. its heap size.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class StartupBenchmark {
+	/** The line of <code>-Xlog:class+load</code> for the main class of the wrapper */
+	private static final String APP_LOADED = " " + App.class.getName() + " source: ";
+	
+	/** A tiny program in the fragment of the {@link StandInGrounder} */
+	private static final String PROGRAM =
+			"node(1). node(2). node(3). edge(1,2). edge(2,3).\n"
+		  + "color(X,red) | color(X,green) :- node(X).\n"
+		  + ":- edge(X,Y), color(X,C), color(Y,C).\n";
+	
+	@Parameter(names = { "-h", "--help" }, help = true, description = "Print help information and exit")
+	private boolean printHelp = false;
+	
+	@Parameter(names = { "--script" }, description = "The start script of the gringo-wrapper, the classpath of the benchmark is used if it is not given")
+	private String script = null;
+	
+	@Parameter(names = { "--jvm-options" }, description = "Options passed to the JVM, e.g. '-Xshare:off', separated by spaces")
+	private String jvmOptions = "";
+	
+	@Parameter(names = { "-g", "--grounder" }, description = "The command of the grounder, the stand-in grounder is used if it cannot be started")
+	private String grounderCommand = "gringo";
+	
+	@Parameter(names = { "-go", "--grounder-options" }, description = "Command line options passed to the grounder")
+	private String grounderOptions = "";
+	
+	@Parameter(names = { "--stand-in" }, description = "Always use the stand-in grounder")
+	private boolean standIn = false;
+	
+	@Parameter(names = { "--runs" }, description = "The number of measured runs per case, after one run to warm up the file system caches")
+	private int runs = 10;
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		StartupBenchmark benchmark = new StartupBenchmark();
+		JCommander cli;
+		
+		try {
+			cli = new JCommander(benchmark, args);
+		} catch (ParameterException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		
+		if (benchmark.printHelp) {
+			cli.setProgramName("startup-benchmark");
+			cli.usage();
+			return;
+		}
+		
+		benchmark.run();
+	}
+	
+	private void run() throws IOException, InterruptedException {
+		File program = File.createTempFile("startup", ".lp");
+		File output = File.createTempFile("startup", ".out");
+		
+		try {
+			Files.write(program.toPath(), PROGRAM.getBytes(StandardCharsets.UTF_8));
+			
+			String version = standIn ? null : MacroBenchmark.getVersion(grounderCommand);
+			List<String> grounding = null;
+			String grounderName;
+			
+			if (null != version) {
+				grounding = new ArrayList<String>(Arrays.asList("--grounder", grounderCommand));
+				
+				if (!grounderOptions.isEmpty()) {
+					grounding.add("--grounder-options=" + grounderOptions);
+				}
+				
+				grounderName = version;
+			} else if (null == script) {
+				grounding = new ArrayList<String>(Arrays.asList("--grounder-class", StandInGrounder.class.getName()));
+				grounderName = "stand-in grounder";
+			} else {
+				grounderName = "none, the stand-in grounder is not on the classpath of the script";
+			}
+			
+			System.out.println("Launcher: " + (null == script ? "java -cp <benchmark classpath>" : script)
+					+ (jvmOptions.isEmpty() ? "" : ", JVM options: " + jvmOptions) + ", grounder: " + grounderName
+					+ ", Java " + System.getProperty("java.version"));
+			System.out.println("Main class loaded from: " + getAppSource(output) + "\n");
+			System.out.println("| case              | median (ms) | min (ms) |");
+			System.out.println("|-------------------|------------:|---------:|");
+			
+			measure("--version", Arrays.asList("--version"), output);
+			measure("--rewrite-only", Arrays.asList("--rewrite-only", program.getPath()), output);
+			
+			if (null != grounding) {
+				grounding.add(program.getPath());
+				measure("tiny grounding", grounding, output);
+			}
+		} finally {
+			program.delete();
+			output.delete();
+		}
+	}
+	
+	/**
+	 * Starts the wrapper with the given arguments once to warm up and then
+	 * <code>runs</code> times, and prints the median and the minimum time.
+	 */
+	private void measure(String name, List<String> arguments, File output) throws IOException, InterruptedException {
+		List<String> command = getCommand(arguments);
+		long[] times = new long[runs];
+		launch(command, output);
+		
+		for (int i = 0; i < runs; i ++) {
+			times[i] = launch(command, output);
+		}
+		
+		long min = Long.MAX_VALUE;
+		
+		for (long time : times) {
+			min = Math.min(min, time);
+		}
+		
+		System.out.println(String.format(Locale.ROOT, "| %-17s | %11.1f | %8.1f |",
+				name, MacroBenchmark.median(times) / 1e6, min / 1e6));
+	}
+	
+	private List<String> getCommand(List<String> arguments) {
+		List<String> command = new ArrayList<String>();
+		
+		if (null == script) {
+			command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+			addJvmOptions(command);
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(App.class.getName());
+		} else {
+			command.add(script);
+		}
+		
+		command.addAll(arguments);
+		
+		return command;
+	}
+	
+	/**
+	 * Starts the wrapper with <code>-Xlog:class+load</code> and returns the
+	 * source of its main class, e.g. <code>shared objects file</code> if it is
+	 * loaded from a class-data sharing archive.
+	 */
+	private String getAppSource(File output) throws IOException, InterruptedException {
+		String jvmOptions = this.jvmOptions;
+		this.jvmOptions = (jvmOptions + " -Xlog:class+load=info").trim();
+		
+		try {
+			launch(getCommand(Arrays.asList("--version")), output);
+		} catch (IOException e) {
+			// e.g. a JVM before Java 9 without -Xlog
+			return "unknown";
+		} finally {
+			this.jvmOptions = jvmOptions;
+		}
+		
+		for (String line : Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)) {
+			int index = line.indexOf(APP_LOADED);
+			
+			if (index > -1) {
+				return line.substring(index + APP_LOADED.length());
+			}
+		}
+		
+		return "unknown";
+	}
+	
+	private void addJvmOptions(List<String> command) {
+		for (String option : jvmOptions.trim().split(" +")) {
+			if (!option.isEmpty()) {
+				command.add(option);
+			}
+		}
+	}
+	
+	/**
+	 * Runs the given command until it exits and returns its wall clock time in
+	 * nanoseconds.
+	 *
+	 * @throws IOException
+	 *             If the command could not be started or failed.
+	 */
+	private long launch(List<String> command, File output) throws IOException, InterruptedException {
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectOutput(output);
+		builder.redirectError(Redirect.INHERIT);
+		
+		if (null != script && !jvmOptions.isEmpty()) {
+			// the start scripts of the appassembler pass JAVA_OPTS to the JVM
+			builder.environment().put("JAVA_OPTS", jvmOptions);
+		}
+		
+		long start = System.nanoTime();
+		int exitCode = builder.start().waitFor();
+		long time = System.nanoTime() - start;
+		
+		if (exitCode != 0) {
+			throw new IOException("The command " + command + " failed with exit code " + exitCode);
+		}
+		
+		return time;
+	}
+}
@@ -0,0 +1,199 @@
+package at.aau.benchmarks.macro;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+import at.aau.DebugRuleMap;
+import at.aau.GringoWrapper;
+import at.aau.grounder.BufferGrounder;
+import at.aau.grounder.Grounder;
+import at.aau.grounder.GrounderGringoImpl;
+import at.aau.grounder.Grounders;
+import at.aau.grounder.GroundingException;
+import at.aau.statistics.Statistics;
+
+/**
+ * Measures the throughput of a single {@link GringoWrapper} that grounds many
+ * programs at the same time with {@link GringoWrapper#groundAsync}, for an
+ * increasing number of threads. The number of grounder processes is limited
+ * to the number of threads.
+ * <p>
+ * gringo is used if it can be started. Otherwise the {@link StandInGrounder}
+ * is used, and each call waits for the given latency first, like for the
+ * start and the output of a grounder process. In both cases the grounder is
+ * the bottleneck, so the throughput should grow almost linearly with the
+ * number of threads until the processors (or, for the stand-in, the latency)
+ * are saturated.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ThroughputBenchmark {
+	@Parameter(names = { "-h", "--help" }, help = true, description = "Print help information and exit")
+	private boolean printHelp = false;
+	
+	@Parameter(names = { "-g", "--grounder" }, description = "The command of the grounder, the stand-in grounder is used if it cannot be started")
+	private String grounderCommand = "gringo";
+	
+	@Parameter(names = { "-go", "--grounder-options" }, description = "Command line options passed to the grounder")
+	private String grounderOptions = "";
+	
+	@Parameter(names = { "--stand-in" }, description = "Always use the stand-in grounder")
+	private boolean standIn = false;
+	
+	@Parameter(names = { "--latency" }, description = "The milliseconds the stand-in grounder waits per program")
+	private int latency = 50;
+	
+	@Parameter(names = { "--threads" }, description = "Comma separated list of the numbers of threads")
+	private List<Integer> threads = new ArrayList<Integer>();
+	
+	@Parameter(names = { "--programs" }, description = "The number of programs grounded per number of threads")
+	private int programs = 64;
+	
+	@Parameter(names = { "--size" }, description = "The size of the Graph Coloring instances")
+	private int size = 125;
+	
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		ThroughputBenchmark benchmark = new ThroughputBenchmark();
+		JCommander cli;
+		
+		try {
+			cli = new JCommander(benchmark, args);
+		} catch (ParameterException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		
+		if (benchmark.printHelp) {
+			cli.setProgramName("throughput-benchmark");
+			cli.usage();
+			return;
+		}
+		
+		benchmark.run();
+	}
+	
+	private void run() throws InterruptedException, ExecutionException {
+		Grounder grounder;
+		String grounderName;
+		String version = standIn ? null : MacroBenchmark.getVersion(grounderCommand);
+		
+		if (null == version) {
+			grounder = new LatencyGrounder(new StandInGrounder(), latency);
+			grounderName = "stand-in grounder with " + latency + " ms latency";
+		} else {
+			grounder = new GrounderGringoImpl(grounderCommand, grounderOptions);
+			grounderName = version;
+		}
+		
+		if (threads.isEmpty()) {
+			for (int n = 1; n <= 2 * Runtime.getRuntime().availableProcessors() || n <= 8; n *= 2) {
+				threads.add(n);
+			}
+		}
+		
+		String program = new GraphColoringGenerator().generate(size);
+		
+		System.out.println("Grounder: " + grounderName + ", " + Runtime.getRuntime().availableProcessors()
+				+ " processors, Java " + System.getProperty("java.version") + "\n");
+		System.out.println("| threads | programs/s | speedup | efficiency |");
+		System.out.println("|--------:|-----------:|--------:|-----------:|");
+		
+		// warm up
+		measure(grounder, program, 1, Math.max(1, programs / 8));
+		double baseline = 0;
+		
+		for (int n : threads) {
+			double throughput = measure(grounder, program, n, programs);
+			
+			if (baseline == 0) {
+				baseline = throughput / n;
+			}
+			
+			System.out.println(String.format(Locale.ROOT, "| %7d | %10.1f | %7.2f | %9.0f%% |",
+					n, throughput, throughput / baseline, 100 * throughput / baseline / n));
+		}
+	}
+	
+	/**
+	 * Grounds the program the given number of times with the given number of
+	 * threads and returns the number of programs per second.
+	 */
+	private double measure(Grounder grounder, String program, int threads, int programs)
+			throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		
+		try {
+			GringoWrapper wrapper = new GringoWrapper(grounder, "_debug", false, false);
+			wrapper.setExecutor(executor);
+			wrapper.setMaxGrounderProcesses(threads);
+			wrapper.setPostprocessingThreads(1);
+			
+			List<Future<String>> results = new ArrayList<Future<String>>(programs);
+			long start = System.nanoTime();
+			
+			for (int i = 0; i < programs; i ++) {
+				results.add(wrapper.groundAsync(program, true, new DebugRuleMap()));
+			}
+			
+			for (Future<String> result : results) {
+				result.get();
+			}
+			
+			return programs / ((System.nanoTime() - start) / 1e9);
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Waits for a fixed time before each grounding, like for a grounder
+	 * process.
+	 */
+	private static class LatencyGrounder implements BufferGrounder {
+		private final Grounder grounder;
+		private final long latency;
+		
+		public LatencyGrounder(Grounder grounder, long latency) {
+			this.grounder = grounder;
+			this.latency = latency;
+		}
+		
+		@Override
+		public String ground(String logicProgram) throws GroundingException {
+			waitLatency();
+			return grounder.ground(logicProgram);
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+			return ground(logicProgram, buffer, null);
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+			waitLatency();
+			return Grounders.ground(grounder, logicProgram, buffer, statistics);
+		}
+		
+		private void waitLatency() throws GroundingException {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GroundingException(e);
+			}
+		}
+	}
+}
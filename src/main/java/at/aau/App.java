@@ -1,16 +1,53 @@
 package at.aau;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
+import at.aau.cluster.ContentStore;
+import at.aau.cluster.Coordinator;
+import at.aau.cluster.JobResult;
+import at.aau.cluster.JobSpec;
+import at.aau.cluster.Worker;
+import at.aau.grounder.Grounder;
+import at.aau.grounder.GrounderGringoImpl;
 import at.aau.grounder.GroundingException;
+import at.aau.grounder.IncrementalGrounder;
+import at.aau.grounder.PortfolioGrounder;
+import at.aau.grounder.PortfolioRecord;
+import at.aau.input.InputWatcher;
 import at.aau.input.InvalidOptionException;
 import at.aau.input.Options;
+import at.aau.output.ProfileReportBuilder;
+import at.aau.output.SolverProcess;
+import at.aau.postprocessing.DebugAtomIndex;
+import at.aau.postprocessing.GroundingProfile;
 import at.aau.postprocessing.PostprocessingException;
+import at.aau.preprocessing.DebugConstantNumbering;
+import at.aau.preprocessing.PreprocessingContext;
+import at.aau.statistics.Progress;
+import at.aau.statistics.ProgressReporter;
+import at.aau.statistics.Statistics;
 
 /**
  * Main class of the gringo-wrapper.
@@ -19,8 +56,20 @@ import at.aau.postprocessing.PostprocessingException;
  *
  */
 public class App {
+	/** The time between two checks of the input files in the watch mode */
+	private static final long WATCH_INTERVAL_MILLIS = 200;
+	
 	public static void main(String[] args) {
 		String input = "";
+		ProgressReporter progressReporter = null;
+		PrintStream warningDump = null;
+		int exitCode = 0;
+		
+		if (args.length == 1 && Options.isVersionOption(args[0])) {
+			// answer without setting up the option parser, which is slow at startup
+			Options.printVersion();
+			System.exit(0);
+		}
 
 		try {
 			Options cliOptions = new Options(args);
@@ -31,10 +80,49 @@ public class App {
 			}
 			
 			if (cliOptions.isPrintVersion()) {
-				cliOptions.printVersion();
+				Options.printVersion();
 				System.exit(0);
 			}
 			
+			if (null != cliOptions.getSolveWith()
+					&& (cliOptions.isWatch() || null != cliOptions.getCoordinatorPort() || null != cliOptions.getCoordinatorAddress())) {
+				throw new InvalidOptionException("A solver cannot be used in the watch mode, by a coordinator or by a worker.");
+			}
+			
+			if (null != cliOptions.getDebugMapFile()
+					&& (!cliOptions.isDebug() || cliOptions.isWatch() || null != cliOptions.getCoordinatorPort() || null != cliOptions.getCoordinatorAddress())) {
+				throw new InvalidOptionException("A debug map needs the debug constants and cannot be written in the watch mode, by a coordinator or by a worker.");
+			}
+			
+			checkStageOptions(cliOptions);
+			
+			Grounder grounder = createGrounder(cliOptions);
+			IncrementalGrounder incrementalGrounder = cliOptions.isWatch() ? new IncrementalGrounder(grounder) : null;
+			GringoWrapper wrapper = createWrapper(cliOptions, null == incrementalGrounder ? grounder : incrementalGrounder);
+			warningDump = openWarningDump(cliOptions.getWarningsFile());
+			setWarnings(cliOptions, grounder, wrapper, warningDump);
+			progressReporter = startProgress(cliOptions, wrapper);
+			
+			if (cliOptions.isWatch()) {
+				runWatch(cliOptions, wrapper, grounder, incrementalGrounder);
+				return;
+			}
+			
+			if (null != cliOptions.getCoordinatorAddress()) {
+				runWorker(cliOptions, wrapper);
+				return;
+			}
+			
+			if (null != cliOptions.getCoordinatorPort()) {
+				runCoordinator(cliOptions);
+				return;
+			}
+			
+			if (null != cliOptions.getPostprocessFrom()) {
+				runPostprocess(cliOptions, wrapper);
+				return;
+			}
+			
 			if (cliOptions.getInputFiles().size() == 0) {
 				input = readInput(System.in);
 			} else {
@@ -43,17 +131,53 @@ public class App {
 				}
 			}
 			
-			// instantiate a gringo wrapper and print the grounded program
-			GringoWrapper wrapper = new GringoWrapper(
-					cliOptions.getGrounderCommand(),
-					cliOptions.getGrounderOptions(),
-					cliOptions.getDebugLiteral(),
-					cliOptions.isRewriteOnly(),
-					cliOptions.isWarnRulesRemoved());
+			// print the grounded program, or pass it to the solver
+			DebugRuleMap debugRuleMap = new DebugRuleMap();
+			OutputStream debugMap = openDebugMap(cliOptions.getDebugMapFile());
 			
-			String grounded = wrapper.ground(input, cliOptions.isDebug());
+			if (cliOptions.isPreprocessOnly()) {
+				writeContext(cliOptions.getContextFile(), wrapper.preprocess(input, cliOptions.isDebug(), debugRuleMap, System.out));
+			} else if (null != cliOptions.getSolveWith()) {
+				exitCode = solve(new SolverProcess(cliOptions.getSolveWith()), wrapper, input, cliOptions.isDebug(), debugRuleMap, debugMap);
+			} else if (null == debugMap) {
+				String grounded = wrapper.ground(input, cliOptions.isDebug(), debugRuleMap);
+				System.out.print(grounded);
+			} else {
+				exitCode = printWithDebugMap(wrapper, input, debugRuleMap, debugMap);
+			}
+			
+			if (null != progressReporter) {
+				// the last report comes before the other reports
+				progressReporter.stop();
+			}
+			
+			if (null != cliOptions.getSliceTarget()) {
+				writeSlicedRules(cliOptions.getSliceTarget(), wrapper.getSlicedRules());
+			}
+			
+			if (null != wrapper.getSizeEstimate()) {
+				System.err.print(wrapper.getSizeEstimate());
+			}
+			
+			if (null != wrapper.getProfile()) {
+				writeProfile(cliOptions, wrapper.getProfile(), debugRuleMap);
+			}
+			
+			if (cliOptions.isStats() || null != cliOptions.getStatsFile()) {
+				writeStatistics(cliOptions, wrapper.getStatistics());
+			}
+			
+			if (null != wrapper.getDebugAtomIndex()) {
+				writeDebugAtomIndex(cliOptions.getDebugIndexFile(), wrapper.getDebugAtomIndex());
+			}
+			
+			if (null != cliOptions.getDebugNamesFile()) {
+				writeDebugConstantNumbering(cliOptions.getDebugNamesFile(), wrapper.getDebugConstantNumbering());
+			}
 			
-			System.out.print(grounded);
+			if (grounder instanceof PortfolioGrounder) {
+				writePortfolio(cliOptions, (PortfolioGrounder) grounder);
+			}
 		} catch (InvalidOptionException e) {
 			System.err.println(e.getMessage());
 		} catch (FileNotFoundException e) {
@@ -64,6 +188,626 @@ public class App {
 			System.err.println("The program could not be grounded. Details:\n" + e.getMessage());
 		} catch (PostprocessingException e) {
 			System.err.println("Postprocessing the grounded program failed. Details:\n" + e.getMessage());
+		} finally {
+			if (null != progressReporter) {
+				progressReporter.stop();
+			}
+			
+			if (null != warningDump) {
+				warningDump.close();
+			}
+		}
+		
+		// after the cleanup, which exiting would skip
+		if (exitCode != 0) {
+			System.exit(exitCode);
+		}
+	}
+	
+	/**
+	 * Check that the options of the separate preprocessing and postprocessing
+	 * stages fit together.
+	 */
+	private static void checkStageOptions(Options cliOptions) throws InvalidOptionException {
+		boolean preprocessOnly = cliOptions.isPreprocessOnly();
+		boolean postprocess = null != cliOptions.getPostprocessFrom();
+		
+		if (!preprocessOnly && !postprocess) {
+			if (null != cliOptions.getContextFile()) {
+				throw new InvalidOptionException("A context file is only used with --preprocess-only or --postprocess-from.");
+			}
+			
+			return;
+		}
+		
+		if (preprocessOnly && postprocess) {
+			throw new InvalidOptionException("A program cannot be only preprocessed and postprocessed at the same time.");
+		}
+		
+		if (null == cliOptions.getContextFile()) {
+			throw new InvalidOptionException("--preprocess-only and --postprocess-from need a --context file.");
+		}
+		
+		if (cliOptions.isRewriteOnly() || cliOptions.isWatch() || null != cliOptions.getCoordinatorPort() || null != cliOptions.getCoordinatorAddress()
+				|| null != cliOptions.getSolveWith() || null != cliOptions.getDebugMapFile()) {
+			throw new InvalidOptionException("--preprocess-only and --postprocess-from cannot be used together with rewriting only, "
+					+ "the watch mode, a coordinator, a worker, a solver or a debug map.");
+		}
+	}
+	
+	/**
+	 * Instantiate the grounder as specified by the options.
+	 */
+	private static Grounder createGrounder(Options cliOptions) throws InvalidOptionException {
+		if (!cliOptions.getPortfolio().isEmpty()) {
+			if (null != cliOptions.getGrounderClass()) {
+				throw new InvalidOptionException("A portfolio cannot be used together with a grounder class.");
+			}
+			
+			return createPortfolioGrounder(cliOptions);
+		}
+		
+		if (null == cliOptions.getGrounderClass()) {
+			return new GrounderGringoImpl(cliOptions.getGrounderCommand(), cliOptions.getGrounderOptions());
+		}
+		
+		try {
+			return Class.forName(cliOptions.getGrounderClass()).asSubclass(Grounder.class).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			// e.g. InvocationTargetException or NoSuchMethodException
+			throw new InvalidOptionException("Could not create the grounder " + cliOptions.getGrounderClass() + ". Details:\n" + e);
+		}
+	}
+	
+	/**
+	 * Instantiate the portfolio grounder and load its record, as specified by
+	 * the options.
+	 */
+	private static PortfolioGrounder createPortfolioGrounder(Options cliOptions) throws InvalidOptionException {
+		PortfolioGrounder grounder = new PortfolioGrounder(cliOptions.getPortfolio());
+		
+		if (null != cliOptions.getPortfolioRecordFile() && new File(cliOptions.getPortfolioRecordFile()).exists()) {
+			try {
+				Reader reader = new InputStreamReader(new FileInputStream(cliOptions.getPortfolioRecordFile()), StandardCharsets.UTF_8);
+				
+				try {
+					grounder.setRecord(PortfolioRecord.read(reader));
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				throw new InvalidOptionException("Could not read the portfolio record. Details:\n" + e.getMessage());
+			}
+		} else if (null != cliOptions.getPortfolioRecordFile()) {
+			grounder.setRecord(new PortfolioRecord());
+		}
+		
+		return grounder;
+	}
+	
+	/**
+	 * Instantiate a gringo wrapper as specified by the options.
+	 */
+	private static GringoWrapper createWrapper(Options cliOptions, Grounder grounder) throws InvalidOptionException {
+		GringoWrapper wrapper = new GringoWrapper(grounder,
+				cliOptions.getDebugLiteral(),
+				cliOptions.isRewriteOnly(),
+				cliOptions.isWarnRulesRemoved());
+		
+		wrapper.setPostprocessingThreads(cliOptions.getThreads());
+		wrapper.setAtomOrder(cliOptions.getAtomOrder());
+		wrapper.setProfiling(cliOptions.isProfile() || null != cliOptions.getProfileJsonFile());
+		wrapper.setCollectStatistics(cliOptions.isStats() || null != cliOptions.getStatsFile());
+		wrapper.setIndexDebugAtoms(null != cliOptions.getDebugIndexFile());
+		wrapper.setEstimating(cliOptions.isEstimate());
+		
+		if (cliOptions.getMaxEstimatedRules() < 0) {
+			throw new InvalidOptionException("The maximum estimated number of rules must not be negative.");
+		}
+		
+		wrapper.setMaxEstimatedRules(cliOptions.getMaxEstimatedRules());
+		
+		if (null != cliOptions.getSliceTarget()) {
+			wrapper.setSliceTargets(Arrays.asList(cliOptions.getSliceTarget()));
+		}
+		
+		if (null != cliOptions.getDebugNamesFile() && new File(cliOptions.getDebugNamesFile()).exists()) {
+			try {
+				Reader reader = new InputStreamReader(new FileInputStream(cliOptions.getDebugNamesFile()), StandardCharsets.UTF_8);
+				
+				try {
+					wrapper.setDebugConstantNumbering(DebugConstantNumbering.read(reader));
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				throw new InvalidOptionException("Could not read the debug names. Details:\n" + e.getMessage());
+			}
+		} else if (null != cliOptions.getDebugNamesFile() || cliOptions.isWatch()) {
+			wrapper.setDebugConstantNumbering(new DebugConstantNumbering());
+		}
+		
+		return wrapper;
+	}
+	
+	/**
+	 * Open the file all messages of the grounder and removed rules are
+	 * written to.
+	 * 
+	 * @return The stream of the file, or <code>null</code> if there is no
+	 *         file.
+	 */
+	private static PrintStream openWarningDump(String file) throws InvalidOptionException {
+		if (null == file) {
+			return null;
+		}
+		
+		try {
+			return new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16), false, "UTF-8");
+		} catch (IOException e) {
+			throw new InvalidOptionException("Could not open the warnings file. Details:\n" + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Limit the warnings of the grounder and the wrapper that are printed, as
+	 * specified by the options.
+	 */
+	private static void setWarnings(Options cliOptions, Grounder grounder, GringoWrapper wrapper, PrintStream warningDump)
+			throws InvalidOptionException {
+		if (cliOptions.getWarningsShown() < 0) {
+			throw new InvalidOptionException("The number of shown warnings must not be negative.");
+		}
+		
+		if (grounder instanceof GrounderGringoImpl) {
+			((GrounderGringoImpl) grounder).setWarningsShown(cliOptions.getWarningsShown());
+			((GrounderGringoImpl) grounder).setWarningDump(warningDump);
+		}
+		
+		wrapper.setWarningsShown(cliOptions.getWarningsShown());
+		wrapper.setWarningDump(warningDump);
+	}
+	
+	/**
+	 * Start to report the progress of the wrapper on stderr and the file
+	 * descriptor, as specified by the options.
+	 * 
+	 * @return The reporter, or <code>null</code> if the progress is not
+	 *         reported.
+	 */
+	private static ProgressReporter startProgress(Options cliOptions, GringoWrapper wrapper) throws InvalidOptionException {
+		Integer fd = cliOptions.getProgressFd();
+		
+		if (!cliOptions.isProgress() && null == fd) {
+			return null;
+		}
+		
+		if (null != cliOptions.getCoordinatorPort()) {
+			throw new InvalidOptionException("A coordinator does not ground, so it has no progress to report.");
+		}
+		
+		if (cliOptions.getProgressIntervalMillis() <= 0) {
+			throw new InvalidOptionException("The interval of the progress reports must be positive.");
+		}
+		
+		PrintStream json = null;
+		
+		if (null != fd) {
+			try {
+				json = fd == 2 ? System.err : new PrintStream(new FileOutputStream("/dev/fd/" + fd), false, "UTF-8");
+			} catch (IOException e) {
+				throw new InvalidOptionException("Could not open the file descriptor " + fd + " for the progress. Details:\n" + e.getMessage());
+			}
+		}
+		
+		Progress progress = new Progress();
+		wrapper.setProgress(progress);
+		ProgressReporter reporter = new ProgressReporter(progress, cliOptions.getProgressIntervalMillis(),
+				cliOptions.isProgress() ? System.err : null, json);
+		reporter.start();
+		
+		return reporter;
+	}
+	
+	/**
+	 * Start the solver, ground the input into the standard input of the
+	 * solver and wait until it exits. The solver starts before the grounder,
+	 * so it is ready to read once the program is postprocessed.
+	 * 
+	 * @return The exit code of the solver, or 1 if the solver could not be
+	 *         started or exited successfully without reading the whole
+	 *         program.
+	 */
+	private static int solve(SolverProcess solver, GringoWrapper wrapper, String input, boolean debug, DebugRuleMap debugRuleMap,
+			OutputStream debugMap) throws GroundingException, PostprocessingException {
+		OutputStream solverInput;
+		boolean passed = true;
+		
+		try {
+			solverInput = solver.start();
+		} catch (IOException e) {
+			closeDebugMap(debugMap);
+			System.err.println("Could not start the solver. Details:\n" + e.getMessage());
+			return 1;
+		}
+		
+		try {
+			wrapper.ground(input, debug, debugRuleMap, solverInput, debugMap);
+		} catch (GroundingException | PostprocessingException e) {
+			solver.stop();
+			throw e;
+		} catch (IOException e) {
+			System.err.println("Could not pass the grounded program to the solver. Details:\n" + e.getMessage());
+			passed = false;
+		} finally {
+			closeDebugMap(debugMap);
+		}
+		
+		try {
+			int exitCode = solver.finish();
+			return passed || exitCode != 0 ? exitCode : 1;
+		} catch (IOException e) {
+			System.err.println("Could not wait for the solver. Details:\n" + e.getMessage());
+			return 1;
+		}
+	}
+	
+	/**
+	 * Postprocess the output of the grounder with the saved context of the
+	 * preprocessed program and print it, followed by the profile, the
+	 * statistics and the debug atom index as specified by the options.
+	 */
+	private static void runPostprocess(Options cliOptions, GringoWrapper wrapper) throws InvalidOptionException, PostprocessingException {
+		PreprocessingContext context;
+		ByteBuffer grounded;
+		
+		try {
+			InputStream input = new BufferedInputStream(new FileInputStream(cliOptions.getContextFile()), 1 << 16);
+			
+			try {
+				context = PreprocessingContext.read(input);
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			throw new InvalidOptionException("Could not read the preprocessing context. Details:\n" + e.getMessage());
+		}
+		
+		try {
+			grounded = ByteBuffer.wrap(Files.readAllBytes(Paths.get(cliOptions.getPostprocessFrom())));
+		} catch (IOException e) {
+			throw new InvalidOptionException("Could not read the output of the grounder. Details:\n" + e);
+		}
+		
+		System.out.print(wrapper.postprocess(grounded, context));
+		
+		if (null != wrapper.getProfile()) {
+			writeProfile(cliOptions, wrapper.getProfile(), context.getDebugRuleMap());
+		}
+		
+		if (cliOptions.isStats() || null != cliOptions.getStatsFile()) {
+			writeStatistics(cliOptions, wrapper.getStatistics());
+		}
+		
+		if (null != wrapper.getDebugAtomIndex()) {
+			writeDebugAtomIndex(cliOptions.getDebugIndexFile(), wrapper.getDebugAtomIndex());
+		}
+	}
+	
+	/**
+	 * Print the grounded program and write the rules of the debug constants
+	 * to the debug map, which is closed afterwards.
+	 * 
+	 * @return 0, or 1 if the debug map could not be written.
+	 */
+	private static int printWithDebugMap(GringoWrapper wrapper, String input, DebugRuleMap debugRuleMap, OutputStream debugMap)
+			throws GroundingException, PostprocessingException {
+		try {
+			wrapper.ground(input, true, debugRuleMap, System.out, debugMap);
+		} catch (IOException e) {
+			System.err.println("Could not write the grounded program. Details:\n" + e.getMessage());
+			return 1;
+		} finally {
+			closeDebugMap(debugMap);
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Open the file of the debug map.
+	 * 
+	 * @return The stream of the file, or <code>null</code> if no debug map
+	 *         is written.
+	 */
+	private static OutputStream openDebugMap(String file) throws InvalidOptionException {
+		if (null == file) {
+			return null;
+		}
+		
+		try {
+			return new FileOutputStream(file);
+		} catch (FileNotFoundException e) {
+			throw new InvalidOptionException("Could not create the debug map. Details:\n" + e.getMessage());
+		}
+	}
+	
+	private static void closeDebugMap(OutputStream debugMap) {
+		if (null == debugMap) {
+			return;
+		}
+		
+		try {
+			debugMap.close();
+		} catch (IOException e) {
+			System.err.println("Could not write the debug map. Details:\n" + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Ground the input files whenever they change and print each grounded
+	 * program, followed by the time it took on stderr.
+	 */
+	private static void runWatch(Options cliOptions, GringoWrapper wrapper, Grounder grounder, IncrementalGrounder incrementalGrounder)
+			throws InvalidOptionException, IOException {
+		if (cliOptions.getInputFiles().isEmpty()) {
+			throw new InvalidOptionException("The watch mode needs input files.");
+		}
+		
+		InputWatcher watcher = new InputWatcher(cliOptions.getInputFiles(), WATCH_INTERVAL_MILLIS);
+		
+		while (true) {
+			List<String> changed;
+			
+			try {
+				changed = watcher.awaitChange();
+			} catch (InterruptedException e) {
+				return;
+			}
+			
+			long start = System.nanoTime();
+			
+			try {
+				String grounded = wrapper.ground(watcher.getProgram(), cliOptions.isDebug(), new DebugRuleMap());
+				System.out.print(grounded);
+				System.out.flush();
+				System.err.println(String.format("Grounded %s in %d ms (%d components grounded, %d reused)",
+						changed, (System.nanoTime() - start) / 1000000,
+						incrementalGrounder.getGroundedComponents(), incrementalGrounder.getReusedComponents()));
+			} catch (GroundingException e) {
+				System.err.println("The program could not be grounded. Details:\n" + e.getMessage());
+			} catch (PostprocessingException e) {
+				System.err.println("Postprocessing the grounded program failed. Details:\n" + e.getMessage());
+			}
+			
+			if (null != cliOptions.getDebugNamesFile()) {
+				writeDebugConstantNumbering(cliOptions.getDebugNamesFile(), wrapper.getDebugConstantNumbering());
+			}
+			
+			if (grounder instanceof PortfolioGrounder) {
+				writePortfolio(cliOptions, (PortfolioGrounder) grounder);
+			}
+		}
+	}
+	
+	/**
+	 * Ground the jobs of the jobs file on the workers that connect to the
+	 * coordinator port, write the grounded programs to the output directory
+	 * and print the cluster report to stderr.
+	 */
+	private static void runCoordinator(Options cliOptions) throws InvalidOptionException, IOException {
+		if (null == cliOptions.getJobsFile()) {
+			throw new InvalidOptionException("The coordinator needs a jobs file (--jobs).");
+		}
+		
+		Coordinator coordinator = new Coordinator(new ContentStore(), cliOptions.getMaxAttempts(), cliOptions.getStealAfterMillis());
+		File jobsFile = new File(cliOptions.getJobsFile()).getAbsoluteFile();
+		
+		for (String line : readInput(new FileInputStream(jobsFile)).split("\n")) {
+			line = line.trim();
+			
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			
+			String[] fields = line.split("\\s+");
+			
+			if (fields.length < 2) {
+				throw new InvalidOptionException("The job '" + line + "' has no input files.");
+			}
+			
+			List<String> inputs = new ArrayList<String>(fields.length - 1);
+			
+			for (int i = 1; i < fields.length; i ++) {
+				File inputFile = new File(fields[i]);
+				
+				if (!inputFile.isAbsolute()) {
+					inputFile = new File(jobsFile.getParentFile(), fields[i]);
+				}
+				
+				inputs.add(coordinator.getContentStore().put(readInput(new FileInputStream(inputFile)).getBytes(StandardCharsets.UTF_8)));
+			}
+			
+			coordinator.submit(new JobSpec(fields[0], inputs, cliOptions.isDebug()));
+		}
+		
+		List<JobResult> results;
+		
+		try {
+			System.err.println("Waiting for workers on port " + coordinator.start(cliOptions.getCoordinatorPort()));
+			results = coordinator.awaitResults();
+		} catch (InterruptedException e) {
+			System.err.println("Interrupted while waiting for the workers.");
+			return;
+		} finally {
+			coordinator.close();
+		}
+		
+		for (JobResult result : results) {
+			if (result.isSuccess()) {
+				try {
+					writeFile(new File(cliOptions.getOutputDirectory(), result.getSpec().getName()).getPath(), result.getOutputText());
+				} catch (IOException e) {
+					System.err.println("Could not write the grounded program of " + result.getSpec().getName() + ". Details:\n" + e.getMessage());
+				}
+			} else {
+				System.err.println("The job " + result.getSpec().getName() + " failed. Details:\n" + result.getError());
+			}
+		}
+		
+		System.err.print(coordinator.getReport());
+	}
+	
+	/**
+	 * Run the jobs of the coordinator at the given address until it has none
+	 * left.
+	 */
+	private static void runWorker(Options cliOptions, GringoWrapper wrapper) throws InvalidOptionException {
+		String address = cliOptions.getCoordinatorAddress();
+		int separator = address.lastIndexOf(':');
+		int port;
+		
+		try {
+			port = Integer.parseInt(address.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			throw new InvalidOptionException("The coordinator address '" + address + "' is not of the form host:port.");
+		}
+		
+		String host = separator > 0 ? address.substring(0, separator) : "localhost";
+		Worker worker = new Worker(wrapper, Worker.getDefaultName());
+		
+		try {
+			worker.connect(host, port, cliOptions.getWorkerSlots());
+		} catch (IOException e) {
+			System.err.println("The connection to the coordinator failed. Details:\n" + e.getMessage());
+		} catch (InterruptedException e) {
+			System.err.println("Interrupted while running jobs.");
+		}
+	}
+	
+	/**
+	 * Print the grounding profile to stderr and write it to the JSON file, as
+	 * specified by the options.
+	 */
+	private static void writeProfile(Options cliOptions, GroundingProfile profile, Map<String, Rule> debugRuleMap) {
+		ProfileReportBuilder reportBuilder = new ProfileReportBuilder();
+		
+		if (cliOptions.isProfile()) {
+			System.err.print(reportBuilder.buildTable(profile, debugRuleMap));
+		}
+		
+		if (null != cliOptions.getProfileJsonFile()) {
+			try {
+				writeFile(cliOptions.getProfileJsonFile(), reportBuilder.buildJson(profile, debugRuleMap));
+			} catch (IOException e) {
+				System.err.println("Could not write the grounding profile. Details:\n" + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Print the statistics to stderr and write them to the statistics file,
+	 * as specified by the options.
+	 */
+	private static void writeStatistics(Options cliOptions, Statistics statistics) {
+		String json = statistics.toJson();
+		
+		if (cliOptions.isStats()) {
+			System.err.println(json);
+		}
+		
+		if (null != cliOptions.getStatsFile()) {
+			try {
+				writeFile(cliOptions.getStatsFile(), json);
+			} catch (IOException e) {
+				System.err.println("Could not write the statistics. Details:\n" + e.getMessage());
+			}
+		}
+	}
+	
+	private static void writeDebugAtomIndex(String file, DebugAtomIndex index) {
+		try {
+			OutputStream output = new FileOutputStream(file);
+			
+			try {
+				index.write(output);
+			} finally {
+				output.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write the debug atom index. Details:\n" + e.getMessage());
+		}
+	}
+	
+	private static void writeContext(String file, PreprocessingContext context) {
+		try {
+			OutputStream output = new FileOutputStream(file);
+			
+			try {
+				context.write(output);
+			} finally {
+				output.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write the preprocessing context. Details:\n" + e.getMessage());
+		}
+	}
+	
+	private static void writeSlicedRules(String sliceTarget, List<String> slicedRules) {
+		System.err.println("The slice to " + sliceTarget + " removed " + slicedRules.size() + " rules:");
+		
+		for (String rule : slicedRules) {
+			System.err.println("  " + rule);
+		}
+	}
+	
+	/**
+	 * Print the result of the last portfolio race to stderr and save the
+	 * record of the winners, as specified by the options.
+	 */
+	private static void writePortfolio(Options cliOptions, PortfolioGrounder grounder) {
+		if (null != grounder.getReport()) {
+			System.err.print(grounder.getReport());
+		}
+		
+		if (null == cliOptions.getPortfolioRecordFile()) {
+			return;
+		}
+		
+		try {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(cliOptions.getPortfolioRecordFile()), StandardCharsets.UTF_8);
+			
+			try {
+				grounder.getRecord().write(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write the portfolio record. Details:\n" + e.getMessage());
+		}
+	}
+	
+	private static void writeDebugConstantNumbering(String file, DebugConstantNumbering numbering) {
+		try {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+			
+			try {
+				numbering.write(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write the debug names. Details:\n" + e.getMessage());
+		}
+	}
+	
+	private static void writeFile(String file, String content) throws IOException {
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+		
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
 		}
 	}
 	
@@ -0,0 +1,364 @@
+package at.aau;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import at.aau.util.IntList;
+
+/**
+ * A compact map of the debug constants to the non-ground rules, filled by the
+ * preprocessor.
+ * <p>
+ * The rules are stored densely, as the start and end of the rule text in the
+ * preprocessed program and the ids of their variables, and are indexed by the
+ * number of their debug constant. The variable names are interned, so each name is stored
+ * only once. The {@link Rule} objects are created when they are asked for and
+ * are not retained by the map.
+ * <p>
+ * The map is iterated in the order of the numbers of the debug constants, i.e.
+ * <code>_debug1</code>, <code>_debug2</code>, ... The numbers may have gaps if
+ * the preprocessor takes them from a
+ * {@link at.aau.preprocessing.DebugConstantNumbering}. The map cannot be modified
+ * through the {@link Map} interface, except for clearing it.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DebugRuleMap extends AbstractMap<String, Rule> {
+	/** The program the rule texts are taken from */
+	private String program = "";
+	
+	private String debugConstantPrefix = "";
+	
+	/** The start and end of the text of each rule in the program, in the order the rules were added */
+	private final IntList ruleRanges = new IntList();
+	
+	/** The index of the rule of each debug constant number - 1, plus 1, or 0 if there is no such rule */
+	private final IntList ruleOfNumber = new IntList();
+	
+	/** The first variable of each rule in the variable ids, followed by the end of the last rule */
+	private final IntList variableStarts = new IntList();
+	
+	/** The ids of the variables of all rules */
+	private final IntList variableIds = new IntList();
+	
+	private final List<String> variableNames = new ArrayList<String>();
+	
+	private final Map<String, Integer> variableIdOf = new HashMap<String, Integer>();
+	
+	private final EntrySet entrySet = new EntrySet();
+	
+	/** The rules that were removed from the program by slicing it */
+	private List<String> slicedRules = Collections.emptyList();
+	
+	public DebugRuleMap() {
+		variableStarts.add(0);
+	}
+	
+	/**
+	 * Removes all rules and sets the program the rules that are added next are
+	 * taken from.
+	 *
+	 * @param program
+	 *            The logic program the rule texts are taken from.
+	 * @param debugConstantPrefix
+	 *            The prefix of the debug constants.
+	 */
+	public void reset(String program, String debugConstantPrefix) {
+		clear();
+		this.program = program;
+		this.debugConstantPrefix = debugConstantPrefix;
+	}
+	
+	/**
+	 * Adds the rule with the next number.
+	 *
+	 * @param start
+	 *            The start of the rule text in the program.
+	 * @param end
+	 *            The end of the rule text in the program, excluding the '.'.
+	 * @param variables
+	 *            The variables that occur inside the rule.
+	 * @return The number of the debug constant of the rule.
+	 */
+	public int addRule(int start, int end, List<String> variables) {
+		return addRule(ruleOfNumber.size() + 1, start, end, variables);
+	}
+	
+	/**
+	 * Adds the rule with the given number.
+	 *
+	 * @param number
+	 *            The number of the debug constant of the rule.
+	 * @return The number of the debug constant of the rule.
+	 * @throws IllegalArgumentException
+	 *             If the number is not positive or already used.
+	 * @see #addRule(int, int, List)
+	 */
+	public int addRule(int number, int start, int end, List<String> variables) {
+		if (number < 1 || (number <= ruleOfNumber.size() && ruleOfNumber.get(number - 1) > 0)) {
+			throw new IllegalArgumentException("The debug constant number " + number + " is not positive or already used");
+		}
+		
+		if (start < 0 || end < start || end > program.length()) {
+			throw new IllegalArgumentException("The rule " + start + "-" + end + " is not part of the program");
+		}
+		
+		ruleRanges.add(start);
+		ruleRanges.add(end);
+		
+		for (String variable : variables) {
+			Integer id = variableIdOf.get(variable);
+			
+			if (null == id) {
+				id = variableNames.size();
+				variableNames.add(variable);
+				variableIdOf.put(variable, id);
+			}
+			
+			variableIds.add(id);
+		}
+		
+		variableStarts.add(variableIds.size());
+		
+		while (ruleOfNumber.size() < number) {
+			ruleOfNumber.add(0);
+		}
+		
+		ruleOfNumber.set(number - 1, size());
+		return number;
+	}
+	
+	public String getDebugConstantPrefix() {
+		return debugConstantPrefix;
+	}
+	
+	/**
+	 * Sets the rules that were removed from the program before the debug
+	 * constants were added, because they are not relevant for the debugged
+	 * predicates.
+	 *
+	 * @see at.aau.preprocessing.ProgramSlicer
+	 */
+	public void setSlicedRules(List<String> slicedRules) {
+		this.slicedRules = Collections.unmodifiableList(new ArrayList<String>(slicedRules));
+	}
+	
+	/**
+	 * Returns the rules that were removed from the program by slicing it. They
+	 * have no debug constants.
+	 */
+	public List<String> getSlicedRules() {
+		return slicedRules;
+	}
+	
+	/**
+	 * Returns the rule of the debug constant with the given number.
+	 *
+	 * @return The rule, or <code>null</code> if there is no such debug
+	 *         constant.
+	 */
+	public Rule getRule(int number) {
+		if (number < 1 || number > ruleOfNumber.size() || ruleOfNumber.get(number - 1) == 0) {
+			return null;
+		}
+		
+		return new Rule(getRuleText(number), getVariables(number));
+	}
+	
+	/**
+	 * Returns the text of the rule of the debug constant with the given
+	 * number, e.g. <code>a :- b.</code>.
+	 */
+	public String getRuleText(int number) {
+		int rule = ruleOfNumber.get(number - 1) - 1;
+		int start = ruleRanges.get(2 * rule);
+		int end = ruleRanges.get(2 * rule + 1);
+		
+		return program.substring(start, end).replace("\n", "").trim() + ".";
+	}
+	
+	/**
+	 * Returns the variables of the rule of the debug constant with the given
+	 * number.
+	 */
+	public List<String> getVariables(int number) {
+		int rule = ruleOfNumber.get(number - 1) - 1;
+		int start = variableStarts.get(rule);
+		int end = variableStarts.get(rule + 1);
+		List<String> variables = new ArrayList<String>(end - start);
+		
+		for (int i = start; i < end; i ++) {
+			variables.add(variableNames.get(variableIds.get(i)));
+		}
+		
+		return variables;
+	}
+	
+	@Override
+	public int size() {
+		return ruleRanges.size() / 2;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return getNumber(key) > 0;
+	}
+	
+	@Override
+	public Rule get(Object key) {
+		int number = getNumber(key);
+		return number > 0 ? getRule(number) : null;
+	}
+	
+	@Override
+	public void clear() {
+		program = "";
+		ruleRanges.clear();
+		ruleOfNumber.clear();
+		variableStarts.clear();
+		variableStarts.add(0);
+		variableIds.clear();
+		variableNames.clear();
+		variableIdOf.clear();
+		slicedRules = Collections.emptyList();
+	}
+	
+	@Override
+	public Set<Map.Entry<String, Rule>> entrySet() {
+		return entrySet;
+	}
+	
+	/**
+	 * Returns the number of the given debug constant, or 0 if it is not
+	 * contained.
+	 */
+	private int getNumber(Object key) {
+		if (!(key instanceof String)) {
+			return 0;
+		}
+		
+		String debugConstant = (String) key;
+		int length = debugConstant.length();
+		int prefixLength = debugConstantPrefix.length();
+		
+		if (length == prefixLength || length > prefixLength + 9 || !debugConstant.startsWith(debugConstantPrefix)
+				|| debugConstant.charAt(prefixLength) == '0') {
+			return 0;
+		}
+		
+		long number = 0;
+		
+		for (int i = prefixLength; i < length; i ++) {
+			char c = debugConstant.charAt(i);
+			
+			if (c < '0' || c > '9') {
+				return 0;
+			}
+			
+			number = number * 10 + (c - '0');
+		}
+		
+		return number <= ruleOfNumber.size() && ruleOfNumber.get((int) number - 1) > 0 ? (int) number : 0;
+	}
+	
+	/**
+	 * Returns the first number from the given one on that has a rule, or the
+	 * number after the last rule.
+	 */
+	private int nextNumber(int number) {
+		while (number <= ruleOfNumber.size() && ruleOfNumber.get(number - 1) == 0) {
+			number ++;
+		}
+		
+		return number;
+	}
+	
+	private class EntrySet extends AbstractSet<Map.Entry<String, Rule>> {
+		@Override
+		public Iterator<Map.Entry<String, Rule>> iterator() {
+			return new Iterator<Map.Entry<String, Rule>>() {
+				private int next = nextNumber(1);
+				
+				@Override
+				public boolean hasNext() {
+					return next <= ruleOfNumber.size();
+				}
+				
+				@Override
+				public Map.Entry<String, Rule> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					
+					RuleEntry entry = new RuleEntry(next);
+					next = nextNumber(next + 1);
+					
+					return entry;
+				}
+				
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		
+		@Override
+		public int size() {
+			return DebugRuleMap.this.size();
+		}
+	}
+	
+	/** An entry that creates the rule only when it is asked for */
+	private class RuleEntry implements Map.Entry<String, Rule> {
+		private final int number;
+		
+		public RuleEntry(int number) {
+			this.number = number;
+		}
+		
+		@Override
+		public String getKey() {
+			return debugConstantPrefix + number;
+		}
+		
+		@Override
+		public Rule getValue() {
+			return getRule(number);
+		}
+		
+		@Override
+		public Rule setValue(Rule value) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Map.Entry)) {
+				return false;
+			}
+			
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+			return getKey().equals(entry.getKey()) && getValue().equals(entry.getValue());
+		}
+		
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ getValue().hashCode();
+		}
+		
+		@Override
+		public String toString() {
+			return getKey() + "=" + getRuleText(number);
+		}
+	}
+}
@@ -1,25 +1,84 @@
 package at.aau;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import at.aau.grounder.Grounder;
 import at.aau.grounder.GrounderGringoImpl;
+import at.aau.grounder.GrounderWarnings;
+import at.aau.grounder.Grounders;
 import at.aau.grounder.GroundingException;
+import at.aau.io.ByteBuffers;
+import at.aau.output.DebugMapFile;
 import at.aau.output.OutputBuilder;
+import at.aau.postprocessing.AtomOrder;
+import at.aau.postprocessing.AtomRenumberer;
+import at.aau.postprocessing.DebugAtomIndex;
+import at.aau.postprocessing.GroundCompute;
+import at.aau.postprocessing.GroundEvent;
+import at.aau.postprocessing.GroundProgram;
+import at.aau.postprocessing.GroundingProfile;
 import at.aau.postprocessing.PostprocessingException;
 import at.aau.postprocessing.Postprocessor;
+import at.aau.postprocessing.StreamingPostprocessor;
+import at.aau.preprocessing.DebugConstantNumbering;
+import at.aau.preprocessing.PreprocessingContext;
 import at.aau.preprocessing.Preprocessor;
+import at.aau.preprocessing.ProgramSlicer;
+import at.aau.preprocessing.SizeEstimate;
+import at.aau.preprocessing.SizeEstimator;
+import at.aau.statistics.Progress;
+import at.aau.statistics.Statistics;
+import at.aau.streaming.BlockingPublisher;
+import at.aau.streaming.Publisher;
 
 /**
  * The wrapper takes a logic program and returns the grounded logic program
  * without any optimization.
+ * <p>
+ * A single wrapper can ground many programs at the same time, i.e. the
+ * <code>ground</code> methods may be called concurrently by any number of
+ * threads. The stages are stateless and each call uses its own buffers. The
+ * settings should be made before the wrapper is shared, they apply to the
+ * calls that start afterwards. The profile, the debug atom index and the
+ * statistics are those of the last call that finished.
  * 
  * @author Philip Gasteiger
  *
  */
 public class GringoWrapper {
+	/** The number of rules shown when a program is not grounded because of its estimated size */
+	private static final int ESTIMATED_RULES_SHOWN = 10;
+	
+	/** The maximum number of idle buffers kept for the next calls */
+	private static final int MAX_IDLE_BUFFERS = 16;
+	
+	/** The capacity above which a buffer is dropped instead of kept for the next calls */
+	private static final int MAX_IDLE_BUFFER_CAPACITY = 16 << 20;
+	
 	/** The grounder used to ground the program. */
 	private Grounder grounder;
 
@@ -27,19 +86,86 @@ public class GringoWrapper {
 	private Preprocessor preprocessor;
 
 	/** The postprocessor that replaces the fact-rules with the original facts */
-	private Postprocessor postprocessor;
+	private volatile Postprocessor postprocessor;
 	
 	/** The output buider that computes the symbol table output */
 	private OutputBuilder outputBuilder;
 	
+	/** The renumberer of the atoms, or <code>null</code> to keep the numbers of the grounder */
+	private volatile AtomRenumberer atomRenumberer;
+	
+	/** Whether the grounded programs are profiled */
+	private volatile boolean profiling;
+	
+	/** The profile of the last grounded program, or <code>null</code> if profiling is disabled */
+	private volatile GroundingProfile profile;
+	
+	/** Whether the debug atoms of the grounded programs are indexed */
+	private volatile boolean indexDebugAtoms;
+	
+	/** The index of the debug atoms of the last grounded program, or <code>null</code> if indexing is disabled */
+	private volatile DebugAtomIndex debugAtomIndex;
+	
+	/** The numbering of the debug constants by the rules, or <code>null</code> to number the rules in their order */
+	private volatile DebugConstantNumbering debugConstantNumbering;
+	
+	/** Estimates the size of the grounded programs, or <code>null</code> if disabled */
+	private volatile SizeEstimator sizeEstimator;
+	
+	/** The size estimate of the last program */
+	private volatile SizeEstimate sizeEstimate;
+	
+	/** The maximum estimated number of ground rules, or 0 */
+	private volatile long maxEstimatedRules;
+	
+	/** The predicates or atoms the programs are sliced to, or <code>null</code> */
+	private volatile List<String> sliceTargets;
+	
+	/** The rules removed by slicing the last program */
+	private volatile List<String> slicedRules;
+	
+	private final ProgramSlicer slicer = new ProgramSlicer();
+	
+	/** Whether the statistics of the stages are collected */
+	private volatile boolean collectStatistics;
+	
+	/** The statistics of the last grounded program */
+	private volatile Statistics statistics;
+	
+	/** The progress of the groundings, or <code>null</code> if it is not reported */
+	private volatile Progress progress;
+	
+	/** The permits for the grounder processes, or <code>null</code> if their number is not limited */
+	private volatile Semaphore grounderProcesses;
+	
+	/** The executor of the asynchronous calls, or <code>null</code> to use the default executor */
+	private volatile ExecutorService executor;
+	
 	private final String DEBUG_CONSTANT_PREFIX;
 	
 	private final boolean rewriteOnly;
 	
 	private final boolean warnRulesRemoved;
+	
+	/** The maximum number of removed rules that are printed */
+	private volatile int warningsShown = GrounderWarnings.DEFAULT_SHOWN;
+	
+	/** The stream all removed rules are written to, or <code>null</code> */
+	private volatile PrintStream warningDump;
+	
+	/** The buffers of the finished calls, which are reused by the next calls */
+	private final Queue<Buffers> idleBuffers = new ArrayBlockingQueue<Buffers>(MAX_IDLE_BUFFERS);
 
 	public GringoWrapper(String grounderCommand, String grounderOptions, String debugConstantPrefix, boolean rewriteOnly, boolean warnRulesRemoved) {
-		this.grounder = new GrounderGringoImpl(grounderCommand, grounderOptions);
+		this(new GrounderGringoImpl(grounderCommand, grounderOptions), debugConstantPrefix, rewriteOnly, warnRulesRemoved);
+	}
+	
+	/**
+	 * Creates a wrapper that uses the given grounder instead of calling
+	 * gringo.
+	 */
+	public GringoWrapper(Grounder grounder, String debugConstantPrefix, boolean rewriteOnly, boolean warnRulesRemoved) {
+		this.grounder = grounder;
 		this.preprocessor = new Preprocessor();
 		this.postprocessor = new Postprocessor();
 		this.outputBuilder = new OutputBuilder();
@@ -48,6 +174,287 @@ public class GringoWrapper {
 		this.warnRulesRemoved = warnRulesRemoved;
 	}
 	
+	/**
+	 * Set the number of threads used to postprocess the grounded program.
+	 * 
+	 * @param threads
+	 *            The maximum number of threads.
+	 */
+	public void setPostprocessingThreads(int threads) {
+		Postprocessor postprocessor = new Postprocessor(threads);
+		postprocessor.setProgress(progress);
+		this.postprocessor = postprocessor;
+	}
+	
+	/**
+	 * Set the order in which the atoms of the grounded program are renumbered.
+	 * 
+	 * @param atomOrder
+	 *            The order of the new atom numbers, or <code>null</code> to keep
+	 *            the atom numbers of the grounder.
+	 */
+	public void setAtomOrder(AtomOrder atomOrder) {
+		this.atomRenumberer = null == atomOrder ? null : new AtomRenumberer(atomOrder);
+	}
+	
+	/**
+	 * Enable or disable the profiling of the grounded programs.
+	 * 
+	 * @param profiling
+	 *            Whether to count the ground rules and atoms of the debug
+	 *            constants and predicates.
+	 * @see #getProfile()
+	 */
+	public void setProfiling(boolean profiling) {
+		this.profiling = profiling;
+		this.profile = profiling ? new GroundingProfile() : null;
+	}
+	
+	/**
+	 * Returns the profile of the last grounded program.
+	 * 
+	 * @return The profile, or <code>null</code> if profiling is disabled.
+	 */
+	public GroundingProfile getProfile() {
+		return profile;
+	}
+	
+	/**
+	 * Enable or disable indexing the debug atoms of the grounded programs.
+	 * 
+	 * @param indexing
+	 *            Whether to map the atoms of the grounded program to the
+	 *            debug constants and arguments they stand for.
+	 * @see #getDebugAtomIndex()
+	 */
+	public void setIndexDebugAtoms(boolean indexing) {
+		this.indexDebugAtoms = indexing;
+		this.debugAtomIndex = indexing ? new DebugAtomIndex() : null;
+	}
+	
+	/**
+	 * Returns the index of the debug atoms of the last grounded program. The
+	 * atoms are numbered as in the returned program.
+	 * 
+	 * @return The index, or <code>null</code> if indexing is disabled.
+	 */
+	public DebugAtomIndex getDebugAtomIndex() {
+		return debugAtomIndex;
+	}
+	
+	/**
+	 * Set the numbering of the debug constants. With a numbering, each rule
+	 * keeps its debug constant when other rules of the program are added,
+	 * removed or moved, as long as the numbering is used for all versions of
+	 * the program.
+	 * 
+	 * @param numbering
+	 *            The numbering, or <code>null</code> to number the rules in
+	 *            their order.
+	 */
+	public void setDebugConstantNumbering(DebugConstantNumbering numbering) {
+		this.debugConstantNumbering = numbering;
+	}
+	
+	public DebugConstantNumbering getDebugConstantNumbering() {
+		return debugConstantNumbering;
+	}
+	
+	/**
+	 * Slice the programs to the given predicates or atoms before they are
+	 * grounded, i.e. remove all rules and facts that cannot affect them. The
+	 * removed rules of the last program are returned by
+	 * {@link #getSlicedRules()}, and also recorded in the debug rule map if it
+	 * is a {@link DebugRuleMap}.
+	 * 
+	 * @param sliceTargets
+	 *            The predicates or atoms, e.g. <code>p</code>,
+	 *            <code>p/2</code> or <code>p(1,a)</code>, or <code>null</code>
+	 *            to ground the whole program.
+	 * @see ProgramSlicer
+	 */
+	public void setSliceTargets(List<String> sliceTargets) {
+		this.sliceTargets = null == sliceTargets || sliceTargets.isEmpty() ? null
+				: Collections.unmodifiableList(new ArrayList<String>(sliceTargets));
+		this.slicedRules = null;
+	}
+	
+	/**
+	 * Returns the rules that were removed by slicing the last program. They
+	 * have no debug constants.
+	 * 
+	 * @return The removed rules, or <code>null</code> if slicing is disabled.
+	 * @see #setSliceTargets(List)
+	 */
+	public List<String> getSlicedRules() {
+		return slicedRules;
+	}
+	
+	/**
+	 * Enable or disable estimating the size of the grounded programs before
+	 * they are grounded.
+	 * 
+	 * @param estimating
+	 *            Whether to estimate the number of ground instances of each
+	 *            rule.
+	 * @see #getSizeEstimate()
+	 */
+	public void setEstimating(boolean estimating) {
+		this.sizeEstimator = estimating ? new SizeEstimator() : null;
+		this.sizeEstimate = null;
+	}
+	
+	/**
+	 * Returns the size estimate of the last program. It is also available if
+	 * the program was not grounded because the estimate was too large.
+	 * 
+	 * @return The estimate, or <code>null</code> if estimating is disabled.
+	 */
+	public SizeEstimate getSizeEstimate() {
+		return sizeEstimate;
+	}
+	
+	/**
+	 * Refuse to ground programs whose estimated number of ground rules is too
+	 * large. This enables estimating.
+	 * 
+	 * @param maxEstimatedRules
+	 *            The maximum estimated number of ground rules, or 0 to ground
+	 *            all programs.
+	 * @see #setEstimating(boolean)
+	 */
+	public void setMaxEstimatedRules(long maxEstimatedRules) {
+		if (maxEstimatedRules < 0) {
+			throw new IllegalArgumentException("The maximum estimated number of rules must not be negative");
+		}
+		
+		this.maxEstimatedRules = maxEstimatedRules;
+		
+		if (maxEstimatedRules > 0 && null == sizeEstimator) {
+			setEstimating(true);
+		}
+	}
+	
+	/**
+	 * Enable or disable collecting the time, memory and sizes of the stages of
+	 * the grounding.
+	 * 
+	 * @param collectStatistics
+	 *            Whether to collect the statistics.
+	 * @see #getStatistics()
+	 */
+	public void setCollectStatistics(boolean collectStatistics) {
+		this.collectStatistics = collectStatistics;
+	}
+	
+	/**
+	 * Set how many of the rules that the grounder removed are printed to
+	 * stderr, the default is {@link GrounderWarnings#DEFAULT_SHOWN}. The
+	 * messages of the grounder itself are limited by the grounder, e.g.
+	 * {@link GrounderGringoImpl#setWarningsShown(int)}.
+	 * 
+	 * @param warningsShown
+	 *            The maximum number of rules, 0 to print only their number.
+	 */
+	public void setWarningsShown(int warningsShown) {
+		if (warningsShown < 0) {
+			throw new IllegalArgumentException("The number of shown warnings must not be negative");
+		}
+		
+		this.warningsShown = warningsShown;
+	}
+	
+	/**
+	 * Set the stream all rules that the grounder removed are written to, in
+	 * addition to the ones printed to stderr.
+	 * 
+	 * @param warningDump
+	 *            The stream, or <code>null</code> to not write them.
+	 */
+	public void setWarningDump(PrintStream warningDump) {
+		this.warningDump = warningDump;
+	}
+	
+	/**
+	 * Set the progress that is updated while the programs are grounded, e.g.
+	 * to report it with a {@link at.aau.statistics.ProgressReporter}. The
+	 * counters of concurrent calls add up.
+	 * 
+	 * @param progress
+	 *            The progress, or <code>null</code> to not count the
+	 *            progress.
+	 */
+	public void setProgress(Progress progress) {
+		this.progress = progress;
+		postprocessor.setProgress(progress);
+	}
+	
+	/**
+	 * Returns the statistics of the last grounded program.
+	 * 
+	 * @return The statistics, or <code>null</code> if no program was grounded
+	 *         yet. The stages are empty if the statistics are not collected.
+	 */
+	public Statistics getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * Limit the number of grounder processes that run at the same time. Calls
+	 * that exceed the limit wait until a grounder process finishes.
+	 * 
+	 * @param maxGrounderProcesses
+	 *            The maximum number of grounder processes, or 0 to not limit
+	 *            the number.
+	 */
+	public void setMaxGrounderProcesses(int maxGrounderProcesses) {
+		if (maxGrounderProcesses < 0) {
+			throw new IllegalArgumentException("The number of grounder processes must not be negative");
+		}
+		
+		this.grounderProcesses = maxGrounderProcesses == 0 ? null : new Semaphore(maxGrounderProcesses, true);
+	}
+	
+	/**
+	 * Set the executor that runs the asynchronous calls.
+	 * 
+	 * @param executor
+	 *            The executor, or <code>null</code> to use a shared pool of
+	 *            daemon threads that grows as needed.
+	 * @see #groundAsync(String, boolean, Map)
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Ground the given logic program in the background.
+	 * 
+	 * @param logicProgram
+	 *            The logic program to ground.
+	 * @param addDebugConstants
+	 *            Whether to add the debug constants.
+	 * @param debugRuleMap
+	 *            Gets filled with the rules of the debug constants once the
+	 *            preprocessing is done. It must not be shared with other
+	 *            calls.
+	 * @return The future of the grounded logic program. If the grounding
+	 *         fails, the cause of the {@link java.util.concurrent.ExecutionException}
+	 *         is a {@link GroundingException} or a
+	 *         {@link PostprocessingException}.
+	 * @see #ground(String, boolean, Map)
+	 */
+	public Future<String> groundAsync(final String logicProgram, final boolean addDebugConstants, final Map<String, Rule> debugRuleMap) {
+		ExecutorService executor = this.executor;
+		
+		return (null == executor ? AsyncPool.EXECUTOR : executor).submit(new Callable<String>() {
+			@Override
+			public String call() throws GroundingException, PostprocessingException {
+				return ground(logicProgram, addDebugConstants, debugRuleMap);
+			}
+		});
+	}
+	
 	/**
 	 * Ground the given logic program without performing any optimizations.
 	 * 
@@ -62,7 +469,7 @@ public class GringoWrapper {
 	 */
 	public String ground(String logicProgram, boolean addDebugConstants)
 			throws GroundingException, PostprocessingException {
-		return ground(logicProgram, addDebugConstants, new HashMap<String, Rule>());
+		return ground(logicProgram, addDebugConstants, new DebugRuleMap());
 	}
 
 	/**
@@ -79,26 +486,323 @@ public class GringoWrapper {
 	 */
 	public String ground(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap)
 			throws GroundingException, PostprocessingException {
-		String factLiteral = preprocessor.getFactLiteral(logicProgram);
-		logicProgram = preprocessor.removeComments(logicProgram);
-		List<String> fixedModel = preprocessor.getFixedModel(logicProgram);
-		logicProgram = preprocessor.rewriteAssertions(logicProgram);
+		Call call = startCall();
 		
-		if (addDebugConstants) {
-			logicProgram = preprocessor.addDebugConstants(logicProgram, DEBUG_CONSTANT_PREFIX, debugRuleMap);			
+		try {
+			logicProgram = ground(logicProgram, addDebugConstants, debugRuleMap, call);
+			call.completed = true;
+		} finally {
+			finishCall(call);
 		}
 		
+		return logicProgram;
+	}
+	
+	/**
+	 * Ground the given logic program and write it to the given stream, e.g.
+	 * the input of a solver. The postprocessed program is written from its
+	 * buffer, i.e. it is not converted to a <code>String</code>. The stream
+	 * is flushed but not closed.
+	 * 
+	 * @param logicProgram
+	 *            The logic program to ground.
+	 * @param addDebugConstants
+	 *            Whether to add the debug constants.
+	 * @param debugRuleMap
+	 *            Gets filled with the rules of the debug constants.
+	 * @param output
+	 *            The stream to write the grounded logic program to.
+	 * @throws GroundingException
+	 *             If the grounder was not found or the program could not be
+	 *             grounded.
+	 * @throws PostprocessingException
+	 *             If the postprocessing of the grounded program failed.
+	 * @throws IOException
+	 *             If writing to the stream failed.
+	 */
+	public void ground(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap, OutputStream output)
+			throws GroundingException, PostprocessingException, IOException {
+		ground(logicProgram, addDebugConstants, debugRuleMap, output, null);
+	}
+	
+	/**
+	 * Ground the given logic program and write it to the given stream, with
+	 * the rules of the debug constants in a separate debug map instead of the
+	 * rule table at the end of the program. The debug map is written on a
+	 * background thread as soon as the preprocessing is done, i.e. while the
+	 * program is grounded and written. Both streams are flushed but not
+	 * closed.
+	 * 
+	 * @param debugMapOutput
+	 *            The stream to write the debug map to, or <code>null</code>
+	 *            to append the rule table to the program.
+	 * @throws IOException
+	 *             If writing to one of the streams failed.
+	 * @see #ground(String, boolean, Map, OutputStream)
+	 * @see at.aau.output.DebugMapFile
+	 */
+	public void ground(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap, OutputStream output,
+			OutputStream debugMapOutput) throws GroundingException, PostprocessingException, IOException {
+		Call call = startCall();
+		
+		try {
+			ground(logicProgram, addDebugConstants, debugRuleMap, call, output, debugMapOutput);
+			call.completed = true;
+		} finally {
+			finishCall(call);
+		}
+	}
+	
+	/**
+	 * Ground the given logic program into a ground program model instead of
+	 * text. The postprocessor fills the model directly, so the grounded
+	 * program is neither written as text nor parsed again. The rule table of
+	 * the debug constants is not part of the model, it is in the debug rule
+	 * map.
+	 * 
+	 * @param logicProgram
+	 *            The logic program to ground.
+	 * @param addDebugConstants
+	 *            Whether to add the debug constants.
+	 * @param debugRuleMap
+	 *            Gets filled with the rules of the debug constants.
+	 * @return The grounded logic program.
+	 * @throws GroundingException
+	 *             If the grounder was not found or the program could not be
+	 *             grounded.
+	 * @throws PostprocessingException
+	 *             If the postprocessing of the grounded program failed.
+	 * @throws IllegalStateException
+	 *             If the wrapper only rewrites the programs.
+	 */
+	public GroundProgram groundProgram(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap)
+			throws GroundingException, PostprocessingException {
 		if (rewriteOnly) {
-			return logicProgram;
+			throw new IllegalStateException("The wrapper only rewrites the programs");
 		}
 		
-		logicProgram = preprocessor.addFactLiteral(logicProgram, factLiteral);
-		logicProgram = grounder.ground(logicProgram);
-		logicProgram = postprocessor.performPostprocessing(logicProgram, DEBUG_CONSTANT_PREFIX, factLiteral, fixedModel);
+		Call call = startCall();
+		GroundProgram groundProgram;
+		
+		try {
+			groundProgram = groundProgram(logicProgram, addDebugConstants, debugRuleMap, call);
+			call.completed = true;
+		} finally {
+			finishCall(call);
+		}
+		
+		return groundProgram;
+	}
+	
+	/**
+	 * Only preprocess the given logic program and write the preprocessed
+	 * program to the given stream, ready to be passed to the grounder. The
+	 * returned context is what {@link #postprocess(ByteBuffer, PreprocessingContext)}
+	 * needs to finish the grounded program later, e.g. on another machine.
+	 * The stream is flushed but not closed.
+	 * 
+	 * @param logicProgram
+	 *            The logic program to preprocess.
+	 * @param addDebugConstants
+	 *            Whether to add the debug constants.
+	 * @param debugRuleMap
+	 *            Gets filled with the rules of the debug constants.
+	 * @param output
+	 *            The stream to write the preprocessed program to.
+	 * @return The context of the preprocessed program.
+	 * @throws GroundingException
+	 *             If the program is estimated to be too large.
+	 * @throws IOException
+	 *             If writing to the stream failed.
+	 * @throws IllegalStateException
+	 *             If the wrapper only rewrites the programs.
+	 */
+	public PreprocessingContext preprocess(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap, OutputStream output)
+			throws GroundingException, IOException {
+		if (rewriteOnly) {
+			throw new IllegalStateException("The wrapper only rewrites the programs");
+		}
+		
+		Call call = startCall();
+		
+		try {
+			Preprocessed preprocessed = preprocess(logicProgram, addDebugConstants, debugRuleMap, call);
+			output.write(preprocessed.program.getBytes(StandardCharsets.UTF_8));
+			output.flush();
+			call.completed = true;
+			
+			return new PreprocessingContext(preprocessed.factLiteral, preprocessed.fixedModel, addDebugConstants, DEBUG_CONSTANT_PREFIX, debugRuleMap);
+		} finally {
+			finishCall(call);
+		}
+	}
+	
+	/**
+	 * Postprocess a program that was preprocessed by
+	 * {@link #preprocess(String, boolean, Map, OutputStream)} and grounded
+	 * separately. The result is the same as if the program was grounded by
+	 * {@link #ground(String, boolean, Map)}.
+	 * 
+	 * @param groundedProgram
+	 *            The output of the grounder.
+	 * @param context
+	 *            The context of the preprocessed program.
+	 * @return The grounded logic program.
+	 * @throws PostprocessingException
+	 *             If the postprocessing of the grounded program failed.
+	 */
+	public String postprocess(ByteBuffer groundedProgram, PreprocessingContext context) throws PostprocessingException {
+		Call call = startCall();
+		String logicProgram;
+		
+		try {
+			DebugAtomIndex removedRulesIndex = getRemovedRulesIndex(call.debugAtomIndex, context.hasDebugConstants());
+			ByteBuffer result = postprocess(groundedProgram, context.getDebugConstantPrefix(), context.getFactLiteral(),
+					context.getFixedModel(), call.statistics, call.profile, removedRulesIndex, call.buffers);
+			logicProgram = buildOutput(result, context.hasDebugConstants(), context.getDebugRuleMap(), removedRulesIndex, call.statistics);
+			call.completed = true;
+		} finally {
+			finishCall(call);
+		}
+		
+		return logicProgram;
+	}
+	
+	/**
+	 * Ground the given logic program and publish the postprocessed program
+	 * while the grounder produces it, without holding the grounded program in
+	 * memory. The symbols are published while the grounder runs, followed by
+	 * the rules, the debug choice rule, the fixed model constraint and the
+	 * {@link GroundCompute} statement, see {@link StreamingPostprocessor}.
+	 * <p>
+	 * The grounding starts when the subscriber subscribes. It waits whenever
+	 * the subscriber did not request the next event, which blocks the grounder
+	 * process once its output pipe is full. Cancelling the subscription stops
+	 * the grounder process. The atoms are not renumbered and the program is
+	 * neither profiled nor indexed.
+	 * 
+	 * @param logicProgram
+	 *            The logic program to ground.
+	 * @param addDebugConstants
+	 *            Whether to add the debug constants.
+	 * @param debugRuleMap
+	 *            Gets filled with the rules of the debug constants once the
+	 *            preprocessing is done.
+	 * @return The publisher of the postprocessed program, for a single
+	 *         subscriber. If the grounding fails, the subscriber gets a
+	 *         {@link GroundingException} or a {@link PostprocessingException}.
+	 * @throws IllegalStateException
+	 *             If the wrapper only rewrites the programs.
+	 * @see #setExecutor(ExecutorService)
+	 */
+	public Publisher<GroundEvent> groundStream(final String logicProgram, final boolean addDebugConstants, final Map<String, Rule> debugRuleMap) {
+		if (rewriteOnly) {
+			throw new IllegalStateException("The wrapper only rewrites the programs");
+		}
+		
+		ExecutorService executor = this.executor;
+		// a grounder of its own, so cancelling stops only the process of this call
+		final Grounder grounder = this.grounder instanceof GrounderGringoImpl
+				? new GrounderGringoImpl((GrounderGringoImpl) this.grounder) : this.grounder;
+		
+		return new BlockingPublisher<GroundEvent>(null == executor ? AsyncPool.EXECUTOR : executor) {
+			@Override
+			protected void produce() throws GroundingException, PostprocessingException, IOException {
+				Call call = new Call(new Statistics(false), null, null, null);
+				Preprocessed preprocessed;
+				
+				try {
+					preprocessed = preprocess(logicProgram, addDebugConstants, debugRuleMap, call);
+				} finally {
+					publishPreprocessing(call);
+				}
+				
+				StreamingPostprocessor postprocessor = new StreamingPostprocessor(DEBUG_CONSTANT_PREFIX,
+						preprocessed.factLiteral, preprocessed.fixedModel, new StreamingPostprocessor.Listener() {
+							@Override
+							public void event(GroundEvent event) throws IOException {
+								emit(event);
+							}
+						});
+				
+				try {
+					groundWithPermit(preprocessed.program, grounder, postprocessor);
+					postprocessor.finish();
+				} finally {
+					postprocessor.close();
+				}
+			}
+			
+			@Override
+			protected void cancelled() {
+				if (grounder instanceof GrounderGringoImpl) {
+					((GrounderGringoImpl) grounder).stop();
+				}
+			}
+		};
+	}
+	
+	private GroundProgram groundProgram(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap, Call call)
+			throws GroundingException, PostprocessingException {
+		Postprocessor postprocessor = this.postprocessor;
+		AtomRenumberer atomRenumberer = this.atomRenumberer;
+		Statistics statistics = call.statistics;
+		GroundingProfile profile = call.profile;
+		DebugAtomIndex debugAtomIndex = call.debugAtomIndex;
+		Buffers buffers = call.buffers;
+		Preprocessed preprocessed = preprocess(logicProgram, addDebugConstants, debugRuleMap, call);
+		ByteBuffer grounded = groundPreprocessed(preprocessed.program, statistics, buffers);
+		GroundProgram groundProgram;
+		
+		statistics.begin("postprocessing", grounded.remaining());
+		
+		if (null == atomRenumberer) {
+			groundProgram = postprocessor.buildGroundProgram(grounded, DEBUG_CONSTANT_PREFIX, preprocessed.factLiteral, preprocessed.fixedModel, profile, debugAtomIndex);
+		} else {
+			// the renumberer works on the text of the program
+			ByteBuffer postprocessed = buffers.postprocessed = postprocessor.performPostprocessing(grounded, DEBUG_CONSTANT_PREFIX, preprocessed.factLiteral, preprocessed.fixedModel, buffers.postprocessed, profile, debugAtomIndex);
+			ByteBuffer renumbered = buffers.renumbered = atomRenumberer.renumber(postprocessed, buffers.renumbered, debugAtomIndex);
+			groundProgram = GroundProgram.read(renumbered);
+		}
+		
+		statistics.end(groundProgram.getMemorySize());
+		
+		if (addDebugConstants && warnRulesRemoved) {
+			warnRulesRemoved(getRemovedRules(groundProgram, debugRuleMap));
+		}
+		
+		return groundProgram;
+	}
+	
+	private String ground(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap, Call call)
+			throws GroundingException, PostprocessingException {
+		Preprocessed preprocessed = preprocess(logicProgram, addDebugConstants, debugRuleMap, call);
+		
+		if (rewriteOnly) {
+			return preprocessed.program;
+		}
+		
+		DebugAtomIndex removedRulesIndex = getRemovedRulesIndex(call.debugAtomIndex, addDebugConstants);
+		ByteBuffer result = groundAndPostprocess(preprocessed, call.statistics, call.profile, removedRulesIndex, call.buffers);
+		return buildOutput(result, addDebugConstants, debugRuleMap, removedRulesIndex, call.statistics);
+	}
+	
+	/**
+	 * Runs the output stage, which appends the rule table to the
+	 * postprocessed program.
+	 * 
+	 * @param debugAtomIndex
+	 *            The index of the debug atoms of the program, filled if the
+	 *            removed rules are warned about.
+	 */
+	private String buildOutput(ByteBuffer result, boolean addDebugConstants, Map<String, Rule> debugRuleMap, DebugAtomIndex debugAtomIndex,
+			Statistics statistics) {
+		statistics.begin("output", result.remaining());
+		String logicProgram = ByteBuffers.toString(result);
 
 		if (addDebugConstants) {
 			if (warnRulesRemoved) {
-				warnRulesRemoved(postprocessor.getRemovedRules(logicProgram, debugRuleMap));
+				warnRulesRemoved(getRemovedRules(debugAtomIndex, debugRuleMap));
 			}
 
 			StringBuilder lp = new StringBuilder(logicProgram.length());
@@ -107,17 +811,493 @@ public class GringoWrapper {
 			logicProgram = lp.toString();
 		}
 		
+		statistics.end(logicProgram.length());
 		return logicProgram;
 	}
 	
+	private void ground(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap, Call call, OutputStream output,
+			OutputStream debugMapOutput) throws GroundingException, PostprocessingException, IOException {
+		Preprocessed preprocessed = preprocess(logicProgram, addDebugConstants, debugRuleMap, call);
+		Future<Void> debugMap = addDebugConstants && null != debugMapOutput ? writeDebugMap(debugRuleMap, debugMapOutput) : null;
+		
+		try {
+			ground(preprocessed, addDebugConstants, debugRuleMap, call, output, null != debugMap);
+		} catch (GroundingException | PostprocessingException | IOException | RuntimeException e) {
+			if (null != debugMap) {
+				debugMap.cancel(true);
+			}
+			
+			throw e;
+		}
+		
+		if (null != debugMap) {
+			awaitDebugMap(debugMap);
+		}
+	}
+	
+	private void ground(Preprocessed preprocessed, boolean addDebugConstants, Map<String, Rule> debugRuleMap, Call call,
+			OutputStream output, boolean separateDebugMap) throws GroundingException, PostprocessingException, IOException {
+		if (rewriteOnly) {
+			output.write(preprocessed.program.getBytes(StandardCharsets.UTF_8));
+			output.flush();
+			return;
+		}
+		
+		Statistics statistics = call.statistics;
+		DebugAtomIndex removedRulesIndex = getRemovedRulesIndex(call.debugAtomIndex, addDebugConstants);
+		ByteBuffer result = groundAndPostprocess(preprocessed, statistics, call.profile, removedRulesIndex, call.buffers);
+		long size = result.remaining();
+		
+		statistics.begin("output", result.remaining());
+		WritableByteChannel channel = Channels.newChannel(output);
+		ByteBuffer remaining = result.duplicate();
+		
+		while (remaining.hasRemaining()) {
+			channel.write(remaining);
+		}
+		
+		if (addDebugConstants) {
+			if (warnRulesRemoved) {
+				warnRulesRemoved(getRemovedRules(removedRulesIndex, debugRuleMap));
+			}
+			
+			// with a separate debug map, the rule table is empty
+			Map<String, Rule> ruleTableRules = separateDebugMap ? Collections.<String, Rule>emptyMap() : debugRuleMap;
+			byte[] ruleTable = outputBuilder.buildRuleTable(ruleTableRules).getBytes(StandardCharsets.UTF_8);
+			output.write(ruleTable);
+			size += ruleTable.length;
+		}
+		
+		output.flush();
+		statistics.end(size);
+	}
+	
+	/**
+	 * Starts to write the debug map on a background thread. The rule map is
+	 * only read, so it can be written while the program is grounded.
+	 */
+	private Future<Void> writeDebugMap(final Map<String, Rule> debugRuleMap, final OutputStream debugMapOutput) {
+		ExecutorService executor = this.executor;
+		
+		return (null == executor ? AsyncPool.EXECUTOR : executor).submit(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				DebugMapFile.write(debugRuleMap, DEBUG_CONSTANT_PREFIX, debugMapOutput);
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Waits until the debug map is written.
+	 */
+	private void awaitDebugMap(Future<Void> debugMap) throws IOException {
+		try {
+			debugMap.get();
+		} catch (InterruptedException e) {
+			debugMap.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing the debug map");
+		} catch (ExecutionException e) {
+			throw new IOException("Could not write the debug map: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+	
+	/**
+	 * Runs the grounding, postprocessing and renumbering stages.
+	 * 
+	 * @return The buffer of the postprocessed or renumbered program.
+	 */
+	private ByteBuffer groundAndPostprocess(Preprocessed preprocessed, Statistics statistics, GroundingProfile profile,
+			DebugAtomIndex debugAtomIndex, Buffers buffers) throws GroundingException, PostprocessingException {
+		ByteBuffer grounded = groundPreprocessed(preprocessed.program, statistics, buffers);
+		return postprocess(grounded, DEBUG_CONSTANT_PREFIX, preprocessed.factLiteral, preprocessed.fixedModel, statistics, profile, debugAtomIndex, buffers);
+	}
+	
+	/**
+	 * Runs the postprocessing and renumbering stages.
+	 * 
+	 * @return The buffer of the postprocessed or renumbered program.
+	 */
+	private ByteBuffer postprocess(ByteBuffer grounded, String debugConstantPrefix, String factLiteral, List<String> fixedModel,
+			Statistics statistics, GroundingProfile profile, DebugAtomIndex debugAtomIndex, Buffers buffers) throws PostprocessingException {
+		Postprocessor postprocessor = this.postprocessor;
+		AtomRenumberer atomRenumberer = this.atomRenumberer;
+		
+		statistics.begin("postprocessing", grounded.remaining());
+		ByteBuffer postprocessed = buffers.postprocessed = postprocessor.performPostprocessing(grounded, debugConstantPrefix, factLiteral, fixedModel, buffers.postprocessed, profile, debugAtomIndex);
+		statistics.end(postprocessed.remaining());
+		ByteBuffer result = postprocessed;
+		
+		if (null != atomRenumberer) {
+			statistics.begin("renumbering", postprocessed.remaining());
+			result = buffers.renumbered = atomRenumberer.renumber(postprocessed, buffers.renumbered, debugAtomIndex);
+			statistics.end(result.remaining());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Runs the preprocessing stage. Unless the wrapper only rewrites the
+	 * programs, the preprocessed program contains the fact literal and is
+	 * ready to be grounded. The slice and the size estimate are kept in the
+	 * call, also if the program is estimated to be too large.
+	 */
+	private Preprocessed preprocess(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap, Call call)
+			throws GroundingException {
+		Statistics statistics = call.statistics;
+		statistics.begin("preprocessing", logicProgram.length());
+		String factLiteral = preprocessor.getFactLiteral(logicProgram);
+		logicProgram = preprocessor.removeComments(logicProgram);
+		List<String> fixedModel = preprocessor.getFixedModel(logicProgram);
+		logicProgram = preprocessor.rewriteAssertions(logicProgram);
+		
+		List<String> sliceTargets = this.sliceTargets;
+		List<String> slicedRules = new ArrayList<String>();
+		
+		if (null != sliceTargets) {
+			logicProgram = slicer.slice(logicProgram, sliceTargets, slicedRules);
+		}
+		
+		if (addDebugConstants) {
+			logicProgram = preprocessor.addDebugConstants(logicProgram, DEBUG_CONSTANT_PREFIX, debugRuleMap, debugConstantNumbering);			
+		}
+		
+		if (null != sliceTargets) {
+			call.slicedRules = Collections.unmodifiableList(slicedRules);
+			
+			if (debugRuleMap instanceof DebugRuleMap) {
+				((DebugRuleMap) debugRuleMap).setSlicedRules(slicedRules);
+			}
+		}
+		
+		if (rewriteOnly) {
+			statistics.end(logicProgram.length());
+			return new Preprocessed(logicProgram, factLiteral, fixedModel);
+		}
+		
+		SizeEstimator sizeEstimator = this.sizeEstimator;
+		
+		if (null != sizeEstimator) {
+			SizeEstimate estimate = sizeEstimator.estimate(logicProgram, DEBUG_CONSTANT_PREFIX);
+			call.sizeEstimate = estimate;
+			
+			if (maxEstimatedRules > 0 && estimate.getTotalRules() > maxEstimatedRules) {
+				throw new GroundingException(String.format(
+						"The grounded program is estimated to have %d rules, more than the maximum of %d rules.\n%s",
+						estimate.getTotalRules(), maxEstimatedRules, estimate.format(ESTIMATED_RULES_SHOWN)));
+			}
+		}
+		
+		logicProgram = preprocessor.addFactLiteral(logicProgram, factLiteral);
+		statistics.end(logicProgram.length());
+		
+		return new Preprocessed(logicProgram, factLiteral, fixedModel);
+	}
+	
+	/**
+	 * Starts a call with its own statistics, profile, index and buffers.
+	 */
+	private Call startCall() {
+		Buffers buffers = idleBuffers.poll();
+		
+		return new Call(createStatistics(), profiling ? new GroundingProfile() : null, indexDebugAtoms ? new DebugAtomIndex() : null,
+				null == buffers ? new Buffers() : buffers);
+	}
+	
+	/**
+	 * Finishes a call: keeps its buffers for the next calls and publishes its
+	 * results as those of the last call. The profile and the index are only
+	 * published if the call completed.
+	 */
+	private void finishCall(Call call) {
+		call.buffers.trim(MAX_IDLE_BUFFER_CAPACITY);
+		// the queue is bounded, the buffers of a full queue are dropped
+		idleBuffers.offer(call.buffers);
+		this.statistics = call.statistics;
+		publishPreprocessing(call);
+		
+		if (call.completed) {
+			if (null != call.profile) {
+				this.profile = call.profile;
+			}
+			
+			if (null != call.debugAtomIndex) {
+				this.debugAtomIndex = call.debugAtomIndex;
+			}
+		}
+	}
+	
+	/**
+	 * Publishes the slice and the size estimate of a call as those of the
+	 * last program.
+	 */
+	private void publishPreprocessing(Call call) {
+		if (null != call.slicedRules) {
+			this.slicedRules = call.slicedRules;
+		}
+		
+		if (null != call.sizeEstimate) {
+			this.sizeEstimate = call.sizeEstimate;
+		}
+	}
+	
+	/**
+	 * Creates the statistics of a call, which also update the progress.
+	 */
+	private Statistics createStatistics() {
+		Statistics statistics = new Statistics(collectStatistics);
+		statistics.setProgress(progress);
+		
+		return statistics;
+	}
+	
+	/**
+	 * Runs the grounding stage.
+	 */
+	private ByteBuffer groundPreprocessed(String logicProgram, Statistics statistics, Buffers buffers) throws GroundingException {
+		statistics.begin("grounding", logicProgram.length());
+		ByteBuffer grounded = buffers.grounded = groundWithPermit(logicProgram, buffers.grounded, statistics);
+		statistics.end(grounded.remaining());
+		
+		return grounded;
+	}
+	
+	/**
+	 * Returns the index the postprocessor fills with the debug atoms: the
+	 * given one, or a new one if the removed rules are warned about, since
+	 * they are found by the debug atoms.
+	 */
+	private DebugAtomIndex getRemovedRulesIndex(DebugAtomIndex debugAtomIndex, boolean addDebugConstants) {
+		return null == debugAtomIndex && addDebugConstants && warnRulesRemoved ? new DebugAtomIndex() : debugAtomIndex;
+	}
+	
+	/**
+	 * Returns the rules that have no ground instance, i.e. whose debug
+	 * constant has no debug atom in the given index.
+	 */
+	private static List<String> getRemovedRules(DebugAtomIndex debugAtomIndex, Map<String, Rule> debugRuleMap) {
+		BitSet grounded = new BitSet();
+		
+		for (int entry = 0; entry < debugAtomIndex.size(); entry ++) {
+			int rule = debugAtomIndex.getRuleIndex(debugAtomIndex.getAtom(entry));
+			
+			if (rule > -1) {
+				grounded.set(rule);
+			}
+		}
+		
+		String prefix = debugAtomIndex.getDebugAtomPrefix();
+		List<String> removedRules = new ArrayList<String>();
+		
+		for (Map.Entry<String, Rule> entry : debugRuleMap.entrySet()) {
+			int rule = getDebugConstantNumber(entry.getKey(), prefix);
+			
+			if (rule < 0 || !grounded.get(rule)) {
+				removedRules.add(entry.getValue().getRule());
+			}
+		}
+		
+		return removedRules;
+	}
+	
+	/**
+	 * Returns the number of the given debug constant, e.g. 3 for
+	 * <code>_debug3</code>, or -1 if it is not a debug constant.
+	 */
+	private static int getDebugConstantNumber(String debugConstant, String prefix) {
+		if (!debugConstant.startsWith(prefix)) {
+			return -1;
+		}
+		
+		try {
+			return Integer.parseInt(debugConstant.substring(prefix.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * Returns the rules that have no ground instance in the given program,
+	 * i.e. whose debug constant has no debug atom.
+	 */
+	private List<String> getRemovedRules(GroundProgram groundProgram, Map<String, Rule> debugRuleMap) {
+		Set<String> grounded = new HashSet<String>();
+		
+		for (int symbol = 0; symbol < groundProgram.getSymbolCount(); symbol ++) {
+			String name = groundProgram.getSymbolName(symbol);
+			int arguments = name.indexOf('(');
+			grounded.add(arguments < 0 ? name : name.substring(0, arguments));
+		}
+		
+		List<String> removedRules = new ArrayList<String>();
+		
+		for (Map.Entry<String, Rule> entry : debugRuleMap.entrySet()) {
+			if (!grounded.contains(entry.getKey())) {
+				removedRules.add(entry.getValue().getRule());
+			}
+		}
+		
+		return removedRules;
+	}
+	
+	/**
+	 * Calls the grounder once a grounder process is available.
+	 */
+	private ByteBuffer groundWithPermit(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+		Semaphore grounderProcesses = acquireGrounderProcess();
+		
+		try {
+			return Grounders.ground(grounder, logicProgram, buffer, statistics);
+		} finally {
+			if (null != grounderProcesses) {
+				grounderProcesses.release();
+			}
+		}
+	}
+	
+	/**
+	 * Calls the given grounder once a grounder process is available and
+	 * writes the grounded program to the output. Only gringo writes the
+	 * program while it is grounded, other grounders write it at the end.
+	 */
+	private void groundWithPermit(String logicProgram, Grounder grounder, OutputStream output) throws GroundingException, IOException {
+		Semaphore grounderProcesses = acquireGrounderProcess();
+		
+		try {
+			if (grounder instanceof GrounderGringoImpl) {
+				((GrounderGringoImpl) grounder).groundTo(logicProgram, output, null);
+			} else {
+				ByteBuffer grounded = Grounders.ground(grounder, logicProgram, null, null);
+				byte[] data = new byte[grounded.remaining()];
+				grounded.get(data);
+				output.write(data);
+			}
+		} finally {
+			if (null != grounderProcesses) {
+				grounderProcesses.release();
+			}
+		}
+	}
+	
+	/**
+	 * Waits until a grounder process is available.
+	 * 
+	 * @return The permits to release after the grounding, or
+	 *         <code>null</code> if the number of processes is not limited.
+	 */
+	private Semaphore acquireGrounderProcess() throws GroundingException {
+		Semaphore grounderProcesses = this.grounderProcesses;
+		
+		if (null != grounderProcesses) {
+			try {
+				grounderProcesses.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GroundingException("Interrupted while waiting for a grounder process", e);
+			}
+		}
+		
+		return grounderProcesses;
+	}
+	
 	private void warnRulesRemoved(List<String> removedRules) {
 		if (removedRules.isEmpty())
 			return;
 		
+		int shown = Math.min(warningsShown, removedRules.size());
+		PrintStream warningDump = this.warningDump;
 		System.err.println("warning: the grounder removed the following rules:");
 		
-		for (String rule : removedRules) {
+		for (String rule : removedRules.subList(0, shown)) {
 			System.err.println("  " + rule);
 		}
+		
+		if (shown < removedRules.size()) {
+			System.err.println("  ... and " + (removedRules.size() - shown) + " more rules");
+		}
+		
+		if (null != warningDump) {
+			warningDump.println("warning: the grounder removed the following rules:");
+			
+			for (String rule : removedRules) {
+				warningDump.println("  " + rule);
+			}
+			
+			warningDump.flush();
+		}
+	}
+	
+	/** The result of the preprocessing stage */
+	private static class Preprocessed {
+		private final String program;
+		private final String factLiteral;
+		private final List<String> fixedModel;
+		
+		public Preprocessed(String program, String factLiteral, List<String> fixedModel) {
+			this.program = program;
+			this.factLiteral = factLiteral;
+			this.fixedModel = fixedModel;
+		}
+	}
+	
+	/** The state of a single call, which is published when the call finishes */
+	private static class Call {
+		private final Statistics statistics;
+		private final GroundingProfile profile;
+		private final DebugAtomIndex debugAtomIndex;
+		private final Buffers buffers;
+		
+		/** The size estimate of the program, or <code>null</code> if it was not estimated */
+		private SizeEstimate sizeEstimate;
+		
+		/** The rules removed by slicing the program, or <code>null</code> if it was not sliced */
+		private List<String> slicedRules;
+		
+		/** Whether the call completed, i.e. the profile and the index are complete */
+		private boolean completed;
+		
+		public Call(Statistics statistics, GroundingProfile profile, DebugAtomIndex debugAtomIndex, Buffers buffers) {
+			this.statistics = statistics;
+			this.profile = profile;
+			this.debugAtomIndex = debugAtomIndex;
+			this.buffers = buffers;
+		}
+	}
+	
+	/** The buffers of a single call, reused by the next call */
+	private static class Buffers {
+		private ByteBuffer grounded;
+		private ByteBuffer postprocessed;
+		private ByteBuffer renumbered;
+		
+		/**
+		 * Drops the buffers above the given capacity, so a single large
+		 * program does not keep its memory for the life of the wrapper.
+		 */
+		private void trim(int maxCapacity) {
+			grounded = trim(grounded, maxCapacity);
+			postprocessed = trim(postprocessed, maxCapacity);
+			renumbered = trim(renumbered, maxCapacity);
+		}
+		
+		private static ByteBuffer trim(ByteBuffer buffer, int maxCapacity) {
+			return null != buffer && buffer.capacity() > maxCapacity ? null : buffer;
+		}
+	}
+	
+	/** The default threads of the asynchronous calls. */
+	private static class AsyncPool {
+		private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger threadNum = new AtomicInteger(1);
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "gringo-wrapper-" + threadNum.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 	}
 }
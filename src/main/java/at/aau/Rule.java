@@ -1,5 +1,6 @@
 package at.aau;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -17,7 +18,10 @@ public class Rule {
 	
 	/** The variables that occur inside the rule */
 	private final List<String> variables;
-
+	
+	/** The compiled rule text, created on first use */
+	private Template template;
+	
 	public Rule(String rule) {
 		this(rule, new ArrayList<String>());
 	}
@@ -37,48 +41,166 @@ public class Rule {
 	
 	public Map<String, String> getSubstitution(String term) {
 		Map<String, String> substitution = new HashMap<String, String>();
-		StringBuilder termBuilder = new StringBuilder();
+		int[] arguments = new int[2 * variables.size()];
+		int count = splitArguments(term, arguments);
+		
+		for (int i = 0; i < count; i ++) {
+			substitution.put(variables.get(i), term.substring(arguments[2 * i], arguments[2 * i + 1]));
+		}
+		
+		return substitution;
+	}
+	
+	public String getGroundedRule(String term) {
+		StringBuilder grounded = new StringBuilder(rule.length() + term.length());
+		appendGroundedRule(term, grounded);
+		
+		return grounded.toString();
+	}
+	
+	public String getGroundedRule(Map<String, String> substitution) {
+		Template template = getTemplate();
+		StringBuilder grounded = new StringBuilder(rule.length());
+		
+		for (int i = 0; i < template.slots.length; i ++) {
+			grounded.append(template.segments[i]);
+			String variable = variables.get(template.slots[i]);
+			String value = substitution.get(variable);
+			grounded.append(null == value ? variable : value);
+		}
+		
+		grounded.append(template.segments[template.slots.length]);
+		return grounded.toString();
+	}
+	
+	/**
+	 * Instantiates the rule with the arguments of each of the given ground
+	 * debug atoms and writes the ground rules to the sink, one per line. The
+	 * rule is compiled only once and no objects are created per ground rule,
+	 * so this is the preferred way to instantiate a rule many times.
+	 *
+	 * @param terms
+	 *            The arguments of the ground debug atoms, e.g.
+	 *            <code>1,f(a,b)</code> for <code>_debug1(1,f(a,b))</code>.
+	 * @param sink
+	 *            The destination of the ground rules.
+	 * @return The number of ground rules written.
+	 * @throws IOException
+	 *             If writing to the sink failed.
+	 */
+	public int writeGroundedRules(Iterable<? extends CharSequence> terms, Appendable sink) throws IOException {
+		int[] arguments = new int[2 * variables.size()];
+		int count = 0;
+		
+		for (CharSequence term : terms) {
+			appendGroundedRule(term, sink, arguments);
+			sink.append('\n');
+			count ++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Instantiates the rule with the arguments of a ground debug atom and
+	 * appends the ground rule to the given builder.
+	 *
+	 * @see #writeGroundedRules(Iterable, Appendable)
+	 */
+	public void appendGroundedRule(CharSequence term, StringBuilder grounded) {
+		try {
+			appendGroundedRule(term, grounded, new int[2 * variables.size()]);
+		} catch (IOException e) {
+			// a StringBuilder does not throw IOExceptions
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private void appendGroundedRule(CharSequence term, Appendable grounded, int[] arguments) throws IOException {
+		Template template = getTemplate();
+		int count = splitArguments(term, arguments);
+		
+		for (int i = 0; i < template.slots.length; i ++) {
+			grounded.append(template.segments[i]);
+			int slot = template.slots[i];
+			
+			if (slot < count) {
+				grounded.append(term, arguments[2 * slot], arguments[2 * slot + 1]);
+			} else {
+				grounded.append(variables.get(slot));
+			}
+		}
+		
+		grounded.append(template.segments[template.slots.length]);
+	}
+	
+	/**
+	 * Splits the arguments of a ground debug atom at the top level commas and
+	 * stores the start and end index of each argument in the given array.
+	 *
+	 * @return The number of arguments.
+	 */
+	private int splitArguments(CharSequence term, int[] arguments) {
+		int count = 0;
+		int start = 0;
 		int openBrackets = 0;
+		boolean quoted = false;
+		int length = term.length();
 		
-		for (char c : term.toCharArray()) {
-			if ('(' == c) {
+		for (int i = 0; i < length; i ++) {
+			char c = term.charAt(i);
+			
+			if (quoted) {
+				if ('\\' == c) {
+					i ++;
+				} else if ('"' == c) {
+					quoted = false;
+				}
+			} else if ('"' == c) {
+				quoted = true;
+			} else if ('(' == c) {
 				openBrackets ++;
-			} else if (')' == c) { 
+			} else if (')' == c) {
 				openBrackets --;
 			} else if (',' == c && openBrackets == 0) {
-				String var = variables.get(substitution.size());
-				substitution.put(var, termBuilder.toString());
-				termBuilder.setLength(0);
-			} else {
-				termBuilder.append(c);
+				count = addArgument(arguments, count, start, i);
+				start = i + 1;
 			}
 		}
 		
-		if (termBuilder.length() > 0) {
-			String var = variables.get(substitution.size());
-			substitution.put(var, termBuilder.toString());
+		if (length > start) {
+			count = addArgument(arguments, count, start, length);
 		}
 		
-		return substitution;
+		return count;
 	}
-
-	public String getGroundedRule(String term) {
-		return getGroundedRule(getSubstitution(term));
+	
+	private int addArgument(int[] arguments, int count, int start, int end) {
+		if (count == variables.size()) {
+			throw new IllegalArgumentException("The rule '" + rule + "' has only " + count + " variables");
+		}
+		
+		arguments[2 * count] = start;
+		arguments[2 * count + 1] = end;
+		
+		return count + 1;
 	}
 	
-	public String getGroundedRule(Map<String, String> substitution) {
-		String grounded = rule;
+	private Template getTemplate() {
+		Template template = this.template;
 		
-		for (String var : substitution.keySet()) {
-			grounded = grounded.replaceAll("(?<=[,;( ])" + var + "(?=[,;) ])", substitution.get(var));
+		if (null == template) {
+			// the template is immutable, so compiling it twice is harmless
+			template = Template.compile(rule, variables);
+			this.template = template;
 		}
-
-		return grounded;
+		
+		return template;
 	}
 	
 	@Override
 	public boolean equals(Object obj) {
-		if (obj.getClass() != Rule.class)
+		if (null == obj || obj.getClass() != Rule.class)
 			return false;
 		
 		Rule toCompare = (Rule) obj;
@@ -86,4 +208,85 @@ public class Rule {
 		return toCompare.getRule().equals(this.getRule())
 			&& this.getVariables().equals(toCompare.getVariables());
 	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * rule.hashCode() + variables.hashCode();
+	}
+	
+	/**
+	 * The rule text split into the literal text between the variables and
+	 * the indices of the variables.
+	 */
+	private static final class Template {
+		/** The literal text, one more than there are slots */
+		private final String[] segments;
+		
+		/** The index of the variable that follows each segment */
+		private final int[] slots;
+		
+		private Template(String[] segments, int[] slots) {
+			this.segments = segments;
+			this.slots = slots;
+		}
+		
+		/**
+		 * Finds the occurrences of the variables in the rule text. A variable
+		 * occurs wherever an identifier outside of a string equals the name of
+		 * the variable.
+		 */
+		public static Template compile(String rule, List<String> variables) {
+			List<String> segments = new ArrayList<String>();
+			List<Integer> slots = new ArrayList<Integer>();
+			int segmentStart = 0;
+			int length = rule.length();
+			int i = 0;
+			
+			while (i < length) {
+				char c = rule.charAt(i);
+				
+				if ('"' == c) {
+					// skip the string
+					for (i ++; i < length && rule.charAt(i) != '"'; i ++) {
+						if (rule.charAt(i) == '\\') {
+							i ++;
+						}
+					}
+					
+					i ++;
+				} else if (isIdentifierPart(c)) {
+					int end = i;
+					
+					while (end < length && isIdentifierPart(rule.charAt(end))) {
+						end ++;
+					}
+					
+					int variable = variables.indexOf(rule.substring(i, end));
+					
+					if (variable >= 0) {
+						segments.add(rule.substring(segmentStart, i));
+						slots.add(variable);
+						segmentStart = end;
+					}
+					
+					i = end;
+				} else {
+					i ++;
+				}
+			}
+			
+			segments.add(rule.substring(segmentStart));
+			int[] slotArray = new int[slots.size()];
+			
+			for (int slot = 0; slot < slotArray.length; slot ++) {
+				slotArray[slot] = slots.get(slot);
+			}
+			
+			return new Template(segments.toArray(new String[segments.size()]), slotArray);
+		}
+		
+		private static boolean isIdentifierPart(char c) {
+			return Character.isLetterOrDigit(c) || '_' == c || '\'' == c;
+		}
+	}
 }
@@ -0,0 +1,210 @@
+package at.aau.cluster;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The throughput of a {@link Coordinator} and the utilization of its workers.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ClusterReport {
+	private final int submittedJobs;
+	private final int distinctJobs;
+	private final int succeededJobs;
+	private final int failedJobs;
+	private final int retries;
+	private final int steals;
+	private final int duplicateResults;
+	private final int transferredInputs;
+	private final long transferredBytes;
+	private final long elapsedNanos;
+	private final List<WorkerReport> workers;
+	
+	ClusterReport(int submittedJobs, int distinctJobs, int succeededJobs, int failedJobs, int retries, int steals,
+			int duplicateResults, int transferredInputs, long transferredBytes, long elapsedNanos, List<WorkerReport> workers) {
+		this.submittedJobs = submittedJobs;
+		this.distinctJobs = distinctJobs;
+		this.succeededJobs = succeededJobs;
+		this.failedJobs = failedJobs;
+		this.retries = retries;
+		this.steals = steals;
+		this.duplicateResults = duplicateResults;
+		this.transferredInputs = transferredInputs;
+		this.transferredBytes = transferredBytes;
+		this.elapsedNanos = elapsedNanos;
+		this.workers = Collections.unmodifiableList(workers);
+	}
+	
+	/**
+	 * Returns the number of submitted jobs, including those with the same id.
+	 */
+	public int getSubmittedJobs() {
+		return submittedJobs;
+	}
+	
+	/**
+	 * Returns the number of jobs with distinct ids, i.e. the jobs that are run.
+	 */
+	public int getDistinctJobs() {
+		return distinctJobs;
+	}
+	
+	public int getSucceededJobs() {
+		return succeededJobs;
+	}
+	
+	public int getFailedJobs() {
+		return failedJobs;
+	}
+	
+	/**
+	 * Returns how often a job was handed out again after a failure or a lost
+	 * worker.
+	 */
+	public int getRetries() {
+		return retries;
+	}
+	
+	/**
+	 * Returns how often an idle worker stole a job that was running too long
+	 * on another worker.
+	 */
+	public int getSteals() {
+		return steals;
+	}
+	
+	/**
+	 * Returns the number of results that were discarded because another
+	 * worker finished the same job first.
+	 */
+	public int getDuplicateResults() {
+		return duplicateResults;
+	}
+	
+	/**
+	 * Returns how many input files were sent to the workers.
+	 */
+	public int getTransferredInputs() {
+		return transferredInputs;
+	}
+	
+	public long getTransferredBytes() {
+		return transferredBytes;
+	}
+	
+	/**
+	 * Returns the time from the first submission to the last result.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	
+	/**
+	 * Returns the finished distinct jobs per second.
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : (succeededJobs + failedJobs) * 1e9 / elapsedNanos;
+	}
+	
+	public List<WorkerReport> getWorkers() {
+		return workers;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, "%d jobs (%d distinct): %d succeeded, %d failed, %d retries, %d steals%n",
+				submittedJobs, distinctJobs, succeededJobs, failedJobs, retries, steals));
+		report.append(String.format(Locale.ROOT, "%.3f s, %.2f jobs/s, %d inputs (%d bytes) transferred%n",
+				elapsedNanos / 1e9, getThroughput(), transferredInputs, transferredBytes));
+		report.append(String.format(Locale.ROOT, "%-30s %5s %6s %6s %5s %9s %11s%n",
+				"worker", "slots", "jobs", "failed", "lost", "busy [s]", "utilization"));
+		
+		for (WorkerReport worker : workers) {
+			report.append(String.format(Locale.ROOT, "%-30s %5d %6d %6d %5d %9.3f %10.1f%%%n", worker.getName(),
+					worker.getSlots(), worker.getCompletedJobs(), worker.getFailedJobs(), worker.getLostJobs(),
+					worker.getBusyNanos() / 1e9, 100 * worker.getUtilization()));
+		}
+		
+		return report.toString();
+	}
+	
+	/**
+	 * The jobs and the utilization of a worker over all its connections.
+	 */
+	public static class WorkerReport {
+		private final String name;
+		private int slots;
+		private int completedJobs;
+		private int failedJobs;
+		private int lostJobs;
+		private long busyNanos;
+		private long connectedNanos;
+		
+		WorkerReport(String name) {
+			this.name = name;
+		}
+		
+		void add(int completedJobs, int failedJobs, int lostJobs, long busyNanos, long connectedNanos) {
+			this.slots ++;
+			this.completedJobs += completedJobs;
+			this.failedJobs += failedJobs;
+			this.lostJobs += lostJobs;
+			this.busyNanos += busyNanos;
+			this.connectedNanos += connectedNanos;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * Returns the number of connections, i.e. the jobs the worker can run
+		 * at the same time.
+		 */
+		public int getSlots() {
+			return slots;
+		}
+		
+		/**
+		 * Returns the number of jobs the worker returned a result for,
+		 * including discarded duplicates.
+		 */
+		public int getCompletedJobs() {
+			return completedJobs;
+		}
+		
+		public int getFailedJobs() {
+			return failedJobs;
+		}
+		
+		/**
+		 * Returns the number of jobs the worker disconnected during.
+		 */
+		public int getLostJobs() {
+			return lostJobs;
+		}
+		
+		/**
+		 * Returns the time the connections of the worker were running jobs.
+		 */
+		public long getBusyNanos() {
+			return busyNanos;
+		}
+		
+		public long getConnectedNanos() {
+			return connectedNanos;
+		}
+		
+		/**
+		 * Returns the fraction of the connected time the worker was running
+		 * jobs.
+		 */
+		public double getUtilization() {
+			return connectedNanos == 0 ? 0 : (double) busyNanos / connectedNanos;
+		}
+	}
+}
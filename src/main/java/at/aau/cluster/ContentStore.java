@@ -0,0 +1,82 @@
+package at.aau.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stores contents by their SHA-256 hash, so identical contents are stored and
+ * transferred only once. The store can be used by several threads.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ContentStore {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
+	private final ConcurrentMap<String, byte[]> contents = new ConcurrentHashMap<String, byte[]>();
+	
+	/**
+	 * Adds the given content to the store.
+	 *
+	 * @return The hash of the content.
+	 */
+	public String put(byte[] content) {
+		String hash = hash(content);
+		contents.putIfAbsent(hash, content);
+		
+		return hash;
+	}
+	
+	/**
+	 * Returns the content with the given hash, or <code>null</code> if it is
+	 * not contained.
+	 */
+	public byte[] get(String hash) {
+		return contents.get(hash);
+	}
+	
+	public boolean contains(String hash) {
+		return contents.containsKey(hash);
+	}
+	
+	/**
+	 * Returns the number of stored contents.
+	 */
+	public int size() {
+		return contents.size();
+	}
+	
+	/**
+	 * Returns the SHA-256 hash of the given content as a hex string.
+	 */
+	public static String hash(byte[] content) {
+		byte[] digest = sha256().digest(content);
+		char[] hex = new char[2 * digest.length];
+		
+		for (int i = 0; i < digest.length; i ++) {
+			hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+			hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xf];
+		}
+		
+		return new String(hex);
+	}
+	
+	/**
+	 * Returns the SHA-256 hash of the given text, encoded as UTF-8.
+	 */
+	public static String hash(String text) {
+		return hash(text.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
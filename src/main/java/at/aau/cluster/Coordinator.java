@@ -0,0 +1,566 @@
+package at.aau.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out grounding jobs to workers and collects their results.
+ * <p>
+ * The workers connect over TCP (see {@link #start(int)}) or any other
+ * transport (see {@link #handle(InputStream, OutputStream)}) and pull the jobs
+ * one by one, so faster workers get more jobs. The input files of the jobs are
+ * stored in a {@link ContentStore} and sent to a worker only if it asks for
+ * them, i.e. at most once per worker. Jobs with the same inputs and options
+ * are grounded only once.
+ * <p>
+ * A job that fails or whose worker disconnects is handed out again, up to the
+ * given number of attempts. When the queue is empty, idle workers steal jobs
+ * that have been running on another worker for too long by running them a
+ * second time. The first result of a job is kept.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class Coordinator implements Closeable {
+	/** The milliseconds a worker waits before asking again if there is no job */
+	private static final long WAIT_MILLIS = 100;
+	
+	private final ContentStore contentStore;
+	
+	private final int maxAttempts;
+	
+	private final long stealAfterNanos;
+	
+	/** The jobs by their id, in the order of submission */
+	private final Map<String, Job> jobs = new LinkedHashMap<String, Job>();
+	
+	/** The submitted job specifications, in the order of submission */
+	private final List<JobSpec> specs = new ArrayList<JobSpec>();
+	
+	private final Deque<Job> queue = new ArrayDeque<Job>();
+	
+	private final List<Slot> slots = new ArrayList<Slot>();
+	
+	/** Whether no more jobs are submitted */
+	private boolean submissionsClosed;
+	
+	private int unfinishedJobs;
+	
+	private int retries;
+	
+	private int steals;
+	
+	private int duplicateResults;
+	
+	private int transferredInputs;
+	
+	private long transferredBytes;
+	
+	private long firstSubmission = -1;
+	
+	private long lastCompletion = -1;
+	
+	private volatile ServerSocket serverSocket;
+	
+	/**
+	 * Creates a coordinator.
+	 *
+	 * @param contentStore
+	 *            The store that contains the input files of the jobs.
+	 * @param maxAttempts
+	 *            How often a job is handed out before it is reported as
+	 *            failed.
+	 * @param stealAfterMillis
+	 *            The time after which idle workers also run a job that runs on
+	 *            another worker.
+	 */
+	public Coordinator(ContentStore contentStore, int maxAttempts, long stealAfterMillis) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("The number of attempts must be at least 1");
+		}
+		
+		this.contentStore = contentStore;
+		this.maxAttempts = maxAttempts;
+		this.stealAfterNanos = stealAfterMillis * 1000000L;
+	}
+	
+	public ContentStore getContentStore() {
+		return contentStore;
+	}
+	
+	/**
+	 * Adds a job. If a job with the same id was submitted before, the job is
+	 * not run again and both get the same result.
+	 *
+	 * @throws IllegalStateException
+	 *             If the results were already awaited.
+	 */
+	public synchronized void submit(JobSpec spec) {
+		if (submissionsClosed) {
+			throw new IllegalStateException("No jobs can be submitted after awaiting the results");
+		}
+		
+		for (String input : spec.getInputs()) {
+			if (!contentStore.contains(input)) {
+				throw new IllegalArgumentException("The input " + input + " of the job " + spec.getName() + " is not in the content store");
+			}
+		}
+		
+		if (firstSubmission < 0) {
+			firstSubmission = System.nanoTime();
+		}
+		
+		specs.add(spec);
+		
+		if (!jobs.containsKey(spec.getId())) {
+			Job job = new Job(spec);
+			jobs.put(spec.getId(), job);
+			queue.addLast(job);
+			unfinishedJobs ++;
+		}
+	}
+	
+	/**
+	 * Listens for workers on the given port in a background thread.
+	 *
+	 * @param port
+	 *            The port, or 0 to use any free port.
+	 * @return The port the coordinator listens on.
+	 */
+	public int start(int port) throws IOException {
+		final ServerSocket serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(new InetSocketAddress(port));
+		this.serverSocket = serverSocket;
+		
+		Thread acceptor = new Thread("coordinator") {
+			private final AtomicInteger connectionNum = new AtomicInteger(1);
+			
+			@Override
+			public void run() {
+				while (!serverSocket.isClosed()) {
+					final Socket socket;
+					
+					try {
+						socket = serverSocket.accept();
+						socket.setTcpNoDelay(true);
+					} catch (IOException e) {
+						// the server socket was closed
+						return;
+					}
+					
+					Thread connection = new Thread("coordinator-" + connectionNum.getAndIncrement()) {
+						@Override
+						public void run() {
+							try {
+								handle(socket.getInputStream(), socket.getOutputStream());
+							} catch (IOException e) {
+								// the worker is lost, its job was handed out again
+							} finally {
+								closeQuietly(socket);
+							}
+						}
+					};
+					connection.setDaemon(true);
+					connection.start();
+				}
+			}
+		};
+		acceptor.setDaemon(true);
+		acceptor.start();
+		
+		return serverSocket.getLocalPort();
+	}
+	
+	/**
+	 * Serves the worker of the given connection until all jobs are finished
+	 * or the worker disconnects. The job of a disconnected worker is handed
+	 * out again.
+	 *
+	 * @throws IOException
+	 *             If the connection failed or the worker violated the
+	 *             protocol.
+	 */
+	public void handle(InputStream in, OutputStream out) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(in));
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(out));
+		
+		if (input.readByte() != Protocol.HELLO || input.readInt() != Protocol.VERSION) {
+			throw new IOException("The peer is not a worker of this version");
+		}
+		
+		Slot slot = connect(input.readUTF());
+		
+		try {
+			while (true) {
+				byte type = input.readByte();
+				
+				switch (type) {
+				case Protocol.REQUEST:
+					Job job = take(slot);
+					
+					if (null != job) {
+						output.writeByte(Protocol.JOB);
+						output.writeUTF(job.spec.getId());
+						output.writeUTF(job.spec.getName());
+						output.writeBoolean(job.spec.isAddDebugConstants());
+						output.writeInt(job.spec.getInputs().size());
+						
+						for (String hash : job.spec.getInputs()) {
+							output.writeUTF(hash);
+						}
+					} else if (isFinished()) {
+						output.writeByte(Protocol.DONE);
+						output.flush();
+						return;
+					} else {
+						output.writeByte(Protocol.WAIT);
+						output.writeLong(WAIT_MILLIS);
+					}
+					
+					break;
+				case Protocol.GET_INPUT:
+					byte[] content = contentStore.get(input.readUTF());
+					output.writeByte(Protocol.INPUT);
+					Protocol.writeBytes(output, content);
+					countTransfer(content);
+					break;
+				case Protocol.RESULT:
+					String id = input.readUTF();
+					boolean success = input.readBoolean();
+					byte[] result = Protocol.readBytes(input);
+					complete(slot, id, success, result);
+					continue;
+				default:
+					throw new IOException("Unknown message " + type);
+				}
+				
+				output.flush();
+			}
+		} finally {
+			disconnect(slot);
+		}
+	}
+	
+	/**
+	 * Waits until all submitted jobs are finished. No more jobs can be
+	 * submitted afterwards, and the workers are told to stop once they ask for
+	 * the next job.
+	 *
+	 * @return The results of the submitted jobs, in the order of submission.
+	 */
+	public synchronized List<JobResult> awaitResults() throws InterruptedException {
+		submissionsClosed = true;
+		
+		while (unfinishedJobs > 0) {
+			wait();
+		}
+		
+		List<JobResult> results = new ArrayList<JobResult>(specs.size());
+		
+		for (JobSpec spec : specs) {
+			Job job = jobs.get(spec.getId());
+			results.add(new JobResult(spec, job.success, job.output, job.error, job.worker, job.attempts));
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Returns the throughput of the cluster and the utilization of the
+	 * workers so far.
+	 */
+	public synchronized ClusterReport getReport() {
+		long now = System.nanoTime();
+		Map<String, ClusterReport.WorkerReport> workers = new LinkedHashMap<String, ClusterReport.WorkerReport>();
+		
+		for (Slot slot : slots) {
+			ClusterReport.WorkerReport worker = workers.get(slot.worker);
+			
+			if (null == worker) {
+				worker = new ClusterReport.WorkerReport(slot.worker);
+				workers.put(slot.worker, worker);
+			}
+			
+			long busy = slot.busyNanos + (null == slot.current ? 0 : now - slot.current.start);
+			long connected = (slot.disconnected < 0 ? now : slot.disconnected) - slot.connected;
+			worker.add(slot.completed, slot.failed, slot.lost, busy, connected);
+		}
+		
+		int succeeded = 0;
+		int failed = 0;
+		
+		for (Job job : jobs.values()) {
+			if (job.finished && job.success) {
+				succeeded ++;
+			} else if (job.finished) {
+				failed ++;
+			}
+		}
+		
+		long end = unfinishedJobs == 0 && lastCompletion >= 0 ? lastCompletion : now;
+		long elapsed = firstSubmission < 0 ? 0 : end - firstSubmission;
+		
+		return new ClusterReport(specs.size(), jobs.size(), succeeded, failed, retries, steals, duplicateResults,
+				transferredInputs, transferredBytes, elapsed, new ArrayList<ClusterReport.WorkerReport>(workers.values()));
+	}
+	
+	/**
+	 * Stops listening for workers and gives the connected workers a short
+	 * time to ask for the next job, so they learn that all jobs are finished
+	 * before the coordinator exits.
+	 */
+	@Override
+	public void close() throws IOException {
+		ServerSocket serverSocket = this.serverSocket;
+		
+		if (null != serverSocket) {
+			serverSocket.close();
+		}
+		
+		synchronized (this) {
+			long deadline = System.nanoTime() + 10 * WAIT_MILLIS * 1000000L;
+			
+			try {
+				while (isFinished() && hasConnectedWorkers() && System.nanoTime() < deadline) {
+					wait(WAIT_MILLIS);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	private synchronized Slot connect(String worker) {
+		Slot slot = new Slot(worker);
+		slots.add(slot);
+		
+		return slot;
+	}
+	
+	private synchronized boolean hasConnectedWorkers() {
+		for (Slot slot : slots) {
+			if (slot.disconnected < 0) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private synchronized boolean isFinished() {
+		return submissionsClosed && unfinishedJobs == 0;
+	}
+	
+	private synchronized void countTransfer(byte[] content) {
+		if (null != content) {
+			transferredInputs ++;
+			transferredBytes += content.length;
+		}
+	}
+	
+	/**
+	 * Returns the next job for the given worker, or <code>null</code> if
+	 * there is none right now.
+	 */
+	private synchronized Job take(Slot slot) {
+		Job job = queue.pollFirst();
+		
+		if (null == job) {
+			job = findJobToSteal(slot);
+			
+			if (null == job) {
+				return null;
+			}
+			
+			steals ++;
+		}
+		
+		job.attempts ++;
+		Assignment assignment = new Assignment(job, System.nanoTime());
+		job.running.add(assignment);
+		slot.current = assignment;
+		
+		return job;
+	}
+	
+	/**
+	 * Returns the job that runs the longest on a single other worker, if it
+	 * runs longer than the steal time.
+	 */
+	private Job findJobToSteal(Slot slot) {
+		long now = System.nanoTime();
+		Job oldest = null;
+		long oldestStart = Long.MAX_VALUE;
+		
+		for (Slot other : slots) {
+			Assignment assignment = other.current;
+			
+			if (other == slot || null == assignment || assignment.job.finished || assignment.job.running.size() != 1
+					|| assignment.job.attempts >= maxAttempts || now - assignment.start < stealAfterNanos) {
+				continue;
+			}
+			
+			if (assignment.start < oldestStart) {
+				oldest = assignment.job;
+				oldestStart = assignment.start;
+			}
+		}
+		
+		return oldest;
+	}
+	
+	private synchronized void complete(Slot slot, String id, boolean success, byte[] result) throws IOException {
+		Assignment assignment = slot.current;
+		
+		if (null == assignment || !assignment.job.spec.getId().equals(id)) {
+			throw new IOException("The worker returned the result of a job it does not run");
+		}
+		
+		Job job = assignment.job;
+		release(slot, assignment);
+		
+		if (success) {
+			slot.completed ++;
+		} else {
+			slot.failed ++;
+		}
+		
+		if (job.finished) {
+			// the job was stolen and the other worker was faster
+			duplicateResults ++;
+		} else if (success) {
+			finish(job, true, result, null, slot.worker);
+		} else {
+			job.error = null == result ? "unknown error" : new String(result, StandardCharsets.UTF_8);
+			retryOrFail(job, false, slot.worker);
+		}
+	}
+	
+	private synchronized void disconnect(Slot slot) {
+		slot.disconnected = System.nanoTime();
+		Assignment assignment = slot.current;
+		
+		if (null != assignment) {
+			release(slot, assignment);
+			slot.lost ++;
+			
+			if (!assignment.job.finished) {
+				if (null == assignment.job.error) {
+					assignment.job.error = "The worker " + slot.worker + " disconnected";
+				}
+				
+				retryOrFail(assignment.job, true, null);
+			}
+		}
+		
+		notifyAll();
+	}
+	
+	private void release(Slot slot, Assignment assignment) {
+		slot.current = null;
+		slot.busyNanos += System.nanoTime() - assignment.start;
+		assignment.job.running.remove(assignment);
+	}
+	
+	/**
+	 * Hands out the job again or reports it as failed if it has no attempts
+	 * left. Nothing happens while the job still runs on another worker.
+	 */
+	private void retryOrFail(Job job, boolean urgent, String worker) {
+		if (!job.running.isEmpty()) {
+			return;
+		}
+		
+		if (job.attempts < maxAttempts) {
+			retries ++;
+			
+			if (urgent) {
+				queue.addFirst(job);
+			} else {
+				queue.addLast(job);
+			}
+		} else {
+			finish(job, false, null, job.error, worker);
+		}
+	}
+	
+	private void finish(Job job, boolean success, byte[] output, String error, String worker) {
+		job.finished = true;
+		job.success = success;
+		job.output = output;
+		job.error = success ? null : error;
+		job.worker = worker;
+		unfinishedJobs --;
+		lastCompletion = System.nanoTime();
+		notifyAll();
+	}
+	
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+	}
+	
+	/** A job and its state */
+	private static class Job {
+		private final JobSpec spec;
+		private final List<Assignment> running = new ArrayList<Assignment>(2);
+		private int attempts;
+		private boolean finished;
+		private boolean success;
+		private byte[] output;
+		private String error;
+		private String worker;
+		
+		public Job(JobSpec spec) {
+			this.spec = spec;
+		}
+	}
+	
+	/** A job that was handed out to a worker */
+	private static class Assignment {
+		private final Job job;
+		private final long start;
+		
+		public Assignment(Job job, long start) {
+			this.job = job;
+			this.start = start;
+		}
+	}
+	
+	/** A connection of a worker, which runs one job at a time */
+	private static class Slot {
+		private final String worker;
+		private final long connected = System.nanoTime();
+		private long disconnected = -1;
+		private Assignment current;
+		private long busyNanos;
+		private int completed;
+		private int failed;
+		private int lost;
+		
+		public Slot(String worker) {
+			this.worker = worker;
+		}
+	}
+}
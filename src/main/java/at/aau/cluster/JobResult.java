@@ -0,0 +1,74 @@
+package at.aau.cluster;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The result of a grounding job that was run by the workers of a
+ * {@link Coordinator}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class JobResult {
+	private final JobSpec spec;
+	private final boolean success;
+	private final byte[] output;
+	private final String error;
+	private final String worker;
+	private final int attempts;
+	
+	JobResult(JobSpec spec, boolean success, byte[] output, String error, String worker, int attempts) {
+		this.spec = spec;
+		this.success = success;
+		this.output = output;
+		this.error = error;
+		this.worker = worker;
+		this.attempts = attempts;
+	}
+	
+	public JobSpec getSpec() {
+		return spec;
+	}
+	
+	public boolean isSuccess() {
+		return success;
+	}
+	
+	/**
+	 * Returns the grounded program as UTF-8 bytes, or <code>null</code> if the
+	 * job failed.
+	 */
+	public byte[] getOutput() {
+		return output;
+	}
+	
+	/**
+	 * Returns the grounded program, or <code>null</code> if the job failed.
+	 */
+	public String getOutputText() {
+		return null == output ? null : new String(output, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Returns the message of the last failure, or <code>null</code> if the
+	 * job succeeded.
+	 */
+	public String getError() {
+		return error;
+	}
+	
+	/**
+	 * Returns the name of the worker that returned the result, or
+	 * <code>null</code> if no worker did.
+	 */
+	public String getWorker() {
+		return worker;
+	}
+	
+	/**
+	 * Returns how often the job was handed out to a worker.
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+}
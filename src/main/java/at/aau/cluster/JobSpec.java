@@ -0,0 +1,72 @@
+package at.aau.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A grounding job: the logic program given by the concatenation of the input
+ * files, referenced by the hashes of their contents, and whether the debug
+ * constants are added.
+ * <p>
+ * The id of a job is the hash of its specification, so two jobs with identical
+ * inputs have the same id and are grounded only once.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class JobSpec {
+	private final String name;
+	private final List<String> inputs;
+	private final boolean addDebugConstants;
+	private final String id;
+	
+	/**
+	 * Creates a job specification.
+	 *
+	 * @param name
+	 *            The name of the job, e.g. the name of the output file.
+	 * @param inputs
+	 *            The hashes of the input files in the {@link ContentStore}, in
+	 *            the order they are concatenated.
+	 * @param addDebugConstants
+	 *            Whether to add the debug constants.
+	 */
+	public JobSpec(String name, List<String> inputs, boolean addDebugConstants) {
+		this.name = name;
+		this.inputs = Collections.unmodifiableList(new ArrayList<String>(inputs));
+		this.addDebugConstants = addDebugConstants;
+		
+		StringBuilder spec = new StringBuilder(addDebugConstants ? "debug" : "no-debug");
+		
+		for (String input : inputs) {
+			spec.append(' ').append(input);
+		}
+		
+		this.id = ContentStore.hash(spec.toString());
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public List<String> getInputs() {
+		return inputs;
+	}
+	
+	public boolean isAddDebugConstants() {
+		return addDebugConstants;
+	}
+	
+	/**
+	 * Returns the hash of the inputs and the options of the job.
+	 */
+	public String getId() {
+		return id;
+	}
+	
+	@Override
+	public String toString() {
+		return name + " (" + id.substring(0, 12) + ")";
+	}
+}
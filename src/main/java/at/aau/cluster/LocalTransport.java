@@ -0,0 +1,80 @@
+package at.aau.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+
+/**
+ * Connects workers to a coordinator in the same JVM through pipes instead of
+ * sockets, e.g. to use the coordinator without a network or to test it.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public final class LocalTransport {
+	private LocalTransport() {
+	}
+	
+	/**
+	 * Connects the given worker to the given coordinator and runs jobs in a
+	 * background thread until the coordinator has none left.
+	 *
+	 * @return The thread of the worker.
+	 */
+	public static Thread connect(final Coordinator coordinator, final Worker worker) throws IOException {
+		final Pipe toCoordinator = Pipe.open();
+		final Pipe toWorker = Pipe.open();
+		
+		Thread coordinatorThread = new Thread("coordinator-" + worker.getName()) {
+			@Override
+			public void run() {
+				InputStream input = Channels.newInputStream(toCoordinator.source());
+				OutputStream output = Channels.newOutputStream(toWorker.sink());
+				
+				try {
+					coordinator.handle(input, output);
+				} catch (IOException e) {
+					// the worker is lost, its job was handed out again
+				} finally {
+					closeQuietly(output);
+					closeQuietly(input);
+				}
+			}
+		};
+		
+		Thread workerThread = new Thread(worker.getName()) {
+			@Override
+			public void run() {
+				InputStream input = Channels.newInputStream(toWorker.source());
+				OutputStream output = Channels.newOutputStream(toCoordinator.sink());
+				
+				try {
+					worker.run(input, output);
+				} catch (IOException e) {
+					// the coordinator is gone
+				} finally {
+					closeQuietly(output);
+					closeQuietly(input);
+				}
+			}
+		};
+		
+		coordinatorThread.setDaemon(true);
+		workerThread.setDaemon(true);
+		coordinatorThread.start();
+		workerThread.start();
+		
+		return workerThread;
+	}
+	
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package at.aau.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The messages between the coordinator and the workers. Each message starts
+ * with its type, followed by its fields in the format of
+ * {@link DataOutputStream}.
+ * <p>
+ * A worker opens one connection per job it runs at the same time and sends
+ * {@link #HELLO}. Then it repeatedly requests a job, fetches the inputs it
+ * does not have yet and sends the result:
+ *
+ * <pre>
+ * worker                          coordinator
+ * HELLO name             --&gt;
+ * REQUEST                --&gt;
+ *                        &lt;--      JOB id name debug #inputs hash...
+ * GET_INPUT hash         --&gt;                  (for each unknown hash)
+ *                        &lt;--      INPUT length bytes
+ * RESULT id success length bytes
+ *                        --&gt;
+ * REQUEST                --&gt;
+ *                        &lt;--      WAIT millis | DONE
+ * </pre>
+ *
+ * @author Philip Gasteiger
+ *
+ */
+final class Protocol {
+	/** The first message of a worker: <code>int version, UTF name</code> */
+	static final byte HELLO = 1;
+	
+	/** A worker asks for a job */
+	static final byte REQUEST = 2;
+	
+	/** A worker asks for an input file: <code>UTF hash</code> */
+	static final byte GET_INPUT = 3;
+	
+	/** The result of a job: <code>UTF id, boolean success, bytes output or error</code> */
+	static final byte RESULT = 4;
+	
+	/** A job for a worker: <code>UTF id, UTF name, boolean debug, int count, UTF hash...</code> */
+	static final byte JOB = 10;
+	
+	/** The requested input file: <code>bytes content</code>, length -1 if it is unknown */
+	static final byte INPUT = 11;
+	
+	/** There is no job right now, ask again after <code>long millis</code> */
+	static final byte WAIT = 12;
+	
+	/** All jobs are finished, the worker should close the connection */
+	static final byte DONE = 13;
+	
+	static final int VERSION = 1;
+	
+	private Protocol() {
+	}
+	
+	static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+		if (null == bytes) {
+			output.writeInt(-1);
+		} else {
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+	}
+	
+	static byte[] readBytes(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		
+		if (length < 0) {
+			return null;
+		}
+		
+		byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		
+		return bytes;
+	}
+}
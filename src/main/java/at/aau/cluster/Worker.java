@@ -0,0 +1,232 @@
+package at.aau.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import at.aau.DebugRuleMap;
+import at.aau.GringoWrapper;
+import at.aau.grounder.GroundingException;
+import at.aau.postprocessing.PostprocessingException;
+
+/**
+ * Runs the grounding jobs of a {@link Coordinator} with a
+ * {@link GringoWrapper}.
+ * <p>
+ * The input files are cached by their hash, so each input file is transferred
+ * only once, even if the worker has several connections to the coordinator.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class Worker {
+	private final GringoWrapper wrapper;
+	
+	private final String name;
+	
+	/** The input files received from the coordinator */
+	private final ContentStore inputs = new ContentStore();
+	
+	/**
+	 * Creates a worker.
+	 *
+	 * @param wrapper
+	 *            The wrapper that grounds the programs. It must be safe for
+	 *            concurrent calls if the worker has several connections.
+	 * @param name
+	 *            The name of the worker in the report of the coordinator.
+	 */
+	public Worker(GringoWrapper wrapper, String name) {
+		this.wrapper = wrapper;
+		this.name = name;
+	}
+	
+	/**
+	 * Returns the name of this JVM, i.e. the process id and the host name.
+	 */
+	public static String getDefaultName() {
+		return ManagementFactory.getRuntimeMXBean().getName();
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Connects to the coordinator with the given number of connections, i.e.
+	 * runs up to that many jobs at the same time, and runs jobs until the
+	 * coordinator has none left.
+	 *
+	 * @return The number of jobs run.
+	 * @throws IOException
+	 *             If a connection failed.
+	 */
+	public int connect(final String host, final int port, int slots) throws IOException, InterruptedException {
+		final AtomicInteger jobs = new AtomicInteger();
+		final List<IOException> failures = new ArrayList<IOException>();
+		List<Thread> threads = new ArrayList<Thread>(slots);
+		
+		for (int i = 0; i < slots; i ++) {
+			Thread thread = new Thread("worker-" + (i + 1)) {
+				@Override
+				public void run() {
+					try {
+						jobs.addAndGet(connect(host, port));
+					} catch (IOException e) {
+						synchronized (failures) {
+							failures.add(e);
+						}
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		if (!failures.isEmpty()) {
+			throw failures.get(0);
+		}
+		
+		return jobs.get();
+	}
+	
+	/**
+	 * Connects to the coordinator and runs jobs until it has none left.
+	 *
+	 * @return The number of jobs run.
+	 */
+	public int connect(String host, int port) throws IOException {
+		Socket socket = new Socket(host, port);
+		
+		try {
+			socket.setTcpNoDelay(true);
+			
+			return run(socket.getInputStream(), socket.getOutputStream());
+		} finally {
+			socket.close();
+		}
+	}
+	
+	/**
+	 * Runs the jobs of the coordinator at the other end of the given
+	 * connection until it has none left.
+	 *
+	 * @return The number of jobs run.
+	 * @throws IOException
+	 *             If the connection failed or the coordinator violated the
+	 *             protocol.
+	 */
+	public int run(InputStream in, OutputStream out) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(in));
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(out));
+		int jobs = 0;
+		
+		output.writeByte(Protocol.HELLO);
+		output.writeInt(Protocol.VERSION);
+		output.writeUTF(name);
+		
+		while (true) {
+			output.writeByte(Protocol.REQUEST);
+			output.flush();
+			
+			byte type = input.readByte();
+			
+			switch (type) {
+			case Protocol.DONE:
+				return jobs;
+			case Protocol.WAIT:
+				long millis = input.readLong();
+				
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for a job");
+				}
+				
+				break;
+			case Protocol.JOB:
+				String id = input.readUTF();
+				input.readUTF(); // the name is only used for the log of the coordinator
+				boolean addDebugConstants = input.readBoolean();
+				String[] hashes = new String[input.readInt()];
+				
+				for (int i = 0; i < hashes.length; i ++) {
+					hashes[i] = input.readUTF();
+				}
+				
+				StringBuilder program = new StringBuilder();
+				
+				for (String hash : hashes) {
+					program.append(new String(fetchInput(hash, input, output), StandardCharsets.UTF_8));
+				}
+				
+				boolean success;
+				byte[] result;
+				
+				try {
+					result = wrapper.ground(program.toString(), addDebugConstants, new DebugRuleMap()).getBytes(StandardCharsets.UTF_8);
+					success = true;
+				} catch (GroundingException | PostprocessingException e) {
+					result = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+					success = false;
+				} catch (RuntimeException e) {
+					result = e.toString().getBytes(StandardCharsets.UTF_8);
+					success = false;
+				}
+				
+				output.writeByte(Protocol.RESULT);
+				output.writeUTF(id);
+				output.writeBoolean(success);
+				Protocol.writeBytes(output, result);
+				jobs ++;
+				break;
+			default:
+				throw new IOException("Unknown message " + type);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the cached input file with the given hash, or requests it from
+	 * the coordinator.
+	 */
+	private byte[] fetchInput(String hash, DataInputStream input, DataOutputStream output) throws IOException {
+		byte[] content = inputs.get(hash);
+		
+		if (null != content) {
+			return content;
+		}
+		
+		output.writeByte(Protocol.GET_INPUT);
+		output.writeUTF(hash);
+		output.flush();
+		
+		if (input.readByte() != Protocol.INPUT) {
+			throw new IOException("Expected the input " + hash);
+		}
+		
+		content = Protocol.readBytes(input);
+		
+		if (null == content || !hash.equals(inputs.put(content))) {
+			throw new IOException("The coordinator sent no or a corrupt input " + hash);
+		}
+		
+		return content;
+	}
+}
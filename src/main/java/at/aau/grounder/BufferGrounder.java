@@ -0,0 +1,43 @@
+package at.aau.grounder;
+
+import java.nio.ByteBuffer;
+
+import at.aau.statistics.Statistics;
+
+/**
+ * A grounder that reads the grounded program into a byte buffer, so it is
+ * postprocessed without converting it into a string. Grounders are called
+ * through {@link Grounders#ground(Grounder, String, ByteBuffer, Statistics)},
+ * which falls back to {@link Grounder#ground(String)} for other grounders.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public interface BufferGrounder extends Grounder {
+	/**
+	 * Ground the given logic program and read the output of the grounder into
+	 * a byte buffer.
+	 * 
+	 * @param logicProgram
+	 *            The logic program to ground in the gringo input format.
+	 * @param buffer
+	 *            The buffer to reuse for the output, or <code>null</code>.
+	 * @throws GroundingException
+	 *             Thrown when the grounding failed because of errors.
+	 * @return The buffer containing the grounded program in the gringo output
+	 *         format between its position and limit. This is either the given
+	 *         buffer or a new, larger buffer.
+	 */
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException;
+	
+	/**
+	 * Ground the given logic program and read the output of the grounder into
+	 * a byte buffer.
+	 * 
+	 * @param statistics
+	 *            The statistics to record the time of the grounder process in,
+	 *            or <code>null</code>.
+	 * @see #ground(String, ByteBuffer)
+	 */
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException;
+}
@@ -2,6 +2,8 @@ package at.aau.grounder;
 
 /**
  * Represents a grounder that takes a logic program and grounds it.
+ * Grounders that can write the grounded program into a byte buffer implement
+ * {@link BufferGrounder}.
  * 
  * @author Philip Gasteiger
  *
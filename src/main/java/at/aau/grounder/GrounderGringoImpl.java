@@ -1,13 +1,23 @@
 package at.aau.grounder;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import at.aau.io.ByteBuffers;
+import at.aau.statistics.Progress;
+import at.aau.statistics.Statistics;
 
 /**
  * Implementation of the {@link Grounder} interface that calls gringo.
@@ -15,13 +25,28 @@ import java.util.List;
  * @author Philip Gasteiger
  *
  */
-public class GrounderGringoImpl implements Grounder {
+public class GrounderGringoImpl implements BufferGrounder {
+	/** The number of bytes of the program that are piped to the grounder at once */
+	private static final int WRITE_CHUNK_SIZE = 1 << 16;
+	
 	/** name of the command of the grounder */
 	public final String GROUNDER_COMMAND_NAME;
 	
 	/** options passed to the grounder, separated by spaces */
 	public final String[] GROUNDER_OPTIONS;
 	
+	/** The running grounder processes */
+	private final Set<Process> processes = Collections.newSetFromMap(new ConcurrentHashMap<Process, Boolean>());
+	
+	/** The running grounder processes that were stopped by {@link #stop()} */
+	private final Set<Process> stopped = Collections.newSetFromMap(new ConcurrentHashMap<Process, Boolean>());
+	
+	/** The maximum number of groups of messages of the grounder that are printed */
+	private volatile int warningsShown = GrounderWarnings.DEFAULT_SHOWN;
+	
+	/** The stream all messages of the grounder are dumped to, or <code>null</code> */
+	private volatile PrintStream warningDump;
+	
 	/**
 	 * Creates a new instance of the gringo grounder implementation.
 	 * 
@@ -32,16 +57,88 @@ public class GrounderGringoImpl implements Grounder {
 		this.GROUNDER_COMMAND_NAME = grounderCommand;
 		this.GROUNDER_OPTIONS = grounderOptions.split(" ");
 	}
+	
+	/**
+	 * Creates a grounder with the same command and options as the given
+	 * grounder, whose processes are stopped independently of it.
+	 */
+	public GrounderGringoImpl(GrounderGringoImpl grounder) {
+		this.GROUNDER_COMMAND_NAME = grounder.GROUNDER_COMMAND_NAME;
+		this.GROUNDER_OPTIONS = grounder.GROUNDER_OPTIONS;
+		this.warningsShown = grounder.warningsShown;
+		this.warningDump = grounder.warningDump;
+	}
+	
+	/**
+	 * Sets how many groups of messages of the grounder are printed to stderr
+	 * after the grounding. The messages are grouped by their kind and
+	 * location, the default is {@link GrounderWarnings#DEFAULT_SHOWN}.
+	 * 
+	 * @param warningsShown
+	 *            The maximum number of groups, 0 to print only the count.
+	 */
+	public void setWarningsShown(int warningsShown) {
+		if (warningsShown < 0) {
+			throw new IllegalArgumentException("The number of shown warnings must not be negative");
+		}
+		
+		this.warningsShown = warningsShown;
+	}
+	
+	/**
+	 * Sets the stream all messages of the grounder are written to while they
+	 * arrive, in addition to the summary on stderr. The lines of concurrent
+	 * groundings may be interleaved.
+	 * 
+	 * @param warningDump
+	 *            The stream, or <code>null</code> to not dump the messages.
+	 */
+	public void setWarningDump(PrintStream warningDump) {
+		this.warningDump = warningDump;
+	}
 
 	@Override
 	public String ground(String logicProgram) throws GroundingException {
+		return ByteBuffers.toString(ground(logicProgram, null));
+	}
+
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+		return ground(logicProgram, buffer, null);
+	}
+
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+		return ground(logicProgram, buffer, null, statistics);
+	}
+	
+	/**
+	 * Grounds the given program and writes the grounded program to the given
+	 * stream while the grounder produces it. The stream is not closed. A
+	 * stream that blocks also blocks the grounder once its output pipe is
+	 * full.
+	 * 
+	 * @throws GroundingException
+	 *             If the grounder failed, was stopped or the stream failed.
+	 */
+	public void groundTo(String logicProgram, OutputStream output, Statistics statistics) throws GroundingException {
+		ground(logicProgram, null, output, statistics);
+	}
+	
+	/**
+	 * Grounds the given program into the buffer, or into the stream if it is
+	 * not <code>null</code>.
+	 */
+	private ByteBuffer ground(String logicProgram, ByteBuffer buffer, OutputStream output, Statistics statistics) throws GroundingException {
 		Process grounderProcess;
 		List<String> grounderCommand = new ArrayList<String>();
 		grounderCommand.add(GROUNDER_COMMAND_NAME);
 		
-		if (GROUNDER_OPTIONS.length > 1 && !GROUNDER_OPTIONS[0].isEmpty())
+		if (GROUNDER_OPTIONS.length > 0 && !GROUNDER_OPTIONS[0].isEmpty())
 			grounderCommand.addAll(Arrays.asList(GROUNDER_OPTIONS));
 		
+		long processStart = System.nanoTime();
+		
 		try {
 			ProcessBuilder builder = new ProcessBuilder(grounderCommand);
 			grounderProcess = builder.start();
@@ -49,50 +146,190 @@ public class GrounderGringoImpl implements Grounder {
 			throw new GroundingException("Starting the grounder failed", e);
 		}
 
-		writeLogicProgram(logicProgram, grounderProcess.getOutputStream());
+		processes.add(grounderProcess);
+		Progress progress = null == statistics ? null : statistics.getProgress();
+		GrounderWarnings warnings = new GrounderWarnings(warningDump);
+		// read the messages while the program is grounded, so a full error pipe does not block the grounder
+		FutureTask<Void> messages = readMessages(grounderProcess.getErrorStream(), warnings);
 		
 		try {
-			String groundingResult = read(grounderProcess.getInputStream());
-			String errors = read(grounderProcess.getErrorStream());
+			if (Thread.currentThread().isInterrupted()) {
+				// cancelled before it could be stopped
+				throw new InterruptedException();
+			}
+			
+			writeLogicProgram(logicProgram, grounderProcess, progress);
+			
+			ByteBuffer groundingResult = null;
+			InputStream groundedProgram = grounderProcess.getInputStream();
+			long outputSize;
+			
+			if (null != progress) {
+				groundedProgram = progress.countReceived(groundedProgram);
+			}
+			
+			if (null == output) {
+				groundingResult = ByteBuffers.readFully(groundedProgram, buffer);
+				outputSize = groundingResult.remaining();
+			} else {
+				outputSize = copy(groundedProgram, output);
+			}
+			
+			awaitMessages(messages);
+			int exitValue = grounderProcess.waitFor();
+			
+			if (null != warningDump) {
+				warningDump.flush();
+			}
+			
+			if (stopped.contains(grounderProcess)) {
+				throw new GroundingException("The grounder was stopped");
+			}
+			
+			if (null != statistics) {
+				// both streams are closed, i.e. the grounder is finished
+				statistics.setProcessTime(System.nanoTime() - processStart);
+			}
 
-			if (!errors.isEmpty() && groundingResult.isEmpty()) {
+			if (!warnings.isEmpty() && outputSize == 0) {
 				// no grounded result --> throw exception
-				throw new GroundingException(errors);
-			} else if (!errors.isEmpty()) {
+				throw new GroundingException(warnings.getText());
+			} else if (exitValue != 0 && outputSize == 0) {
+				throw new GroundingException("The grounder exited with code " + exitValue);
+			} else if (!warnings.isEmpty()) {
 				// print as warning
-				System.err.println(errors);
+				System.err.print(warnings.format(warningsShown));
 			}
 			
 			return groundingResult;
+		} catch (OutputException e) {
+			if (stopped.contains(grounderProcess)) {
+				throw new GroundingException("The grounder was stopped");
+			}
+			
+			grounderProcess.destroy();
+			throw new GroundingException("Could not write the grounded program to the output", e.getCause());
 		} catch (IOException e) {
-			throw new GroundingException("Could not read the grounded program");
+			if (stopped.contains(grounderProcess)) {
+				throw new GroundingException("The grounder was stopped");
+			}
+			
+			grounderProcess.destroy();
+			throw new GroundingException("Could not read the grounded program", e);
+		} catch (InterruptedException e) {
+			grounderProcess.destroy();
+			Thread.currentThread().interrupt();
+			throw new GroundingException("Interrupted while waiting for the grounder", e);
+		} finally {
+			processes.remove(grounderProcess);
+			stopped.remove(grounderProcess);
+		}
+	}
+	
+	/**
+	 * Stops the grounder processes that are running, i.e. the running calls of
+	 * {@link #ground(String, ByteBuffer, Statistics)} throw a
+	 * {@link GroundingException}.
+	 */
+	public void stop() {
+		for (Process process : processes) {
+			stopped.add(process);
+			process.destroy();
 		}
 	}
 
-	private void writeLogicProgram(String logicProgram, OutputStream outputStream)
+	/**
+	 * Pipes the program to the grounder in chunks, so the progress shows how
+	 * much of it the grounder read.
+	 */
+	private void writeLogicProgram(String logicProgram, Process grounderProcess, Progress progress)
 			throws GroundingException {
 		try {
-			outputStream.write(logicProgram.getBytes());
+			OutputStream outputStream = grounderProcess.getOutputStream();
+			byte[] program = logicProgram.getBytes();
+			
+			for (int offset = 0; offset < program.length; offset += WRITE_CHUNK_SIZE) {
+				int length = Math.min(WRITE_CHUNK_SIZE, program.length - offset);
+				outputStream.write(program, offset, length);
+				
+				if (null != progress) {
+					progress.addBytesSent(length);
+				}
+			}
+			
 			outputStream.close();
 		} catch (IOException e) {
+			if (stopped.contains(grounderProcess)) {
+				throw new GroundingException("The grounder was stopped");
+			}
+			
 			throw new GroundingException("Passing the logic program to the grounder failed", e);
 		}
 	}
 
-	private String read(InputStream inputStream)
-			throws IOException {
-		StringBuilder input = new StringBuilder();
-		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-
-		String line = reader.readLine();
-
-		while (line != null) {
-			input.append(line);
-			input.append('\n');
-
-			line = reader.readLine();
+	/**
+	 * Copies the input to the output until the end of the input.
+	 * 
+	 * @return The number of bytes copied.
+	 * @throws OutputException
+	 *             If writing to the output failed.
+	 * @throws IOException
+	 *             If reading the input failed.
+	 */
+	private static long copy(InputStream input, OutputStream output) throws IOException {
+		byte[] buffer = new byte[1 << 16];
+		long size = 0;
+		
+		for (int read = input.read(buffer); read > -1; read = input.read(buffer)) {
+			try {
+				output.write(buffer, 0, read);
+			} catch (IOException e) {
+				throw new OutputException(e);
+			}
+			
+			size += read;
 		}
+		
+		return size;
+	}
 
-		return input.toString();
+	/**
+	 * Starts to read the messages of the grounder on a daemon thread, which
+	 * ends with the error stream of the grounder.
+	 */
+	private static FutureTask<Void> readMessages(final InputStream errors, final GrounderWarnings warnings) {
+		FutureTask<Void> messages = new FutureTask<Void>(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				warnings.read(errors);
+				return null;
+			}
+		});
+		
+		Thread thread = new Thread(messages, "grounder-messages");
+		thread.setDaemon(true);
+		thread.start();
+		
+		return messages;
+	}
+	
+	/**
+	 * Waits until all messages of the grounder are read.
+	 */
+	private static void awaitMessages(FutureTask<Void> messages) throws IOException, InterruptedException {
+		try {
+			messages.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		}
+	}
+	
+	/** A failure to write the grounded program to the output, as opposed to reading it from the grounder */
+	private static class OutputException extends IOException {
+		private static final long serialVersionUID = 1L;
+		
+		public OutputException(IOException cause) {
+			super(cause);
+		}
 	}
 }
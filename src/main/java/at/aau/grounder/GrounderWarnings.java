@@ -0,0 +1,324 @@
+package at.aau.grounder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the messages that the grounder prints to its standard error while
+ * they stream in, e.g.
+ *
+ * <pre>
+ * &lt;stdin&gt;:3:7-8: info: atom does not occur in any rule head:
+ *   b
+ * </pre>
+ *
+ * The messages are grouped by their kind, i.e. the severity and the text of
+ * their first line, and only the count and the first message of each group
+ * are kept. Infos are grouped by their kind only, so the infos of many
+ * locations aggregate, errors and warnings also by their location. All lines
+ * can be dumped to a stream as they arrive.
+ * <p>
+ * The memory does not depend on the number of messages: the number of
+ * groups, the lines kept of each group and the text kept for the error
+ * message of a failed grounding are limited. The groups are limited per
+ * severity, so errors are never hidden by many warnings or infos, and the
+ * text keeps the lines of the errors after its beginning. The messages of
+ * further groups are only counted.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GrounderWarnings {
+	/** The default number of groups shown in the summary */
+	public static final int DEFAULT_SHOWN = 20;
+	
+	/** The maximum number of groups of each severity, the messages of further groups are only counted */
+	private static final int MAX_GROUPS = 1000;
+	
+	/** The maximum number of lines kept of the first message of a group */
+	private static final int MAX_EXAMPLE_LINES = 10;
+	
+	/** The maximum number of characters kept of the whole output */
+	private static final int MAX_TEXT_CHARS = 1 << 16;
+	
+	/** The number of characters of the beginning of the output, the rest of the text keeps errors */
+	private static final int MAX_HEAD_CHARS = MAX_TEXT_CHARS / 4;
+	
+	private static final int RANK_ERROR = 0;
+	
+	private static final int RANK_WARNING = 1;
+	
+	private static final int RANK_INFO = 2;
+	
+	/** The first line of a message of gringo: location, severity and text */
+	private static final Pattern MESSAGE = Pattern.compile("(.+?:\\d+:\\d+(?:-(?:\\d+:)?\\d+)?): (\\w+): (.*)");
+	
+	/** The stream all lines are dumped to, or <code>null</code> */
+	private final PrintStream dump;
+	
+	private final Map<String, Group> groups = new HashMap<String, Group>();
+	
+	/**
+	 * The beginning of the output and the later errors, for the error message
+	 * of a failed grounding
+	 */
+	private final StringBuilder text = new StringBuilder();
+	
+	/** The number of lines that are not part of the text since the last line of the text */
+	private long omittedLines;
+	
+	/** Whether lines were omitted from the text */
+	private boolean truncated;
+	
+	/** The number of groups of each rank */
+	private final int[] rankGroups = new int[3];
+	
+	private long count;
+	
+	/** Whether the following indented lines continue a message */
+	private boolean inMessage;
+	
+	/** The rank of the message whose lines are read */
+	private int rank = RANK_INFO;
+	
+	/** The group whose first message is read, or <code>null</code> */
+	private Group collecting;
+	
+	/**
+	 * Creates an empty collection of messages.
+	 *
+	 * @param dump
+	 *            The stream to dump all lines to as they arrive, or
+	 *            <code>null</code>.
+	 */
+	public GrounderWarnings(PrintStream dump) {
+		this.dump = dump;
+	}
+	
+	/**
+	 * Reads the given stream line by line until its end. The stream is not
+	 * closed.
+	 */
+	public void read(InputStream errors) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(errors));
+		
+		for (String line = reader.readLine(); null != line; line = reader.readLine()) {
+			add(line);
+		}
+	}
+	
+	/**
+	 * Adds the next line of the output of the grounder.
+	 */
+	public synchronized void add(String line) {
+		if (null != dump) {
+			dump.println(line);
+		}
+		
+		if (line.trim().isEmpty()) {
+			// ends the message
+			addText(line);
+			inMessage = false;
+			collecting = null;
+			rank = RANK_INFO;
+			return;
+		}
+		
+		if (inMessage && Character.isWhitespace(line.charAt(0))) {
+			// the lines of a message, e.g. the atom, are indented
+			addText(line);
+			
+			if (null != collecting && collecting.lines.size() < MAX_EXAMPLE_LINES) {
+				collecting.lines.add(line);
+			}
+			
+			return;
+		}
+		
+		Matcher message = MESSAGE.matcher(line);
+		
+		if (message.matches()) {
+			String severity = message.group(2);
+			String kind = message.group(3);
+			
+			if (kind.endsWith(":")) {
+				kind = kind.substring(0, kind.length() - 1);
+			}
+			
+			rank = getRank(severity);
+			addText(line);
+			addMessage(severity + ": " + kind, message.group(1), line);
+		} else {
+			// a message without location, e.g. "*** ERROR: (gringo): grounding stopped because of errors"
+			rank = getRank(line);
+			addText(line);
+			addMessage(line.trim(), "", line);
+		}
+	}
+	
+	/**
+	 * Returns whether the grounder printed nothing.
+	 */
+	public synchronized boolean isEmpty() {
+		return text.length() == 0 && !truncated;
+	}
+	
+	/**
+	 * Returns the number of messages.
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Returns the output of the grounder. If it is long, only its beginning
+	 * and the lines of the later errors are returned, and the omitted lines
+	 * are counted in between.
+	 */
+	public synchronized String getText() {
+		return omittedLines == 0 ? text.toString() : text + "... (" + omittedLines + " more lines)\n";
+	}
+	
+	/**
+	 * Returns the summary of the messages: the count and the first message of
+	 * the largest groups, errors first, then warnings, then infos.
+	 *
+	 * @param shown
+	 *            The maximum number of groups shown.
+	 * @return The summary, or an empty string if there are no messages.
+	 */
+	public synchronized String format(int shown) {
+		if (count == 0) {
+			return "";
+		}
+		
+		List<Group> sorted = new ArrayList<Group>(groups.values());
+		Collections.sort(sorted, new Comparator<Group>() {
+			@Override
+			public int compare(Group a, Group b) {
+				if (a.rank != b.rank) {
+					return a.rank < b.rank ? -1 : 1;
+				}
+				
+				if (a.count != b.count) {
+					return a.count > b.count ? -1 : 1;
+				}
+				
+				return a.first < b.first ? -1 : a.first == b.first ? 0 : 1;
+			}
+		});
+		
+		StringBuilder summary = new StringBuilder();
+		summary.append("warning: the grounder printed ").append(count).append(count == 1 ? " message:\n" : " messages:\n");
+		long omitted = count;
+		
+		for (Group group : sorted.subList(0, Math.min(shown, sorted.size()))) {
+			String prefix = "  " + group.count + "x ";
+			summary.append(prefix).append(group.lines.get(0)).append('\n');
+			
+			for (String line : group.lines.subList(1, group.lines.size())) {
+				summary.append(String.format("%" + prefix.length() + "s", "")).append(line).append('\n');
+			}
+			
+			omitted -= group.count;
+		}
+		
+		if (omitted > 0) {
+			summary.append("  ... and ").append(omitted).append(omitted == 1 ? " more message\n" : " more messages\n");
+		}
+		
+		return summary.toString();
+	}
+	
+	/**
+	 * Adds the line to the text if it is part of the beginning of the output or
+	 * of an error, otherwise counts it as omitted.
+	 */
+	private void addText(String line) {
+		if (!truncated && text.length() + line.length() < MAX_HEAD_CHARS) {
+			text.append(line).append('\n');
+			return;
+		}
+		
+		truncated = true;
+		
+		if (rank != RANK_ERROR || text.length() + line.length() >= MAX_TEXT_CHARS) {
+			omittedLines ++;
+			return;
+		}
+		
+		if (omittedLines > 0) {
+			text.append("... (").append(omittedLines).append(" more lines)\n");
+			omittedLines = 0;
+		}
+		
+		text.append(line).append('\n');
+	}
+	
+	private void addMessage(String kind, String location, String line) {
+		// infos of many locations aggregate, errors and warnings are shown per location
+		String key = rank == RANK_INFO ? kind : kind + '\0' + location;
+		Group group = groups.get(key);
+		collecting = null;
+		inMessage = true;
+		
+		if (null == group) {
+			if (rankGroups[rank] >= MAX_GROUPS) {
+				// only counted, i.e. part of the omitted messages of the summary
+				count ++;
+				return;
+			}
+			
+			rankGroups[rank] ++;
+			group = new Group(rank, count);
+			group.lines.add(line);
+			groups.put(key, group);
+			collecting = group;
+		}
+		
+		group.count ++;
+		count ++;
+	}
+	
+	/**
+	 * Returns 0 for errors, 1 for warnings and 2 for other messages.
+	 */
+	private static int getRank(String severity) {
+		String lowerCase = severity.toLowerCase();
+		
+		if (lowerCase.contains("error")) {
+			return RANK_ERROR;
+		}
+		
+		return lowerCase.contains("warn") ? RANK_WARNING : RANK_INFO;
+	}
+	
+	/** The messages of the same kind, and location for errors and warnings */
+	private static class Group {
+		private final int rank;
+		
+		/** The number of messages before the first message of the group */
+		private final long first;
+		
+		/** The lines of the first message */
+		private final List<String> lines = new ArrayList<String>(2);
+		
+		private long count;
+		
+		public Group(int rank, long first) {
+			this.rank = rank;
+			this.first = first;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package at.aau.grounder;
+
+import java.nio.ByteBuffer;
+
+import at.aau.io.ByteBuffers;
+import at.aau.statistics.Statistics;
+
+/**
+ * Utility methods to call any {@link Grounder} like a {@link BufferGrounder}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public final class Grounders {
+	private Grounders() {
+	}
+	
+	/**
+	 * Grounds the given logic program with the given grounder into a byte
+	 * buffer. A grounder that is no {@link BufferGrounder} is called with
+	 * {@link Grounder#ground(String)}, and its result is returned in a new
+	 * buffer.
+	 * 
+	 * @see BufferGrounder#ground(String, ByteBuffer, Statistics)
+	 */
+	public static ByteBuffer ground(Grounder grounder, String logicProgram, ByteBuffer buffer, Statistics statistics)
+			throws GroundingException {
+		if (grounder instanceof BufferGrounder) {
+			return ((BufferGrounder) grounder).ground(logicProgram, buffer, statistics);
+		}
+		
+		return ByteBuffers.wrap(grounder.ground(logicProgram));
+	}
+}
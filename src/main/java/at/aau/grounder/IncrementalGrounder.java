@@ -0,0 +1,277 @@
+package at.aau.grounder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import at.aau.io.ByteBuffers;
+import at.aau.postprocessing.GroundProgramMerger;
+import at.aau.postprocessing.PostprocessingException;
+import at.aau.preprocessing.Statements;
+import at.aau.statistics.Statistics;
+
+/**
+ * Grounder that splits a preprocessed program into components and grounds
+ * only the components that changed since the last program.
+ * <p>
+ * Two rules are in the same component if they share a predicate, directly or
+ * through other rules, so the ground instances of a component depend only on
+ * its own rules. The ground components are cached and merged into a single
+ * grounded program. When a rule is changed, only the component that contains
+ * the rule, i.e. all rules that depend on its predicates and that its
+ * predicates depend on, is grounded again. This requires that the rules keep
+ * their debug constants, see
+ * {@link at.aau.preprocessing.DebugConstantNumbering}.
+ * <p>
+ * The fact literal of the preprocessor does not connect the components. A
+ * program that contains a directive, e.g. <code>#const</code>, or no fact
+ * literal is grounded as a whole. The cache keeps the components of the last
+ * program.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class IncrementalGrounder implements BufferGrounder {
+	/** The choice rule for the fact literal that the preprocessor adds at the end of the program */
+	static final Pattern FACT_LITERAL_RULE_PATTERN = Pattern.compile("\n(_fl[0-9a-f]{32}) \\| -\\1\\.\\s*$");
+	
+	private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+	
+	/** The placeholder for the fact literal in the keys of the cache */
+	private static final String FACT_LITERAL_PLACEHOLDER = "_fl";
+	
+	private final Grounder grounder;
+	
+	private final GroundProgramMerger merger = new GroundProgramMerger();
+	
+	/** The grounded components of the last program by their text */
+	private Map<String, GroundComponent> cache = new HashMap<String, GroundComponent>();
+	
+	private volatile int groundedComponents;
+	
+	private volatile int reusedComponents;
+	
+	public IncrementalGrounder(Grounder grounder) {
+		this.grounder = grounder;
+	}
+	
+	@Override
+	public String ground(String logicProgram) throws GroundingException {
+		return ByteBuffers.toString(ground(logicProgram, null));
+	}
+	
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+		return ground(logicProgram, buffer, null);
+	}
+	
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+		Matcher factLiteralRule = FACT_LITERAL_RULE_PATTERN.matcher(logicProgram);
+		List<String> components = null;
+		String factLiteral = null;
+		
+		if (factLiteralRule.find()) {
+			factLiteral = factLiteralRule.group(1);
+			components = split(logicProgram.substring(0, factLiteralRule.start()), factLiteral);
+		}
+		
+		if (null == components) {
+			groundedComponents = 1;
+			reusedComponents = 0;
+			
+			return Grounders.ground(grounder, logicProgram, buffer, statistics);
+		}
+		
+		Map<String, GroundComponent> previous;
+		Map<String, GroundComponent> current = new HashMap<String, GroundComponent>();
+		List<ByteBuffer> grounded = new ArrayList<ByteBuffer>(components.size());
+		long processTime = 0;
+		int reused = 0;
+		
+		synchronized (this) {
+			previous = cache;
+		}
+		
+		for (String component : components) {
+			String key = WHITESPACE_PATTERN.matcher(component.replace(factLiteral, FACT_LITERAL_PLACEHOLDER)).replaceAll(" ").trim();
+			GroundComponent ground = current.get(key);
+			
+			if (null == ground) {
+				ground = previous.get(key);
+			}
+			
+			if (null != ground) {
+				reused ++;
+			} else {
+				String program = component.contains(factLiteral) ? component + factLiteralRule.group() : component;
+				long start = System.nanoTime();
+				ByteBuffer result = Grounders.ground(grounder, program, null, null);
+				processTime += System.nanoTime() - start;
+				
+				byte[] bytes = new byte[result.remaining()];
+				result.get(bytes);
+				ground = new GroundComponent(bytes, factLiteral);
+			}
+			
+			current.put(key, ground);
+			grounded.add(ground.get(factLiteral));
+		}
+		
+		synchronized (this) {
+			cache = current;
+		}
+		
+		groundedComponents = components.size() - reused;
+		reusedComponents = reused;
+		
+		if (null != statistics) {
+			statistics.setProcessTime(processTime);
+		}
+		
+		if (grounded.size() == 1) {
+			ByteBuffer output = ByteBuffers.reuse(buffer, grounded.get(0).remaining());
+			output.put(grounded.get(0));
+			output.flip();
+			
+			return output;
+		}
+		
+		try {
+			return merger.merge(grounded, buffer);
+		} catch (PostprocessingException e) {
+			throw new GroundingException("Could not merge the grounded components", e);
+		}
+	}
+	
+	/**
+	 * Returns the number of components of the last program that were
+	 * grounded.
+	 */
+	public int getGroundedComponents() {
+		return groundedComponents;
+	}
+	
+	/**
+	 * Returns the number of components of the last program that were taken
+	 * from the cache.
+	 */
+	public int getReusedComponents() {
+		return reusedComponents;
+	}
+	
+	/**
+	 * Splits the given program into its components.
+	 *
+	 * @param factLiteral
+	 *            The fact literal, which does not connect the components.
+	 * @return The texts of the components, in the order of their first
+	 *         statement, or <code>null</code> if the program cannot be split.
+	 */
+	static List<String> split(String logicProgram, String factLiteral) {
+		List<String> statements = Statements.split(logicProgram);
+		
+		if (null == statements) {
+			// an unterminated statement is left to the grounder to report
+			return null;
+		}
+		
+		Map<String, String> parent = new HashMap<String, String>();
+		List<List<String>> namesOfStatement = new ArrayList<List<String>>(statements.size());
+		
+		for (String statement : statements) {
+			if (statement.trim().startsWith("#")) {
+				return null;
+			}
+			
+			List<String> names = Statements.getPredicateNames(statement);
+			names.removeAll(Collections.singleton(factLiteral));
+			namesOfStatement.add(names);
+			
+			for (int i = 1; i < names.size(); i ++) {
+				union(parent, names.get(0), names.get(i));
+			}
+		}
+		
+		Map<String, StringBuilder> components = new LinkedHashMap<String, StringBuilder>();
+		
+		for (int i = 0; i < statements.size(); i ++) {
+			String statement = statements.get(i);
+			List<String> names = namesOfStatement.get(i);
+			String root = names.isEmpty() ? "#" + i : find(parent, names.get(0));
+			StringBuilder component = components.get(root);
+			
+			if (null == component) {
+				component = new StringBuilder();
+				components.put(root, component);
+			}
+			
+			component.append(statement);
+		}
+		
+		List<String> texts = new ArrayList<String>(components.size());
+		
+		for (StringBuilder component : components.values()) {
+			texts.add(component.toString());
+		}
+		
+		return texts;
+	}
+	
+	private static String find(Map<String, String> parent, String name) {
+		String root = name;
+		String next;
+		
+		while (null != (next = parent.get(root))) {
+			root = next;
+		}
+		
+		// compress the path
+		while (!name.equals(root)) {
+			next = parent.get(name);
+			parent.put(name, root);
+			name = next;
+		}
+		
+		return root;
+	}
+	
+	private static void union(Map<String, String> parent, String a, String b) {
+		String rootA = find(parent, a);
+		String rootB = find(parent, b);
+		
+		if (!rootA.equals(rootB)) {
+			parent.put(rootB, rootA);
+		}
+	}
+	
+	/** The grounded program of a component */
+	private static class GroundComponent {
+		private final byte[] grounded;
+		private final String factLiteral;
+		
+		public GroundComponent(byte[] grounded, String factLiteral) {
+			this.grounded = grounded;
+			this.factLiteral = factLiteral;
+		}
+		
+		/**
+		 * Returns the grounded program with the given fact literal.
+		 */
+		public ByteBuffer get(String factLiteral) {
+			if (this.factLiteral.equals(factLiteral)) {
+				return ByteBuffer.wrap(grounded);
+			}
+			
+			String program = new String(grounded, StandardCharsets.UTF_8).replace(this.factLiteral, factLiteral);
+			return ByteBuffer.wrap(program.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package at.aau.grounder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import at.aau.io.ByteBuffers;
+import at.aau.statistics.Statistics;
+
+/**
+ * Grounder that races several configurations of gringo, i.e. grounder commands
+ * with their options, and returns the grounded program of the first
+ * configuration that succeeds. The processes of the other configurations are
+ * stopped as soon as one configuration has won.
+ * <p>
+ * A configuration is the grounder command followed by its options, separated
+ * by spaces, e.g. <code>gringo-4.5 --keep-facts</code>. If a
+ * {@link PortfolioRecord} is set, the winner is recorded for the encoding of
+ * the program and later programs with the same encoding start only the
+ * recorded configuration. If it fails, all configurations are raced.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PortfolioGrounder implements BufferGrounder {
+	private final List<String> configurations;
+	
+	private volatile PortfolioRecord record;
+	
+	private volatile PortfolioReport report;
+	
+	/**
+	 * Creates a portfolio of the given configurations.
+	 *
+	 * @param configurations
+	 *            The grounder commands, each followed by its options.
+	 */
+	public PortfolioGrounder(List<String> configurations) {
+		if (configurations.isEmpty()) {
+			throw new IllegalArgumentException("The portfolio needs at least one configuration");
+		}
+		
+		this.configurations = Collections.unmodifiableList(new ArrayList<String>(configurations));
+	}
+	
+	@Override
+	public String ground(String logicProgram) throws GroundingException {
+		return ByteBuffers.toString(ground(logicProgram, null));
+	}
+	
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+		return ground(logicProgram, buffer, null);
+	}
+	
+	/**
+	 * Grounds the program with the first configuration that succeeds. The
+	 * grounded program is returned in a new buffer.
+	 */
+	@Override
+	public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+		String encoding = PortfolioRecord.getEncodingKey(logicProgram);
+		PortfolioRecord record = this.record;
+		String recorded = null == record ? null : record.get(encoding);
+		Race race = null;
+		
+		if (null != recorded && configurations.contains(recorded)) {
+			race = new Race(Collections.singletonList(recorded));
+			race.run(logicProgram);
+		}
+		
+		boolean fromRecord = null != race && race.winner >= 0;
+		
+		if (!fromRecord) {
+			race = new Race(configurations);
+			race.run(logicProgram);
+		}
+		
+		report = new PortfolioReport(encoding, fromRecord, race.getRuns());
+		
+		if (race.winner < 0) {
+			StringBuilder errors = new StringBuilder("All grounder configurations failed:");
+			
+			for (PortfolioReport.Run run : report.getRuns()) {
+				errors.append("\n" + run.getConfiguration() + ": " + run.getError());
+			}
+			
+			throw new GroundingException(errors.toString());
+		}
+		
+		if (!fromRecord && null != record) {
+			record.put(encoding, race.configurations.get(race.winner));
+		}
+		
+		if (null != statistics) {
+			statistics.setProcessTime(race.elapsedNanos[race.winner]);
+		}
+		
+		return race.result;
+	}
+	
+	public List<String> getConfigurations() {
+		return configurations;
+	}
+	
+	/**
+	 * Sets the record of the winners, or <code>null</code> to always race all
+	 * configurations.
+	 */
+	public void setRecord(PortfolioRecord record) {
+		this.record = record;
+	}
+	
+	public PortfolioRecord getRecord() {
+		return record;
+	}
+	
+	/**
+	 * Returns the report of the last race, or <code>null</code> if no program
+	 * was grounded.
+	 */
+	public PortfolioReport getReport() {
+		return report;
+	}
+	
+	/**
+	 * Creates the grounder of the given configuration.
+	 */
+	static GrounderGringoImpl createGrounder(String configuration) {
+		String trimmed = configuration.trim();
+		int separator = trimmed.indexOf(' ');
+		
+		if (separator < 0) {
+			return new GrounderGringoImpl(trimmed, "");
+		}
+		
+		return new GrounderGringoImpl(trimmed.substring(0, separator), trimmed.substring(separator + 1).trim());
+	}
+	
+	/** A race of the configurations for a single program */
+	private static class Race {
+		private final List<String> configurations;
+		private final List<GrounderGringoImpl> grounders = new ArrayList<GrounderGringoImpl>();
+		private final PortfolioReport.State[] states;
+		private final long[] elapsedNanos;
+		private final String[] errors;
+		private ByteBuffer result;
+		private int winner = -1;
+		
+		public Race(List<String> configurations) {
+			this.configurations = configurations;
+			this.states = new PortfolioReport.State[configurations.size()];
+			this.elapsedNanos = new long[configurations.size()];
+			this.errors = new String[configurations.size()];
+			
+			for (String configuration : configurations) {
+				grounders.add(createGrounder(configuration));
+			}
+		}
+		
+		/**
+		 * Starts all configurations and waits until one succeeded or all
+		 * failed, then stops the others.
+		 */
+		public void run(final String logicProgram) throws GroundingException {
+			long start = System.nanoTime();
+			CompletionService<ByteBuffer> completion = new ExecutorCompletionService<ByteBuffer>(RacePool.EXECUTOR);
+			List<Future<ByteBuffer>> futures = new ArrayList<Future<ByteBuffer>>();
+			
+			for (final GrounderGringoImpl grounder : grounders) {
+				futures.add(completion.submit(new Callable<ByteBuffer>() {
+					@Override
+					public ByteBuffer call() throws GroundingException {
+						return grounder.ground(logicProgram, null, null);
+					}
+				}));
+			}
+			
+			try {
+				for (int pending = futures.size(); pending > 0 && winner < 0; pending --) {
+					Future<ByteBuffer> future = completion.take();
+					int i = futures.indexOf(future);
+					elapsedNanos[i] = System.nanoTime() - start;
+					
+					try {
+						result = future.get();
+						states[i] = PortfolioReport.State.WON;
+						winner = i;
+					} catch (ExecutionException e) {
+						states[i] = PortfolioReport.State.FAILED;
+						errors[i] = null == e.getCause().getMessage() ? e.getCause().toString() : e.getCause().getMessage();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GroundingException("Interrupted while waiting for the grounders", e);
+			} finally {
+				for (int i = 0; i < futures.size(); i ++) {
+					if (null == states[i]) {
+						// cancel first, so a grounder that did not start its process yet does not start it
+						futures.get(i).cancel(true);
+						grounders.get(i).stop();
+						states[i] = PortfolioReport.State.STOPPED;
+						elapsedNanos[i] = System.nanoTime() - start;
+					}
+				}
+			}
+		}
+		
+		public List<PortfolioReport.Run> getRuns() {
+			List<PortfolioReport.Run> runs = new ArrayList<PortfolioReport.Run>(configurations.size());
+			
+			for (int i = 0; i < configurations.size(); i ++) {
+				runs.add(new PortfolioReport.Run(configurations.get(i), states[i], elapsedNanos[i], errors[i]));
+			}
+			
+			return runs;
+		}
+	}
+	
+	/** The threads that wait for the grounder processes. */
+	private static class RacePool {
+		private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger threadNum = new AtomicInteger(1);
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "gringo-wrapper-portfolio-" + threadNum.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+}
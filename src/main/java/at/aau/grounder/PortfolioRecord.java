@@ -0,0 +1,143 @@
+package at.aau.grounder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import at.aau.preprocessing.Statements;
+
+/**
+ * The winning configurations of the {@link PortfolioGrounder} by encoding, so
+ * later runs of the same encoding can start the best configuration directly.
+ * <p>
+ * An encoding is identified by the SHA-256 hash of the rules of the
+ * preprocessed program without whitespace. The facts, i.e. the instance, are
+ * not part of the encoding. The record can be saved and loaded to keep the
+ * winners across runs.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PortfolioRecord {
+	private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+	
+	/** A statement without a body and without variables */
+	private static final Pattern FACT_PATTERN = Pattern.compile("\\s*-?[a-z][A-Za-z0-9_']*(\\(([^A-Z_:|{;]|(?<=[A-Za-z0-9'])[A-Z_])*\\))?\\s*\\.\\s*");
+	
+	/** The winning configurations by the key of their encoding */
+	private final Map<String, String> winners = new LinkedHashMap<String, String>();
+	
+	/**
+	 * Returns the configuration that won for the given encoding, or
+	 * <code>null</code> if there is none.
+	 *
+	 * @param encoding
+	 *            The key of the encoding, see {@link #getEncodingKey(String)}.
+	 */
+	public synchronized String get(String encoding) {
+		return winners.get(encoding);
+	}
+	
+	/**
+	 * Records the configuration that won for the given encoding.
+	 */
+	public synchronized void put(String encoding, String configuration) {
+		winners.put(encoding, configuration);
+	}
+	
+	/**
+	 * Returns the number of recorded encodings.
+	 */
+	public synchronized int size() {
+		return winners.size();
+	}
+	
+	/**
+	 * Returns the key of the encoding of the given preprocessed program.
+	 */
+	public static String getEncodingKey(String logicProgram) {
+		Matcher factLiteralRule = IncrementalGrounder.FACT_LITERAL_RULE_PATTERN.matcher(logicProgram);
+		String factLiteral = null;
+		
+		if (factLiteralRule.find()) {
+			factLiteral = factLiteralRule.group(1);
+			logicProgram = logicProgram.substring(0, factLiteralRule.start());
+		}
+		
+		List<String> statements = Statements.split(logicProgram);
+		StringBuilder encoding = new StringBuilder();
+		
+		if (null == statements) {
+			encoding.append(logicProgram);
+		} else {
+			for (String statement : statements) {
+				if ((null != factLiteral && statement.contains(factLiteral)) || FACT_PATTERN.matcher(statement).matches()) {
+					continue;
+				}
+				
+				encoding.append(statement);
+			}
+		}
+		
+		byte[] digest = sha256().digest(WHITESPACE_PATTERN.matcher(encoding).replaceAll("").getBytes(StandardCharsets.UTF_8));
+		return String.format("%064x", new BigInteger(1, digest));
+	}
+	
+	/**
+	 * Writes the record as lines <code>key configuration</code>.
+	 */
+	public synchronized void write(Writer writer) throws IOException {
+		for (Map.Entry<String, String> entry : winners.entrySet()) {
+			writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+		}
+		
+		writer.flush();
+	}
+	
+	/**
+	 * Reads a record that was written by {@link #write(Writer)}.
+	 *
+	 * @throws IOException
+	 *             If the record could not be read or is malformed.
+	 */
+	public static PortfolioRecord read(Reader reader) throws IOException {
+		PortfolioRecord record = new PortfolioRecord();
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		
+		while (null != (line = lines.readLine())) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			
+			int separator = line.indexOf(' ');
+			
+			if (separator < 1 || separator == line.length() - 1) {
+				throw new IOException("Malformed portfolio record: " + line);
+			}
+			
+			record.winners.put(line.substring(0, separator), line.substring(separator + 1));
+		}
+		
+		return record;
+	}
+	
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package at.aau.grounder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a race of the {@link PortfolioGrounder}, i.e. which
+ * configuration won and how long each configuration ran.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PortfolioReport {
+	/** The state of a configuration at the end of the race */
+	public enum State {
+		/** The first configuration that grounded the program */
+		WON,
+		/** Stopped when another configuration won */
+		STOPPED,
+		/** The grounder failed */
+		FAILED
+	}
+	
+	private final String encoding;
+	
+	private final boolean recorded;
+	
+	private final List<Run> runs;
+	
+	PortfolioReport(String encoding, boolean recorded, List<Run> runs) {
+		this.encoding = encoding;
+		this.recorded = recorded;
+		this.runs = Collections.unmodifiableList(new ArrayList<Run>(runs));
+	}
+	
+	/**
+	 * Returns the key of the encoding of the program, see
+	 * {@link PortfolioRecord#getEncodingKey(String)}.
+	 */
+	public String getEncoding() {
+		return encoding;
+	}
+	
+	/**
+	 * Returns whether the configuration was taken from the record, i.e. only
+	 * the configuration that won before was started.
+	 */
+	public boolean isRecorded() {
+		return recorded;
+	}
+	
+	/**
+	 * Returns the runs of the configurations, in the order they were given.
+	 */
+	public List<Run> getRuns() {
+		return runs;
+	}
+	
+	/**
+	 * Returns the configuration that won, or <code>null</code> if all
+	 * configurations failed.
+	 */
+	public String getWinner() {
+		for (Run run : runs) {
+			if (run.getState() == State.WON) {
+				return run.getConfiguration();
+			}
+		}
+		
+		return null;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder table = new StringBuilder();
+		String winner = getWinner();
+		
+		if (null == winner) {
+			table.append("portfolio: all configurations failed\n");
+		} else {
+			table.append(String.format("portfolio: '%s' won%s\n", winner, recorded ? " (recorded)" : ""));
+		}
+		
+		for (Run run : runs) {
+			table.append(String.format("%10d ms  %-8s %s%s\n",
+					run.getElapsedNanos() / 1000000,
+					run.getState(),
+					run.getConfiguration(),
+					null == run.getError() ? "" : ": " + run.getError().trim().split("\n")[0]));
+		}
+		
+		return table.toString();
+	}
+	
+	/**
+	 * The run of one configuration.
+	 */
+	public static class Run {
+		private final String configuration;
+		private final State state;
+		private final long elapsedNanos;
+		private final String error;
+		
+		Run(String configuration, State state, long elapsedNanos, String error) {
+			this.configuration = configuration;
+			this.state = state;
+			this.elapsedNanos = elapsedNanos;
+			this.error = error;
+		}
+		
+		public String getConfiguration() {
+			return configuration;
+		}
+		
+		public State getState() {
+			return state;
+		}
+		
+		/**
+		 * Returns the time from the start of the race until the configuration
+		 * finished, failed or was stopped.
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+		
+		/**
+		 * Returns the message of the failure, or <code>null</code> if the
+		 * configuration did not fail.
+		 */
+		public String getError() {
+			return error;
+		}
+	}
+}
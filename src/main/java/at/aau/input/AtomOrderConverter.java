@@ -0,0 +1,29 @@
+package at.aau.input;
+
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.converters.BaseConverter;
+
+import at.aau.postprocessing.AtomOrder;
+
+/**
+ * Converts the command line name of an {@link AtomOrder} to the order.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class AtomOrderConverter extends BaseConverter<AtomOrder> {
+	public AtomOrderConverter(String optionName) {
+		super(optionName);
+	}
+
+	@Override
+	public AtomOrder convert(String value) {
+		AtomOrder order = AtomOrder.forOptionName(value);
+		
+		if (null == order) {
+			throw new ParameterException("The option " + getOptionName() + " must be one of 'name' or 'first-use', but was '" + value + "'");
+		}
+		
+		return order;
+	}
+}
@@ -0,0 +1,136 @@
+package at.aau.input;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watches the input files of the logic program for changes. The files are
+ * polled by their modification time and size and read again only if these
+ * changed, so an unchanged file is read only once.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class InputWatcher {
+	private final long intervalMillis;
+	
+	/** The state of each file, in the order of the program */
+	private final Map<File, FileState> files = new LinkedHashMap<File, FileState>();
+	
+	/**
+	 * Creates a watcher for the given files.
+	 *
+	 * @param files
+	 *            The input files, in the order they are concatenated.
+	 * @param intervalMillis
+	 *            The time between two checks for changes.
+	 */
+	public InputWatcher(List<String> files, long intervalMillis) {
+		this.intervalMillis = intervalMillis;
+		
+		for (String file : files) {
+			this.files.put(new File(file), new FileState());
+		}
+	}
+	
+	/**
+	 * Waits until the contents of one or more files changed. The first call
+	 * returns all files.
+	 *
+	 * @return The names of the changed files.
+	 * @throws IOException
+	 *             If a file could not be read the first time.
+	 */
+	public List<String> awaitChange() throws IOException, InterruptedException {
+		while (true) {
+			List<String> changed = poll();
+			
+			if (!changed.isEmpty()) {
+				return changed;
+			}
+			
+			Thread.sleep(intervalMillis);
+		}
+	}
+	
+	/**
+	 * Checks the files for changes once.
+	 *
+	 * @return The names of the files whose content changed since the last
+	 *         check.
+	 */
+	public List<String> poll() throws IOException {
+		List<String> changed = new ArrayList<String>();
+		
+		for (Map.Entry<File, FileState> entry : files.entrySet()) {
+			File file = entry.getKey();
+			FileState state = entry.getValue();
+			long lastModified = file.lastModified();
+			long length = file.length();
+			
+			if (null != state.content && (lastModified == 0 || (lastModified == state.lastModified && length == state.length))) {
+				// unchanged, or temporarily missing while an editor saves it
+				continue;
+			}
+			
+			String content = read(file);
+			state.lastModified = lastModified;
+			state.length = length;
+			
+			if (!content.equals(state.content)) {
+				state.content = content;
+				changed.add(file.getPath());
+			}
+		}
+		
+		return changed;
+	}
+	
+	/**
+	 * Returns the logic program, i.e. the concatenated contents of the files
+	 * as of the last check.
+	 */
+	public String getProgram() {
+		StringBuilder program = new StringBuilder();
+		
+		for (FileState state : files.values()) {
+			if (null != state.content) {
+				program.append(state.content);
+			}
+		}
+		
+		return program.toString();
+	}
+	
+	private static String read(File file) throws IOException {
+		StringBuilder content = new StringBuilder();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+		
+		try {
+			String line;
+			
+			while (null != (line = reader.readLine())) {
+				content.append(line);
+				content.append('\n');
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return content.toString();
+	}
+	
+	private static class FileState {
+		private long lastModified;
+		private long length;
+		private String content;
+	}
+}
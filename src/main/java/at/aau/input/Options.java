@@ -1,12 +1,17 @@
 package at.aau.input;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
+import com.beust.jcommander.converters.IParameterSplitter;
+
+import at.aau.grounder.GrounderWarnings;
+import at.aau.postprocessing.AtomOrder;
 
 /**
  * Holds the options of the gringo-wrapper.
@@ -38,6 +43,12 @@ public class Options {
 	@Parameter(names = { "-nw", "--no-warn-rules" }, description = "Do not warn if rules where removed")
 	private boolean noWarnRemovedRules = false;
 	
+	@Parameter(names = { "--warnings-shown" }, description = "The number of groups of messages of the grounder and of removed rules that are printed, 0 to print only their number")
+	private int warningsShown = GrounderWarnings.DEFAULT_SHOWN;
+	
+	@Parameter(names = { "--warnings-file" }, description = "Write all messages of the grounder and all removed rules to the given file")
+	private String warningsFile = null;
+	
 	@Parameter(names = { "-d", "--debug-constant" }, description = "The debug constant to be added to the rules")
 	private String debugLiteral = "_debug";
 
@@ -47,6 +58,96 @@ public class Options {
 	@Parameter(names = { "-go", "--grounder-options" }, description = "Command line options passed to the grounder")
 	private String grounderOptions = "";
 	
+	@Parameter(names = { "-t", "--threads" }, validateWith = PositiveIntegerValidator.class, description = "The number of threads used to postprocess the grounded program")
+	private int threads = Runtime.getRuntime().availableProcessors();
+	
+	@Parameter(names = { "-a", "--renumber-atoms" }, converter = AtomOrderConverter.class, description = "Renumber the atoms densely, ordered by their 'name' or their 'first-use'")
+	private AtomOrder atomOrder = null;
+	
+	@Parameter(names = { "-p", "--profile" }, description = "Print the number of ground instances of each rule and predicate")
+	private boolean profile = false;
+	
+	@Parameter(names = { "-pj", "--profile-json" }, description = "Write the grounding profile as JSON to the given file")
+	private String profileJsonFile = null;
+	
+	@Parameter(names = { "-s", "--stats" }, description = "Print the time, memory and sizes of the stages as JSON to stderr")
+	private boolean stats = false;
+	
+	@Parameter(names = { "-sf", "--stats-file" }, description = "Write the time, memory and sizes of the stages as JSON to the given file")
+	private String statsFile = null;
+	
+	@Parameter(names = { "--progress" }, description = "Print the progress of the stages to stderr while the program is grounded")
+	private boolean progress = false;
+	
+	@Parameter(names = { "--progress-fd" }, description = "Write the progress of the stages as one JSON object per line to the given file descriptor, e.g. 3")
+	private Integer progressFd = null;
+	
+	@Parameter(names = { "--progress-interval" }, description = "The milliseconds between two reports of the progress")
+	private long progressIntervalMillis = 1000;
+	
+	@Parameter(names = { "-di", "--debug-index" }, description = "Write the index from the debug atoms to the debug constants and arguments to the given file")
+	private String debugIndexFile = null;
+	
+	@Parameter(names = { "-dm", "--debug-map" }, description = "Write the rules of the debug constants to the given binary file instead of the end of the grounded program")
+	private String debugMapFile = null;
+	
+	@Parameter(names = { "--preprocess-only" }, description = "Print the preprocessed program, ready to be grounded, and write its context to the --context file")
+	private boolean preprocessOnly = false;
+	
+	@Parameter(names = { "--postprocess-from" }, description = "Postprocess the given output of the grounder for the program preprocessed with --preprocess-only, using the --context file")
+	private String postprocessFrom = null;
+	
+	@Parameter(names = { "--context" }, description = "The file of the context that --preprocess-only writes and --postprocess-from reads")
+	private String contextFile = null;
+	
+	@Parameter(names = { "-w", "--watch" }, description = "Ground the input files again whenever they change, reusing the grounded parts of the program that did not change")
+	private boolean watch = false;
+	
+	@Parameter(names = { "-dn", "--debug-names" }, description = "Keep the debug constants of the rules across changes of the program in the given file")
+	private String debugNamesFile = null;
+	
+	@Parameter(names = { "-e", "--estimate" }, description = "Print the estimated number of ground instances of each rule before grounding")
+	private boolean estimate = false;
+	
+	@Parameter(names = { "--max-estimated-rules" }, description = "Do not start the grounder if the grounded program is estimated to have more rules, 0 for no limit")
+	private long maxEstimatedRules = 0;
+	
+	@Parameter(names = { "--slice-to" }, description = "Ground only the rules that can affect the given predicate or atom, e.g. 'p', 'p/2' or 'p(1,a)'")
+	private String sliceTarget = null;
+	
+	@Parameter(names = { "-gc", "--grounder-class" }, description = "The class of the grounder to use instead of the grounder command, with a constructor without arguments")
+	private String grounderClass = null;
+	
+	@Parameter(names = { "--portfolio" }, splitter = NoSplitter.class, description = "Race the given grounder command with its options against the other --portfolio configurations and use the first result, e.g. --portfolio='gringo-4.5 --keep-facts'")
+	private List<String> portfolio = new ArrayList<String>();
+	
+	@Parameter(names = { "--portfolio-record" }, description = "Record the winning portfolio configuration of each encoding in the given file and start only the recorded one")
+	private String portfolioRecordFile = null;
+	
+	@Parameter(names = { "--solve-with" }, description = "Pass the grounded program to the standard input of the given solver command with its options and print the output of the solver, e.g. --solve-with='clasp 0'")
+	private String solveWith = null;
+	
+	@Parameter(names = { "--coordinator" }, description = "Distribute the jobs of the jobs file to the workers that connect on the given port")
+	private Integer coordinatorPort = null;
+	
+	@Parameter(names = { "--jobs" }, description = "The jobs of the coordinator, one per line: the name of the output file followed by the input files")
+	private String jobsFile = null;
+	
+	@Parameter(names = { "--output-dir" }, description = "The directory the coordinator writes the grounded programs to")
+	private String outputDirectory = ".";
+	
+	@Parameter(names = { "--max-attempts" }, description = "How often the coordinator hands out a job before it fails")
+	private int maxAttempts = 3;
+	
+	@Parameter(names = { "--steal-after" }, description = "The milliseconds after which idle workers also run a job that runs on another worker")
+	private long stealAfterMillis = 60000;
+	
+	@Parameter(names = { "--worker" }, description = "Run the jobs of the coordinator at the given host:port")
+	private String coordinatorAddress = null;
+	
+	@Parameter(names = { "--worker-slots" }, description = "The number of jobs a worker runs at the same time")
+	private int workerSlots = 1;
+	
 	/**
 	 * Parse the given command line arguments.
 	 * 
@@ -75,8 +176,16 @@ public class Options {
 		cli.usage();
 	}
 	
-	public void printVersion() {
-		System.out.println("gringo-wrapper version " + getClass().getPackage().getImplementationVersion());
+	public static void printVersion() {
+		System.out.println("gringo-wrapper version " + Options.class.getPackage().getImplementationVersion());
+	}
+	
+	/**
+	 * Returns whether the given argument is the option that prints the
+	 * version.
+	 */
+	public static boolean isVersionOption(String argument) {
+		return "-v".equals(argument) || "--version".equals(argument);
 	}
 
 	public List<String> getInputFiles() {
@@ -103,6 +212,14 @@ public class Options {
 		return !noWarnRemovedRules;
 	}
 	
+	public int getWarningsShown() {
+		return warningsShown;
+	}
+	
+	public String getWarningsFile() {
+		return warningsFile;
+	}
+	
 	public String getDebugLiteral() {
 		return debugLiteral;
 	}
@@ -114,4 +231,163 @@ public class Options {
 	public String getGrounderOptions() {
 		return grounderOptions;
 	}
+	
+	public int getThreads() {
+		return threads;
+	}
+	
+	public AtomOrder getAtomOrder() {
+		return atomOrder;
+	}
+	
+	public boolean isProfile() {
+		return profile;
+	}
+	
+	public String getProfileJsonFile() {
+		return profileJsonFile;
+	}
+	
+	public boolean isStats() {
+		return stats;
+	}
+	
+	public String getStatsFile() {
+		return statsFile;
+	}
+	
+	public boolean isProgress() {
+		return progress;
+	}
+	
+	/**
+	 * Returns the file descriptor of the JSON progress reports, or
+	 * <code>null</code> if they are not written.
+	 */
+	public Integer getProgressFd() {
+		return progressFd;
+	}
+	
+	public long getProgressIntervalMillis() {
+		return progressIntervalMillis;
+	}
+	
+	public String getDebugIndexFile() {
+		return debugIndexFile;
+	}
+	
+	/**
+	 * Returns the file of the debug map, or <code>null</code> if the rules of
+	 * the debug constants are appended to the grounded program.
+	 */
+	public String getDebugMapFile() {
+		return debugMapFile;
+	}
+	
+	public boolean isPreprocessOnly() {
+		return preprocessOnly;
+	}
+	
+	/**
+	 * Returns the file of the output of the grounder to postprocess, or
+	 * <code>null</code> if the input is grounded.
+	 */
+	public String getPostprocessFrom() {
+		return postprocessFrom;
+	}
+	
+	public String getContextFile() {
+		return contextFile;
+	}
+	
+	public boolean isWatch() {
+		return watch;
+	}
+	
+	public String getDebugNamesFile() {
+		return debugNamesFile;
+	}
+	
+	public boolean isEstimate() {
+		return estimate;
+	}
+	
+	public long getMaxEstimatedRules() {
+		return maxEstimatedRules;
+	}
+	
+	public String getSliceTarget() {
+		return sliceTarget;
+	}
+	
+	public String getGrounderClass() {
+		return grounderClass;
+	}
+	
+	/**
+	 * Returns the portfolio configurations, each a grounder command followed
+	 * by its options, or an empty list if no portfolio is raced.
+	 */
+	public List<String> getPortfolio() {
+		return portfolio;
+	}
+	
+	public String getPortfolioRecordFile() {
+		return portfolioRecordFile;
+	}
+	
+	/**
+	 * Returns the solver command followed by its options, or
+	 * <code>null</code> if the grounded program is printed.
+	 */
+	public String getSolveWith() {
+		return solveWith;
+	}
+	
+	/**
+	 * Returns the port of the coordinator, or <code>null</code> if this is
+	 * not a coordinator.
+	 */
+	public Integer getCoordinatorPort() {
+		return coordinatorPort;
+	}
+	
+	public String getJobsFile() {
+		return jobsFile;
+	}
+	
+	public String getOutputDirectory() {
+		return outputDirectory;
+	}
+	
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+	
+	public long getStealAfterMillis() {
+		return stealAfterMillis;
+	}
+	
+	/**
+	 * Returns the host:port of the coordinator of this worker, or
+	 * <code>null</code> if this is not a worker.
+	 */
+	public String getCoordinatorAddress() {
+		return coordinatorAddress;
+	}
+	
+	public int getWorkerSlots() {
+		return workerSlots;
+	}
+	
+	/**
+	 * Keeps option values with commas, e.g. the options of a grounder, in one
+	 * piece.
+	 */
+	public static class NoSplitter implements IParameterSplitter {
+		@Override
+		public List<String> split(String value) {
+			return Collections.singletonList(value);
+		}
+	}
 }
@@ -0,0 +1,27 @@
+package at.aau.input;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Accepts only integers that are at least 1, e.g. a number of threads.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class PositiveIntegerValidator implements IParameterValidator {
+	@Override
+	public void validate(String name, String value) {
+		int number;
+		
+		try {
+			number = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new ParameterException("The option " + name + " must be a positive integer, but was '" + value + "'");
+		}
+		
+		if (number < 1) {
+			throw new ParameterException("The option " + name + " must be a positive integer, but was '" + value + "'");
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package at.aau.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility methods for heap byte buffers that hold (parts of) logic programs.
+ * All methods expect buffers that are backed by an accessible array.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public final class ByteBuffers {
+	/** Initial size of buffers that are allocated for reading */
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	
+	private ByteBuffers() {
+	}
+	
+	/**
+	 * Returns a buffer with at least the given number of remaining bytes. If
+	 * the given buffer is too small, a larger buffer containing the written
+	 * part of the given buffer is returned.
+	 * 
+	 * @param buffer
+	 *            The buffer in write mode, or <code>null</code>.
+	 * @param required
+	 *            The number of bytes that will be written.
+	 * @return The given buffer or a larger copy of it.
+	 */
+	public static ByteBuffer ensureRemaining(ByteBuffer buffer, int required) {
+		if (null == buffer || !buffer.hasArray()) {
+			ByteBuffer allocated = ByteBuffer.allocate(Math.max(INITIAL_CAPACITY, required));
+			
+			if (null != buffer) {
+				buffer.flip();
+				allocated.put(buffer);
+			}
+			
+			return allocated;
+		}
+		
+		if (buffer.remaining() >= required) {
+			return buffer;
+		}
+		
+		long capacity = Math.max((long) buffer.capacity() << 1, (long) buffer.position() + required);
+		ByteBuffer grown = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, capacity));
+		grown.put(buffer.array(), buffer.arrayOffset(), buffer.position());
+		
+		return grown;
+	}
+	
+	/**
+	 * Clears the given buffer for reuse, or allocates a new buffer if it is
+	 * <code>null</code> or not backed by an array.
+	 */
+	public static ByteBuffer reuse(ByteBuffer buffer, int minCapacity) {
+		if (null == buffer || !buffer.hasArray() || buffer.capacity() < minCapacity) {
+			return ByteBuffer.allocate(Math.max(INITIAL_CAPACITY, minCapacity));
+		}
+		
+		buffer.clear();
+		return buffer;
+	}
+	
+	/**
+	 * Reads the given input stream until its end into the given buffer.
+	 * 
+	 * @param input
+	 *            The stream to read.
+	 * @param buffer
+	 *            The buffer to reuse, or <code>null</code>.
+	 * @return A buffer in read mode that contains the content of the stream.
+	 * @throws IOException
+	 *             If reading the stream failed.
+	 */
+	public static ByteBuffer readFully(InputStream input, ByteBuffer buffer) throws IOException {
+		buffer = reuse(buffer, INITIAL_CAPACITY);
+		
+		while (true) {
+			buffer = ensureRemaining(buffer, 1);
+			int read = input.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			
+			if (read < 0) {
+				break;
+			}
+			
+			buffer.position(buffer.position() + read);
+		}
+		
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Writes the decimal representation of the given non-negative number.
+	 * 
+	 * @return The given buffer or a larger copy of it.
+	 */
+	public static ByteBuffer putInt(ByteBuffer buffer, int value) {
+		buffer = ensureRemaining(buffer, 10);
+		
+		int digits = 1;
+		for (int rest = value / 10; rest > 0; rest /= 10) {
+			digits ++;
+		}
+		
+		int end = buffer.arrayOffset() + buffer.position() + digits;
+		byte[] array = buffer.array();
+		
+		for (int i = end - 1; i >= end - digits; i --) {
+			array[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		
+		buffer.position(buffer.position() + digits);
+		return buffer;
+	}
+	
+	/**
+	 * Writes the given ASCII text.
+	 * 
+	 * @return The given buffer or a larger copy of it.
+	 */
+	public static ByteBuffer putAscii(ByteBuffer buffer, String text) {
+		buffer = ensureRemaining(buffer, text.length());
+		
+		for (int i = 0; i < text.length(); i ++) {
+			buffer.put((byte) text.charAt(i));
+		}
+		
+		return buffer;
+	}
+	
+	/**
+	 * Writes the given range of bytes.
+	 * 
+	 * @return The given buffer or a larger copy of it.
+	 */
+	public static ByteBuffer put(ByteBuffer buffer, byte[] source, int offset, int length) {
+		buffer = ensureRemaining(buffer, length);
+		buffer.put(source, offset, length);
+		
+		return buffer;
+	}
+	
+	/**
+	 * Encodes the given text as UTF-8.
+	 */
+	public static ByteBuffer wrap(String text) {
+		return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Decodes the remaining bytes of the given buffer as UTF-8 without
+	 * changing its position.
+	 */
+	public static String toString(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+		}
+		
+		return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+	}
+}
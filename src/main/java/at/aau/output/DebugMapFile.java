@@ -0,0 +1,338 @@
+package at.aau.output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import at.aau.Rule;
+
+/**
+ * A compact binary file of the rules of the debug constants, written next to
+ * the grounded program instead of the rule table at its end. The file is
+ * memory-mapped when it is read, so the rule of a debug constant is found in
+ * constant time without reading the whole file.
+ * <p>
+ * All numbers are big-endian <code>int</code>s and all texts are UTF-8:
+ *
+ * <pre>
+ * header   "GWDM", version, highest number n, prefix length, prefix
+ * index    n + 1 offsets: the start of the entry of each number 1 ... n,
+ *          followed by the end of the last entry
+ * entries  rule length, rule, variable count, (variable length, variable)*
+ * </pre>
+ *
+ * A number without a rule has an empty entry, i.e. its offset equals the
+ * offset of the next number.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DebugMapFile {
+	/** The first bytes of a debug map, "GWDM" */
+	private static final int MAGIC = 0x4757444D;
+	
+	private static final int VERSION = 1;
+	
+	/** The mapped file */
+	private final ByteBuffer data;
+	
+	private final String debugConstantPrefix;
+	
+	/** The highest number of a debug constant */
+	private final int count;
+	
+	/** The position of the offset of number 1 */
+	private final int indexStart;
+	
+	private DebugMapFile(ByteBuffer data, String debugConstantPrefix, int count, int indexStart) {
+		this.data = data;
+		this.debugConstantPrefix = debugConstantPrefix;
+		this.count = count;
+		this.indexStart = indexStart;
+	}
+	
+	/**
+	 * Writes the rules of the given debug constants. Debug constants that do
+	 * not consist of the prefix and a positive number are skipped. The stream
+	 * is flushed but not closed.
+	 *
+	 * @param debugRuleMap
+	 *            The map of the debug constants to the ungrounded rules.
+	 * @param debugConstantPrefix
+	 *            The prefix of the debug constants.
+	 */
+	public static void write(Map<String, Rule> debugRuleMap, String debugConstantPrefix, OutputStream output) throws IOException {
+		byte[][] entries = new byte[16][];
+		int count = 0;
+		
+		for (Map.Entry<String, Rule> entry : debugRuleMap.entrySet()) {
+			int number = getNumber(entry.getKey(), debugConstantPrefix);
+			
+			if (number < 1) {
+				continue;
+			}
+			
+			if (number > entries.length) {
+				entries = Arrays.copyOf(entries, Math.max(entries.length << 1, number));
+			}
+			
+			entries[number - 1] = encode(entry.getValue());
+			count = Math.max(count, number);
+		}
+		
+		byte[] prefix = debugConstantPrefix.getBytes(StandardCharsets.UTF_8);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(count);
+		out.writeInt(prefix.length);
+		out.write(prefix);
+		
+		long offset = 16 + prefix.length + 4L * (count + 1);
+		
+		for (int i = 0; i <= count; i ++) {
+			if (offset > Integer.MAX_VALUE) {
+				throw new IOException("The debug map is too large");
+			}
+			
+			out.writeInt((int) offset);
+			
+			if (i < count && null != entries[i]) {
+				offset += entries[i].length;
+			}
+		}
+		
+		for (int i = 0; i < count; i ++) {
+			if (null != entries[i]) {
+				out.write(entries[i]);
+			}
+		}
+		
+		out.flush();
+	}
+	
+	/**
+	 * Maps the given debug map into memory. The header and the offsets are
+	 * checked, the entries are only read when they are asked for.
+	 *
+	 * @throws IOException
+	 *             If the file could not be read or does not contain a debug
+	 *             map.
+	 */
+	public static DebugMapFile open(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		ByteBuffer data;
+		
+		try {
+			FileChannel channel = input.getChannel();
+			
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("The debug map is too large to be mapped");
+			}
+			
+			// the mapping stays valid after the channel is closed
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			input.close();
+		}
+		
+		return read(data);
+	}
+	
+	/**
+	 * Reads the debug map between the position and the limit of the given
+	 * buffer, e.g. a debug map embedded in another file. The buffer is not
+	 * copied, like the mapped file of {@link #open(File)}.
+	 *
+	 * @throws IOException
+	 *             If the buffer does not contain a debug map.
+	 */
+	public static DebugMapFile read(ByteBuffer data) throws IOException {
+		data = data.slice();
+		
+		if (data.limit() < 16 || data.getInt(0) != MAGIC) {
+			throw new IOException("The file does not contain a debug map");
+		}
+		
+		int version = data.getInt(4);
+		
+		if (version != VERSION) {
+			throw new IOException("Unsupported version of the debug map: " + version);
+		}
+		
+		int count = data.getInt(8);
+		int prefixLength = data.getInt(12);
+		
+		if (count < 0 || prefixLength < 0 || 16L + prefixLength + 4L * (count + 1) > data.limit()) {
+			throw new IOException("Malformed debug map");
+		}
+		
+		int indexStart = 16 + prefixLength;
+		int previous = indexStart + 4 * (count + 1);
+		
+		for (int i = 0; i <= count; i ++) {
+			int offset = data.getInt(indexStart + 4 * i);
+			
+			if (offset < previous || offset > data.limit()) {
+				throw new IOException("Malformed debug map");
+			}
+			
+			previous = offset;
+		}
+		
+		byte[] prefix = new byte[prefixLength];
+		ByteBuffer view = data.duplicate();
+		view.position(16);
+		view.get(prefix);
+		
+		return new DebugMapFile(data, new String(prefix, StandardCharsets.UTF_8), count, indexStart);
+	}
+	
+	public String getDebugConstantPrefix() {
+		return debugConstantPrefix;
+	}
+	
+	/**
+	 * Returns the highest number of a debug constant in the map.
+	 */
+	public int getMaxNumber() {
+		return count;
+	}
+	
+	/**
+	 * Returns whether the debug constant with the given number has a rule.
+	 */
+	public boolean hasRule(int number) {
+		return number > 0 && number <= count && getOffset(number) < getOffset(number + 1);
+	}
+	
+	/**
+	 * Returns the rule of the debug constant with the given number.
+	 *
+	 * @return The rule, or <code>null</code> if there is no such debug
+	 *         constant.
+	 */
+	public Rule getRule(int number) {
+		if (!hasRule(number)) {
+			return null;
+		}
+		
+		ByteBuffer entry = getEntry(number);
+		String rule = readString(entry);
+		int variableCount = entry.getInt();
+		List<String> variables = new ArrayList<String>(variableCount);
+		
+		for (int i = 0; i < variableCount; i ++) {
+			variables.add(readString(entry));
+		}
+		
+		return new Rule(rule, variables);
+	}
+	
+	/**
+	 * Returns the rule of the given debug constant, e.g. <code>_debug12</code>.
+	 *
+	 * @return The rule, or <code>null</code> if there is no such debug
+	 *         constant.
+	 */
+	public Rule getRule(String debugConstant) {
+		return getRule(getNumber(debugConstant, debugConstantPrefix));
+	}
+	
+	/**
+	 * Returns the text of the rule of the debug constant with the given
+	 * number, without creating the list of its variables.
+	 *
+	 * @return The rule text, or <code>null</code> if there is no such debug
+	 *         constant.
+	 */
+	public String getRuleText(int number) {
+		return hasRule(number) ? readString(getEntry(number)) : null;
+	}
+	
+	private int getOffset(int number) {
+		return data.getInt(indexStart + 4 * (number - 1));
+	}
+	
+	/**
+	 * Returns a view of the entry of the given number, the views are not
+	 * shared, so the map can be read by many threads.
+	 */
+	private ByteBuffer getEntry(int number) {
+		ByteBuffer entry = data.duplicate();
+		entry.limit(getOffset(number + 1));
+		entry.position(getOffset(number));
+		
+		return entry;
+	}
+	
+	private static String readString(ByteBuffer entry) {
+		byte[] encoded = new byte[entry.getInt()];
+		entry.get(encoded);
+		
+		return new String(encoded, StandardCharsets.UTF_8);
+	}
+	
+	private static byte[] encode(Rule rule) {
+		List<byte[]> strings = new ArrayList<byte[]>(rule.getVariables().size() + 1);
+		// the variable count, followed by the length and text of each string
+		int length = 4;
+		strings.add(rule.getRule().getBytes(StandardCharsets.UTF_8));
+		
+		for (String variable : rule.getVariables()) {
+			strings.add(variable.getBytes(StandardCharsets.UTF_8));
+		}
+		
+		for (byte[] string : strings) {
+			length += 4 + string.length;
+		}
+		
+		ByteBuffer entry = ByteBuffer.allocate(length);
+		entry.putInt(strings.get(0).length).put(strings.get(0));
+		entry.putInt(strings.size() - 1);
+		
+		for (byte[] string : strings.subList(1, strings.size())) {
+			entry.putInt(string.length).put(string);
+		}
+		
+		return entry.array();
+	}
+	
+	/**
+	 * Returns the number of the given debug constant, or 0 if it does not
+	 * consist of the prefix and a positive number.
+	 */
+	private static int getNumber(String debugConstant, String debugConstantPrefix) {
+		int length = debugConstant.length();
+		int prefixLength = debugConstantPrefix.length();
+		
+		if (length == prefixLength || length > prefixLength + 9 || !debugConstant.startsWith(debugConstantPrefix)
+				|| debugConstant.charAt(prefixLength) == '0') {
+			return 0;
+		}
+		
+		int number = 0;
+		
+		for (int i = prefixLength; i < length; i ++) {
+			char c = debugConstant.charAt(i);
+			
+			if (c < '0' || c > '9') {
+				return 0;
+			}
+			
+			number = number * 10 + (c - '0');
+		}
+		
+		return number;
+	}
+}
@@ -0,0 +1,143 @@
+package at.aau.output;
+
+/**
+ * Writes JSON documents into a {@link StringBuilder}. The writer inserts the
+ * separators between the members of objects and arrays.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class JsonWriter {
+	private final StringBuilder json;
+	
+	/** Whether the next value is the first one of the current object or array */
+	private boolean first = true;
+	
+	public JsonWriter() {
+		this(new StringBuilder());
+	}
+	
+	public JsonWriter(StringBuilder json) {
+		this.json = json;
+	}
+	
+	public JsonWriter beginObject() {
+		separate();
+		json.append('{');
+		first = true;
+		return this;
+	}
+	
+	public JsonWriter endObject() {
+		json.append('}');
+		first = false;
+		return this;
+	}
+	
+	public JsonWriter beginArray() {
+		separate();
+		json.append('[');
+		first = true;
+		return this;
+	}
+	
+	public JsonWriter endArray() {
+		json.append(']');
+		first = false;
+		return this;
+	}
+	
+	/**
+	 * Writes the name of the next member of an object.
+	 */
+	public JsonWriter name(String name) {
+		separate();
+		string(name);
+		json.append(':');
+		first = true;
+		return this;
+	}
+	
+	public JsonWriter value(String value) {
+		separate();
+		
+		if (null == value) {
+			json.append("null");
+		} else {
+			string(value);
+		}
+		
+		return this;
+	}
+	
+	public JsonWriter value(long value) {
+		separate();
+		json.append(value);
+		return this;
+	}
+	
+	public JsonWriter value(double value) {
+		separate();
+		
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			json.append("null");
+		} else {
+			json.append(value);
+		}
+		
+		return this;
+	}
+	
+	public JsonWriter value(boolean value) {
+		separate();
+		json.append(value);
+		return this;
+	}
+	
+	@Override
+	public String toString() {
+		return json.toString();
+	}
+	
+	private void separate() {
+		if (!first) {
+			json.append(',');
+		}
+		
+		first = false;
+	}
+	
+	private void string(String value) {
+		json.append('"');
+		
+		for (int i = 0; i < value.length(); i ++) {
+			char c = value.charAt(i);
+			
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+		
+		json.append('"');
+	}
+}
@@ -1,7 +1,12 @@
 package at.aau.output;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
+import at.aau.DebugRuleMap;
 import at.aau.Rule;
 
 /**
@@ -17,7 +22,8 @@ public class OutputBuilder {
 
 	/**
 	 * Build the rule table containing the debug constants, variables and the
-	 * ungrounded rule.
+	 * ungrounded rule. The rules are ordered by the number of their debug
+	 * constant.
 	 * 
 	 * @param debugRuleMap
 	 *            The map of the debug constants to the ungrounded rules.
@@ -26,8 +32,9 @@ public class OutputBuilder {
 	public String buildRuleTable(Map<String, Rule> debugRuleMap) {
 		StringBuilder ruleTable = new StringBuilder();
 
-		for (String debugConstant : debugRuleMap.keySet()) {
-			Rule rule = debugRuleMap.get(debugConstant);
+		for (Map.Entry<String, Rule> entry : getSortedEntries(debugRuleMap)) {
+			String debugConstant = entry.getKey();
+			Rule rule = entry.getValue();
 			ruleTable.append(DEBUG_RULE_MAP_TYPE);
 			ruleTable.append(' ');
 			ruleTable.append(debugConstant);
@@ -47,4 +54,26 @@ public class OutputBuilder {
 
 		return ruleTable.toString();
 	}
+	
+	/**
+	 * Returns the entries of the map ordered by the number of the debug
+	 * constants, i.e. by the length and then alphabetically.
+	 */
+	private Iterable<Map.Entry<String, Rule>> getSortedEntries(Map<String, Rule> debugRuleMap) {
+		if (debugRuleMap instanceof DebugRuleMap) {
+			// already in numeric order
+			return debugRuleMap.entrySet();
+		}
+		
+		List<Map.Entry<String, Rule>> entries = new ArrayList<Map.Entry<String, Rule>>(debugRuleMap.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, Rule>>() {
+			@Override
+			public int compare(Map.Entry<String, Rule> a, Map.Entry<String, Rule> b) {
+				int difference = Integer.compare(a.getKey().length(), b.getKey().length());
+				return difference != 0 ? difference : a.getKey().compareTo(b.getKey());
+			}
+		});
+		
+		return entries;
+	}
 }
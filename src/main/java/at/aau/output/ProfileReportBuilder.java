@@ -0,0 +1,149 @@
+package at.aau.output;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.aau.Rule;
+import at.aau.postprocessing.GroundingProfile;
+import at.aau.postprocessing.GroundingProfile.PredicateCount;
+
+/**
+ * Builds the report of a {@link GroundingProfile}, either as a table or as a
+ * JSON document.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class ProfileReportBuilder {
+	/**
+	 * Build the report as a table. The rules are sorted by their number of
+	 * ground instances, the predicates by their number of ground rules.
+	 * 
+	 * @param profile
+	 *            The profile of the grounded program.
+	 * @param debugRuleMap
+	 *            The map of the debug constants to the ungrounded rules.
+	 * @return The report.
+	 */
+	public String buildTable(GroundingProfile profile, Map<String, Rule> debugRuleMap) {
+		StringBuilder table = new StringBuilder();
+		Map<String, Integer> groundInstances = getGroundInstances(profile, debugRuleMap);
+		long totalInstances = getTotal(groundInstances);
+		
+		table.append(String.format("grounding profile: %d rules, %d atoms\n", profile.getRules(), profile.getAtoms()));
+		table.append(String.format("\n%10s %7s  %-12s %s\n", "instances", "share", "constant", "rule"));
+		
+		for (Map.Entry<String, Integer> entry : groundInstances.entrySet()) {
+			Rule rule = debugRuleMap.get(entry.getKey());
+			
+			table.append(String.format("%10d %6.1f%%  %-12s %s\n",
+					entry.getValue(),
+					getShare(entry.getValue(), totalInstances) * 100,
+					entry.getKey(),
+					null == rule ? "" : rule.getRule()));
+		}
+		
+		table.append(String.format("\n%10s %10s  %s\n", "rules", "atoms", "predicate"));
+		
+		for (PredicateCount predicate : profile.getPredicates()) {
+			table.append(String.format("%10d %10d  %s\n", predicate.getRules(), predicate.getAtoms(), predicate));
+		}
+		
+		return table.toString();
+	}
+	
+	/**
+	 * Build the report as a JSON document.
+	 * 
+	 * @param profile
+	 *            The profile of the grounded program.
+	 * @param debugRuleMap
+	 *            The map of the debug constants to the ungrounded rules.
+	 * @return The report.
+	 */
+	public String buildJson(GroundingProfile profile, Map<String, Rule> debugRuleMap) {
+		JsonWriter json = new JsonWriter();
+		Map<String, Integer> groundInstances = getGroundInstances(profile, debugRuleMap);
+		long totalInstances = getTotal(groundInstances);
+		
+		json.beginObject();
+		json.name("rules").value(profile.getRules());
+		json.name("atoms").value(profile.getAtoms());
+		json.name("debugConstants").beginArray();
+		
+		for (Map.Entry<String, Integer> entry : groundInstances.entrySet()) {
+			Rule rule = debugRuleMap.get(entry.getKey());
+			
+			json.beginObject();
+			json.name("constant").value(entry.getKey());
+			json.name("groundInstances").value(entry.getValue());
+			json.name("share").value(getShare(entry.getValue(), totalInstances));
+			json.name("rule").value(null == rule ? null : rule.getRule());
+			json.endObject();
+		}
+		
+		json.endArray();
+		json.name("predicates").beginArray();
+		
+		for (PredicateCount predicate : profile.getPredicates()) {
+			json.beginObject();
+			json.name("name").value(predicate.getName());
+			json.name("arity").value(predicate.getArity());
+			json.name("rules").value(predicate.getRules());
+			json.name("atoms").value(predicate.getAtoms());
+			json.endObject();
+		}
+		
+		json.endArray();
+		json.endObject();
+		
+		return json.toString();
+	}
+	
+	/**
+	 * Returns the ground instances of the profile followed by the debug
+	 * constants without any ground instance.
+	 */
+	private Map<String, Integer> getGroundInstances(GroundingProfile profile, Map<String, Rule> debugRuleMap) {
+		Map<String, Integer> groundInstances = new LinkedHashMap<String, Integer>(profile.getGroundInstances());
+		List<String> notGrounded = new ArrayList<String>();
+		
+		for (String debugConstant : debugRuleMap.keySet()) {
+			if (!groundInstances.containsKey(debugConstant)) {
+				notGrounded.add(debugConstant);
+			}
+		}
+		
+		// sort _debug2 before _debug10
+		Collections.sort(notGrounded, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				return a.length() != b.length() ? a.length() - b.length() : a.compareTo(b);
+			}
+		});
+		
+		for (String debugConstant : notGrounded) {
+			groundInstances.put(debugConstant, 0);
+		}
+		
+		return groundInstances;
+	}
+	
+	private long getTotal(Map<String, Integer> groundInstances) {
+		long total = 0;
+		
+		for (Integer instances : groundInstances.values()) {
+			total += instances;
+		}
+		
+		return total;
+	}
+	
+	private double getShare(int instances, long total) {
+		return 0 == total ? 0 : (double) instances / total;
+	}
+}
@@ -0,0 +1,106 @@
+package at.aau.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A solver process that gets the grounded program on its standard input. The
+ * output and the errors of the solver are passed through, i.e. they go to the
+ * standard output and error of the wrapper unless they are redirected.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class SolverProcess {
+	private final List<String> command = new ArrayList<String>();
+	
+	private Redirect output = Redirect.INHERIT;
+	
+	private Process process;
+	
+	private OutputStream input;
+	
+	/**
+	 * Creates a solver process of the given command.
+	 *
+	 * @param command
+	 *            The command of the solver followed by its options, separated
+	 *            by spaces.
+	 */
+	public SolverProcess(String command) {
+		for (String part : command.trim().split(" +")) {
+			if (!part.isEmpty()) {
+				this.command.add(part);
+			}
+		}
+		
+		if (this.command.isEmpty()) {
+			throw new IllegalArgumentException("The solver command must not be empty");
+		}
+	}
+	
+	/**
+	 * Sets where the output of the solver goes, the default is the standard
+	 * output of the wrapper. The errors always go to the standard error of the
+	 * wrapper.
+	 */
+	public void setOutput(Redirect output) {
+		this.output = output;
+	}
+	
+	/**
+	 * Starts the solver, so it is ready to read while the program is grounded.
+	 *
+	 * @return The buffered standard input of the solver.
+	 * @throws IOException
+	 *             If the solver could not be started.
+	 */
+	public OutputStream start() throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectOutput(output);
+		builder.redirectError(Redirect.INHERIT);
+		process = builder.start();
+		input = new BufferedOutputStream(process.getOutputStream(), 1 << 16);
+		
+		return input;
+	}
+	
+	/**
+	 * Closes the standard input of the solver and waits until it exits. A
+	 * failure to close the input is ignored, since it only means that the
+	 * solver exited before it read the whole program.
+	 *
+	 * @return The exit code of the solver.
+	 * @throws InterruptedIOException
+	 *             If the thread was interrupted while waiting.
+	 */
+	public int finish() throws InterruptedIOException {
+		try {
+			input.close();
+		} catch (IOException e) {
+			// the solver already exited, its exit code tells why
+		}
+		
+		try {
+			return process.waitFor();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			process.destroy();
+			throw new InterruptedIOException("Interrupted while waiting for the solver");
+		}
+	}
+	
+	/**
+	 * Stops the solver, e.g. when the grounding failed.
+	 */
+	public void stop() {
+		if (null != process) {
+			process.destroy();
+		}
+	}
+}
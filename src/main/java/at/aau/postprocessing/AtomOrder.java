@@ -0,0 +1,48 @@
+package at.aau.postprocessing;
+
+/**
+ * The canonical orders in which the {@link AtomRenumberer} numbers the atoms
+ * of a grounded program.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public enum AtomOrder {
+	/**
+	 * Atoms with a symbol table entry are numbered by their name, all other
+	 * atoms follow in the order of their first use.
+	 */
+	NAME("name"),
+	
+	/**
+	 * Atoms are numbered in the order of their first occurrence in the rules.
+	 */
+	FIRST_USE("first-use");
+	
+	private final String optionName;
+	
+	private AtomOrder(String optionName) {
+		this.optionName = optionName;
+	}
+	
+	/**
+	 * Returns the name of the order as used on the command line.
+	 */
+	public String getOptionName() {
+		return optionName;
+	}
+	
+	/**
+	 * Returns the order with the given command line name, or <code>null</code>
+	 * if there is no such order.
+	 */
+	public static AtomOrder forOptionName(String optionName) {
+		for (AtomOrder order : values()) {
+			if (order.optionName.equals(optionName)) {
+				return order;
+			}
+		}
+		
+		return null;
+	}
+}
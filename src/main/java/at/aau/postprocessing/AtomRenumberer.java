@@ -0,0 +1,430 @@
+package at.aau.postprocessing;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+import at.aau.io.ByteBuffers;
+import at.aau.util.IntList;
+
+/**
+ * Renumbers the atoms of a postprocessed program densely in a canonical order.
+ * <p>
+ * After the postprocessing the program keeps the atom numbers of the grounder,
+ * which have holes where the fact literal was removed and may differ between
+ * runs. The renumberer assigns the numbers 2, 3, ... to the used atoms in the
+ * given {@link AtomOrder} and rewrites the rules, including the debug choice
+ * rule and the fixed model constraint, the symbol table and the compute
+ * statement. The symbol table is written in the order of the new numbers.
+ * Atom 1 is the false atom and keeps its number.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class AtomRenumberer {
+	/** The atom that is always false */
+	private static final int FALSE_ATOM = 1;
+	
+	private final AtomOrder order;
+	
+	public AtomRenumberer(AtomOrder order) {
+		if (null == order) {
+			throw new IllegalArgumentException("The atom order must not be null");
+		}
+		
+		this.order = order;
+	}
+	
+	public String renumber(String program) throws PostprocessingException {
+		return ByteBuffers.toString(renumber(ByteBuffers.wrap(program), null));
+	}
+	
+	/**
+	 * Renumbers the atoms of the given program.
+	 *
+	 * @param program
+	 *            The postprocessed program, between the position and the limit
+	 *            of the buffer.
+	 * @param output
+	 *            The buffer to reuse for the output, or <code>null</code>.
+	 * @return The buffer containing the renumbered program between its position
+	 *         and limit. This is either the given output buffer or a new,
+	 *         larger buffer.
+	 * @throws PostprocessingException
+	 *             If the program is not in the smodels format.
+	 */
+	public ByteBuffer renumber(ByteBuffer program, ByteBuffer output) throws PostprocessingException {
+		return renumber(program, output, null);
+	}
+	
+	/**
+	 * Renumbers the atoms of the given program and of the given index of its
+	 * debug atoms.
+	 *
+	 * @param debugAtomIndex
+	 *            The index filled by the postprocessor, or <code>null</code>.
+	 * @see #renumber(ByteBuffer, ByteBuffer)
+	 */
+	public ByteBuffer renumber(ByteBuffer program, ByteBuffer output, DebugAtomIndex debugAtomIndex) throws PostprocessingException {
+		if (!program.hasArray()) {
+			program = ByteBuffer.allocate(program.remaining()).put(program.duplicate());
+			program.flip();
+		}
+		
+		final byte[] data = program.array();
+		final int start = program.arrayOffset() + program.position();
+		final int end = program.arrayOffset() + program.limit();
+		final int rulesEnd = Postprocessor.findEndOfRules(data, start, end);
+		
+		if (rulesEnd < 0) {
+			throw new PostprocessingException("The grounded program does not contain the end of the rules section");
+		}
+		
+		Atoms atoms = new Atoms();
+		LineCursor cursor = new LineCursor(data);
+		
+		// read the rules, the atoms are stored negated to tell them apart
+		// from the other numbers of a rule
+		IntList tokens = new IntList();
+		IntList ruleEnds = new IntList();
+		
+		for (int lineStart = start; lineStart < rulesEnd; lineStart = cursor.next) {
+			cursor.line(lineStart, rulesEnd);
+			
+			if (cursor.lineEnd > cursor.lineStart) {
+				readRule(cursor, tokens, atoms);
+				ruleEnds.add(tokens.size());
+			}
+		}
+		
+		// read the symbol table as (atom, name start, name end) triples
+		IntList symbols = new IntList();
+		cursor.line(rulesEnd, end);
+		
+		while (true) {
+			if (cursor.next >= end) {
+				throw new PostprocessingException("The symbol table is not terminated");
+			}
+			
+			cursor.line(cursor.next, end);
+			int atom = cursor.nextInt();
+			
+			if (atom == 0 && cursor.atEnd()) {
+				break;
+			}
+			
+			if (atom < 1 || cursor.atEnd()) {
+				throw new PostprocessingException("Malformed symbol table entry: " + cursor.text());
+			}
+			
+			atoms.use(atom);
+			symbols.add(atom);
+			symbols.add(cursor.pos);
+			symbols.add(cursor.lineEnd);
+		}
+		
+		IntList positive = readComputeStatement(cursor, end, "B+", atoms);
+		IntList negative = readComputeStatement(cursor, end, "B-", atoms);
+		int restStart = Math.min(cursor.next, end);
+		
+		int[] mapping = order == AtomOrder.NAME ? atoms.numberByName(data, symbols) : atoms.numberByFirstUse();
+		
+		if (null != debugAtomIndex) {
+			debugAtomIndex.renumber(mapping);
+		}
+		
+		// write the rules
+		output = ByteBuffers.reuse(output, end - start);
+		int token = 0;
+		
+		for (int i = 0; i < ruleEnds.size(); i ++) {
+			int ruleEnd = ruleEnds.get(i);
+			
+			for (; token < ruleEnd; token ++) {
+				int value = tokens.get(token);
+				output = ByteBuffers.putInt(output, value < 0 ? mapping[-value] : value);
+				output = ByteBuffers.ensureRemaining(output, 1);
+				output.put((byte) (token + 1 < ruleEnd ? ' ' : '\n'));
+			}
+		}
+		
+		output = ByteBuffers.putAscii(output, "0\n");
+		
+		// write the symbol table in the order of the new atom numbers
+		int[] symbolOf = new int[atoms.count + 2];
+		Arrays.fill(symbolOf, -1);
+		
+		for (int i = 0; i < symbols.size(); i += 3) {
+			symbolOf[mapping[symbols.get(i)]] = i;
+		}
+		
+		for (int atom = 0; atom < symbolOf.length; atom ++) {
+			int symbol = symbolOf[atom];
+			
+			if (symbol > -1) {
+				int nameStart = symbols.get(symbol + 1);
+				int nameEnd = symbols.get(symbol + 2);
+				
+				output = ByteBuffers.putInt(output, atom);
+				output = ByteBuffers.putAscii(output, " ");
+				output = ByteBuffers.put(output, data, nameStart, nameEnd - nameStart);
+				output = ByteBuffers.putAscii(output, "\n");
+			}
+		}
+		
+		output = ByteBuffers.putAscii(output, "0\n");
+		output = writeComputeStatement(output, "B+", positive, mapping);
+		output = writeComputeStatement(output, "B-", negative, mapping);
+		output = ByteBuffers.put(output, data, restStart, end - restStart);
+		
+		output.flip();
+		return output;
+	}
+	
+	/**
+	 * Reads a rule of the smodels format.
+	 */
+	static void readRule(LineCursor cursor, IntList tokens, Atoms atoms) throws PostprocessingException {
+		int type = readNumber(cursor, tokens);
+		int size;
+		
+		switch (type) {
+		case 1:
+			// 1 head size negSize lits
+			readAtom(cursor, tokens, atoms);
+			size = readNumber(cursor, tokens);
+			readNumber(cursor, tokens);
+			readAtoms(cursor, tokens, atoms, size);
+			break;
+		case 2:
+			// 2 head size negSize bound lits
+			readAtom(cursor, tokens, atoms);
+			size = readNumber(cursor, tokens);
+			readNumber(cursor, tokens);
+			readNumber(cursor, tokens);
+			readAtoms(cursor, tokens, atoms, size);
+			break;
+		case 3:
+		case 8:
+			// 3 headSize heads size negSize lits
+			// 8 headSize heads size negSize lits
+			readAtoms(cursor, tokens, atoms, readNumber(cursor, tokens));
+			size = readNumber(cursor, tokens);
+			readNumber(cursor, tokens);
+			readAtoms(cursor, tokens, atoms, size);
+			break;
+		case 5:
+			// 5 head bound size negSize lits weights
+			readAtom(cursor, tokens, atoms);
+			readNumber(cursor, tokens);
+			size = readNumber(cursor, tokens);
+			readNumber(cursor, tokens);
+			readAtoms(cursor, tokens, atoms, size);
+			readNumbers(cursor, tokens, size);
+			break;
+		case 6:
+			// 6 0 size negSize lits weights
+			readNumber(cursor, tokens);
+			size = readNumber(cursor, tokens);
+			readNumber(cursor, tokens);
+			readAtoms(cursor, tokens, atoms, size);
+			readNumbers(cursor, tokens, size);
+			break;
+		default:
+			throw new PostprocessingException("Unsupported rule type: " + cursor.text());
+		}
+		
+		if (!cursor.atEnd()) {
+			throw new PostprocessingException("Malformed rule: " + cursor.text());
+		}
+	}
+	
+	private static int readNumber(LineCursor cursor, IntList tokens) throws PostprocessingException {
+		int value = cursor.nextInt();
+		
+		if (value < 0) {
+			throw new PostprocessingException("Malformed rule: " + cursor.text());
+		}
+		
+		tokens.add(value);
+		return value;
+	}
+	
+	private static void readNumbers(LineCursor cursor, IntList tokens, int count) throws PostprocessingException {
+		for (int i = 0; i < count; i ++) {
+			readNumber(cursor, tokens);
+		}
+	}
+	
+	private static void readAtom(LineCursor cursor, IntList tokens, Atoms atoms) throws PostprocessingException {
+		int atom = cursor.nextInt();
+		
+		if (atom < 1) {
+			throw new PostprocessingException("Malformed rule: " + cursor.text());
+		}
+		
+		atoms.use(atom);
+		tokens.add(-atom);
+	}
+	
+	private static void readAtoms(LineCursor cursor, IntList tokens, Atoms atoms, int count) throws PostprocessingException {
+		for (int i = 0; i < count; i ++) {
+			readAtom(cursor, tokens, atoms);
+		}
+	}
+	
+	/**
+	 * Reads the atoms of the compute statement that starts at the next line of
+	 * the cursor with the given header, up to the terminating <code>0</code>.
+	 */
+	static IntList readComputeStatement(LineCursor cursor, int end, String header, Atoms atoms) throws PostprocessingException {
+		if (cursor.next >= end) {
+			throw new PostprocessingException("The compute statement " + header + " is missing");
+		}
+		
+		cursor.line(cursor.next, end);
+		
+		if (!header.equals(cursor.text())) {
+			throw new PostprocessingException("Expected the compute statement " + header + " but found: " + cursor.text());
+		}
+		
+		IntList computed = new IntList();
+		
+		while (true) {
+			if (cursor.next >= end) {
+				throw new PostprocessingException("The compute statement " + header + " is not terminated");
+			}
+			
+			cursor.line(cursor.next, end);
+			int atom = cursor.nextInt();
+			
+			if (atom < 0 || !cursor.atEnd()) {
+				throw new PostprocessingException("Malformed compute statement entry: " + cursor.text());
+			}
+			
+			if (atom == 0) {
+				return computed;
+			}
+			
+			atoms.use(atom);
+			computed.add(atom);
+		}
+	}
+	
+	private static ByteBuffer writeComputeStatement(ByteBuffer output, String header, IntList computed, int[] mapping) {
+		int[] renumbered = new int[computed.size()];
+		
+		for (int i = 0; i < renumbered.length; i ++) {
+			renumbered[i] = mapping[computed.get(i)];
+		}
+		
+		Arrays.sort(renumbered);
+		output = ByteBuffers.putAscii(output, header);
+		output = ByteBuffers.putAscii(output, "\n");
+		
+		for (int atom : renumbered) {
+			output = ByteBuffers.putInt(output, atom);
+			output = ByteBuffers.putAscii(output, "\n");
+		}
+		
+		return ByteBuffers.putAscii(output, "0\n");
+	}
+	
+	/**
+	 * Collects the atoms of a program in the order of their first use.
+	 */
+	static class Atoms {
+		private final BitSet used = new BitSet();
+		
+		private final IntList firstUse = new IntList();
+		
+		/** The number of used atoms, excluding the false atom */
+		private int count;
+		
+		public void use(int atom) {
+			if (atom != FALSE_ATOM && !used.get(atom)) {
+				used.set(atom);
+				firstUse.add(atom);
+				count ++;
+			}
+		}
+		
+		/**
+		 * Returns the used atoms in the order of their first use, excluding
+		 * the false atom.
+		 */
+		IntList getUsed() {
+			return firstUse;
+		}
+		
+		private int[] newMapping() {
+			int[] mapping = new int[Math.max(FALSE_ATOM, used.length() - 1) + 1];
+			mapping[FALSE_ATOM] = FALSE_ATOM;
+			
+			return mapping;
+		}
+		
+		public int[] numberByFirstUse() {
+			int[] mapping = newMapping();
+			int next = FALSE_ATOM + 1;
+			
+			for (int i = 0; i < firstUse.size(); i ++) {
+				mapping[firstUse.get(i)] = next ++;
+			}
+			
+			return mapping;
+		}
+		
+		public int[] numberByName(final byte[] data, final IntList symbols) {
+			Integer[] sorted = new Integer[symbols.size() / 3];
+			
+			for (int i = 0; i < sorted.length; i ++) {
+				sorted[i] = i * 3;
+			}
+			
+			Arrays.sort(sorted, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return compareNames(data, symbols.get(a + 1), symbols.get(a + 2), symbols.get(b + 1), symbols.get(b + 2));
+				}
+			});
+			
+			int[] mapping = newMapping();
+			int next = FALSE_ATOM + 1;
+			
+			for (Integer symbol : sorted) {
+				int atom = symbols.get(symbol);
+				
+				if (mapping[atom] == 0) {
+					mapping[atom] = next ++;
+				}
+			}
+			
+			// atoms without a name follow in the order of their first use
+			for (int i = 0; i < firstUse.size(); i ++) {
+				int atom = firstUse.get(i);
+				
+				if (mapping[atom] == 0) {
+					mapping[atom] = next ++;
+				}
+			}
+			
+			return mapping;
+		}
+		
+		private static int compareNames(byte[] data, int start1, int end1, int start2, int end2) {
+			int length = Math.min(end1 - start1, end2 - start2);
+			
+			for (int i = 0; i < length; i ++) {
+				int difference = (data[start1 + i] & 0xff) - (data[start2 + i] & 0xff);
+				
+				if (difference != 0) {
+					return difference;
+				}
+			}
+			
+			return (end1 - start1) - (end2 - start2);
+		}
+	}
+}
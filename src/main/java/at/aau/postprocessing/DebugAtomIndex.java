@@ -0,0 +1,330 @@
+package at.aau.postprocessing;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import at.aau.Rule;
+import at.aau.util.IntList;
+
+/**
+ * Maps the atoms of a grounded program to the non-ground rules and the
+ * substitutions they stand for. The index is filled by the
+ * {@link Postprocessor} while it processes the symbol table, so consumers of
+ * the output do not have to parse the names of the debug atoms.
+ * <p>
+ * The index consists of primitive arrays only. For each debug atom it stores
+ * the number of its debug constant and the position of its arguments in a
+ * shared character buffer, e.g. <code>1,f(a,b)</code> for
+ * <code>_debug3(1,f(a,b))</code>. Looking up an atom takes constant time and
+ * the arguments are only split into a substitution when asked for.
+ * <p>
+ * The index can be written to a file next to the grounded program and read
+ * back with {@link #read(InputStream)}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DebugAtomIndex {
+	/** The first bytes of a serialized index, "GWDI" */
+	private static final int MAGIC = 0x47574449;
+	
+	private static final int VERSION = 1;
+	
+	private String debugAtomPrefix = "";
+	
+	/** The atoms of the entries, in the order of the symbol table */
+	private int[] atoms = new int[0];
+	
+	/** The number of the debug constant of each entry, -1 if it is too large */
+	private int[] rules = new int[0];
+	
+	/** The start of the arguments of each entry, followed by the end of the last one */
+	private int[] argumentStarts = new int[1];
+	
+	/** The concatenated arguments of all entries */
+	private char[] arguments = new char[0];
+	
+	/** The entry of each atom + 1, 0 if the atom is not a debug atom */
+	private int[] entryOfAtom = new int[0];
+	
+	/**
+	 * Returns the prefix of the debug constants of the grounded program.
+	 */
+	public String getDebugAtomPrefix() {
+		return debugAtomPrefix;
+	}
+	
+	/**
+	 * Returns the number of debug atoms.
+	 */
+	public int size() {
+		return atoms.length;
+	}
+	
+	/**
+	 * Returns the atom of the entry with the given index, the entries are in
+	 * the order of the symbol table.
+	 */
+	public int getAtom(int entry) {
+		return atoms[entry];
+	}
+	
+	public boolean isDebugAtom(int atom) {
+		return getEntry(atom) >= 0;
+	}
+	
+	/**
+	 * Returns the number of the debug constant of the given atom, e.g. 3 for
+	 * <code>_debug3(1,f(a,b))</code>.
+	 *
+	 * @return The number, or -1 if the atom is not a debug atom.
+	 */
+	public int getRuleIndex(int atom) {
+		int entry = getEntry(atom);
+		return entry < 0 ? -1 : rules[entry];
+	}
+	
+	/**
+	 * Returns the debug constant of the given atom, e.g. <code>_debug3</code>
+	 * for <code>_debug3(1,f(a,b))</code>. This is the key of the rule in the
+	 * debug rule map.
+	 *
+	 * @return The debug constant, or <code>null</code> if the atom is not a
+	 *         debug atom.
+	 */
+	public String getDebugConstant(int atom) {
+		int rule = getRuleIndex(atom);
+		return rule < 0 ? null : debugAtomPrefix + rule;
+	}
+	
+	/**
+	 * Returns the non-ground rule of the given atom.
+	 *
+	 * @return The rule, or <code>null</code> if the atom is not a debug atom or
+	 *         the rule is not contained in the map.
+	 */
+	public Rule getRule(int atom, Map<String, Rule> debugRuleMap) {
+		String debugConstant = getDebugConstant(atom);
+		return null == debugConstant ? null : debugRuleMap.get(debugConstant);
+	}
+	
+	/**
+	 * Returns the arguments of the given atom as a view of the shared buffer,
+	 * e.g. <code>1,f(a,b)</code> for <code>_debug3(1,f(a,b))</code>.
+	 *
+	 * @return The arguments, or <code>null</code> if the atom is not a debug
+	 *         atom.
+	 */
+	public CharSequence getArguments(int atom) {
+		int entry = getEntry(atom);
+		
+		if (entry < 0) {
+			return null;
+		}
+		
+		int start = argumentStarts[entry];
+		return CharBuffer.wrap(arguments, start, argumentStarts[entry + 1] - start);
+	}
+	
+	/**
+	 * Returns the substitution of the variables of the given rule that the
+	 * atom stands for.
+	 *
+	 * @return The substitution, or <code>null</code> if the atom is not a
+	 *         debug atom.
+	 */
+	public Map<String, String> getSubstitution(int atom, Rule rule) {
+		CharSequence arguments = getArguments(atom);
+		return null == arguments ? null : rule.getSubstitution(arguments.toString());
+	}
+	
+	/**
+	 * Returns the ground instance of the given rule that the atom stands for.
+	 *
+	 * @return The ground rule, or <code>null</code> if the atom is not a debug
+	 *         atom.
+	 */
+	public String getGroundedRule(int atom, Rule rule) {
+		CharSequence arguments = getArguments(atom);
+		
+		if (null == arguments) {
+			return null;
+		}
+		
+		StringBuilder grounded = new StringBuilder(rule.getRule().length() + arguments.length());
+		rule.appendGroundedRule(arguments, grounded);
+		return grounded.toString();
+	}
+	
+	/**
+	 * Writes the index in a binary format that can be read with
+	 * {@link #read(InputStream)}. The stream is not closed.
+	 */
+	public void write(OutputStream output) throws IOException {
+		DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeUTF(debugAtomPrefix);
+		data.writeInt(atoms.length);
+		
+		for (int i = 0; i < atoms.length; i ++) {
+			data.writeInt(atoms[i]);
+			data.writeInt(rules[i]);
+			data.writeInt(argumentStarts[i + 1]);
+		}
+		
+		byte[] encoded = new String(arguments).getBytes(StandardCharsets.UTF_8);
+		data.writeInt(encoded.length);
+		data.write(encoded);
+		data.flush();
+	}
+	
+	/**
+	 * Reads an index written by {@link #write(OutputStream)}. The stream is
+	 * not closed.
+	 *
+	 * @throws IOException
+	 *             If the stream could not be read or does not contain an index.
+	 */
+	public static DebugAtomIndex read(InputStream input) throws IOException {
+		DataInputStream data = new DataInputStream(input);
+		
+		if (data.readInt() != MAGIC) {
+			throw new IOException("The stream does not contain a debug atom index");
+		}
+		
+		int version = data.readInt();
+		
+		if (version != VERSION) {
+			throw new IOException("Unsupported version of the debug atom index: " + version);
+		}
+		
+		DebugAtomIndex index = new DebugAtomIndex();
+		index.debugAtomPrefix = data.readUTF();
+		int size = data.readInt();
+		
+		if (size < 0) {
+			throw new IOException("Malformed debug atom index");
+		}
+		
+		index.atoms = new int[size];
+		index.rules = new int[size];
+		index.argumentStarts = new int[size + 1];
+		
+		for (int i = 0; i < size; i ++) {
+			index.atoms[i] = data.readInt();
+			index.rules[i] = data.readInt();
+			index.argumentStarts[i + 1] = data.readInt();
+		}
+		
+		byte[] encoded = new byte[data.readInt()];
+		data.readFully(encoded);
+		index.arguments = new String(encoded, StandardCharsets.UTF_8).toCharArray();
+		
+		for (int i = 0; i < size; i ++) {
+			if (index.atoms[i] < 1 || index.argumentStarts[i + 1] < index.argumentStarts[i]
+					|| index.argumentStarts[i + 1] > index.arguments.length) {
+				throw new IOException("Malformed debug atom index");
+			}
+		}
+		
+		index.indexAtoms();
+		return index;
+	}
+	
+	/**
+	 * Replaces the contents of the index with the given debug atoms.
+	 *
+	 * @param debugAtoms
+	 *            The atoms, in the order of the symbol table.
+	 * @param debugAtomRanges
+	 *            The number of the debug constant and the start and end of the
+	 *            arguments in the data of each atom.
+	 */
+	void fill(String debugAtomPrefix, byte[] data, IntList debugAtoms, IntList debugAtomRanges) {
+		int size = debugAtoms.size();
+		int length = 0;
+		
+		for (int i = 0; i < size; i ++) {
+			length += debugAtomRanges.get(3 * i + 2) - debugAtomRanges.get(3 * i + 1);
+		}
+		
+		this.debugAtomPrefix = debugAtomPrefix;
+		atoms = debugAtoms.toArray();
+		rules = new int[size];
+		argumentStarts = new int[size + 1];
+		arguments = new char[length];
+		int pos = 0;
+		
+		for (int i = 0; i < size; i ++) {
+			rules[i] = debugAtomRanges.get(3 * i);
+			pos = decode(data, debugAtomRanges.get(3 * i + 1), debugAtomRanges.get(3 * i + 2), pos);
+			argumentStarts[i + 1] = pos;
+		}
+		
+		if (pos < arguments.length) {
+			arguments = Arrays.copyOf(arguments, pos);
+		}
+		
+		indexAtoms();
+	}
+	
+	/**
+	 * Replaces the atoms with their new numbers.
+	 *
+	 * @param mapping
+	 *            The new number of each atom.
+	 */
+	void renumber(int[] mapping) {
+		for (int i = 0; i < atoms.length; i ++) {
+			atoms[i] = mapping[atoms[i]];
+		}
+		
+		indexAtoms();
+	}
+	
+	/**
+	 * Copies the given bytes to the arguments, starting at the given position.
+	 *
+	 * @return The position after the copied characters.
+	 */
+	private int decode(byte[] data, int start, int end, int pos) {
+		for (int i = start; i < end; i ++) {
+			if (data[i] < 0) {
+				// not ASCII, at most as many characters as bytes
+				String decoded = new String(data, i, end - i, StandardCharsets.UTF_8);
+				decoded.getChars(0, decoded.length(), arguments, pos);
+				return pos + decoded.length();
+			}
+			
+			arguments[pos ++] = (char) data[i];
+		}
+		
+		return pos;
+	}
+	
+	private void indexAtoms() {
+		int maxAtom = 0;
+		
+		for (int atom : atoms) {
+			maxAtom = Math.max(maxAtom, atom);
+		}
+		
+		entryOfAtom = new int[atoms.length == 0 ? 0 : maxAtom + 1];
+		
+		for (int i = 0; i < atoms.length; i ++) {
+			entryOfAtom[atoms[i]] = i + 1;
+		}
+	}
+	
+	private int getEntry(int atom) {
+		return atom >= 0 && atom < entryOfAtom.length ? entryOfAtom[atom] - 1 : -1;
+	}
+}
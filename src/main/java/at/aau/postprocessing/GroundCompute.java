@@ -0,0 +1,57 @@
+package at.aau.postprocessing;
+
+import java.util.Arrays;
+
+/**
+ * The compute statement at the end of a postprocessed program, i.e. the atoms
+ * that must be true, the atoms that must be false and the number of models.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundCompute implements GroundEvent {
+	private final int[] computeTrue;
+	
+	private final int[] computeFalse;
+	
+	private final int models;
+	
+	public GroundCompute(int[] computeTrue, int[] computeFalse, int models) {
+		this.computeTrue = computeTrue;
+		this.computeFalse = computeFalse;
+		this.models = models;
+	}
+	
+	public int[] getComputeTrue() {
+		return Arrays.copyOf(computeTrue, computeTrue.length);
+	}
+	
+	public int[] getComputeFalse() {
+		return Arrays.copyOf(computeFalse, computeFalse.length);
+	}
+	
+	public int getModels() {
+		return models;
+	}
+	
+	/**
+	 * Returns the statement in the smodels format, i.e. the section after the
+	 * symbol table.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder("B+\n");
+		
+		for (int atom : computeTrue) {
+			text.append(atom).append('\n');
+		}
+		
+		text.append("0\nB-\n");
+		
+		for (int atom : computeFalse) {
+			text.append(atom).append('\n');
+		}
+		
+		return text.append("0\n").append(models).append('\n').toString();
+	}
+}
@@ -0,0 +1,12 @@
+package at.aau.postprocessing;
+
+/**
+ * A part of a postprocessed program that is passed on by the
+ * {@link StreamingPostprocessor}, i.e. a {@link GroundSymbol}, a
+ * {@link GroundRule} or the {@link GroundCompute} statement.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public interface GroundEvent {
+}
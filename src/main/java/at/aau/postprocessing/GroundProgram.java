@@ -0,0 +1,588 @@
+package at.aau.postprocessing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import at.aau.io.ByteBuffers;
+import at.aau.util.IntList;
+
+/**
+ * A grounded program in the smodels format, stored in flat arrays instead of
+ * text.
+ * <p>
+ * The numbers of all rules, without their types, are stored in a single array
+ * of literals. A rule is given by its type, the offset of its first number
+ * and the offset of its body, i.e. of the number of body literals. The names
+ * of the symbol table are stored in a single char array with the offset of
+ * the end of each name. The debug choice rule and the fixed model constraint
+ * that the {@link Postprocessor} adds are stored apart from the rules of the
+ * grounder.
+ * <p>
+ * The program is filled by the postprocessor, see
+ * {@link Postprocessor#buildGroundProgram(ByteBuffer, String, String, java.util.List, GroundingProfile, DebugAtomIndex)},
+ * or read from the text of a grounded program, and can be written in the
+ * smodels format again.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundProgram {
+	public static final int BASIC_RULE = 1;
+	public static final int CONSTRAINT_RULE = 2;
+	public static final int CHOICE_RULE = 3;
+	public static final int WEIGHT_RULE = 5;
+	public static final int MINIMIZE_RULE = 6;
+	public static final int DISJUNCTIVE_RULE = 8;
+	
+	/** The atom that is always false, i.e. the head of integrity constraints */
+	private static final int FALSE_ATOM = 1;
+	
+	private static final int[] EMPTY = new int[0];
+	
+	/** The type of each rule */
+	private final IntList ruleTypes = new IntList(1024);
+	
+	/** The offset of the first number of each rule in the literals */
+	private final IntList ruleStarts = new IntList(1024);
+	
+	/** The offset of the body of each rule in the literals */
+	private final IntList bodyStarts = new IntList(1024);
+	
+	/** The numbers of all rules, without their types */
+	private final IntList literals = new IntList(4096);
+	
+	private final IntList symbolAtoms = new IntList(1024);
+	
+	/** The offset of the end of each name in the names */
+	private final IntList nameEnds = new IntList(1024);
+	
+	private char[] names = new char[4096];
+	
+	private int namesLength;
+	
+	private int[] debugAtoms = EMPTY;
+	
+	/** The atoms in the fixed model, or <code>null</code> if there is no fixed model constraint */
+	private int[] fixedModelAtoms;
+	
+	/** The atoms not in the fixed model, or <code>null</code> if there is no fixed model constraint */
+	private int[] nonFixedModelAtoms;
+	
+	private final IntList computeTrue = new IntList();
+	
+	private final IntList computeFalse = new IntList();
+	
+	private int models = 1;
+	
+	/**
+	 * Reads a grounded program in the smodels format. All rules are read as
+	 * rules of the grounder, i.e. the program has no debug choice rule and no
+	 * fixed model constraint.
+	 *
+	 * @param groundedProgram
+	 *            The grounded program, between the position and the limit of
+	 *            the buffer.
+	 * @throws PostprocessingException
+	 *             If the program is not in the smodels format.
+	 */
+	public static GroundProgram read(ByteBuffer groundedProgram) throws PostprocessingException {
+		if (!groundedProgram.hasArray()) {
+			groundedProgram = ByteBuffer.allocate(groundedProgram.remaining()).put(groundedProgram.duplicate());
+			groundedProgram.flip();
+		}
+		
+		byte[] data = groundedProgram.array();
+		int start = groundedProgram.arrayOffset() + groundedProgram.position();
+		int end = groundedProgram.arrayOffset() + groundedProgram.limit();
+		GroundProgram program = new GroundProgram();
+		LineReader reader = program.new LineReader(data);
+		LineCursor cursor = new LineCursor(data);
+		
+		for (int lineStart = start; lineStart < end; lineStart = cursor.next) {
+			cursor.line(lineStart, end);
+			reader.line(cursor.lineStart, cursor.lineEnd, false);
+		}
+		
+		reader.finish();
+		return program;
+	}
+	
+	public int getRuleCount() {
+		return ruleTypes.size();
+	}
+	
+	/**
+	 * Returns the type of the given rule, e.g. {@link #BASIC_RULE}.
+	 */
+	public int getRuleType(int rule) {
+		return ruleTypes.get(rule);
+	}
+	
+	/**
+	 * Returns the head atoms of the given rule. The head of an integrity
+	 * constraint is the false atom 1, a minimize rule has no head.
+	 */
+	public int[] getHead(int rule) {
+		int start = ruleStarts.get(rule);
+		
+		switch (ruleTypes.get(rule)) {
+		case BASIC_RULE:
+		case CONSTRAINT_RULE:
+		case WEIGHT_RULE:
+			return new int[] { literals.get(start) };
+		case CHOICE_RULE:
+		case DISJUNCTIVE_RULE:
+			return slice(start + 1, bodyStarts.get(rule));
+		default:
+			return EMPTY;
+		}
+	}
+	
+	/**
+	 * Returns the negative body literals of the given rule.
+	 */
+	public int[] getNegativeBody(int rule) {
+		int literalsStart = getBodyLiteralsStart(rule);
+		
+		return literalsStart < 0 ? EMPTY : slice(literalsStart, literalsStart + literals.get(bodyStarts.get(rule) + 1));
+	}
+	
+	/**
+	 * Returns the positive body literals of the given rule.
+	 */
+	public int[] getPositiveBody(int rule) {
+		int literalsStart = getBodyLiteralsStart(rule);
+		
+		if (literalsStart < 0) {
+			return EMPTY;
+		}
+		
+		int bodyStart = bodyStarts.get(rule);
+		return slice(literalsStart + literals.get(bodyStart + 1), literalsStart + literals.get(bodyStart));
+	}
+	
+	/**
+	 * Returns the lower bound of a constraint or weight rule, or -1 for other
+	 * rules.
+	 */
+	public int getBound(int rule) {
+		switch (ruleTypes.get(rule)) {
+		case CONSTRAINT_RULE:
+			return literals.get(bodyStarts.get(rule) + 2);
+		case WEIGHT_RULE:
+			return literals.get(ruleStarts.get(rule) + 1);
+		default:
+			return -1;
+		}
+	}
+	
+	/**
+	 * Returns the weights of the body literals of a weight or minimize rule,
+	 * negative literals first, or an empty array for other rules.
+	 */
+	public int[] getWeights(int rule) {
+		int type = ruleTypes.get(rule);
+		
+		if (type != WEIGHT_RULE && type != MINIMIZE_RULE) {
+			return EMPTY;
+		}
+		
+		int literalsStart = getBodyLiteralsStart(rule);
+		int size = literals.get(bodyStarts.get(rule));
+		return slice(literalsStart + size, literalsStart + 2 * size);
+	}
+	
+	public int getSymbolCount() {
+		return symbolAtoms.size();
+	}
+	
+	public int getSymbolAtom(int symbol) {
+		return symbolAtoms.get(symbol);
+	}
+	
+	public String getSymbolName(int symbol) {
+		int start = symbol == 0 ? 0 : nameEnds.get(symbol - 1);
+		return new String(names, start, nameEnds.get(symbol) - start);
+	}
+	
+	/**
+	 * Returns the atoms of the debug choice rule, or an empty array if the
+	 * program has no debug atoms.
+	 */
+	public int[] getDebugAtoms() {
+		return debugAtoms.clone();
+	}
+	
+	public boolean hasFixedModelConstraint() {
+		return null != fixedModelAtoms;
+	}
+	
+	/**
+	 * Returns the atoms of the fixed model, which occur negated in the fixed
+	 * model constraint.
+	 */
+	public int[] getFixedModelAtoms() {
+		return null == fixedModelAtoms ? EMPTY : fixedModelAtoms.clone();
+	}
+	
+	/**
+	 * Returns the atoms that are not in the fixed model, which occur positive
+	 * in the fixed model constraint.
+	 */
+	public int[] getNonFixedModelAtoms() {
+		return null == nonFixedModelAtoms ? EMPTY : nonFixedModelAtoms.clone();
+	}
+	
+	/**
+	 * Returns the atoms of the compute statement that must be true.
+	 */
+	public int[] getComputeTrue() {
+		return computeTrue.toArray();
+	}
+	
+	/**
+	 * Returns the atoms of the compute statement that must be false.
+	 */
+	public int[] getComputeFalse() {
+		return computeFalse.toArray();
+	}
+	
+	/**
+	 * Returns the number of models to compute, 0 for all models.
+	 */
+	public int getModels() {
+		return models;
+	}
+	
+	/**
+	 * Returns the approximate number of bytes of the arrays of the program.
+	 */
+	public long getMemorySize() {
+		long ints = 3L * ruleTypes.size() + literals.size() + 2L * symbolAtoms.size() + debugAtoms.length
+				+ computeTrue.size() + computeFalse.size()
+				+ (null == fixedModelAtoms ? 0 : fixedModelAtoms.length + nonFixedModelAtoms.length);
+		
+		return 4 * ints + 2L * namesLength;
+	}
+	
+	/**
+	 * Writes the program in the smodels format.
+	 *
+	 * @param output
+	 *            The buffer to reuse for the output, or <code>null</code>.
+	 * @return The buffer containing the program between its position and
+	 *         limit. This is either the given output buffer or a new, larger
+	 *         buffer.
+	 */
+	public ByteBuffer write(ByteBuffer output) {
+		output = ByteBuffers.reuse(output, (int) Math.min(Integer.MAX_VALUE - 16, 4 * literals.size() + 2L * namesLength + 64));
+		
+		for (int rule = 0; rule < ruleTypes.size(); rule ++) {
+			int end = rule + 1 < ruleTypes.size() ? ruleStarts.get(rule + 1) : literals.size();
+			output = ByteBuffers.putInt(output, ruleTypes.get(rule));
+			
+			for (int i = ruleStarts.get(rule); i < end; i ++) {
+				output = ByteBuffers.putAscii(output, " ");
+				output = ByteBuffers.putInt(output, literals.get(i));
+			}
+			
+			output = ByteBuffers.putAscii(output, "\n");
+		}
+		
+		if (debugAtoms.length > 0) {
+			output = ByteBuffers.putAscii(output, "3 ");
+			output = ByteBuffers.putInt(output, debugAtoms.length);
+			output = putAtoms(output, debugAtoms);
+			output = ByteBuffers.putAscii(output, " 0 0\n");
+		}
+		
+		if (null != fixedModelAtoms) {
+			output = ByteBuffers.putAscii(output, "1 1 ");
+			output = ByteBuffers.putInt(output, fixedModelAtoms.length + nonFixedModelAtoms.length);
+			output = ByteBuffers.putAscii(output, " ");
+			output = ByteBuffers.putInt(output, fixedModelAtoms.length);
+			output = putAtoms(output, fixedModelAtoms);
+			output = putAtoms(output, nonFixedModelAtoms);
+			output = ByteBuffers.putAscii(output, "\n");
+		}
+		
+		output = ByteBuffers.putAscii(output, "0\n");
+		
+		for (int symbol = 0; symbol < symbolAtoms.size(); symbol ++) {
+			output = ByteBuffers.putInt(output, symbolAtoms.get(symbol));
+			output = ByteBuffers.putAscii(output, " ");
+			byte[] name = getSymbolName(symbol).getBytes(StandardCharsets.UTF_8);
+			output = ByteBuffers.put(output, name, 0, name.length);
+			output = ByteBuffers.putAscii(output, "\n");
+		}
+		
+		output = ByteBuffers.putAscii(output, "0\nB+\n");
+		output = putLines(output, computeTrue);
+		output = ByteBuffers.putAscii(output, "0\nB-\n");
+		output = putLines(output, computeFalse);
+		output = ByteBuffers.putAscii(output, "0\n");
+		output = ByteBuffers.putInt(output, models);
+		output = ByteBuffers.putAscii(output, "\n");
+		
+		output.flip();
+		return output;
+	}
+	
+	/**
+	 * Returns the program in the smodels format.
+	 */
+	@Override
+	public String toString() {
+		return ByteBuffers.toString(write(null));
+	}
+	
+	void setDebugAtoms(IntList debugAtoms) {
+		this.debugAtoms = debugAtoms.toArray();
+	}
+	
+	void setFixedModelConstraint(int[] fixedModelAtoms, int[] nonFixedModelAtoms) {
+		this.fixedModelAtoms = fixedModelAtoms;
+		this.nonFixedModelAtoms = nonFixedModelAtoms;
+	}
+	
+	/**
+	 * Returns the offset of the first body literal of the given rule, or -1
+	 * if the rule has no body.
+	 */
+	private int getBodyLiteralsStart(int rule) {
+		switch (ruleTypes.get(rule)) {
+		case CONSTRAINT_RULE:
+			// n neg bound
+			return bodyStarts.get(rule) + 3;
+		case BASIC_RULE:
+		case CHOICE_RULE:
+		case WEIGHT_RULE:
+		case MINIMIZE_RULE:
+		case DISJUNCTIVE_RULE:
+			// n neg
+			return bodyStarts.get(rule) + 2;
+		default:
+			return -1;
+		}
+	}
+	
+	private int[] slice(int start, int end) {
+		int[] values = new int[Math.max(0, end - start)];
+		
+		for (int i = 0; i < values.length; i ++) {
+			values[i] = literals.get(start + i);
+		}
+		
+		return values;
+	}
+	
+	private static ByteBuffer putAtoms(ByteBuffer output, int[] atoms) {
+		for (int atom : atoms) {
+			output = ByteBuffers.putAscii(output, " ");
+			output = ByteBuffers.putInt(output, atom);
+		}
+		
+		return output;
+	}
+	
+	private static ByteBuffer putLines(ByteBuffer output, IntList atoms) {
+		for (int i = 0; i < atoms.size(); i ++) {
+			output = ByteBuffers.putInt(output, atoms.get(i));
+			output = ByteBuffers.putAscii(output, "\n");
+		}
+		
+		return output;
+	}
+	
+	/**
+	 * Reads the lines of a grounded program into this program, section by
+	 * section. Empty lines are skipped.
+	 */
+	class LineReader {
+		private static final int RULES = 0;
+		private static final int SYMBOLS = 1;
+		private static final int COMPUTE_TRUE_HEADER = 2;
+		private static final int COMPUTE_TRUE = 3;
+		private static final int COMPUTE_FALSE_HEADER = 4;
+		private static final int COMPUTE_FALSE = 5;
+		private static final int MODELS = 6;
+		private static final int END = 7;
+		
+		private final byte[] data;
+		private final LineCursor cursor;
+		private int section = RULES;
+		
+		public LineReader(byte[] data) {
+			this.data = data;
+			this.cursor = new LineCursor(data);
+		}
+		
+		/**
+		 * Reads the line between the given indices, without the line
+		 * terminator.
+		 *
+		 * @param factBody
+		 *            Whether the line is the head of a fact, i.e. the empty
+		 *            body <code>0 0</code> follows.
+		 */
+		public void line(int start, int end, boolean factBody) throws PostprocessingException {
+			cursor.line(start, end);
+			
+			if (cursor.lineEnd == start) {
+				return;
+			}
+			
+			if (section == RULES) {
+				int type = cursor.nextInt();
+				
+				if (type == 0 && cursor.atEnd()) {
+					section = SYMBOLS;
+				} else {
+					readRule(type, factBody);
+				}
+			} else if (section == SYMBOLS) {
+				readSymbol();
+			} else if (section == COMPUTE_TRUE_HEADER) {
+				expectHeader("B+", COMPUTE_TRUE);
+			} else if (section == COMPUTE_FALSE_HEADER) {
+				expectHeader("B-", COMPUTE_FALSE);
+			} else if (section == COMPUTE_TRUE || section == COMPUTE_FALSE) {
+				int atom = readNumber();
+				
+				if (atom != 0) {
+					(section == COMPUTE_TRUE ? computeTrue : computeFalse).add(atom);
+				} else {
+					section = section == COMPUTE_TRUE ? COMPUTE_FALSE_HEADER : MODELS;
+				}
+			} else if (section == MODELS) {
+				models = readNumber();
+				section = END;
+			} else {
+				throw new PostprocessingException("Unexpected line after the number of models: " + cursor.text());
+			}
+		}
+		
+		/**
+		 * Marks the end of the rules, i.e. the next line is the first entry
+		 * of the symbol table.
+		 */
+		public void endRules() {
+			section = SYMBOLS;
+		}
+		
+		/**
+		 * Checks that the whole program was read.
+		 */
+		public void finish() throws PostprocessingException {
+			if (section != END) {
+				throw new PostprocessingException("The grounded program is incomplete");
+			}
+		}
+		
+		private void readRule(int type, boolean factBody) throws PostprocessingException {
+			if (type < 1) {
+				throw new PostprocessingException("Malformed rule: " + cursor.text());
+			}
+			
+			int start = literals.size();
+			
+			while (!cursor.atEnd()) {
+				int value = cursor.nextInt();
+				
+				if (value < 0) {
+					throw new PostprocessingException("Malformed rule: " + cursor.text());
+				}
+				
+				literals.add(value);
+			}
+			
+			if (factBody) {
+				literals.add(0);
+				literals.add(0);
+			}
+			
+			int bodyStart;
+			
+			switch (type) {
+			case BASIC_RULE:
+			case CONSTRAINT_RULE:
+			case MINIMIZE_RULE:
+				bodyStart = start + 1;
+				break;
+			case WEIGHT_RULE:
+				bodyStart = start + 2;
+				break;
+			case CHOICE_RULE:
+			case DISJUNCTIVE_RULE:
+				bodyStart = literals.size() > start ? start + 1 + literals.get(start) : start;
+				break;
+			default:
+				bodyStart = start;
+			}
+			
+			if (bodyStart > literals.size()) {
+				throw new PostprocessingException("Malformed rule: " + cursor.text());
+			}
+			
+			ruleTypes.add(type);
+			ruleStarts.add(start);
+			bodyStarts.add(bodyStart);
+		}
+		
+		private void readSymbol() throws PostprocessingException {
+			int atom = cursor.nextInt();
+			
+			if (atom == 0 && cursor.atEnd()) {
+				section = COMPUTE_TRUE_HEADER;
+				return;
+			}
+			
+			if (atom <= FALSE_ATOM || cursor.atEnd()) {
+				throw new PostprocessingException("Malformed symbol table entry: " + cursor.text());
+			}
+			
+			int length = cursor.lineEnd - cursor.pos;
+			
+			if (namesLength + length > names.length) {
+				names = Arrays.copyOf(names, Math.max(names.length << 1, namesLength + length));
+			}
+			
+			boolean ascii = true;
+			
+			for (int i = 0; i < length; i ++) {
+				byte b = data[cursor.pos + i];
+				ascii &= b >= 0;
+				names[namesLength + i] = (char) b;
+			}
+			
+			if (!ascii) {
+				String name = new String(data, cursor.pos, length, StandardCharsets.UTF_8);
+				name.getChars(0, name.length(), names, namesLength);
+				length = name.length();
+			}
+			
+			namesLength += length;
+			symbolAtoms.add(atom);
+			nameEnds.add(namesLength);
+		}
+		
+		private int readNumber() throws PostprocessingException {
+			int value = cursor.nextInt();
+			
+			if (value < 0 || !cursor.atEnd()) {
+				throw new PostprocessingException("Malformed compute statement entry: " + cursor.text());
+			}
+			
+			return value;
+		}
+		
+		private void expectHeader(String header, int next) throws PostprocessingException {
+			if (!header.equals(cursor.text())) {
+				throw new PostprocessingException("Expected the compute statement " + header + " but found: " + cursor.text());
+			}
+			
+			section = next;
+		}
+	}
+}
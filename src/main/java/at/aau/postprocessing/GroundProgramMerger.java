@@ -0,0 +1,219 @@
+package at.aau.postprocessing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import at.aau.io.ByteBuffers;
+import at.aau.util.IntList;
+
+/**
+ * Merges the grounded programs of independent parts of a logic program into a
+ * single grounded program in the smodels format.
+ * <p>
+ * Atoms with the same name are the same atom in the merged program, e.g. the
+ * fact literal that occurs in each part. All other atoms, including the atoms
+ * without a name, get new numbers. Atom 1 is the false atom in all programs.
+ * Rules that occur in several programs are written only once, except for
+ * minimize statements. The number of models is taken from the first program.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundProgramMerger {
+	/** The atom that is always false */
+	private static final int FALSE_ATOM = 1;
+	
+	/**
+	 * Merges the given grounded programs.
+	 *
+	 * @param programs
+	 *            The grounded programs, each between the position and the
+	 *            limit of its buffer.
+	 * @param output
+	 *            The buffer to reuse for the output, or <code>null</code>.
+	 * @return The buffer containing the merged program between its position
+	 *         and limit. This is either the given output buffer or a new,
+	 *         larger buffer.
+	 * @throws PostprocessingException
+	 *             If a program is not in the smodels format.
+	 */
+	public ByteBuffer merge(List<ByteBuffer> programs, ByteBuffer output) throws PostprocessingException {
+		Map<String, Integer> atomOfName = new HashMap<String, Integer>();
+		List<String> nameOfAtom = new ArrayList<String>();
+		Set<String> writtenRules = new HashSet<String>();
+		BitSet positive = new BitSet();
+		BitSet negative = new BitSet();
+		StringBuilder rules = new StringBuilder();
+		String rest = null;
+		int size = 0;
+		
+		nameOfAtom.add(null);
+		nameOfAtom.add(null);
+		
+		for (ByteBuffer program : programs) {
+			if (!program.hasArray()) {
+				program = ByteBuffer.allocate(program.remaining()).put(program.duplicate());
+				program.flip();
+			}
+			
+			final byte[] data = program.array();
+			final int start = program.arrayOffset() + program.position();
+			final int end = program.arrayOffset() + program.limit();
+			final int rulesEnd = Postprocessor.findEndOfRules(data, start, end);
+			size += end - start;
+			
+			if (rulesEnd < 0) {
+				throw new PostprocessingException("The grounded program does not contain the end of the rules section");
+			}
+			
+			AtomRenumberer.Atoms atoms = new AtomRenumberer.Atoms();
+			LineCursor cursor = new LineCursor(data);
+			IntList tokens = new IntList();
+			IntList ruleEnds = new IntList();
+			
+			for (int lineStart = start; lineStart < rulesEnd; lineStart = cursor.next) {
+				cursor.line(lineStart, rulesEnd);
+				
+				if (cursor.lineEnd > cursor.lineStart) {
+					AtomRenumberer.readRule(cursor, tokens, atoms);
+					ruleEnds.add(tokens.size());
+				}
+			}
+			
+			// read the symbol table
+			Map<Integer, String> symbols = new HashMap<Integer, String>();
+			cursor.line(rulesEnd, end);
+			
+			while (true) {
+				if (cursor.next >= end) {
+					throw new PostprocessingException("The symbol table is not terminated");
+				}
+				
+				cursor.line(cursor.next, end);
+				int atom = cursor.nextInt();
+				
+				if (atom == 0 && cursor.atEnd()) {
+					break;
+				}
+				
+				if (atom < 1 || cursor.atEnd()) {
+					throw new PostprocessingException("Malformed symbol table entry: " + cursor.text());
+				}
+				
+				atoms.use(atom);
+				symbols.put(atom, new String(data, cursor.pos, cursor.lineEnd - cursor.pos, StandardCharsets.UTF_8));
+			}
+			
+			IntList computedTrue = AtomRenumberer.readComputeStatement(cursor, end, "B+", atoms);
+			IntList computedFalse = AtomRenumberer.readComputeStatement(cursor, end, "B-", atoms);
+			
+			if (null == rest) {
+				int restStart = Math.min(cursor.next, end);
+				rest = new String(data, restStart, end - restStart, StandardCharsets.UTF_8);
+			}
+			
+			// number the atoms of this program in the merged program
+			IntList used = atoms.getUsed();
+			int maxAtom = FALSE_ATOM;
+			
+			for (int i = 0; i < used.size(); i ++) {
+				maxAtom = Math.max(maxAtom, used.get(i));
+			}
+			
+			int[] mapping = new int[maxAtom + 1];
+			mapping[FALSE_ATOM] = FALSE_ATOM;
+			
+			for (int i = 0; i < used.size(); i ++) {
+				int atom = used.get(i);
+				String name = symbols.get(atom);
+				Integer merged = null == name ? null : atomOfName.get(name);
+				
+				if (null == merged) {
+					merged = nameOfAtom.size();
+					nameOfAtom.add(name);
+					
+					if (null != name) {
+						atomOfName.put(name, merged);
+					}
+				}
+				
+				mapping[atom] = merged;
+			}
+			
+			// write the rules, the atoms are stored negated
+			StringBuilder rule = new StringBuilder();
+			int token = 0;
+			
+			for (int i = 0; i < ruleEnds.size(); i ++) {
+				int ruleEnd = ruleEnds.get(i);
+				boolean minimize = tokens.get(token) == 6;
+				rule.setLength(0);
+				
+				for (; token < ruleEnd; token ++) {
+					int value = tokens.get(token);
+					rule.append(value < 0 ? mapping[-value] : value);
+					rule.append(token + 1 < ruleEnd ? ' ' : '\n');
+				}
+				
+				if (minimize || writtenRules.add(rule.toString())) {
+					rules.append(rule);
+				}
+			}
+			
+			for (int i = 0; i < computedTrue.size(); i ++) {
+				positive.set(mapping[computedTrue.get(i)]);
+			}
+			
+			for (int i = 0; i < computedFalse.size(); i ++) {
+				negative.set(mapping[computedFalse.get(i)]);
+			}
+		}
+		
+		output = ByteBuffers.reuse(output, size);
+		output = ByteBuffers.putAscii(output, rules.toString());
+		output = ByteBuffers.putAscii(output, "0\n");
+		
+		for (int atom = FALSE_ATOM + 1; atom < nameOfAtom.size(); atom ++) {
+			String name = nameOfAtom.get(atom);
+			
+			if (null != name) {
+				output = ByteBuffers.putInt(output, atom);
+				output = ByteBuffers.putAscii(output, " ");
+				byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				output = ByteBuffers.put(output, bytes, 0, bytes.length);
+				output = ByteBuffers.putAscii(output, "\n");
+			}
+		}
+		
+		output = ByteBuffers.putAscii(output, "0\n");
+		output = writeComputeStatement(output, "B+", positive);
+		output = writeComputeStatement(output, "B-", negative);
+		
+		if (null != rest) {
+			byte[] bytes = rest.getBytes(StandardCharsets.UTF_8);
+			output = ByteBuffers.put(output, bytes, 0, bytes.length);
+		}
+		
+		output.flip();
+		return output;
+	}
+	
+	private static ByteBuffer writeComputeStatement(ByteBuffer output, String header, BitSet atoms) {
+		output = ByteBuffers.putAscii(output, header);
+		output = ByteBuffers.putAscii(output, "\n");
+		
+		for (int atom = atoms.nextSetBit(0); atom >= 0; atom = atoms.nextSetBit(atom + 1)) {
+			output = ByteBuffers.putInt(output, atom);
+			output = ByteBuffers.putAscii(output, "\n");
+		}
+		
+		return ByteBuffers.putAscii(output, "0\n");
+	}
+}
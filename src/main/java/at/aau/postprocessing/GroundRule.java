@@ -0,0 +1,206 @@
+package at.aau.postprocessing;
+
+import java.util.Arrays;
+
+/**
+ * A rule of a postprocessed program in the smodels format. The rule types are
+ * the ones of {@link GroundProgram}, e.g. {@link GroundProgram#BASIC_RULE}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundRule implements GroundEvent {
+	private static final int[] EMPTY = new int[0];
+	
+	private final int type;
+	
+	/** The numbers of the rule, without its type */
+	private final int[] numbers;
+	
+	/** The offset of the body in the numbers, i.e. of the number of body literals */
+	private final int bodyStart;
+	
+	private GroundRule(int type, int[] numbers, int bodyStart) {
+		this.type = type;
+		this.numbers = numbers;
+		this.bodyStart = bodyStart;
+	}
+	
+	/**
+	 * Reads the rule of the current line of the cursor.
+	 *
+	 * @throws PostprocessingException
+	 *             If the line is not a rule in the smodels format.
+	 */
+	static GroundRule read(LineCursor cursor) throws PostprocessingException {
+		cursor.rewind();
+		int type = cursor.nextInt();
+		int[] numbers = new int[16];
+		int size = 0;
+		
+		while (type > 0 && !cursor.atEnd()) {
+			int value = cursor.nextInt();
+			
+			if (value < 0) {
+				throw new PostprocessingException("Malformed rule: " + cursor.text());
+			}
+			
+			if (size == numbers.length) {
+				numbers = Arrays.copyOf(numbers, numbers.length << 1);
+			}
+			
+			numbers[size ++] = value;
+		}
+		
+		int bodyStart;
+		
+		switch (type) {
+		case GroundProgram.BASIC_RULE:
+		case GroundProgram.CONSTRAINT_RULE:
+		case GroundProgram.MINIMIZE_RULE:
+			bodyStart = 1;
+			break;
+		case GroundProgram.WEIGHT_RULE:
+			bodyStart = 2;
+			break;
+		case GroundProgram.CHOICE_RULE:
+		case GroundProgram.DISJUNCTIVE_RULE:
+			bodyStart = size > 0 ? 1 + numbers[0] : 0;
+			break;
+		default:
+			throw new PostprocessingException("Malformed rule: " + cursor.text());
+		}
+		
+		GroundRule rule = new GroundRule(type, Arrays.copyOf(numbers, size), bodyStart);
+		int literalsStart = rule.getBodyLiteralsStart();
+		
+		if (literalsStart > size || literalsStart + rule.getBodySize() * (hasWeights(type) ? 2 : 1) != size
+				|| numbers[bodyStart + 1] > numbers[bodyStart]) {
+			throw new PostprocessingException("Malformed rule: " + cursor.text());
+		}
+		
+		return rule;
+	}
+	
+	/**
+	 * Creates the fact <code>head.</code>
+	 */
+	static GroundRule fact(int head) {
+		return new GroundRule(GroundProgram.BASIC_RULE, new int[] { head, 0, 0 }, 1);
+	}
+	
+	/**
+	 * Creates the choice rule <code>{atoms}.</code>
+	 */
+	static GroundRule choice(int[] atoms) {
+		int[] numbers = new int[atoms.length + 3];
+		numbers[0] = atoms.length;
+		System.arraycopy(atoms, 0, numbers, 1, atoms.length);
+		
+		return new GroundRule(GroundProgram.CHOICE_RULE, numbers, atoms.length + 1);
+	}
+	
+	/**
+	 * Creates the integrity constraint <code>:- not negative, positive.</code>
+	 */
+	static GroundRule constraint(int[] negative, int[] positive) {
+		int[] numbers = new int[negative.length + positive.length + 3];
+		numbers[0] = 1;
+		numbers[1] = negative.length + positive.length;
+		numbers[2] = negative.length;
+		System.arraycopy(negative, 0, numbers, 3, negative.length);
+		System.arraycopy(positive, 0, numbers, 3 + negative.length, positive.length);
+		
+		return new GroundRule(GroundProgram.BASIC_RULE, numbers, 1);
+	}
+	
+	/**
+	 * Returns the type of the rule, e.g. {@link GroundProgram#BASIC_RULE}.
+	 */
+	public int getType() {
+		return type;
+	}
+	
+	/**
+	 * Returns the head atoms of the rule. The head of an integrity constraint
+	 * is the false atom 1, a minimize rule has no head.
+	 */
+	public int[] getHead() {
+		switch (type) {
+		case GroundProgram.BASIC_RULE:
+		case GroundProgram.CONSTRAINT_RULE:
+		case GroundProgram.WEIGHT_RULE:
+			return new int[] { numbers[0] };
+		case GroundProgram.CHOICE_RULE:
+		case GroundProgram.DISJUNCTIVE_RULE:
+			return Arrays.copyOfRange(numbers, 1, bodyStart);
+		default:
+			return EMPTY;
+		}
+	}
+	
+	public int[] getNegativeBody() {
+		int literalsStart = getBodyLiteralsStart();
+		return Arrays.copyOfRange(numbers, literalsStart, literalsStart + numbers[bodyStart + 1]);
+	}
+	
+	public int[] getPositiveBody() {
+		int literalsStart = getBodyLiteralsStart();
+		return Arrays.copyOfRange(numbers, literalsStart + numbers[bodyStart + 1], literalsStart + getBodySize());
+	}
+	
+	/**
+	 * Returns the lower bound of a constraint or weight rule, or -1 for other
+	 * rules.
+	 */
+	public int getBound() {
+		switch (type) {
+		case GroundProgram.CONSTRAINT_RULE:
+			return numbers[bodyStart + 2];
+		case GroundProgram.WEIGHT_RULE:
+			return numbers[1];
+		default:
+			return -1;
+		}
+	}
+	
+	/**
+	 * Returns the weights of the body literals of a weight or minimize rule,
+	 * negative literals first, or an empty array for other rules.
+	 */
+	public int[] getWeights() {
+		if (!hasWeights(type)) {
+			return EMPTY;
+		}
+		
+		int literalsStart = getBodyLiteralsStart();
+		return Arrays.copyOfRange(numbers, literalsStart + getBodySize(), literalsStart + 2 * getBodySize());
+	}
+	
+	/**
+	 * Returns the rule in the smodels format, without the line terminator.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder().append(type);
+		
+		for (int number : numbers) {
+			text.append(' ').append(number);
+		}
+		
+		return text.toString();
+	}
+	
+	private int getBodySize() {
+		return numbers[bodyStart];
+	}
+	
+	private int getBodyLiteralsStart() {
+		// n neg bound for constraint rules, n neg for the others
+		return bodyStart + (type == GroundProgram.CONSTRAINT_RULE ? 3 : 2);
+	}
+	
+	private static boolean hasWeights(int type) {
+		return type == GroundProgram.WEIGHT_RULE || type == GroundProgram.MINIMIZE_RULE;
+	}
+}
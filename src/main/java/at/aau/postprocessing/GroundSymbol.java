@@ -0,0 +1,34 @@
+package at.aau.postprocessing;
+
+/**
+ * An entry of the symbol table of a postprocessed program.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundSymbol implements GroundEvent {
+	private final int atom;
+	
+	private final String name;
+	
+	public GroundSymbol(int atom, String name) {
+		this.atom = atom;
+		this.name = name;
+	}
+	
+	public int getAtom() {
+		return atom;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns the entry in the smodels format, without the line terminator.
+	 */
+	@Override
+	public String toString() {
+		return atom + " " + name;
+	}
+}
@@ -0,0 +1,152 @@
+package at.aau.postprocessing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The size of a grounded program broken down by the non-ground rules and the
+ * predicates it was grounded from. The profile is filled by the
+ * {@link Postprocessor} while it processes the grounded program.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundingProfile {
+	/** The number of ground instances of each debug constant */
+	private final Map<String, Integer> groundInstances = new LinkedHashMap<String, Integer>();
+	
+	private final List<PredicateCount> predicates = new ArrayList<PredicateCount>();
+	
+	private int rules;
+	
+	private int atoms;
+	
+	/**
+	 * Returns the number of ground instances of each debug constant that
+	 * occurs in the grounded program, sorted by decreasing number of
+	 * instances.
+	 */
+	public Map<String, Integer> getGroundInstances() {
+		return Collections.unmodifiableMap(groundInstances);
+	}
+	
+	/**
+	 * Returns the number of ground rules and atoms of each predicate, sorted by
+	 * decreasing number of ground rules. A rule counts once for each predicate
+	 * in its head, rules without a head (e.g. constraints) are not counted.
+	 */
+	public List<PredicateCount> getPredicates() {
+		return Collections.unmodifiableList(predicates);
+	}
+	
+	/**
+	 * Returns the number of rules of the postprocessed program, excluding the
+	 * debug choice rule and the fixed model constraint.
+	 */
+	public int getRules() {
+		return rules;
+	}
+	
+	/**
+	 * Returns the number of symbol table entries of the postprocessed program.
+	 */
+	public int getAtoms() {
+		return atoms;
+	}
+	
+	void clear() {
+		groundInstances.clear();
+		predicates.clear();
+		rules = 0;
+		atoms = 0;
+	}
+	
+	void setTotals(int rules, int atoms) {
+		this.rules = rules;
+		this.atoms = atoms;
+	}
+	
+	void setGroundInstances(String debugAtomPrefix, int[] counts) {
+		List<Integer> constants = new ArrayList<Integer>();
+		
+		for (int i = 0; i < counts.length; i ++) {
+			if (counts[i] > 0) {
+				constants.add(i);
+			}
+		}
+		
+		final int[] instances = counts;
+		Collections.sort(constants, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int difference = Integer.compare(instances[b], instances[a]);
+				return difference != 0 ? difference : Integer.compare(a, b);
+			}
+		});
+		
+		for (Integer constant : constants) {
+			groundInstances.put(debugAtomPrefix + constant, counts[constant]);
+		}
+	}
+	
+	void addPredicate(PredicateCount predicate) {
+		predicates.add(predicate);
+	}
+	
+	void sortPredicates() {
+		Collections.sort(predicates, new Comparator<PredicateCount>() {
+			@Override
+			public int compare(PredicateCount a, PredicateCount b) {
+				int difference = Integer.compare(b.rules, a.rules);
+				
+				if (difference == 0) {
+					difference = Integer.compare(b.atoms, a.atoms);
+				}
+				
+				return difference != 0 ? difference : a.toString().compareTo(b.toString());
+			}
+		});
+	}
+	
+	/**
+	 * The number of ground rules and atoms of a predicate.
+	 */
+	public static class PredicateCount {
+		private final String name;
+		private final int arity;
+		private final int rules;
+		private final int atoms;
+		
+		public PredicateCount(String name, int arity, int rules, int atoms) {
+			this.name = name;
+			this.arity = arity;
+			this.rules = rules;
+			this.atoms = atoms;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public int getArity() {
+			return arity;
+		}
+		
+		public int getRules() {
+			return rules;
+		}
+		
+		public int getAtoms() {
+			return atoms;
+		}
+		
+		@Override
+		public String toString() {
+			return name + "/" + arity;
+		}
+	}
+}
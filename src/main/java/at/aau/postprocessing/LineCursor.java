@@ -0,0 +1,111 @@
+package at.aau.postprocessing;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tokenizes a single line of the grounder output in place. The numbers of
+ * a line have to be separated by exactly one space.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+class LineCursor {
+	private final byte[] data;
+	
+	/** Start of the current line */
+	int lineStart;
+	
+	/** End of the current line, excluding the line terminator */
+	int lineEnd;
+	
+	/** Start of the next line */
+	int next;
+	
+	/** Position of the next token */
+	int pos;
+	
+	public LineCursor(byte[] data) {
+		this.data = data;
+	}
+	
+	/**
+	 * Moves the cursor to the line that starts at the given index.
+	 */
+	public void line(int start, int end) {
+		lineStart = start;
+		lineEnd = start;
+		pos = start;
+		
+		while (lineEnd < end && data[lineEnd] != '\n' && data[lineEnd] != '\r') {
+			lineEnd ++;
+		}
+		
+		if (lineEnd + 1 < end && data[lineEnd] == '\r' && data[lineEnd + 1] == '\n') {
+			next = lineEnd + 2;
+		} else {
+			next = Math.min(lineEnd + 1, end);
+		}
+	}
+	
+	/**
+	 * Moves the cursor back to the first token of the current line.
+	 */
+	public void rewind() {
+		pos = lineStart;
+	}
+	
+	/**
+	 * Checks whether the line is terminated by a single '\n'.
+	 */
+	public boolean hasNewline() {
+		return next == lineEnd + 1 && data[lineEnd] == '\n';
+	}
+	
+	/**
+	 * Reads the next number of the line.
+	 *
+	 * @return The number, or -1 if the next token is not a number that is
+	 *         followed by a single space or the end of the line.
+	 */
+	public int nextInt() {
+		int value = 0;
+		int digitsStart = pos;
+		
+		while (pos < lineEnd && data[pos] >= '0' && data[pos] <= '9') {
+			value = value * 10 + (data[pos ++] - '0');
+			
+			if (value < 0 || pos - digitsStart > 10) {
+				pos = lineEnd;
+				return -1;
+			}
+		}
+		
+		if (pos == digitsStart) {
+			return -1;
+		}
+		
+		if (pos < lineEnd) {
+			if (data[pos] != ' ' || pos + 1 == lineEnd) {
+				return -1;
+			}
+			
+			pos ++;
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Returns the current line without the line terminator.
+	 */
+	public String text() {
+		return new String(data, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Checks whether all tokens of the line were read.
+	 */
+	public boolean atEnd() {
+		return pos == lineEnd;
+	}
+}
@@ -1,26 +1,115 @@
 package at.aau.postprocessing;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import at.aau.Rule;
+import at.aau.io.ByteBuffers;
+import at.aau.statistics.Progress;
+import at.aau.util.IntList;
 
 /**
  * Postprocessor that replaces each artificial fact-rule with the fact and
  * removes the fact literal from the symbol table.
- * 
+ * <p>
+ * The postprocessor works directly on the bytes of the grounder output. Each
+ * line is tokenized in place, and the parts of the output that are not
+ * changed are copied as byte ranges from the input to the output buffer.
+ * <p>
+ * Large grounded programs are processed in parallel. The symbol table is
+ * scanned in chunks to collect the debug symbols and the fixed model, then the
+ * rules are split at line boundaries, rewritten in parallel and concatenated
+ * in their original order. The output does not depend on the number of
+ * threads.
+ * <p>
+ * The postprocessed program is either written as text or filled into a
+ * {@link GroundProgram}, without writing and parsing the text.
+ * <p>
+ * All state of a postprocessing is local to the call, so a postprocessor can
+ * be used by several threads at the same time. The chunks of all calls share
+ * one pool of worker threads, which grows to the largest parallelism of the
+ * postprocessors.
+ *
  * @author Philip Gasteiger
  *
  */
 public class Postprocessor {
+	/** Minimum number of bytes that are processed by a single task */
+	private static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 18;
+	
+	/** Span marker that stands for a line terminator */
+	private static final int NEWLINE = -1;
+	
+	/** Span marker that stands for the empty body of a fact */
+	private static final int FACT_BODY = -2;
+	
+	/** Number of rules after which the progress is updated, a power of two */
+	private static final int PROGRESS_RULES = 1 << 12;
+	
+	/** Maximum number of chunks the grounded program is split into */
+	private final int parallelism;
+	
+	/** Minimum number of bytes of a chunk */
+	private final int minChunkSize;
+	
+	/** The progress that counts the postprocessed rules, or <code>null</code> */
+	private volatile Progress progress;
+	
+	/**
+	 * Creates a postprocessor that uses all available processors.
+	 */
+	public Postprocessor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a postprocessor that uses the given number of threads.
+	 *
+	 * @param parallelism
+	 *            The maximum number of threads used for the postprocessing.
+	 */
+	public Postprocessor(int parallelism) {
+		this(parallelism, DEFAULT_MIN_CHUNK_SIZE);
+	}
+	
+	Postprocessor(int parallelism, int minChunkSize) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1");
+		}
+		
+		this.parallelism = parallelism;
+		this.minChunkSize = Math.max(1, minChunkSize);
+		WorkerPool.ensureThreads(parallelism);
+	}
+	
+	/**
+	 * Sets the progress that counts the rules while they are postprocessed.
+	 * The count is updated once per few thousand rules.
+	 *
+	 * @param progress
+	 *            The progress, or <code>null</code> to not count the rules.
+	 */
+	public void setProgress(Progress progress) {
+		this.progress = progress;
+	}
+	
 	private Matcher getDebugConstantSymbolMatcher(String groundedProgram,
 			String debugConstantPrefix) {
 		Matcher debugConstantSymbolMatcher = Pattern.compile("^(\\d+) " + debugConstantPrefix + "[0-9]*(\\([ _,a-zA-Z0-9]*\\))?\n", Pattern.MULTILINE).matcher(groundedProgram);
@@ -28,140 +117,619 @@ public class Postprocessor {
 	}
 	
 	public String performPostprocessing(String groundedProgram, String debugAtomPrefix, String factAtom, List<String> fixedModel) {
-		String[] splitted = groundedProgram.split("(?m)^0$", 2);
-		BufferedReader rulesReader = new BufferedReader(new StringReader(splitted[0]));
-		BufferedReader symbolsReader = new BufferedReader(new StringReader(splitted[1]));
-		StringBuilder rules = new StringBuilder(splitted[0].length());
-		StringBuilder symbols = new StringBuilder(splitted[1].length());
-		StringBuilder debugChoiceRule = new StringBuilder();
-		FixedModelConstraintBuilder fixedModelConstraint = new FixedModelConstraintBuilder();
-		String line = null;
-		Set<String> debugSymbols = new HashSet<String>();
-		boolean factAtomFound = false;
-		boolean factAtomNegFound = false;
-		String factAtomSymbol = null;
-		String factAtomNegSymbol = null;
-		int numDebugAtoms = 0;
+		try {
+			ByteBuffer postprocessed = performPostprocessing(ByteBuffers.wrap(groundedProgram), debugAtomPrefix, factAtom, fixedModel, null);
+			return ByteBuffers.toString(postprocessed);
+		} catch (PostprocessingException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Postprocess the given grounded program.
+	 *
+	 * @param groundedProgram
+	 *            The output of the grounder, between the position and the limit
+	 *            of the buffer.
+	 * @param debugAtomPrefix
+	 *            The prefix of the debug constants.
+	 * @param factAtom
+	 *            The fact literal.
+	 * @param fixedModel
+	 *            The atoms of the fixed model, or <code>null</code>.
+	 * @param output
+	 *            The buffer to reuse for the output, or <code>null</code>.
+	 * @return The buffer containing the postprocessed program between its
+	 *         position and limit. This is either the given output buffer or a
+	 *         new, larger buffer.
+	 * @throws PostprocessingException
+	 *             If the grounded program has no rules section.
+	 */
+	public ByteBuffer performPostprocessing(ByteBuffer groundedProgram, String debugAtomPrefix, String factAtom, List<String> fixedModel, ByteBuffer output)
+			throws PostprocessingException {
+		return performPostprocessing(groundedProgram, debugAtomPrefix, factAtom, fixedModel, output, null);
+	}
+	
+	/**
+	 * Postprocess the given grounded program and count the ground rules and
+	 * atoms of the debug constants and predicates while doing so.
+	 *
+	 * @param profile
+	 *            The profile to fill, or <code>null</code> to skip the
+	 *            profiling.
+	 * @see #performPostprocessing(ByteBuffer, String, String, List, ByteBuffer)
+	 */
+	public ByteBuffer performPostprocessing(ByteBuffer groundedProgram, String debugAtomPrefix, String factAtom, List<String> fixedModel, ByteBuffer output,
+			GroundingProfile profile) throws PostprocessingException {
+		return performPostprocessing(groundedProgram, debugAtomPrefix, factAtom, fixedModel, output, profile, null);
+	}
+	
+	/**
+	 * Postprocess the given grounded program, count the ground rules and atoms
+	 * and index the debug atoms while doing so.
+	 *
+	 * @param profile
+	 *            The profile to fill, or <code>null</code> to skip the
+	 *            profiling.
+	 * @param debugAtomIndex
+	 *            The index to fill with the debug atoms of the grounded
+	 *            program, or <code>null</code> to skip the indexing.
+	 * @see #performPostprocessing(ByteBuffer, String, String, List, ByteBuffer)
+	 */
+	public ByteBuffer performPostprocessing(ByteBuffer groundedProgram, String debugAtomPrefix, String factAtom, List<String> fixedModel, ByteBuffer output,
+			GroundingProfile profile, DebugAtomIndex debugAtomIndex) throws PostprocessingException {
+		Chunks chunks = process(groundedProgram, debugAtomPrefix, factAtom, fixedModel, profile, debugAtomIndex);
+		byte[] data = chunks.data;
+		
+		// write the rules
+		output = ByteBuffers.reuse(output, chunks.size + 16);
+		
+		for (RuleChunk chunk : chunks.rules) {
+			output = chunk.write(output, data);
+		}
+		
+		// append the debug choice rule
+		if (!chunks.debugAtoms.isEmpty()) {
+			output = ByteBuffers.putAscii(output, "3 ");
+			output = ByteBuffers.putInt(output, chunks.debugAtoms.size());
+			
+			for (int i = 0; i < chunks.debugAtoms.size(); i ++) {
+				output = ByteBuffers.putAscii(output, " ");
+				output = ByteBuffers.putInt(output, chunks.debugAtoms.get(i));
+			}
+			
+			output = ByteBuffers.putAscii(output, " 0 0\n");
+		}
 		
-		int idx = -1;
+		// append the fix model constraint (if present)
+		if (null != fixedModel) {
+			output = chunks.fixedModelConstraint.write(output, data);
+			output = ByteBuffers.putAscii(output, "\n");
+		}
+		
+		// append the end-of-rules-block marker and the symbols table
+		output = ByteBuffers.putAscii(output, "0");
+		
+		for (SymbolChunk chunk : chunks.symbols) {
+			output = chunk.write(output, data);
+		}
+		
+		output.flip();
+		return output;
+	}
+	
+	/**
+	 * Postprocess the given grounded program into a ground program model. The
+	 * model is filled from the rewritten chunks directly, i.e. the
+	 * postprocessed program is not written as text.
+	 *
+	 * @param profile
+	 *            The profile to fill, or <code>null</code> to skip the
+	 *            profiling.
+	 * @param debugAtomIndex
+	 *            The index to fill with the debug atoms of the grounded
+	 *            program, or <code>null</code> to skip the indexing.
+	 * @return The postprocessed program.
+	 * @throws PostprocessingException
+	 *             If the grounded program is not in the smodels format.
+	 * @see #performPostprocessing(ByteBuffer, String, String, List, ByteBuffer)
+	 */
+	public GroundProgram buildGroundProgram(ByteBuffer groundedProgram, String debugAtomPrefix, String factAtom, List<String> fixedModel,
+			GroundingProfile profile, DebugAtomIndex debugAtomIndex) throws PostprocessingException {
+		Chunks chunks = process(groundedProgram, debugAtomPrefix, factAtom, fixedModel, profile, debugAtomIndex);
+		GroundProgram program = new GroundProgram();
+		GroundProgram.LineReader reader = program.new LineReader(chunks.data);
+		
+		for (RuleChunk chunk : chunks.rules) {
+			chunk.read(reader, chunks.data);
+		}
+		
+		program.setDebugAtoms(chunks.debugAtoms);
+		
+		if (null != fixedModel) {
+			program.setFixedModelConstraint(chunks.fixedModelConstraint.getAtomsInModel(chunks.data),
+					chunks.fixedModelConstraint.getAtomsNotInModel(chunks.data));
+		}
+		
+		reader.endRules();
+		
+		for (SymbolChunk chunk : chunks.symbols) {
+			chunk.read(reader, chunks.data);
+		}
+		
+		reader.finish();
+		return program;
+	}
+	
+	/**
+	 * Processes the symbols and rules of the given grounded program in
+	 * chunks, and fills the profile and the debug atom index.
+	 */
+	private Chunks process(ByteBuffer groundedProgram, String debugAtomPrefix, String factAtom, List<String> fixedModel,
+			final GroundingProfile profile, final DebugAtomIndex debugAtomIndex) throws PostprocessingException {
+		if (!groundedProgram.hasArray()) {
+			groundedProgram = ByteBuffer.allocate(groundedProgram.remaining()).put(groundedProgram.duplicate());
+			groundedProgram.flip();
+		}
+		
+		final byte[] data = groundedProgram.array();
+		final int start = groundedProgram.arrayOffset() + groundedProgram.position();
+		final int end = groundedProgram.arrayOffset() + groundedProgram.limit();
+		final int rulesEnd = findEndOfRules(data, start, end);
+		
+		if (rulesEnd < 0) {
+			throw new PostprocessingException("The grounded program does not contain the end of the rules section");
+		}
+		
+		final SymbolMatcher matcher = new SymbolMatcher(debugAtomPrefix, factAtom, fixedModel);
 		
 		// process the symbols
-		try {
-			while ((line = symbolsReader.readLine()) != null) {
-				if ((idx = line.indexOf(debugAtomPrefix)) > -1) {
+		List<Callable<SymbolChunk>> symbolTasks = new ArrayList<Callable<SymbolChunk>>();
+		int[] symbolChunks = split(data, rulesEnd + 1, end);
+		
+		for (int i = 0; i < symbolChunks.length - 1; i ++) {
+			final int chunkStart = symbolChunks[i];
+			final int chunkEnd = symbolChunks[i + 1];
+			
+			symbolTasks.add(new Callable<SymbolChunk>() {
+				@Override
+				public SymbolChunk call() {
+					return processSymbols(data, chunkStart, chunkEnd, matcher, null != profile, null != debugAtomIndex);
+				}
+			});
+		}
+		
+		List<SymbolChunk> symbols = invokeAll(symbolTasks);
+		IntList debugAtoms = new IntList();
+		IntList debugAtomRanges = new IntList();
+		final BitSet debugAtomSet = new BitSet();
+		FixedModelConstraintBuilder fixedModelConstraint = new FixedModelConstraintBuilder();
+		int factAtomSymbol = -1;
+		int factAtomNegSymbol = -1;
+		
+		for (SymbolChunk chunk : symbols) {
+			debugAtoms.addAll(chunk.debugAtoms);
+			debugAtomRanges.addAll(chunk.debugAtomRanges);
+			debugAtomSet.or(chunk.debugAtomSet);
+			fixedModelConstraint.append(chunk.fixedModelConstraint);
+			
+			if (factAtomSymbol < 0) {
+				factAtomSymbol = chunk.factAtomSymbol;
+			}
+			
+			if (factAtomNegSymbol < 0) {
+				factAtomNegSymbol = chunk.factAtomNegSymbol;
+			}
+		}
+		
+		if (null != debugAtomIndex) {
+			debugAtomIndex.fill(debugAtomPrefix, data, debugAtoms, debugAtomRanges);
+		}
+		
+		// merge the predicates of the symbol table
+		PredicateTable predicates = null;
+		int[] atomPredicates = null;
+		
+		if (null != profile) {
+			predicates = new PredicateTable(data);
+			atomPredicates = mergePredicates(symbols, predicates);
+		}
+		
+		// process the rules
+		final int[] predicateOf = atomPredicates;
+		final int numPredicates = null == predicates ? 0 : predicates.size();
+		final int factAtomPos = factAtomSymbol;
+		final int factAtomNeg = factAtomNegSymbol;
+		final Progress progress = this.progress;
+		List<Callable<RuleChunk>> ruleTasks = new ArrayList<Callable<RuleChunk>>();
+		int[] ruleChunks = split(data, start, rulesEnd);
+		
+		for (int i = 0; i < ruleChunks.length - 1; i ++) {
+			final int chunkStart = ruleChunks[i];
+			final int chunkEnd = ruleChunks[i + 1];
+			
+			ruleTasks.add(new Callable<RuleChunk>() {
+				@Override
+				public RuleChunk call() {
+					return processRules(data, chunkStart, chunkEnd, factAtomPos, factAtomNeg, debugAtomSet,
+							null == predicateOf ? null : new RuleProfile(predicateOf, numPredicates), progress);
+				}
+			});
+		}
+		
+		List<RuleChunk> rules = invokeAll(ruleTasks);
+		boolean factAtomConstraintFound = false;
+		boolean factAtomDisjunctionFound = false;
+		
+		for (RuleChunk chunk : rules) {
+			// only the first occurrence of the fact atom constraint and
+			// disjunction is removed, restore the ones of later chunks
+			if (chunk.factAtomConstraintIdx > -1 && factAtomConstraintFound) {
+				chunk.restoreFactAtomConstraint();
+			}
+			
+			if (chunk.factAtomDisjunctionIdx > -1 && factAtomDisjunctionFound) {
+				chunk.restoreFactAtomDisjunction();
+			}
+			
+			factAtomConstraintFound |= chunk.factAtomConstraintIdx > -1;
+			factAtomDisjunctionFound |= chunk.factAtomDisjunctionIdx > -1;
+		}
+		
+		if (null != profile) {
+			fillProfile(profile, debugAtomPrefix, symbols, rules, predicates);
+		}
+		
+		Chunks chunks = new Chunks();
+		chunks.data = data;
+		chunks.size = end - start;
+		chunks.symbols = symbols;
+		chunks.rules = rules;
+		chunks.debugAtoms = debugAtoms;
+		chunks.fixedModelConstraint = fixedModelConstraint;
+		
+		return chunks;
+	}
+	
+	private SymbolChunk processSymbols(byte[] data, int start, int end, SymbolMatcher matcher, boolean profiling, boolean indexing) {
+		SymbolChunk chunk = new SymbolChunk();
+		SymbolProfile profile = profiling ? new SymbolProfile(data, end - start) : null;
+		chunk.profile = profile;
+		LineCursor cursor = new LineCursor(data);
+		
+		for (int lineStart = start; lineStart < end; lineStart = cursor.next) {
+			cursor.line(lineStart, end);
+			
+			// symbol table entry 'n name'
+			int symbol = cursor.nextInt();
+			
+			if (symbol > -1 && !cursor.atEnd()) {
+				if (matcher.isFactAtom(data, cursor.pos, cursor.lineEnd)) {
+					// n _flXXX
+					chunk.factAtomSymbol = symbol;
+					continue;
+				} else if (matcher.isNegatedFactAtom(data, cursor.pos, cursor.lineEnd)) {
+					// n -_flXXX
+					chunk.factAtomNegSymbol = symbol;
+					continue;
+				} else if (matcher.isDebugAtom(data, cursor.pos, cursor.lineEnd)) {
 					// n _debug#(...)
-					String debugSymbol = line.substring(0, idx - 1);
-							
-					debugSymbols.add(debugSymbol);
+					chunk.debugAtoms.add(symbol);
+					chunk.debugAtomSet.set(symbol);
 					
-					debugChoiceRule.append(' ');
-					debugChoiceRule.append(debugSymbol);
+					if (indexing) {
+						chunk.addDebugAtomRange(data, matcher, cursor.pos, cursor.lineEnd);
+					}
 					
-					numDebugAtoms ++;
+					if (null != profile) {
+						profile.countDebugAtom(matcher.getDebugConstant(data, cursor.pos, cursor.lineEnd));
+					}
+				} else if (null != profile) {
+					profile.countAtom(symbol, cursor.pos, cursor.lineEnd);
 				}
 				
-				if ((!factAtomFound || !factAtomNegFound) && (idx = line.indexOf(factAtom)) > -1) {
-					// fact atom symbol entry
-					if(line.charAt(idx - 1) == '-') {
-						// n -_flXXX
-						factAtomNegSymbol = line.substring(0, idx - 2);
-						factAtomNegFound = true;
-					} else {
-						// n _flXXX
-						factAtomSymbol = line.substring(0, idx - 1);
-						factAtomFound = true;
+				if (null != profile) {
+					profile.symbols ++;
+				}
+			}
+			
+			// other entry, append it
+			chunk.addLine(cursor);
+			
+			if (matcher.hasFixedModel()) {
+				// add to the fixed model constraint
+				int separatorIdx = indexOf(data, (byte) ' ', lineStart, cursor.lineEnd);
+				
+				if (-1 != separatorIdx && matcher.isModelCandidate(data, separatorIdx + 1, cursor.lineEnd)) {
+					if (matcher.isInFixedModel(data, separatorIdx + 1, cursor.lineEnd))
+						chunk.fixedModelConstraint.addAtomInModel(lineStart, separatorIdx);
+					else
+						chunk.fixedModelConstraint.addAtomNotInModel(lineStart, separatorIdx);
+				}
+			}
+		}
+		
+		return chunk;
+	}
+	
+	private RuleChunk processRules(byte[] data, int start, int end,
+			int factAtomSymbol, int factAtomNegSymbol, BitSet debugAtoms, RuleProfile profile, Progress progress) {
+		RuleChunk chunk = new RuleChunk();
+		chunk.profile = profile;
+		LineCursor cursor = new LineCursor(data);
+		// like the original, 'fact :- _fl' is rewritten even if -_fl has no symbol
+		boolean hasFactAtom = factAtomSymbol > -1;
+		int rules = 0;
+		
+		for (int lineStart = start; lineStart < end; lineStart = cursor.next) {
+			cursor.line(lineStart, end);
+			int type = cursor.nextInt();
+			
+			rules ++;
+			
+			// the shared count is only updated once per few thousand rules
+			if ((rules & (PROGRESS_RULES - 1)) == 0 && null != progress) {
+				progress.addRules(PROGRESS_RULES);
+			}
+			
+			if (type == 1) {
+				int head = cursor.nextInt();
+				int bodyStart = cursor.pos;
+				int size = cursor.nextInt();
+				int negSize = cursor.nextInt();
+				int literal = cursor.nextInt();
+				
+				if (hasFactAtom && chunk.factAtomConstraintIdx < 0 && head == 1 && size == 2 && negSize == 0
+						&& literal == factAtomSymbol && cursor.nextInt() == factAtomNegSymbol && cursor.atEnd()) {
+					// constraint ':- _fl, -_fl'
+					chunk.removeFactAtomConstraint(cursor);
+				} else if (head > -1 && debugAtoms.get(head)) {
+					// rule with a debug symbol in the head, remove it
+				} else if (hasFactAtom && size == 1 && negSize == 0 && literal == factAtomSymbol && cursor.atEnd()) {
+					// replace 'fact :- _fl' with 'fact.'
+					chunk.addFact(lineStart, bodyStart);
+					
+					if (null != profile) {
+						profile.countRule(head);
 					}
 				} else {
-					// other entry, append it
-					symbols.append(line);
-					symbols.append('\n');
+					// regular normal rule
+					chunk.addLine(cursor);
 					
-					if (null != fixedModel) {
-						// add to the fixed model constraint
-						int separatorIdx = line.indexOf(' ');
-						
-						if (-1 != separatorIdx) {
-							String symbol = line.substring(0, separatorIdx);
-							String atom = line.substring(separatorIdx + 1);
-							
-							if (!atom.startsWith(debugAtomPrefix) && !atom.startsWith("fixModel")) {
-								if (fixedModel.contains(atom))
-									fixedModelConstraint.addAtomInModel(symbol);
-								else
-									fixedModelConstraint.addAtomNotInModel(symbol);
-							}
-						}
+					if (null != profile) {
+						profile.countRule(head);
 					}
 				}
+			} else if (type == 8 && hasFactAtom && chunk.factAtomDisjunctionIdx < 0
+					&& isFactAtomDisjunction(cursor, factAtomSymbol, factAtomNegSymbol)) {
+				// disjunction '_fl | -_fl'
+				chunk.removeFactAtomDisjunction(cursor);
+			} else {
+				chunk.addLine(cursor);
+				
+				if (null != profile) {
+					profile.countRule(cursor);
+				}
 			}
+		}
 		
-			// build the debug choice rule
-			if (numDebugAtoms > 0) {
-				debugChoiceRule.insert(0, "3 " + numDebugAtoms);
-				debugChoiceRule.append(" 0 0\n");
-			}
-			
-			// constraint ':- _fl, -_fl'
-			String factAtomConstraint = "1 1 2 0 " + factAtomSymbol + " " + factAtomNegSymbol;
-			String factAtomDisjunction1 = "8 2 " + factAtomSymbol + " " + factAtomNegSymbol + " 0 0";
-			String factAtomDisjunction2 = "8 2 " + factAtomNegSymbol + " " + factAtomSymbol + " 0 0";
-			String factAtomBody = "1 0 " + factAtomSymbol;
-			
-			boolean factAtomConstraintFound = false;
-			boolean factAtomDisjunctionFound = false;
-			
-			// process the rules
-			while ((line = rulesReader.readLine()) != null) {
-				if (!factAtomConstraintFound && line.equals(factAtomConstraint)) {
-					factAtomConstraintFound = true;
-				} else if (!factAtomDisjunctionFound
-						&& (line.equals(factAtomDisjunction1) || line
-								.equals(factAtomDisjunction2))) {
-					factAtomDisjunctionFound = true;
-				} else if (line.charAt(0) == '1') {
-					// normal rule, check if it has a debug symbol in the head
-					idx = line.indexOf(' ', 2);
-					String headSymbol = line.substring(2, idx);
-					if (!debugSymbols.contains(headSymbol)) {
-						// check if it is of the form '1 fact 1 0 _fl'
-						if ((idx = line.indexOf(factAtomBody)) > -1 && line.endsWith(factAtomBody)) {
-							// replace fact :- _fl with fact.
-							rules.append(line.substring(0, idx));
-							rules.append("0 0\n");
-						} else {
-							// regular normal rule
-							rules.append(line);
-							rules.append('\n');
-						}
-					}
-				} else {
-					rules.append(line);
-					rules.append('\n');
-				}
+		if (null != progress) {
+			progress.addRules(rules & (PROGRESS_RULES - 1));
+		}
+		
+		if (null != profile) {
+			profile.countPredicates();
+		}
+		
+		return chunk;
+	}
+	
+	/**
+	 * Checks whether the rest of the current line is <code>2 _fl -_fl 0 0</code>
+	 * or <code>2 -_fl _fl 0 0</code>.
+	 */
+	static boolean isFactAtomDisjunction(LineCursor cursor, int factAtomSymbol, int factAtomNegSymbol) {
+		if (cursor.nextInt() != 2) {
+			return false;
+		}
+		
+		int head1 = cursor.nextInt();
+		int head2 = cursor.nextInt();
+		
+		return ((head1 == factAtomSymbol && head2 == factAtomNegSymbol) || (head1 == factAtomNegSymbol && head2 == factAtomSymbol))
+				&& cursor.nextInt() == 0 && cursor.nextInt() == 0 && cursor.atEnd();
+	}
+	
+	/**
+	 * Merges the predicates of the symbol chunks into the given table.
+	 *
+	 * @return The index of the predicate + 1 of each atom, 0 if the atom has
+	 *         no predicate.
+	 */
+	private static int[] mergePredicates(List<SymbolChunk> symbols, PredicateTable predicates) {
+		int maxAtom = 0;
+		
+		for (SymbolChunk chunk : symbols) {
+			IntList atoms = chunk.profile.atomPredicates;
+			
+			for (int i = 0; i < atoms.size(); i += 2) {
+				maxAtom = Math.max(maxAtom, atoms.get(i));
+			}
+		}
+		
+		int[] atomPredicates = new int[maxAtom + 1];
+		
+		for (SymbolChunk chunk : symbols) {
+			PredicateTable chunkPredicates = chunk.profile.predicates;
+			int[] predicateIdx = new int[chunkPredicates.size()];
+			
+			for (int i = 0; i < predicateIdx.length; i ++) {
+				predicateIdx[i] = predicates.lookup(chunkPredicates.getNameStart(i), chunkPredicates.getNameEnd(i), chunkPredicates.getArity(i));
+				predicates.addAtoms(predicateIdx[i], chunkPredicates.getAtoms(i));
+			}
+			
+			IntList atoms = chunk.profile.atomPredicates;
+			
+			for (int i = 0; i < atoms.size(); i += 2) {
+				atomPredicates[atoms.get(i)] = predicateIdx[atoms.get(i + 1)] + 1;
+			}
+		}
+		
+		return atomPredicates;
+	}
+	
+	/**
+	 * Sums up the counts of the chunks and writes them to the profile.
+	 */
+	private static void fillProfile(GroundingProfile profile, String debugAtomPrefix,
+			List<SymbolChunk> symbols, List<RuleChunk> rules, PredicateTable predicates) {
+		int[] groundInstances = new int[0];
+		int numSymbols = 0;
+		int numRules = 0;
+		
+		for (SymbolChunk chunk : symbols) {
+			int[] counts = chunk.profile.debugInstances;
+			
+			if (counts.length > groundInstances.length) {
+				groundInstances = Arrays.copyOf(groundInstances, counts.length);
+			}
+			
+			for (int i = 0; i < counts.length; i ++) {
+				groundInstances[i] += counts[i];
 			}
 			
-			// append the debug choice rule
-			rules.append(debugChoiceRule);
+			numSymbols += chunk.profile.symbols;
+		}
+		
+		for (RuleChunk chunk : rules) {
+			for (int i = 0; i < predicates.size(); i ++) {
+				predicates.addRules(i, chunk.profile.predicateRules[i]);
+			}
 			
-			// append the fix model constraint (if present)
-			if (null != fixedModel) {
-				rules.append(fixedModelConstraint.toString());
-				rules.append('\n');
+			numRules += chunk.profile.rules;
+		}
+		
+		profile.clear();
+		profile.setTotals(numRules, numSymbols);
+		profile.setGroundInstances(debugAtomPrefix, groundInstances);
+		
+		for (int i = 0; i < predicates.size(); i ++) {
+			profile.addPredicate(new GroundingProfile.PredicateCount(
+					predicates.getName(i), predicates.getArity(i), predicates.getRules(i), predicates.getAtoms(i)));
+		}
+		
+		profile.sortPredicates();
+	}
+	
+	/**
+	 * Returns the index of the first line that consists of a single
+	 * <code>0</code>, or -1 if there is no such line.
+	 */
+	static int findEndOfRules(byte[] data, int start, int end) {
+		for (int lineStart = start; lineStart < end; ) {
+			if (data[lineStart] == '0' && (lineStart + 1 == end || data[lineStart + 1] == '\n' || data[lineStart + 1] == '\r')) {
+				return lineStart;
 			}
 			
-			// append the end-of-rules-block marker and the symbols table
-			rules.append('0');
-			rules.append(symbols);
+			while (lineStart < end && data[lineStart] != '\n' && data[lineStart] != '\r') {
+				lineStart ++;
+			}
 			
-			return rules.toString();
-		} catch (IOException e) {
+			lineStart ++;
+		}
+		
+		return -1;
+	}
+	
+	private static int indexOf(byte[] data, byte b, int start, int end) {
+		for (int i = start; i < end; i ++) {
+			if (data[i] == b) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Splits the given range of the data at line boundaries into at most
+	 * {@link #parallelism} chunks.
+	 *
+	 * @return The boundaries of the chunks, starting with <code>start</code>
+	 *         and ending with <code>end</code>.
+	 */
+	private int[] split(byte[] data, int start, int end) {
+		int numChunks = (int) Math.max(1, Math.min(parallelism, ((long) end - start) / minChunkSize));
+		int[] boundaries = new int[numChunks + 1];
+		int numBoundaries = 1;
+		boundaries[0] = start;
+		
+		for (int i = 1; i < numChunks; i ++) {
+			int boundary = start + (int) (((long) end - start) * i / numChunks);
+			boundary = Math.max(boundary, boundaries[numBoundaries - 1]);
+			
+			while (boundary < end && data[boundary] != '\n') {
+				boundary ++;
+			}
+			
+			if (boundary + 1 >= end) {
+				break;
+			}
+			
+			boundaries[numBoundaries ++] = boundary + 1;
+		}
+		
+		boundaries[numBoundaries ++] = end;
+		
+		return Arrays.copyOf(boundaries, numBoundaries);
+	}
+	
+	/**
+	 * Returns the number of threads of the pool shared by all postprocessors.
+	 */
+	static int getWorkerThreads() {
+		return WorkerPool.EXECUTOR.getCorePoolSize();
+	}
+	
+	/**
+	 * Runs the given tasks and returns their results in the order of the
+	 * tasks. A single task is run by the calling thread.
+	 */
+	private static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+		List<T> results = new ArrayList<T>(tasks.size());
+		
+		try {
+			if (tasks.size() == 1) {
+				results.add(tasks.get(0).call());
+				return results;
+			}
+			
+			for (Future<T> result : WorkerPool.EXECUTOR.invokeAll(tasks)) {
+				results.add(result.get());
+			}
+			
+			return results;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("The postprocessing was interrupted", e);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
 	
 	/**
 	 * Gets a list of non-ground rules that where removed by the grounder.
-	 * 
+	 *
 	 * @param groundedProgram
 	 *            The grounded program.
 	 * @param debugRuleMap
@@ -193,58 +761,539 @@ public class Postprocessor {
 		return removedRules;
 	}
 	
-	class FixedModelConstraintBuilder {
-		private int numPositive;
-		private int numNegative;
-		private final StringBuilder positiveAtoms;
-		private final StringBuilder negativeAtoms;
+	/**
+	 * Matches the names of the symbol table entries against the fact literal,
+	 * the debug constants and the fixed model.
+	 */
+	static class SymbolMatcher {
+		private static final byte[] FIX_MODEL = "fixModel".getBytes(StandardCharsets.US_ASCII);
 		
-		public FixedModelConstraintBuilder() {
-			positiveAtoms = new StringBuilder();
-			negativeAtoms = new StringBuilder();
-			numPositive = 0;
-			numNegative = 0;
+		private final byte[] debugAtomPrefix;
+		
+		private final byte[] factAtom;
+		
+		private final Set<String> fixedModel;
+		
+		public SymbolMatcher(String debugAtomPrefix, String factAtom, List<String> fixedModel) {
+			this.debugAtomPrefix = debugAtomPrefix.getBytes(StandardCharsets.UTF_8);
+			this.factAtom = factAtom.getBytes(StandardCharsets.UTF_8);
+			this.fixedModel = null == fixedModel ? null : new HashSet<String>(fixedModel);
 		}
 		
-		public void addAtomInModel(String symbol) {
-			// in model, thus use 'not symbol' in the constraint
-			if (numNegative > 0) {
-				negativeAtoms.append(' ');
+		public boolean isFactAtom(byte[] data, int start, int end) {
+			return end - start == factAtom.length && regionMatches(data, start, factAtom);
+		}
+		
+		public boolean isNegatedFactAtom(byte[] data, int start, int end) {
+			return end - start == factAtom.length + 1 && data[start] == '-' && regionMatches(data, start + 1, factAtom);
+		}
+		
+		/**
+		 * Checks whether the name is a debug constant, i.e. the prefix followed
+		 * by the number of the debug constant and optional arguments.
+		 */
+		public boolean isDebugAtom(byte[] data, int start, int end) {
+			if (end - start <= debugAtomPrefix.length || !regionMatches(data, start, debugAtomPrefix)) {
+				return false;
 			}
 			
-			numNegative ++;
-			negativeAtoms.append(symbol);
+			int idx = start + debugAtomPrefix.length;
+			int digitsStart = idx;
+			
+			while (idx < end && data[idx] >= '0' && data[idx] <= '9') {
+				idx ++;
+			}
+			
+			return idx > digitsStart && (idx == end || data[idx] == '(');
 		}
 		
-		public void addAtomNotInModel(String symbol) {
-			// not in model, thuse use 'symbol' in the constraint
-			if (numPositive > 0) {
-				positiveAtoms.append(' ');
+		/**
+		 * Returns the number of the debug constant of a debug atom, or -1 if
+		 * the number is too large.
+		 */
+		public int getDebugConstant(byte[] data, int start, int end) {
+			int constant = 0;
+			
+			for (int idx = start + debugAtomPrefix.length; idx < end && data[idx] >= '0' && data[idx] <= '9'; idx ++) {
+				constant = constant * 10 + (data[idx] - '0');
+				
+				if (constant > 99999999) {
+					return -1;
+				}
+			}
+			
+			return constant;
+		}
+		
+		/**
+		 * Returns the start of the arguments of a debug atom, i.e. the index
+		 * after the opening parenthesis, or the end if it has no arguments.
+		 */
+		public int getArgumentsStart(byte[] data, int start, int end) {
+			int idx = start + debugAtomPrefix.length;
+			
+			while (idx < end && data[idx] >= '0' && data[idx] <= '9') {
+				idx ++;
+			}
+			
+			return idx < end ? idx + 1 : end;
+		}
+		
+		public boolean hasFixedModel() {
+			return null != fixedModel;
+		}
+		
+		/**
+		 * Checks whether the atom is part of the fixed model constraint, i.e.
+		 * it is neither a debug constant nor the fixModel command.
+		 */
+		public boolean isModelCandidate(byte[] data, int start, int end) {
+			return !(end - start >= debugAtomPrefix.length && regionMatches(data, start, debugAtomPrefix))
+					&& !(end - start >= FIX_MODEL.length && regionMatches(data, start, FIX_MODEL));
+		}
+		
+		public boolean isInFixedModel(byte[] data, int start, int end) {
+			return fixedModel.contains(new String(data, start, end - start, StandardCharsets.UTF_8));
+		}
+		
+		private static boolean regionMatches(byte[] data, int start, byte[] expected) {
+			for (int i = 0; i < expected.length; i ++) {
+				if (data[start + i] != expected[i]) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	}
+	
+	/**
+	 * The output of a chunk as spans of the input. Each span is a pair of
+	 * start (inclusive) and end (exclusive) index, or a pair of markers that
+	 * stand for a constant text.
+	 */
+	private static class Spans {
+		protected final IntList spans = new IntList(1024);
+		
+		/**
+		 * Adds the current line of the cursor, terminated by '\n'. Adjacent
+		 * lines are merged into a single span.
+		 */
+		public void addLine(LineCursor cursor) {
+			if (cursor.hasNewline()) {
+				addSpan(cursor.lineStart, cursor.next);
+			} else {
+				addSpan(cursor.lineStart, cursor.lineEnd);
+				spans.add(NEWLINE);
+				spans.add(NEWLINE);
+			}
+		}
+		
+		/**
+		 * Adds the fact with the given head, i.e. the start of the line up to
+		 * the body followed by <code>0 0</code>.
+		 */
+		public void addFact(int lineStart, int bodyStart) {
+			addSpan(lineStart, bodyStart);
+			spans.add(FACT_BODY);
+			spans.add(FACT_BODY);
+		}
+		
+		private void addSpan(int start, int end) {
+			int size = spans.size();
+			
+			if (size > 0 && spans.get(size - 1) == start && spans.get(size - 2) >= 0) {
+				spans.set(size - 1, end);
+			} else {
+				spans.add(start);
+				spans.add(end);
+			}
+		}
+		
+		/**
+		 * Copies the spans of the input to the output.
+		 */
+		public ByteBuffer write(ByteBuffer output, byte[] data) {
+			for (int i = 0; i < spans.size(); i += 2) {
+				int spanStart = spans.get(i);
+				
+				if (NEWLINE == spanStart) {
+					output = ByteBuffers.putAscii(output, "\n");
+				} else if (FACT_BODY == spanStart) {
+					output = ByteBuffers.putAscii(output, "0 0\n");
+				} else {
+					output = ByteBuffers.put(output, data, spanStart, spans.get(i + 1) - spanStart);
+				}
+			}
+			
+			return output;
+		}
+		
+		/**
+		 * Passes the lines of the spans to the given reader.
+		 */
+		public void read(GroundProgram.LineReader reader, byte[] data) throws PostprocessingException {
+			for (int i = 0; i < spans.size(); i += 2) {
+				int spanStart = spans.get(i);
+				int spanEnd = spans.get(i + 1);
+				
+				if (spanStart < 0) {
+					// the markers terminate the preceding line
+					continue;
+				}
+				
+				int lineStart = spanStart;
+				
+				for (int idx = spanStart; idx < spanEnd; idx ++) {
+					if (data[idx] == '\n') {
+						reader.line(lineStart, idx, false);
+						lineStart = idx + 1;
+					}
+				}
+				
+				if (lineStart < spanEnd) {
+					if (i + 2 < spans.size() && FACT_BODY == spans.get(i + 2)) {
+						// the head of a fact up to its body, without the trailing space
+						reader.line(lineStart, spanEnd - 1, true);
+					} else {
+						reader.line(lineStart, spanEnd, false);
+					}
+				}
+			}
+		}
+	}
+	
+	/** The result of processing a part of the symbol table. */
+	private static class SymbolChunk extends Spans {
+		private final IntList debugAtoms = new IntList();
+		private final IntList debugAtomRanges = new IntList();
+		private final BitSet debugAtomSet = new BitSet();
+		private final FixedModelConstraintBuilder fixedModelConstraint = new FixedModelConstraintBuilder();
+		private int factAtomSymbol = -1;
+		private int factAtomNegSymbol = -1;
+		private SymbolProfile profile;
+		
+		/**
+		 * Adds the number of the debug constant and the range of the arguments
+		 * of the debug atom with the given name.
+		 */
+		public void addDebugAtomRange(byte[] data, SymbolMatcher matcher, int start, int end) {
+			int argumentsStart = matcher.getArgumentsStart(data, start, end);
+			
+			debugAtomRanges.add(matcher.getDebugConstant(data, start, end));
+			debugAtomRanges.add(argumentsStart);
+			debugAtomRanges.add(argumentsStart < end ? end - 1 : end);
+		}
+	}
+	
+	/** The result of processing a part of the rules. */
+	private static class RuleChunk extends Spans {
+		private int factAtomConstraintIdx = -1;
+		private int factAtomDisjunctionIdx = -1;
+		private int[] factAtomConstraint;
+		private int[] factAtomDisjunction;
+		private boolean factAtomConstraintFirst;
+		private RuleProfile profile;
+		
+		public void removeFactAtomConstraint(LineCursor cursor) {
+			factAtomConstraintIdx = spans.size();
+			factAtomConstraint = lineSpans(cursor);
+			factAtomConstraintFirst = factAtomDisjunctionIdx < 0;
+		}
+		
+		public void removeFactAtomDisjunction(LineCursor cursor) {
+			factAtomDisjunctionIdx = spans.size();
+			factAtomDisjunction = lineSpans(cursor);
+		}
+		
+		/**
+		 * Inserts the removed fact atom constraint at its original position.
+		 */
+		public void restoreFactAtomConstraint() {
+			spans.insert(factAtomConstraintIdx, factAtomConstraint);
+			
+			if (factAtomDisjunctionIdx > factAtomConstraintIdx
+					|| (factAtomDisjunctionIdx == factAtomConstraintIdx && factAtomConstraintFirst)) {
+				factAtomDisjunctionIdx += factAtomConstraint.length;
+			}
+		}
+		
+		/**
+		 * Inserts the removed fact atom disjunction at its original position.
+		 */
+		public void restoreFactAtomDisjunction() {
+			spans.insert(factAtomDisjunctionIdx, factAtomDisjunction);
+			
+			if (factAtomConstraintIdx > factAtomDisjunctionIdx
+					|| (factAtomConstraintIdx == factAtomDisjunctionIdx && !factAtomConstraintFirst)) {
+				factAtomConstraintIdx += factAtomDisjunction.length;
+			}
+		}
+		
+		private static int[] lineSpans(LineCursor cursor) {
+			if (cursor.hasNewline()) {
+				return new int[] { cursor.lineStart, cursor.next };
+			}
+			
+			return new int[] { cursor.lineStart, cursor.lineEnd, NEWLINE, NEWLINE };
+		}
+	}
+	
+	/** The debug constants and predicates of a part of the symbol table. */
+	private static class SymbolProfile {
+		private final PredicateTable predicates;
+		
+		/** Pairs of atom and the index of its predicate */
+		private final IntList atomPredicates;
+		
+		/** The number of debug atoms of each debug constant */
+		private int[] debugInstances = new int[16];
+		
+		private int symbols;
+		
+		public SymbolProfile(byte[] data, int size) {
+			this.predicates = new PredicateTable(data);
+			
+			// a symbol table entry has at least four bytes
+			this.atomPredicates = new IntList(size / 4);
+		}
+		
+		public void countDebugAtom(int debugConstant) {
+			if (debugConstant < 0) {
+				return;
+			}
+			
+			if (debugConstant >= debugInstances.length) {
+				debugInstances = Arrays.copyOf(debugInstances, Math.max(debugInstances.length << 1, debugConstant + 1));
+			}
+			
+			debugInstances[debugConstant] ++;
+		}
+		
+		public void countAtom(int atom, int nameStart, int nameEnd) {
+			int predicate = predicates.lookupSymbol(nameStart, nameEnd);
+			predicates.addAtoms(predicate, 1);
+			atomPredicates.add(atom);
+			atomPredicates.add(predicate);
+		}
+	}
+	
+	/**
+	 * The number of ground rules of each predicate of a part of the rules.
+	 * Rules with a single head are counted per head atom, which are mapped to
+	 * their predicates once in {@link #countPredicates()}.
+	 */
+	private static class RuleProfile {
+		private final int[] atomPredicates;
+		private final int[] predicateRules;
+		
+		/** The number of rules with a single head of each atom */
+		private int[] headRules;
+		
+		/** The last rule that was counted for each predicate */
+		private final int[] counted;
+		
+		private int rules;
+		
+		public RuleProfile(int[] atomPredicates, int numPredicates) {
+			this.atomPredicates = atomPredicates;
+			this.predicateRules = new int[numPredicates];
+			this.headRules = new int[atomPredicates.length];
+			this.counted = new int[numPredicates];
+		}
+		
+		/**
+		 * Counts a normal rule for its head atom.
+		 */
+		public void countRule(int head) {
+			rules ++;
+			
+			if (head > -1 && head < headRules.length) {
+				headRules[head] ++;
+			}
+		}
+		
+		/**
+		 * Counts the current line of the cursor for its head atom, or for the
+		 * predicates of its head atoms if it has several.
+		 */
+		public void countRule(LineCursor cursor) {
+			cursor.rewind();
+			
+			switch (cursor.nextInt()) {
+			case 1:
+			case 2:
+			case 5:
+				countRule(cursor.nextInt());
+				break;
+			case 3:
+			case 8:
+				rules ++;
+				
+				for (int heads = cursor.nextInt(); heads > 0; heads --) {
+					countHead(cursor.nextInt());
+				}
+				break;
+			default:
+				// no head
+				rules ++;
 			}
+		}
+		
+		/**
+		 * Adds the rules counted per head atom to the predicates of the atoms.
+		 */
+		public void countPredicates() {
+			for (int atom = 0; atom < headRules.length; atom ++) {
+				if (headRules[atom] != 0 && atomPredicates[atom] != 0) {
+					predicateRules[atomPredicates[atom] - 1] += headRules[atom];
+				}
+			}
+			
+			headRules = null;
+		}
+		
+		private void countHead(int atom) {
+			if (atom < 0 || atom >= atomPredicates.length || atomPredicates[atom] == 0) {
+				return;
+			}
+			
+			int predicate = atomPredicates[atom] - 1;
+			
+			if (counted[predicate] != rules) {
+				counted[predicate] = rules;
+				predicateRules[predicate] ++;
+			}
+		}
+	}
+	
+	/** The processed chunks of a grounded program. */
+	private static class Chunks {
+		private byte[] data;
+		private int size;
+		private List<SymbolChunk> symbols;
+		private List<RuleChunk> rules;
+		private IntList debugAtoms;
+		private FixedModelConstraintBuilder fixedModelConstraint;
+	}
+	
+	/**
+	 * The threads that process the chunks of large grounded programs. There
+	 * are as many threads as available processors, or as the largest
+	 * parallelism of a postprocessor if it is larger.
+	 */
+	private static class WorkerPool {
+		private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+				Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+				0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger threadNum = new AtomicInteger(1);
+					
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "postprocessor-" + threadNum.getAndIncrement());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		
+		/**
+		 * Grows the pool to the given number of threads.
+		 */
+		static synchronized void ensureThreads(int threads) {
+			if (threads > EXECUTOR.getMaximumPoolSize()) {
+				// the maximum must not be less than the core size
+				EXECUTOR.setMaximumPoolSize(threads);
+				EXECUTOR.setCorePoolSize(threads);
+			}
+		}
+	}
+	
+	/**
+	 * Builds the constraint that eliminates all answer sets except the fixed
+	 * model. The symbols are stored as spans of the symbol table.
+	 */
+	static class FixedModelConstraintBuilder {
+		private final IntList positiveAtoms;
+		private final IntList negativeAtoms;
+		
+		public FixedModelConstraintBuilder() {
+			positiveAtoms = new IntList();
+			negativeAtoms = new IntList();
+		}
+		
+		public void addAtomInModel(int symbolStart, int symbolEnd) {
+			// in model, thus use 'not symbol' in the constraint
+			negativeAtoms.add(symbolStart);
+			negativeAtoms.add(symbolEnd);
+		}
+		
+		public void addAtomNotInModel(int symbolStart, int symbolEnd) {
+			// not in model, thuse use 'symbol' in the constraint
+			positiveAtoms.add(symbolStart);
+			positiveAtoms.add(symbolEnd);
+		}
+		
+		/**
+		 * Appends the atoms of the given constraint to this constraint.
+		 */
+		public void append(FixedModelConstraintBuilder other) {
+			negativeAtoms.addAll(other.negativeAtoms);
+			positiveAtoms.addAll(other.positiveAtoms);
+		}
+		
+		public ByteBuffer write(ByteBuffer output, byte[] data) {
+			int numNegative = negativeAtoms.size() / 2;
+			int numPositive = positiveAtoms.size() / 2;
+			
+			output = ByteBuffers.putAscii(output, "1 1 ");
+			output = ByteBuffers.putInt(output, numNegative + numPositive);
+			output = ByteBuffers.putAscii(output, " ");
+			output = ByteBuffers.putInt(output, numNegative);
+			output = writeSymbols(output, data, negativeAtoms);
+			output = writeSymbols(output, data, positiveAtoms);
 			
-			numPositive ++;
-			positiveAtoms.append(symbol);
+			return output;
+		}
+		
+		/**
+		 * Returns the atoms of the fixed model, which are negated in the
+		 * constraint.
+		 */
+		public int[] getAtomsInModel(byte[] data) throws PostprocessingException {
+			return parseSymbols(data, negativeAtoms);
+		}
+		
+		/**
+		 * Returns the atoms that are not in the fixed model.
+		 */
+		public int[] getAtomsNotInModel(byte[] data) throws PostprocessingException {
+			return parseSymbols(data, positiveAtoms);
 		}
 		
-		@Override
-		public String toString() {
-			StringBuilder constraint = new StringBuilder();
-			constraint.append("1 1 ");
-			constraint.append(numNegative + numPositive);
-			constraint.append(' ');
-			constraint.append(numNegative);
+		private static int[] parseSymbols(byte[] data, IntList symbols) throws PostprocessingException {
+			int[] atoms = new int[symbols.size() / 2];
 			
-			if (numNegative > 0) {
-				constraint.append(' ');
-				constraint.append(negativeAtoms);
+			for (int i = 0; i < atoms.length; i ++) {
+				for (int idx = symbols.get(2 * i); idx < symbols.get(2 * i + 1); idx ++) {
+					if (data[idx] < '0' || data[idx] > '9') {
+						throw new PostprocessingException("Malformed symbol table entry: "
+								+ new String(data, symbols.get(2 * i), symbols.get(2 * i + 1) - symbols.get(2 * i), StandardCharsets.UTF_8));
+					}
+					
+					atoms[i] = atoms[i] * 10 + (data[idx] - '0');
+				}
 			}
 			
-			if (numPositive > 0) {
-				constraint.append(' ');
-				constraint.append(positiveAtoms);
+			return atoms;
+		}
+		
+		private static ByteBuffer writeSymbols(ByteBuffer output, byte[] data, IntList symbols) {
+			for (int i = 0; i < symbols.size(); i += 2) {
+				output = ByteBuffers.putAscii(output, " ");
+				output = ByteBuffers.put(output, data, symbols.get(i), symbols.get(i + 1) - symbols.get(i));
 			}
 			
-			return constraint.toString();
+			return output;
 		}
 	}
 }
@@ -0,0 +1,211 @@
+package at.aau.postprocessing;
+
+import java.nio.charset.StandardCharsets;
+
+import at.aau.util.IntList;
+
+/**
+ * Counts the atoms and the ground rules of the predicates of a grounded
+ * program. The predicate names are stored as ranges of the grounded program,
+ * so looking up a predicate does not create any objects.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+class PredicateTable {
+	private final byte[] data;
+	
+	/** Open addressing hash table of the predicate index + 1, 0 if empty */
+	private int[] slots = new int[64];
+	
+	private final IntList hashes = new IntList();
+	private final IntList nameStarts = new IntList();
+	private final IntList nameEnds = new IntList();
+	private final IntList arities = new IntList();
+	private final IntList atoms = new IntList();
+	private final IntList rules = new IntList();
+	
+	/** The predicate + 1 of the last looked up symbol of each first byte of the names */
+	private final int[] lastPredicates = new int[256];
+	
+	public PredicateTable(byte[] data) {
+		this.data = data;
+	}
+	
+	/**
+	 * Returns the index of the predicate of the symbol with the given name,
+	 * e.g. <code>p</code> with arity 2 for <code>p(a,f(b,c))</code>. The
+	 * predicate is added if it is not contained yet.
+	 */
+	public int lookupSymbol(int start, int end) {
+		int nameEnd = start;
+		
+		while (nameEnd < end && data[nameEnd] != '(') {
+			nameEnd ++;
+		}
+		
+		int arity = arity(nameEnd, end);
+		
+		// the symbols of a predicate are usually listed one after another,
+		// possibly alternating with the symbols of a few other predicates
+		int first = start < nameEnd ? data[start] & 0xff : 0;
+		int predicate = lastPredicates[first] - 1;
+		
+		if (predicate < 0 || arities.get(predicate) != arity || !nameEquals(predicate, start, nameEnd)) {
+			predicate = lookup(start, nameEnd, arity);
+			lastPredicates[first] = predicate + 1;
+		}
+		
+		return predicate;
+	}
+	
+	/**
+	 * Returns the index of the predicate with the given name and arity. The
+	 * predicate is added if it is not contained yet.
+	 */
+	public int lookup(int nameStart, int nameEnd, int arity) {
+		int hash = arity;
+		
+		for (int i = nameStart; i < nameEnd; i ++) {
+			hash = 31 * hash + data[i];
+		}
+		
+		int mask = slots.length - 1;
+		
+		for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+			int predicate = slots[slot] - 1;
+			
+			if (predicate < 0) {
+				predicate = hashes.size();
+				hashes.add(hash);
+				nameStarts.add(nameStart);
+				nameEnds.add(nameEnd);
+				arities.add(arity);
+				atoms.add(0);
+				rules.add(0);
+				slots[slot] = predicate + 1;
+				
+				if (size() * 2 > slots.length) {
+					rehash();
+				}
+				
+				return predicate;
+			}
+			
+			if (hashes.get(predicate) == hash && arities.get(predicate) == arity
+					&& nameEquals(predicate, nameStart, nameEnd)) {
+				return predicate;
+			}
+		}
+	}
+	
+	public int size() {
+		return hashes.size();
+	}
+	
+	public String getName(int predicate) {
+		int nameStart = nameStarts.get(predicate);
+		return new String(data, nameStart, nameEnds.get(predicate) - nameStart, StandardCharsets.UTF_8);
+	}
+	
+	public int getNameStart(int predicate) {
+		return nameStarts.get(predicate);
+	}
+	
+	public int getNameEnd(int predicate) {
+		return nameEnds.get(predicate);
+	}
+	
+	public int getArity(int predicate) {
+		return arities.get(predicate);
+	}
+	
+	public int getAtoms(int predicate) {
+		return atoms.get(predicate);
+	}
+	
+	public int getRules(int predicate) {
+		return rules.get(predicate);
+	}
+	
+	public void addAtoms(int predicate, int count) {
+		atoms.set(predicate, atoms.get(predicate) + count);
+	}
+	
+	public void addRules(int predicate, int count) {
+		rules.set(predicate, rules.get(predicate) + count);
+	}
+	
+	/**
+	 * Counts the top level arguments of the argument list that starts at the
+	 * given index with an opening parenthesis.
+	 */
+	private int arity(int open, int end) {
+		if (open >= end) {
+			return 0;
+		}
+		
+		int arity = 1;
+		int depth = 0;
+		boolean quoted = false;
+		
+		for (int i = open; i < end; i ++) {
+			byte b = data[i];
+			
+			if (quoted) {
+				if (b == '\\') {
+					i ++;
+				} else if (b == '"') {
+					quoted = false;
+				}
+			} else if (b == '"') {
+				quoted = true;
+			} else if (b == '(') {
+				depth ++;
+			} else if (b == ')') {
+				depth --;
+			} else if (b == ',' && depth == 1) {
+				arity ++;
+			}
+		}
+		
+		return arity;
+	}
+	
+	private boolean nameEquals(int predicate, int nameStart, int nameEnd) {
+		int otherStart = nameStarts.get(predicate);
+		
+		if (nameEnds.get(predicate) - otherStart != nameEnd - nameStart) {
+			return false;
+		}
+		
+		for (int i = 0; i < nameEnd - nameStart; i ++) {
+			if (data[otherStart + i] != data[nameStart + i]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private void rehash() {
+		slots = new int[slots.length << 1];
+		int mask = slots.length - 1;
+		
+		for (int predicate = 0; predicate < size(); predicate ++) {
+			int slot = mix(hashes.get(predicate)) & mask;
+			
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			
+			slots[slot] = predicate + 1;
+		}
+	}
+	
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		return hash ^ (hash >>> 13);
+	}
+}
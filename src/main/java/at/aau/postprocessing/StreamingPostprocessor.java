@@ -0,0 +1,372 @@
+package at.aau.postprocessing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import at.aau.util.IntList;
+
+/**
+ * Postprocesses the output of the grounder while it is written to this stream
+ * and passes the postprocessed program on to a {@link Listener}, one
+ * {@link GroundEvent} at a time.
+ * <p>
+ * The smodels format lists the symbol table after the rules, but the fact
+ * literal and the debug atoms are needed to rewrite the rules. Thus the rules
+ * are spooled to a temporary file while they are written, and the entries of
+ * the symbol table are passed on as soon as they are read. {@link #finish()}
+ * reads the spooled rules back, rewrites them like the {@link Postprocessor}
+ * and passes them on, followed by the debug choice rule, the fixed model
+ * constraint and the compute statement. Apart from the debug atoms and the
+ * atoms of the fixed model constraint, the memory used does not depend on the
+ * size of the program.
+ * <p>
+ * The listener is called on the thread that writes to the stream, i.e. a
+ * listener that blocks also blocks the writer.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class StreamingPostprocessor extends OutputStream {
+	/** Receives the parts of the postprocessed program. */
+	public interface Listener {
+		/**
+		 * Called for each part of the postprocessed program. If it throws an
+		 * exception, the exception is passed on to the writer.
+		 */
+		public void event(GroundEvent event) throws IOException;
+	}
+	
+	private static final int RULES = 0;
+	private static final int SYMBOLS = 1;
+	private static final int COMPUTE_TRUE_HEADER = 2;
+	private static final int COMPUTE_TRUE = 3;
+	private static final int COMPUTE_FALSE_HEADER = 4;
+	private static final int COMPUTE_FALSE = 5;
+	private static final int MODELS = 6;
+	private static final int END = 7;
+	private static final int SPOOLED_RULES = 8;
+	
+	private final Postprocessor.SymbolMatcher matcher;
+	
+	private final Listener listener;
+	
+	/** The rules of the grounder, which are rewritten once the symbols are known */
+	private final File spoolFile;
+	
+	private final OutputStream spool;
+	
+	/** The current line, without the line terminator */
+	private byte[] line = new byte[256];
+	
+	private int lineLength;
+	
+	private LineCursor cursor = new LineCursor(line);
+	
+	private int section = RULES;
+	
+	/** The first malformed line, which is thrown by {@link #finish()} */
+	private PostprocessingException error;
+	
+	private boolean closed;
+	
+	private int factAtom = -1;
+	
+	private int negatedFactAtom = -1;
+	
+	private boolean factAtomConstraintRemoved;
+	
+	private boolean factAtomDisjunctionRemoved;
+	
+	private final IntList debugAtoms = new IntList();
+	
+	private final BitSet debugAtomSet = new BitSet();
+	
+	private final IntList fixedModelAtoms = new IntList();
+	
+	private final IntList nonFixedModelAtoms = new IntList();
+	
+	private final IntList computeTrue = new IntList();
+	
+	private final IntList computeFalse = new IntList();
+	
+	private int models;
+	
+	/**
+	 * Creates a postprocessor for a single grounded program.
+	 *
+	 * @param fixedModel
+	 *            The atoms of the fixed model, or <code>null</code> if the
+	 *            program has no fixed model constraint.
+	 * @throws IOException
+	 *             If the temporary file of the rules could not be created.
+	 * @see Postprocessor#performPostprocessing(String, String, String, List)
+	 */
+	public StreamingPostprocessor(String debugAtomPrefix, String factAtom, List<String> fixedModel, Listener listener) throws IOException {
+		this.matcher = new Postprocessor.SymbolMatcher(debugAtomPrefix, factAtom, fixedModel);
+		this.listener = listener;
+		this.spoolFile = File.createTempFile("gringo-wrapper-", ".rules");
+		this.spool = new BufferedOutputStream(new FileOutputStream(spoolFile), 1 << 16);
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (section == SPOOLED_RULES || closed) {
+			throw new IOException("The grounded program is already finished");
+		}
+		
+		split(b, off, len);
+	}
+	
+	/**
+	 * Passes on the rules, the debug choice rule, the fixed model constraint
+	 * and the compute statement once the whole grounded program was written.
+	 *
+	 * @throws IOException
+	 *             If the rules could not be read back or the listener failed.
+	 * @throws PostprocessingException
+	 *             If the grounded program is not in the smodels format.
+	 */
+	public void finish() throws IOException, PostprocessingException {
+		if (lineLength > 0) {
+			endLine();
+		}
+		
+		if (null != error) {
+			throw error;
+		}
+		
+		if (section != END) {
+			throw new PostprocessingException("The grounded program is incomplete");
+		}
+		
+		spool.close();
+		section = SPOOLED_RULES;
+		InputStream rules = new BufferedInputStream(new FileInputStream(spoolFile), 1 << 16);
+		
+		try {
+			byte[] buffer = new byte[1 << 16];
+			
+			for (int read = rules.read(buffer); read > -1 && null == error; read = rules.read(buffer)) {
+				split(buffer, 0, read);
+			}
+		} finally {
+			rules.close();
+		}
+		
+		if (null != error) {
+			throw error;
+		}
+		
+		if (!debugAtoms.isEmpty()) {
+			listener.event(GroundRule.choice(debugAtoms.toArray()));
+		}
+		
+		if (matcher.hasFixedModel()) {
+			listener.event(GroundRule.constraint(fixedModelAtoms.toArray(), nonFixedModelAtoms.toArray()));
+		}
+		
+		listener.event(new GroundCompute(computeTrue.toArray(), computeFalse.toArray(), models));
+	}
+	
+	/**
+	 * Deletes the temporary file of the rules.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			spool.close();
+			spoolFile.delete();
+		}
+	}
+	
+	/**
+	 * Splits the given bytes into lines and processes each complete line.
+	 */
+	private void split(byte[] b, int off, int len) throws IOException {
+		int end = off + len;
+		
+		while (off < end) {
+			int newline = off;
+			
+			while (newline < end && b[newline] != '\n') {
+				newline ++;
+			}
+			
+			if (lineLength + newline - off > line.length) {
+				line = Arrays.copyOf(line, Math.max(line.length << 1, lineLength + newline - off));
+				cursor = new LineCursor(line);
+			}
+			
+			System.arraycopy(b, off, line, lineLength, newline - off);
+			lineLength += newline - off;
+			
+			if (newline < end) {
+				endLine();
+			}
+			
+			off = newline + 1;
+		}
+	}
+	
+	private void endLine() throws IOException {
+		int length = lineLength;
+		lineLength = 0;
+		
+		if (length > 0 && line[length - 1] == '\r') {
+			length --;
+		}
+		
+		if (length == 0 || null != error) {
+			return;
+		}
+		
+		if (section == RULES) {
+			if (length == 1 && line[0] == '0') {
+				section = SYMBOLS;
+			} else {
+				spool.write(line, 0, length);
+				spool.write('\n');
+			}
+			
+			return;
+		}
+		
+		cursor.line(0, length);
+		
+		try {
+			if (section == SPOOLED_RULES) {
+				readRule();
+			} else if (section == SYMBOLS) {
+				readSymbol();
+			} else if (section == COMPUTE_TRUE_HEADER) {
+				expectHeader("B+", COMPUTE_TRUE);
+			} else if (section == COMPUTE_FALSE_HEADER) {
+				expectHeader("B-", COMPUTE_FALSE);
+			} else if (section == COMPUTE_TRUE || section == COMPUTE_FALSE) {
+				int atom = readNumber();
+				
+				if (atom != 0) {
+					(section == COMPUTE_TRUE ? computeTrue : computeFalse).add(atom);
+				} else {
+					section = section == COMPUTE_TRUE ? COMPUTE_FALSE_HEADER : MODELS;
+				}
+			} else if (section == MODELS) {
+				models = readNumber();
+				section = END;
+			} else {
+				throw new PostprocessingException("Unexpected line after the number of models: " + cursor.text());
+			}
+		} catch (PostprocessingException e) {
+			error = e;
+		}
+	}
+	
+	/**
+	 * Rewrites a rule of the grounder, see
+	 * {@link Postprocessor#performPostprocessing(String, String, String, List)}.
+	 */
+	private void readRule() throws IOException, PostprocessingException {
+		// like the original, 'fact :- _fl' is rewritten even if -_fl has no symbol
+		boolean hasFactAtom = factAtom > -1;
+		int type = cursor.nextInt();
+		
+		if (type == 1) {
+			int head = cursor.nextInt();
+			int size = cursor.nextInt();
+			int negSize = cursor.nextInt();
+			int literal = cursor.nextInt();
+			
+			if (hasFactAtom && !factAtomConstraintRemoved && head == 1 && size == 2 && negSize == 0
+					&& literal == factAtom && cursor.nextInt() == negatedFactAtom && cursor.atEnd()) {
+				// constraint ':- _fl, -_fl'
+				factAtomConstraintRemoved = true;
+				return;
+			} else if (head > -1 && debugAtomSet.get(head)) {
+				// rule with a debug symbol in the head, remove it
+				return;
+			} else if (hasFactAtom && size == 1 && negSize == 0 && literal == factAtom && cursor.atEnd()) {
+				// replace 'fact :- _fl' with 'fact.'
+				listener.event(GroundRule.fact(head));
+				return;
+			}
+		} else if (type == 8 && hasFactAtom && !factAtomDisjunctionRemoved
+				&& Postprocessor.isFactAtomDisjunction(cursor, factAtom, negatedFactAtom)) {
+			// disjunction '_fl | -_fl'
+			factAtomDisjunctionRemoved = true;
+			return;
+		}
+		
+		listener.event(GroundRule.read(cursor));
+	}
+	
+	private void readSymbol() throws IOException, PostprocessingException {
+		int atom = cursor.nextInt();
+		
+		if (atom == 0 && cursor.atEnd()) {
+			section = COMPUTE_TRUE_HEADER;
+			return;
+		}
+		
+		if (atom < 1 || cursor.atEnd()) {
+			throw new PostprocessingException("Malformed symbol table entry: " + cursor.text());
+		}
+		
+		int nameStart = cursor.pos;
+		int nameEnd = cursor.lineEnd;
+		
+		if (matcher.isFactAtom(line, nameStart, nameEnd)) {
+			factAtom = atom;
+			return;
+		} else if (matcher.isNegatedFactAtom(line, nameStart, nameEnd)) {
+			negatedFactAtom = atom;
+			return;
+		} else if (matcher.isDebugAtom(line, nameStart, nameEnd)) {
+			debugAtoms.add(atom);
+			debugAtomSet.set(atom);
+		}
+		
+		if (matcher.hasFixedModel() && matcher.isModelCandidate(line, nameStart, nameEnd)) {
+			if (matcher.isInFixedModel(line, nameStart, nameEnd)) {
+				fixedModelAtoms.add(atom);
+			} else {
+				nonFixedModelAtoms.add(atom);
+			}
+		}
+		
+		listener.event(new GroundSymbol(atom, new String(line, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8)));
+	}
+	
+	private int readNumber() throws PostprocessingException {
+		int value = cursor.nextInt();
+		
+		if (value < 0 || !cursor.atEnd()) {
+			throw new PostprocessingException("Malformed compute statement entry: " + cursor.text());
+		}
+		
+		return value;
+	}
+	
+	private void expectHeader(String header, int next) throws PostprocessingException {
+		if (!header.equals(cursor.text())) {
+			throw new PostprocessingException("Expected the compute statement " + header + " but found: " + cursor.text());
+		}
+		
+		section = next;
+	}
+}
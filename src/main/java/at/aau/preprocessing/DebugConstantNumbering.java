@@ -0,0 +1,144 @@
+package at.aau.preprocessing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Assigns the numbers of the debug constants by the text of the rules instead
+ * of their position, so a rule keeps its debug constant when other rules are
+ * added, removed or moved.
+ * <p>
+ * A rule is identified by the SHA-256 hash of its text without whitespace and
+ * by its occurrence, i.e. the second identical rule of a program has a
+ * different number than the first one. New rules get the next unused number;
+ * the numbers of removed rules are not reused. The numbering can be saved and
+ * loaded to keep the numbers across runs.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DebugConstantNumbering {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
+	private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+	
+	/** The numbers of the debug constants by the key of their rule */
+	private final Map<String, Integer> numbers = new HashMap<String, Integer>();
+	
+	private int lastNumber;
+	
+	/**
+	 * Returns the number of the debug constant of the given rule, or assigns
+	 * the next number if the rule is new.
+	 *
+	 * @param rule
+	 *            The text of the rule, without the terminating '.'.
+	 * @param occurrence
+	 *            How many identical rules precede the rule in the program.
+	 */
+	public synchronized int getNumber(String rule, int occurrence) {
+		String key = getKey(normalize(rule), occurrence);
+		Integer number = numbers.get(key);
+		
+		if (null == number) {
+			number = ++ lastNumber;
+			numbers.put(key, number);
+		}
+		
+		return number;
+	}
+	
+	/**
+	 * Returns the number of rules that have a number.
+	 */
+	public synchronized int size() {
+		return numbers.size();
+	}
+	
+	/**
+	 * Returns the text of the rule without whitespace, which identifies the
+	 * rule together with its occurrence.
+	 */
+	public static String normalize(String rule) {
+		return WHITESPACE_PATTERN.matcher(rule).replaceAll("");
+	}
+	
+	/**
+	 * Writes the numbering as lines <code>number hash</code>.
+	 */
+	public synchronized void write(Writer writer) throws IOException {
+		for (Map.Entry<String, Integer> entry : numbers.entrySet()) {
+			writer.write(entry.getValue() + " " + entry.getKey() + "\n");
+		}
+		
+		writer.flush();
+	}
+	
+	/**
+	 * Reads a numbering that was written by {@link #write(Writer)}.
+	 *
+	 * @throws IOException
+	 *             If the numbering could not be read or is malformed.
+	 */
+	public static DebugConstantNumbering read(Reader reader) throws IOException {
+		DebugConstantNumbering numbering = new DebugConstantNumbering();
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		
+		while (null != (line = lines.readLine())) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			
+			int separator = line.indexOf(' ');
+			int number;
+			
+			try {
+				number = Integer.parseInt(line.substring(0, Math.max(separator, 0)));
+			} catch (NumberFormatException e) {
+				throw new IOException("Malformed debug constant numbering: " + line);
+			}
+			
+			if (number < 1) {
+				throw new IOException("Malformed debug constant numbering: " + line);
+			}
+			
+			numbering.numbers.put(line.substring(separator + 1), number);
+			numbering.lastNumber = Math.max(numbering.lastNumber, number);
+		}
+		
+		return numbering;
+	}
+	
+	private static String getKey(String normalizedRule, int occurrence) {
+		byte[] digest = sha256().digest(normalizedRule.getBytes(StandardCharsets.UTF_8));
+		StringBuilder key = new StringBuilder(2 * digest.length + 4);
+		
+		for (byte b : digest) {
+			key.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+		}
+		
+		if (occurrence > 0) {
+			key.append('/').append(occurrence);
+		}
+		
+		return key.toString();
+	}
+	
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
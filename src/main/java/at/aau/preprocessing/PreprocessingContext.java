@@ -0,0 +1,240 @@
+package at.aau.preprocessing;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import at.aau.DebugRuleMap;
+import at.aau.Rule;
+import at.aau.output.DebugMapFile;
+import at.aau.util.IntList;
+
+/**
+ * What the postprocessing needs to know about a preprocessed program: the
+ * fact literal, the fixed model and the rules of the debug constants. The
+ * context is saved next to the preprocessed program, so the program can be
+ * grounded elsewhere, or the grounding can be retried or replaced by a cached
+ * ground file, and postprocessed later without preprocessing it again.
+ * <p>
+ * The context is saved in a binary format, so it is loaded without parsing
+ * the logic program again. The rules are saved in the format of the
+ * {@link DebugMapFile}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PreprocessingContext {
+	/** The first bytes of a serialized context, "GWPC" */
+	private static final int MAGIC = 0x47575043;
+	
+	private static final int VERSION = 2;
+	
+	private final String factLiteral;
+	
+	private final List<String> fixedModel;
+	
+	private final boolean debugConstants;
+	
+	private final String debugConstantPrefix;
+	
+	private final Map<String, Rule> debugRuleMap;
+	
+	/**
+	 * Creates the context of a preprocessed program.
+	 *
+	 * @param fixedModel
+	 *            The atoms of the fixed model, or <code>null</code> if the
+	 *            program has no fixed model.
+	 * @param debugConstants
+	 *            Whether the debug constants were added.
+	 * @param debugRuleMap
+	 *            The map of the debug constants to the ungrounded rules.
+	 */
+	public PreprocessingContext(String factLiteral, List<String> fixedModel, boolean debugConstants, String debugConstantPrefix,
+			Map<String, Rule> debugRuleMap) {
+		this.factLiteral = factLiteral;
+		this.fixedModel = fixedModel;
+		this.debugConstants = debugConstants;
+		this.debugConstantPrefix = debugConstantPrefix;
+		this.debugRuleMap = debugRuleMap;
+	}
+	
+	public String getFactLiteral() {
+		return factLiteral;
+	}
+	
+	/**
+	 * Returns the atoms of the fixed model, or <code>null</code> if the
+	 * program has no fixed model.
+	 */
+	public List<String> getFixedModel() {
+		return fixedModel;
+	}
+	
+	public boolean hasDebugConstants() {
+		return debugConstants;
+	}
+	
+	public String getDebugConstantPrefix() {
+		return debugConstantPrefix;
+	}
+	
+	public Map<String, Rule> getDebugRuleMap() {
+		return debugRuleMap;
+	}
+	
+	/**
+	 * Writes the context in a binary format that can be read with
+	 * {@link #read(InputStream)}. The stream is flushed but not closed.
+	 */
+	public void write(OutputStream output) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		writeString(data, factLiteral);
+		data.writeInt(null == fixedModel ? -1 : fixedModel.size());
+		
+		if (null != fixedModel) {
+			for (String atom : fixedModel) {
+				writeString(data, atom);
+			}
+		}
+		
+		data.writeBoolean(debugConstants);
+		writeString(data, debugConstantPrefix);
+		
+		// the rules in the format of the debug map files, after their length
+		ByteArrayOutputStream debugMap = new ByteArrayOutputStream();
+		DebugMapFile.write(debugRuleMap, debugConstantPrefix, debugMap);
+		data.writeInt(debugMap.size());
+		debugMap.writeTo(data);
+		
+		data.flush();
+	}
+	
+	/**
+	 * Reads a context written by {@link #write(OutputStream)}. The rules are
+	 * read into a {@link DebugRuleMap}. The stream is not closed.
+	 *
+	 * @throws IOException
+	 *             If the stream could not be read or does not contain a
+	 *             context.
+	 */
+	public static PreprocessingContext read(InputStream input) throws IOException {
+		DataInputStream data = new DataInputStream(input);
+		
+		if (data.readInt() != MAGIC) {
+			throw new IOException("The stream does not contain a preprocessing context");
+		}
+		
+		int version = data.readInt();
+		
+		if (version != VERSION) {
+			throw new IOException("Unsupported version of the preprocessing context: " + version);
+		}
+		
+		String factLiteral = readString(data);
+		int fixedModelSize = data.readInt();
+		List<String> fixedModel = null;
+		
+		if (fixedModelSize > -1) {
+			fixedModel = new ArrayList<String>(fixedModelSize);
+			
+			for (int i = 0; i < fixedModelSize; i ++) {
+				fixedModel.add(readString(data));
+			}
+		}
+		
+		boolean debugConstants = data.readBoolean();
+		String debugConstantPrefix = readString(data);
+		int debugMapLength = data.readInt();
+		
+		if (debugMapLength < 0) {
+			throw new IOException("Malformed preprocessing context");
+		}
+		
+		byte[] debugMapData = new byte[debugMapLength];
+		data.readFully(debugMapData);
+		DebugMapFile debugMap;
+		
+		try {
+			debugMap = DebugMapFile.read(ByteBuffer.wrap(debugMapData));
+		} catch (IOException e) {
+			throw new IOException("Malformed debug map in the preprocessing context. Details:\n" + e.getMessage(), e);
+		}
+		
+		// the rule map takes the rule texts from a program, which is made of the rules
+		IntList numbers = new IntList();
+		IntList ends = new IntList();
+		List<List<String>> variables = new ArrayList<List<String>>();
+		StringBuilder rules = new StringBuilder();
+		
+		for (int number = 1; number <= debugMap.getMaxNumber(); number ++) {
+			Rule rule;
+			
+			try {
+				rule = debugMap.getRule(number);
+			} catch (BufferUnderflowException | NegativeArraySizeException e) {
+				throw new IOException("Malformed rule of debug constant " + number + " in the preprocessing context", e);
+			}
+			
+			if (null == rule) {
+				continue;
+			}
+			
+			String text = rule.getRule();
+			rules.append(text, 0, text.endsWith(".") ? text.length() - 1 : text.length());
+			numbers.add(number);
+			ends.add(rules.length());
+			variables.add(rule.getVariables());
+			rules.append(".\n");
+		}
+		
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		debugRuleMap.reset(rules.toString(), debugConstantPrefix);
+		int start = 0;
+		
+		for (int i = 0; i < numbers.size(); i ++) {
+			try {
+				debugRuleMap.addRule(numbers.get(i), start, ends.get(i), variables.get(i));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Malformed preprocessing context. Details:\n" + e.getMessage(), e);
+			}
+			
+			start = ends.get(i) + 2;
+		}
+		
+		return new PreprocessingContext(factLiteral, null == fixedModel ? null : Collections.unmodifiableList(fixedModel),
+				debugConstants, debugConstantPrefix, debugRuleMap);
+	}
+	
+	private static void writeString(DataOutputStream data, String string) throws IOException {
+		byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+		data.writeInt(encoded.length);
+		data.write(encoded);
+	}
+	
+	private static String readString(DataInputStream data) throws IOException {
+		int length = data.readInt();
+		
+		if (length < 0) {
+			throw new IOException("Malformed preprocessing context");
+		}
+		
+		byte[] encoded = new byte[length];
+		data.readFully(encoded);
+		
+		return new String(encoded, StandardCharsets.UTF_8);
+	}
+}
@@ -1,16 +1,22 @@
 package at.aau.preprocessing;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import at.aau.DebugRuleMap;
 import at.aau.Rule;
 
 /**
  * Preprocessor that replaces each fact by a rule.
+ * <p>
+ * The preprocessor has no state, so a single instance can be used by several
+ * threads at the same time.
  * 
  * @author Philip Gasteiger
  *
@@ -64,22 +70,18 @@ public class Preprocessor {
 			+ "(_*[A-Z][A-Za-z0-9]*)" // variable
 			+ "(?=[),; ])"; // positive lookahead for a ending delimiter of the variable
 	
-	private static final Pattern FIX_MODEL_PATTERN = Pattern.compile(FIX_MODEL_REGEX, Pattern.MULTILINE);
-	
-	private static final Pattern ASSERT_TRUE_PATTERN = Pattern.compile(ASSERT_TRUE_REGEX, Pattern.MULTILINE);
-	
-	private static final Pattern ASSERT_FALSE_PATTERN = Pattern.compile(ASSERT_FALSE_REGEX, Pattern.MULTILINE);
-
 	private static final Pattern FACT_PATTERN = Pattern.compile(FACT_REGEX, Pattern.MULTILINE);
 	
 	private static final Pattern VARIABLE_PATTERN = Pattern.compile(VARIABLE_REGEX);
 	
-	private static final Pattern COMMENT_PATTERN = Pattern.compile(" *%.*$", Pattern.MULTILINE);
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 	
-	private static final Pattern AGGREGATE_PATTERN = Pattern.compile("[^\\{\\},]*\\{[^\\{\\}]*?\\}[^\\{\\},]*");
-		
 	public String removeComments(String logicProgram) {
-		return COMMENT_PATTERN.matcher(logicProgram).replaceAll("");
+		if (logicProgram.indexOf('%') < 0) {
+			return logicProgram;
+		}
+		
+		return CommentPattern.PATTERN.matcher(logicProgram).replaceAll("");
 	}
 	
 	/**
@@ -94,8 +96,12 @@ public class Preprocessor {
 	 * @return The rewritten logic program.
 	 */
 	public String rewriteAssertions(String logicProgram) {
-		logicProgram = ASSERT_TRUE_PATTERN.matcher(logicProgram).replaceAll(":- not ${ASSERTION}");
-		logicProgram = ASSERT_FALSE_PATTERN.matcher(logicProgram).replaceAll(":- ${ASSERTION}");
+		if (!logicProgram.contains("assert")) {
+			return logicProgram;
+		}
+		
+		logicProgram = AssertionPatterns.ASSERT_TRUE.matcher(logicProgram).replaceAll(":- not ${ASSERTION}");
+		logicProgram = AssertionPatterns.ASSERT_FALSE.matcher(logicProgram).replaceAll(":- ${ASSERTION}");
 				
 		return logicProgram;
 	}
@@ -108,7 +114,10 @@ public class Preprocessor {
 	 */
 	//TODO implement functionality for multi-line comments detection
 	public List<String> getFixedModel(String logicProgram) {
-		Matcher matcher = FIX_MODEL_PATTERN.matcher(logicProgram);
+		if (!logicProgram.contains("fixModel"))
+			return null;
+		
+		Matcher matcher = FixModelPattern.PATTERN.matcher(logicProgram);
 		
 		if (!matcher.find())
 			return null;
@@ -155,7 +164,7 @@ public class Preprocessor {
 
 		do {
 			// generate a candidate fact literal
-			factLiteral = "_fl" + UUID.randomUUID().toString().replaceAll("-", "");
+			factLiteral = "_fl" + randomHex();
 		} while (logicProgram.contains(factLiteral));
 
 		return factLiteral;
@@ -196,29 +205,51 @@ public class Preprocessor {
 	 *            The prefix for the debug constants to be added.
 	 * @param debugAtomRuleMap
 	 *            Gets filled with mappings { _debug# -> rule | rule is a non
-	 *            fact rule}.
+	 *            fact rule}. A {@link DebugRuleMap} only stores the positions
+	 *            of the rules in the given logic program.
 	 * @return The modified logic program.
 	 */
 	public String addDebugConstants(String logicProgram,
 			String debugConstantPrefix, Map<String, Rule> debugAtomRuleMap) {
+		return addDebugConstants(logicProgram, debugConstantPrefix, debugAtomRuleMap, null);
+	}
+	
+	/**
+	 * Adds the debug constants with the numbers of the given numbering, so
+	 * the rules keep their debug constants across changes of the program.
+	 * 
+	 * @param numbering
+	 *            The numbering of the debug constants by the rules, or
+	 *            <code>null</code> to number the rules in their order.
+	 * @see #addDebugConstants(String, String, Map)
+	 */
+	public String addDebugConstants(String logicProgram,
+			String debugConstantPrefix, Map<String, Rule> debugAtomRuleMap, DebugConstantNumbering numbering) {
 		StringBuilder preprocessedProgram = new StringBuilder(logicProgram.length());
 		StringBuilder debugRules = new StringBuilder();
-		int debugConstantNum = 1;
+		Map<String, Integer> occurrences = null == numbering ? null : new HashMap<String, Integer>();
+		int ruleNum = 1;
+		int debugConstantNum;
 		
-		Pattern aggregateTerm1 = Pattern.compile(AGGREGATE_PATTERN.pattern() + ",");
-		Pattern aggregateTerm2 = Pattern.compile("," + AGGREGATE_PATTERN.pattern() + "(?!,)");
+		if (debugAtomRuleMap instanceof DebugRuleMap) {
+			((DebugRuleMap) debugAtomRuleMap).reset(logicProgram, debugConstantPrefix);
+		}
+		
+		// the start of the current rule in the logic program
+		int ruleStart = 0;
 		
 		// split the program into rules. The regex matches only a single '.'
 		for (String rule : logicProgram.split("(?<!\\.)\\.(?!\\.)")) {
 			if (rule.contains(":-")) {
 				// rule, identified by ':-', thus add ', _debug#' to the rule
+				debugConstantNum = getDebugConstantNum(numbering, occurrences, rule, ruleNum);
 				StringBuilder debugConstant = new StringBuilder();
 				debugConstant.append(debugConstantPrefix);
 				debugConstant.append(debugConstantNum);
 				
 				List<String> variables = getVariables(rule.split(":-")[1]);
 
-				debugAtomRuleMap.put(debugConstantPrefix + debugConstantNum, new Rule(rule.replace("\n", "").trim() + ".", variables));
+				putRule(debugAtomRuleMap, debugConstantPrefix, debugConstantNum, rule, ruleStart, variables);
 				
 				if (variables.size() > 0) {
 					debugConstant.append("(");
@@ -240,30 +271,34 @@ public class Preprocessor {
 				if (variables.size() > 0) {
 					debugRules.append(" :- ");
 					String r = rule.split(":-")[1];
-					r=aggregateTerm1.matcher(r).replaceAll("");
-					r=aggregateTerm2.matcher(r).replaceAll("");
-					r=AGGREGATE_PATTERN.matcher(r).replaceAll("");
+					
+					if (r.indexOf('{') > -1) {
+						r=AggregatePatterns.AGGREGATE_TERM_1.matcher(r).replaceAll("");
+						r=AggregatePatterns.AGGREGATE_TERM_2.matcher(r).replaceAll("");
+						r=AggregatePatterns.AGGREGATE.matcher(r).replaceAll("");
+					}
 				
 					debugRules.append(r);
 				}
 				
 				debugRules.append(".\n");
 				
-				debugConstantNum ++;
+				ruleNum ++;
 			} else if (rule.contains("|") || (rule.contains("{") && rule.contains("}"))) {
 				// disjunction or choice rule, thus add ' :- _debug#' to the rule
+				debugConstantNum = getDebugConstantNum(numbering, occurrences, rule, ruleNum);
 				preprocessedProgram.append(rule);
 				preprocessedProgram.append(" :- ");
 				preprocessedProgram.append(debugConstantPrefix);
 				preprocessedProgram.append(debugConstantNum);
 				preprocessedProgram.append(".");
-				debugAtomRuleMap.put(debugConstantPrefix + debugConstantNum, new Rule(rule.replace("\n", "").trim() + "."));
+				putRule(debugAtomRuleMap, debugConstantPrefix, debugConstantNum, rule, ruleStart, new ArrayList<String>());
 				
 				debugRules.append(debugConstantPrefix);
 				debugRules.append(debugConstantNum);
 				debugRules.append(".\n");
 				
-				debugConstantNum ++;
+				ruleNum ++;
 			} else {
 				// fact, thus do not alter it
 				preprocessedProgram.append(rule);
@@ -273,10 +308,12 @@ public class Preprocessor {
 					preprocessedProgram.append(".");
 				}
 			}
+			
+			ruleStart += rule.length() + 1;
 		}
 		
 		// add choice rule for debug constants
-		if (debugConstantNum > 1) {
+		if (ruleNum > 1) {
 			preprocessedProgram.append("\n");
 			preprocessedProgram.append(debugRules);
 		}
@@ -284,6 +321,35 @@ public class Preprocessor {
 		return preprocessedProgram.toString();
 	}
 	
+	/**
+	 * Adds the rule that starts at the given position of the logic program to
+	 * the debug rule map.
+	 */
+	private void putRule(Map<String, Rule> debugAtomRuleMap, String debugConstantPrefix, int debugConstantNum, String rule, int ruleStart, List<String> variables) {
+		if (debugAtomRuleMap instanceof DebugRuleMap) {
+			((DebugRuleMap) debugAtomRuleMap).addRule(debugConstantNum, ruleStart, ruleStart + rule.length(), variables);
+		} else {
+			debugAtomRuleMap.put(debugConstantPrefix + debugConstantNum, new Rule(rule.replace("\n", "").trim() + ".", variables));
+		}
+	}
+	
+	/**
+	 * Returns the number of the debug constant of the given rule, which is
+	 * either taken from the numbering or the position of the rule.
+	 */
+	private int getDebugConstantNum(DebugConstantNumbering numbering, Map<String, Integer> occurrences, String rule, int ruleNum) {
+		if (null == numbering) {
+			return ruleNum;
+		}
+		
+		String normalized = DebugConstantNumbering.normalize(rule);
+		Integer occurrence = occurrences.get(normalized);
+		occurrence = null == occurrence ? 0 : occurrence + 1;
+		occurrences.put(normalized, occurrence);
+		
+		return numbering.getNumber(normalized, occurrence);
+	}
+	
 	/**
 	 * Get all variables inside the given rule body.
 	 * 
@@ -293,7 +359,10 @@ public class Preprocessor {
 	 */
 	private List<String> getVariables(String ruleBody) {
 		// remove any aggregates from the rule body
-		ruleBody = AGGREGATE_PATTERN.matcher(ruleBody).replaceAll("");
+		if (ruleBody.indexOf('{') > -1) {
+			ruleBody = AggregatePatterns.AGGREGATE.matcher(ruleBody).replaceAll("");
+		}
+		
 		List<String> variables = new ArrayList<String>();
 		Matcher variableMatcher = VARIABLE_PATTERN.matcher(ruleBody);
 		
@@ -306,4 +375,49 @@ public class Preprocessor {
 		
 		return variables;
 	}
+	
+	/**
+	 * Returns 32 random hexadecimal digits. Unlike a random {@link java.util.UUID},
+	 * no secure random generator is seeded, which is slow at startup.
+	 */
+	private static String randomHex() {
+		Random random = ThreadLocalRandom.current();
+		char[] digits = new char[32];
+		
+		for (int i = 0; i < digits.length; i += 16) {
+			long value = random.nextLong();
+			
+			for (int j = 0; j < 16; j ++) {
+				digits[i + j] = HEX_DIGITS[(int) (value >>> (60 - 4 * j)) & 0xf];
+			}
+		}
+		
+		return new String(digits);
+	}
+	
+	/** The comment pattern, compiled when the first comment is removed. */
+	private static class CommentPattern {
+		private static final Pattern PATTERN = Pattern.compile(" *%.*$", Pattern.MULTILINE);
+	}
+	
+	/** The assertion patterns, compiled when the first assertion is rewritten. */
+	private static class AssertionPatterns {
+		private static final Pattern ASSERT_TRUE = Pattern.compile(ASSERT_TRUE_REGEX, Pattern.MULTILINE);
+		
+		private static final Pattern ASSERT_FALSE = Pattern.compile(ASSERT_FALSE_REGEX, Pattern.MULTILINE);
+	}
+	
+	/** The fixModel pattern, compiled when the first fixModel command is read. */
+	private static class FixModelPattern {
+		private static final Pattern PATTERN = Pattern.compile(FIX_MODEL_REGEX, Pattern.MULTILINE);
+	}
+	
+	/** The aggregate patterns, compiled when the first aggregate is removed. */
+	private static class AggregatePatterns {
+		private static final Pattern AGGREGATE = Pattern.compile("[^\\{\\},]*\\{[^\\{\\}]*?\\}[^\\{\\},]*");
+		
+		private static final Pattern AGGREGATE_TERM_1 = Pattern.compile(AGGREGATE.pattern() + ",");
+		
+		private static final Pattern AGGREGATE_TERM_2 = Pattern.compile("," + AGGREGATE.pattern() + "(?!,)");
+	}
 }
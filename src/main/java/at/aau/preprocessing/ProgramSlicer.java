@@ -0,0 +1,150 @@
+package at.aau.preprocessing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the statements of a logic program that cannot affect the given
+ * predicates, so only the relevant part of the program is grounded and
+ * debugged.
+ * <p>
+ * The slice is the backward dependency cone of the target predicates: a rule
+ * is kept if its head contains a predicate of the cone, and then all
+ * predicates of the rule belong to the cone. Constraints, including the
+ * rewritten assertions, are kept if they use a predicate of the cone, since
+ * they restrict the answer sets in which it is derived, and their predicates
+ * belong to the cone as well. A <code>fixModel</code> statement is kept if it
+ * mentions a predicate of the cone, directives are always kept.
+ * <p>
+ * Predicates are identified by their name only, so <code>p/1</code> and
+ * <code>p/2</code> are both in the cone if one of them is, and the conditions
+ * of choice heads count as part of the head. The slice may thus contain more
+ * rules than necessary, but never less.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ProgramSlicer {
+	private static final String FIX_MODEL = "fixModel";
+	
+	/**
+	 * Slices the given program.
+	 *
+	 * @param logicProgram
+	 *            The logic program without comments.
+	 * @param targets
+	 *            The predicates or atoms to slice to, e.g. <code>p</code>,
+	 *            <code>p/2</code> or <code>p(1,a)</code>.
+	 * @param removedRules
+	 *            Gets filled with the rules that are not part of the slice,
+	 *            without the removed facts, or <code>null</code>.
+	 * @return The slice of the program. The kept statements are unchanged and
+	 *         in their original order. If the program cannot be split into
+	 *         statements, it is returned unchanged.
+	 */
+	public String slice(String logicProgram, List<String> targets, List<String> removedRules) {
+		List<String> statements = Statements.split(logicProgram);
+		
+		if (null == statements) {
+			return logicProgram;
+		}
+		
+		Set<String> cone = new HashSet<String>();
+		
+		for (String target : targets) {
+			cone.add(getPredicateName(target));
+		}
+		
+		int count = statements.size();
+		List<List<String>> headNames = new ArrayList<List<String>>(count);
+		List<List<String>> names = new ArrayList<List<String>>(count);
+		boolean[] kept = new boolean[count];
+		
+		for (String statement : statements) {
+			String text = statement.trim();
+			int neck = Statements.indexOfNeck(text);
+			
+			if (text.startsWith(FIX_MODEL + "(")) {
+				// the atoms of the fixed model are the arguments of the statement
+				text = text.substring(text.indexOf('(') + 1, text.lastIndexOf(')') > 0 ? text.lastIndexOf(')') : text.length());
+				headNames.add(Collections.<String>emptyList());
+				names.add(Statements.getPredicateNames(text));
+			} else {
+				String head = text.startsWith(":~") ? "" : neck >= 0 ? text.substring(0, neck) : text.substring(0, text.length() - 1);
+				headNames.add(Statements.getPredicateNames(head));
+				names.add(Statements.getPredicateNames(text));
+			}
+		}
+		
+		boolean changed = true;
+		
+		while (changed) {
+			changed = false;
+			
+			for (int i = 0; i < count; i ++) {
+				if (kept[i]) {
+					continue;
+				}
+				
+				String text = statements.get(i).trim();
+				
+				if (text.startsWith("#")) {
+					kept[i] = true;
+				} else if (text.startsWith(FIX_MODEL + "(")) {
+					kept[i] = !Collections.disjoint(names.get(i), cone);
+				} else if (headNames.get(i).isEmpty() ? !Collections.disjoint(names.get(i), cone) : !Collections.disjoint(headNames.get(i), cone)) {
+					kept[i] = true;
+					changed |= cone.addAll(names.get(i));
+				}
+			}
+		}
+		
+		StringBuilder slice = new StringBuilder(logicProgram.length());
+		
+		for (int i = 0; i < count; i ++) {
+			String statement = statements.get(i);
+			
+			if (kept[i]) {
+				slice.append(statement);
+			} else if (null != removedRules && !isFact(statement.trim(), headNames.get(i))) {
+				removedRules.add(statement.replace("\n", "").trim());
+			}
+		}
+		
+		return slice.toString();
+	}
+	
+	/**
+	 * Returns the predicate name of a target, e.g. <code>p</code> for
+	 * <code>p/2</code> or <code>p(1,a)</code>.
+	 */
+	private static String getPredicateName(String target) {
+		String name = target.trim();
+		
+		if (name.startsWith("-")) {
+			name = name.substring(1);
+		}
+		
+		int end = name.length();
+		
+		for (char separator : new char[] { '(', '/' }) {
+			if (name.indexOf(separator) >= 0) {
+				end = Math.min(end, name.indexOf(separator));
+			}
+		}
+		
+		return name.substring(0, end).trim();
+	}
+	
+	/**
+	 * Checks whether the statement is a fact, i.e. has no body and a single
+	 * atom in the head.
+	 */
+	private static boolean isFact(String statement, List<String> headNames) {
+		return Statements.indexOfNeck(statement) < 0 && headNames.size() == 1
+				&& statement.indexOf('{') < 0 && statement.indexOf('|') < 0 && !statement.startsWith(FIX_MODEL + "(");
+	}
+}
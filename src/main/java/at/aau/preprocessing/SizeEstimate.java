@@ -0,0 +1,132 @@
+package at.aau.preprocessing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The estimated size of a grounded program, as computed by the
+ * {@link SizeEstimator} before the program is grounded.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class SizeEstimate {
+	private final long facts;
+	
+	private final List<RuleEstimate> rules;
+	
+	public SizeEstimate(long facts, List<RuleEstimate> rules) {
+		this.facts = facts;
+		this.rules = Collections.unmodifiableList(new ArrayList<RuleEstimate>(rules));
+	}
+	
+	/**
+	 * Returns the number of ground facts of the program.
+	 */
+	public long getFacts() {
+		return facts;
+	}
+	
+	/**
+	 * Returns the estimates of the rules, in the order of the program.
+	 */
+	public List<RuleEstimate> getRules() {
+		return rules;
+	}
+	
+	/**
+	 * Returns the estimated number of rules of the grounded program, i.e. the
+	 * facts and the ground instances of all rules.
+	 */
+	public long getTotalRules() {
+		long total = facts;
+		
+		for (RuleEstimate rule : rules) {
+			total = saturatedAdd(total, rule.getInstances());
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * Formats the estimate as a table of the rules with the most ground
+	 * instances.
+	 *
+	 * @param maxRules
+	 *            The maximum number of rules in the table.
+	 */
+	public String format(int maxRules) {
+		List<RuleEstimate> sorted = new ArrayList<RuleEstimate>(rules);
+		Collections.sort(sorted, new Comparator<RuleEstimate>() {
+			@Override
+			public int compare(RuleEstimate a, RuleEstimate b) {
+				return Long.compare(b.getInstances(), a.getInstances());
+			}
+		});
+		
+		long total = getTotalRules();
+		StringBuilder table = new StringBuilder();
+		table.append(String.format("size estimate: %d rules, %d facts\n", total, facts));
+		table.append(String.format("\n%12s %7s  %-12s %s\n", "instances", "share", "constant", "rule"));
+		
+		for (RuleEstimate rule : sorted.subList(0, Math.min(maxRules, sorted.size()))) {
+			table.append(String.format("%12d %6.1f%%  %-12s %s\n",
+					rule.getInstances(),
+					total == 0 ? 0.0 : 100.0 * rule.getInstances() / total,
+					null == rule.getDebugConstant() ? "" : rule.getDebugConstant(),
+					rule.getRule()));
+		}
+		
+		if (sorted.size() > maxRules) {
+			table.append(String.format("%12s  (%d more rules)\n", "...", sorted.size() - maxRules));
+		}
+		
+		return table.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return format(Integer.MAX_VALUE);
+	}
+	
+	static long saturatedAdd(long a, long b) {
+		long sum = a + b;
+		return sum < 0 ? Long.MAX_VALUE : sum;
+	}
+	
+	/**
+	 * The estimated number of ground instances of a rule.
+	 */
+	public static class RuleEstimate {
+		private final String rule;
+		private final String debugConstant;
+		private final long instances;
+		
+		public RuleEstimate(String rule, String debugConstant, long instances) {
+			this.rule = rule;
+			this.debugConstant = debugConstant;
+			this.instances = instances;
+		}
+		
+		/**
+		 * Returns the text of the rule in the preprocessed program.
+		 */
+		public String getRule() {
+			return rule;
+		}
+		
+		/**
+		 * Returns the debug constant of the rule, or <code>null</code> if the
+		 * rule has none.
+		 */
+		public String getDebugConstant() {
+			return debugConstant;
+		}
+		
+		public long getInstances() {
+			return instances;
+		}
+	}
+}
@@ -0,0 +1,708 @@
+package at.aau.preprocessing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import at.aau.preprocessing.SizeEstimate.RuleEstimate;
+
+/**
+ * Estimates the size of the grounded program from the preprocessed program,
+ * without calling the grounder.
+ * <p>
+ * The facts are counted per predicate, together with the number of distinct
+ * values of each argument. The ground instances of a rule are estimated by
+ * joining the positive atoms of its body from left to right: two atoms that
+ * share a variable <code>X</code> join to
+ * <code>|R| * |S| / max(V(R, X), V(S, X))</code> instances, where
+ * <code>V</code> is the number of distinct values of <code>X</code>. A
+ * comparison keeps a third of the instances, negative literals and
+ * aggregates keep all of them. The estimated instances of a rule are added to
+ * the predicates of its head, and the rules are estimated again until the
+ * sizes of the predicates do not change any more, so rules that use the head
+ * of a later rule, like the rules of the debug constants, are estimated
+ * correctly. Recursive predicates are limited to the number of combinations
+ * of the constants in the facts.
+ * <p>
+ * Pools and ranges in facts are expanded, conditions of choice and
+ * conditional literals are ignored. The estimate is meant to tell the order of
+ * magnitude of the grounded program, not its exact size.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class SizeEstimator {
+	/** A single '.' that terminates a statement */
+	private static final Pattern STATEMENT_END_PATTERN = Pattern.compile("(?<!\\.)\\.(?!\\.)");
+	
+	private static final Pattern ATOM_PATTERN = Pattern.compile("(-?[a-z_][A-Za-z0-9_']*)\\s*(?:\\((.*)\\))?", Pattern.DOTALL);
+	
+	private static final Pattern VARIABLE_PATTERN = Pattern.compile("(?<![A-Za-z0-9_'])[A-Z][A-Za-z0-9_']*");
+	
+	private static final Pattern SIMPLE_VARIABLE_PATTERN = Pattern.compile("[A-Z][A-Za-z0-9_']*");
+	
+	private static final Pattern RANGE_PATTERN = Pattern.compile("(-?[A-Za-z0-9_]+)\\s*\\.\\.\\s*(-?[A-Za-z0-9_]+)");
+	
+	private static final Pattern NEGATION_PATTERN = Pattern.compile("not\\s");
+	
+	private static final Pattern CONST_PATTERN = Pattern.compile("#const\\s+([a-z_][A-Za-z0-9_']*)\\s*=\\s*(-?[0-9]+)\\s*");
+	
+	/** The comparison operators, longer operators first */
+	private static final String[] COMPARISON_OPERATORS = { "!=", "<=", ">=", "==", "<", ">", "=" };
+	
+	/** The share of the instances that satisfy an inequality */
+	private static final double COMPARISON_SELECTIVITY = 1.0 / 3;
+	
+	/** The maximum number of times the rules are estimated */
+	private static final int MAX_PASSES = 10;
+	
+	/** The ranges up to this size are expanded to count the distinct values */
+	private static final long MAX_EXPANDED_RANGE = 100000;
+	
+	/**
+	 * Estimates the size of the grounded program.
+	 *
+	 * @param logicProgram
+	 *            The preprocessed logic program, without comments.
+	 * @param debugConstantPrefix
+	 *            The prefix of the debug constants, which are shown in the
+	 *            estimates of the rules, or <code>null</code>.
+	 * @return The estimate.
+	 */
+	public SizeEstimate estimate(String logicProgram, String debugConstantPrefix) {
+		List<String> statements = getStatements(logicProgram);
+		Map<String, Long> constants = new HashMap<String, Long>();
+		
+		for (String statement : statements) {
+			Matcher constant = CONST_PATTERN.matcher(statement);
+			
+			if (constant.matches()) {
+				constants.put(constant.group(1), Long.parseLong(constant.group(2)));
+			}
+		}
+		
+		Map<String, FactTable> factTables = new HashMap<String, FactTable>();
+		List<ParsedRule> rules = new ArrayList<ParsedRule>();
+		Set<String> universe = new HashSet<String>();
+		long universeExtra = 0;
+		long facts = 0;
+		
+		for (String statement : statements) {
+			if (statement.startsWith("#") || statement.startsWith("[")) {
+				// directives and the weights of weak constraints
+				continue;
+			}
+			
+			Atom fact = getFact(statement);
+			
+			if (null == fact) {
+				rules.add(new ParsedRule(statement, debugConstantPrefix));
+				continue;
+			}
+			
+			FactTable table = factTables.get(fact.key);
+			
+			if (null == table) {
+				table = new FactTable(fact.arguments.size());
+				factTables.put(fact.key, table);
+			}
+			
+			long count = 1;
+			
+			for (int i = 0; i < fact.arguments.size(); i ++) {
+				long values = addValues(fact.arguments.get(i), table.values.get(i), constants);
+				table.extra[i] += Math.max(0, values - MAX_EXPANDED_RANGE);
+				count = saturatedMultiply(count, values);
+				
+				if (values > MAX_EXPANDED_RANGE) {
+					universeExtra += values;
+				}
+			}
+			
+			for (Set<String> values : table.values) {
+				universe.addAll(values);
+			}
+			
+			table.size = SizeEstimate.saturatedAdd(table.size, count);
+			facts = SizeEstimate.saturatedAdd(facts, count);
+		}
+		
+		double universeSize = Math.max(1, universe.size() + universeExtra);
+		Map<String, Relation> relations = merge(factTables, new HashMap<String, Relation>(), universeSize);
+		double[] instances = new double[rules.size()];
+		double previousTotal = -1;
+		
+		for (int pass = 0; pass < MAX_PASSES; pass ++) {
+			Map<String, Relation> derived = new HashMap<String, Relation>();
+			double total = 0;
+			
+			for (int i = 0; i < rules.size(); i ++) {
+				instances[i] = rules.get(i).estimate(relations, derived);
+				total += instances[i];
+			}
+			
+			relations = merge(factTables, derived, universeSize);
+			
+			if (Math.abs(total - previousTotal) <= 1e-6 * Math.max(1, total)) {
+				break;
+			}
+			
+			previousTotal = total;
+		}
+		
+		List<RuleEstimate> estimates = new ArrayList<RuleEstimate>(rules.size());
+		
+		for (int i = 0; i < rules.size(); i ++) {
+			ParsedRule rule = rules.get(i);
+			estimates.add(new RuleEstimate(rule.text, rule.debugConstant, toLong(instances[i])));
+		}
+		
+		return new SizeEstimate(facts, estimates);
+	}
+	
+	/**
+	 * Splits the program into its statements, without the terminating '.'.
+	 */
+	private static List<String> getStatements(String logicProgram) {
+		List<String> statements = new ArrayList<String>();
+		Matcher statementEnd = STATEMENT_END_PATTERN.matcher(logicProgram);
+		int start = 0;
+		
+		while (statementEnd.find()) {
+			String statement = logicProgram.substring(start, statementEnd.start()).trim();
+			start = statementEnd.end();
+			
+			if (!statement.isEmpty()) {
+				statements.add(statement);
+			}
+		}
+		
+		return statements;
+	}
+	
+	/**
+	 * Returns the atom of the given statement if it is a fact, i.e. a single
+	 * atom without variables.
+	 */
+	private static Atom getFact(String statement) {
+		if (statement.startsWith(":") || indexOf(statement, ":-") >= 0 || VARIABLE_PATTERN.matcher(statement).find()) {
+			return null;
+		}
+		
+		if (split(statement, "|;").size() > 1) {
+			return null;
+		}
+		
+		return Atom.parse(statement);
+	}
+	
+	/**
+	 * Adds the values of an argument of a fact, which may be a pool or a
+	 * range.
+	 *
+	 * @return The number of values of the argument.
+	 */
+	private static long addValues(String argument, Set<String> values, Map<String, Long> constants) {
+		List<String> pool = split(argument, ";");
+		
+		if (pool.size() > 1) {
+			long count = 0;
+			
+			for (String element : pool) {
+				count += addValues(element.trim(), values, constants);
+			}
+			
+			return count;
+		}
+		
+		Matcher range = RANGE_PATTERN.matcher(argument);
+		Long from = range.matches() ? getInteger(range.group(1), constants) : null;
+		Long to = range.matches() ? getInteger(range.group(2), constants) : null;
+		
+		if (null == from || null == to) {
+			values.add(argument);
+			return 1;
+		}
+		
+		long count = Math.max(0, to - from + 1);
+		
+		if (count <= MAX_EXPANDED_RANGE) {
+			for (long value = from; value <= to; value ++) {
+				values.add(String.valueOf(value));
+			}
+		}
+		
+		return count;
+	}
+	
+	private static Long getInteger(String term, Map<String, Long> constants) {
+		try {
+			return Long.parseLong(term);
+		} catch (NumberFormatException e) {
+			return constants.get(term);
+		}
+	}
+	
+	/**
+	 * Combines the facts with the derived atoms of the rules.
+	 */
+	private static Map<String, Relation> merge(Map<String, FactTable> factTables, Map<String, Relation> derived, double universeSize) {
+		Map<String, Relation> relations = new HashMap<String, Relation>();
+		
+		for (Map.Entry<String, FactTable> entry : factTables.entrySet()) {
+			FactTable table = entry.getValue();
+			Relation relation = new Relation(table.values.size());
+			relation.size = table.size;
+			
+			for (int i = 0; i < relation.distinct.length; i ++) {
+				relation.distinct[i] = table.values.get(i).size() + table.extra[i];
+			}
+			
+			relations.put(entry.getKey(), relation);
+		}
+		
+		for (Map.Entry<String, Relation> entry : derived.entrySet()) {
+			Relation derivedRelation = entry.getValue();
+			Relation relation = relations.get(entry.getKey());
+			
+			if (null == relation) {
+				relations.put(entry.getKey(), derivedRelation);
+				relation = derivedRelation;
+			} else {
+				relation.size += derivedRelation.size;
+				
+				for (int i = 0; i < relation.distinct.length; i ++) {
+					relation.distinct[i] += derivedRelation.distinct[i];
+				}
+			}
+		
+		}
+		
+		for (Relation relation : relations.values()) {
+			double combinations = 1;
+			
+			for (int i = 0; i < relation.distinct.length; i ++) {
+				relation.distinct[i] = Math.max(1, Math.min(relation.distinct[i], Math.min(relation.size, universeSize)));
+				combinations *= relation.distinct[i];
+			}
+			
+			// each atom is derived only once
+			relation.size = Math.min(relation.size, combinations);
+		}
+		
+		return relations;
+	}
+	
+	/**
+	 * Returns the index of the given text outside of parentheses, braces,
+	 * brackets and strings, or -1.
+	 */
+	private static int indexOf(String text, String search) {
+		int depth = 0;
+		
+		for (int i = 0; i < text.length(); i ++) {
+			char c = text.charAt(i);
+			
+			if (c == '"') {
+				i = skipString(text, i);
+			} else if (c == '(' || c == '{' || c == '[') {
+				depth ++;
+			} else if (c == ')' || c == '}' || c == ']') {
+				depth --;
+			} else if (depth == 0 && text.startsWith(search, i)) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Splits the text at the given separators outside of parentheses, braces,
+	 * brackets and strings.
+	 */
+	private static List<String> split(String text, String separators) {
+		List<String> parts = new ArrayList<String>();
+		int depth = 0;
+		int start = 0;
+		
+		for (int i = 0; i < text.length(); i ++) {
+			char c = text.charAt(i);
+			
+			if (c == '"') {
+				i = skipString(text, i);
+			} else if (c == '(' || c == '{' || c == '[') {
+				depth ++;
+			} else if (c == ')' || c == '}' || c == ']') {
+				depth --;
+			} else if (depth == 0 && separators.indexOf(c) >= 0) {
+				parts.add(text.substring(start, i).trim());
+				start = i + 1;
+			}
+		}
+		
+		parts.add(text.substring(start).trim());
+		return parts;
+	}
+	
+	/**
+	 * Checks whether the parentheses of the text are balanced, i.e. whether
+	 * the text is a single term and not e.g. <code>a), q(b</code>.
+	 */
+	private static boolean isBalanced(String text) {
+		int depth = 0;
+		
+		for (int i = 0; i < text.length() && depth >= 0; i ++) {
+			char c = text.charAt(i);
+			
+			if (c == '"') {
+				i = skipString(text, i);
+			} else if (c == '(') {
+				depth ++;
+			} else if (c == ')') {
+				depth --;
+			}
+		}
+		
+		return depth == 0;
+	}
+	
+	private static int skipString(String text, int start) {
+		int i = start + 1;
+		
+		while (i < text.length() && text.charAt(i) != '"') {
+			i += text.charAt(i) == '\\' ? 2 : 1;
+		}
+		
+		return i;
+	}
+	
+	private static List<String> getVariables(String term) {
+		List<String> variables = new ArrayList<String>();
+		Matcher variable = VARIABLE_PATTERN.matcher(term);
+		
+		while (variable.find()) {
+			variables.add(variable.group());
+		}
+		
+		return variables;
+	}
+	
+	private static long saturatedMultiply(long a, long b) {
+		if (a != 0 && b > Long.MAX_VALUE / a) {
+			return Long.MAX_VALUE;
+		}
+		
+		return a * b;
+	}
+	
+	private static long toLong(double instances) {
+		return instances >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) Math.ceil(instances);
+	}
+	
+	/** An atom with its predicate, e.g. <code>p/2</code>, and arguments */
+	private static class Atom {
+		private final String name;
+		private final String key;
+		private final List<String> arguments;
+		
+		private Atom(String name, List<String> arguments) {
+			this.name = name;
+			this.key = name + "/" + arguments.size();
+			this.arguments = arguments;
+		}
+		
+		/**
+		 * Parses the given atom.
+		 *
+		 * @return The atom, or <code>null</code> if the text is not an atom.
+		 */
+		public static Atom parse(String text) {
+			Matcher atom = ATOM_PATTERN.matcher(text.trim());
+			
+			if (!atom.matches() || (null != atom.group(2) && !isBalanced(atom.group(2)))) {
+				return null;
+			}
+			
+			List<String> arguments = null == atom.group(2) ? new ArrayList<String>() : split(atom.group(2), ",");
+			return new Atom(atom.group(1), arguments);
+		}
+	}
+	
+	/** The facts of a predicate */
+	private static class FactTable {
+		private long size;
+		private final List<Set<String>> values;
+		/** The values of the ranges that were too large to expand */
+		private final long[] extra;
+		
+		public FactTable(int arity) {
+			values = new ArrayList<Set<String>>(arity);
+			extra = new long[arity];
+			
+			for (int i = 0; i < arity; i ++) {
+				values.add(new HashSet<String>());
+			}
+		}
+	}
+	
+	/** The estimated size of a predicate and the distinct values of its arguments */
+	private static class Relation {
+		private double size;
+		private final double[] distinct;
+		
+		public Relation(int arity) {
+			distinct = new double[arity];
+		}
+	}
+	
+	/** A rule, split into the atoms of its head and the literals of its body */
+	private static class ParsedRule {
+		private final String text;
+		private final String debugConstant;
+		private final List<Atom> head = new ArrayList<Atom>();
+		private final List<Atom> positiveBody = new ArrayList<Atom>();
+		private final List<String> comparisons = new ArrayList<String>();
+		/** The number of positive atoms that precede each comparison */
+		private final List<Integer> comparisonPositions = new ArrayList<Integer>();
+		
+		public ParsedRule(String statement, String debugConstantPrefix) {
+			this.text = statement + ".";
+			
+			String headText = statement;
+			String bodyText = "";
+			int neck = statement.startsWith(":~") ? 0 : indexOf(statement, ":-");
+			
+			if (neck >= 0) {
+				headText = statement.substring(0, neck);
+				bodyText = statement.substring(neck + 2);
+			}
+			
+			addHeadAtoms(headText.trim());
+			
+			for (String literal : split(bodyText, ",;")) {
+				if (literal.isEmpty() || NEGATION_PATTERN.matcher(literal).lookingAt() || literal.startsWith("#") || indexOf(literal, ":") >= 0) {
+					continue;
+				}
+				
+				Atom atom = Atom.parse(literal);
+				
+				if (null != atom) {
+					positiveBody.add(atom);
+				} else if (indexOf(literal, "{") < 0) {
+					comparisons.add(literal);
+					comparisonPositions.add(positiveBody.size());
+				}
+			}
+			
+			this.debugConstant = getDebugConstant(debugConstantPrefix);
+		}
+		
+		private void addHeadAtoms(String headText) {
+			if (headText.isEmpty() || headText.startsWith("#")) {
+				return;
+			}
+			
+			if (headText.indexOf('{') >= 0) {
+				// the elements of a choice, without its bounds
+				int start = headText.indexOf('{');
+				int end = headText.lastIndexOf('}');
+				headText = end > start ? headText.substring(start + 1, end) : "";
+			}
+			
+			for (String element : split(headText, "|;")) {
+				int condition = indexOf(element, ":");
+				Atom atom = Atom.parse(condition >= 0 ? element.substring(0, condition) : element);
+				
+				if (null != atom) {
+					head.add(atom);
+				}
+			}
+		}
+		
+		private String getDebugConstant(String debugConstantPrefix) {
+			if (null == debugConstantPrefix || debugConstantPrefix.isEmpty()) {
+				return null;
+			}
+			
+			for (Atom atom : positiveBody) {
+				if (isDebugConstant(atom.name, debugConstantPrefix)) {
+					return atom.name;
+				}
+			}
+			
+			for (Atom atom : head) {
+				if (isDebugConstant(atom.name, debugConstantPrefix)) {
+					return atom.name;
+				}
+			}
+			
+			return null;
+		}
+		
+		private static boolean isDebugConstant(String name, String debugConstantPrefix) {
+			if (!name.startsWith(debugConstantPrefix) || name.length() == debugConstantPrefix.length()) {
+				return false;
+			}
+			
+			for (int i = debugConstantPrefix.length(); i < name.length(); i ++) {
+				if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Estimates the ground instances of the rule and adds them to the
+		 * derived atoms of its head.
+		 *
+		 * @param relations
+		 *            The sizes of the predicates.
+		 * @param derived
+		 *            The derived atoms of the rules.
+		 * @return The estimated number of ground instances.
+		 */
+		public double estimate(Map<String, Relation> relations, Map<String, Relation> derived) {
+			Map<String, Double> bound = new HashMap<String, Double>();
+			double size = 1;
+			
+			int comparison = 0;
+			
+			for (int position = 0; position <= positiveBody.size(); position ++) {
+				// the comparisons are applied in the order of the body
+				while (comparison < comparisons.size() && comparisonPositions.get(comparison) <= position) {
+					size *= getSelectivity(comparisons.get(comparison ++), bound);
+				}
+				
+				if (position == positiveBody.size()) {
+					break;
+				}
+				
+				Atom atom = positiveBody.get(position);
+				Relation relation = relations.get(atom.key);
+				
+				if (null == relation || relation.size == 0) {
+					size = 0;
+					break;
+				}
+				
+				// the distinct values of the columns that are joined, in the atom and in the rule so far
+				double atomKeys = 1;
+				double ruleKeys = 1;
+				List<String> newVariables = new ArrayList<String>();
+				List<Double> newDistinct = new ArrayList<Double>();
+				
+				for (int i = 0; i < atom.arguments.size(); i ++) {
+					String argument = atom.arguments.get(i);
+					List<String> variables = getVariables(argument);
+					double distinct = relation.distinct[i];
+					
+					if (variables.isEmpty() || bound.keySet().containsAll(variables)) {
+						atomKeys *= distinct;
+						ruleKeys *= SIMPLE_VARIABLE_PATTERN.matcher(argument).matches() ? bound.get(argument) : 1;
+					} else {
+						for (String variable : variables) {
+							if (!bound.containsKey(variable)) {
+								newVariables.add(variable);
+								newDistinct.add(distinct);
+							}
+						}
+					}
+				}
+				
+				atomKeys = Math.min(atomKeys, relation.size);
+				ruleKeys = Math.min(ruleKeys, size);
+				size = size * relation.size / Math.max(atomKeys, ruleKeys);
+				
+				for (int i = 0; i < atom.arguments.size(); i ++) {
+					String argument = atom.arguments.get(i);
+					
+					if (bound.containsKey(argument)) {
+						bound.put(argument, Math.min(bound.get(argument), relation.distinct[i]));
+					}
+				}
+				
+				for (int i = 0; i < newVariables.size(); i ++) {
+					if (!bound.containsKey(newVariables.get(i))) {
+						bound.put(newVariables.get(i), newDistinct.get(i));
+					}
+				}
+			}
+			
+			for (Atom atom : head) {
+				Relation relation = derived.get(atom.key);
+				
+				if (null == relation) {
+					relation = new Relation(atom.arguments.size());
+					derived.put(atom.key, relation);
+				}
+				
+				relation.size += size;
+				
+				for (int i = 0; i < atom.arguments.size(); i ++) {
+					String argument = atom.arguments.get(i);
+					Double distinct = bound.get(argument);
+					
+					if (getVariables(argument).isEmpty()) {
+						relation.distinct[i] += 1;
+					} else {
+						relation.distinct[i] += null == distinct ? size : Math.min(distinct, size);
+					}
+				}
+			}
+			
+			return size;
+		}
+		
+		/**
+		 * Returns the share of the instances that satisfy the comparison. An
+		 * assignment to an unbound variable binds the variable.
+		 */
+		private static double getSelectivity(String comparison, Map<String, Double> bound) {
+			for (String operator : COMPARISON_OPERATORS) {
+				int index = indexOf(comparison, operator);
+				
+				if (index < 0) {
+					continue;
+				}
+				
+				String left = comparison.substring(0, index).trim();
+				String right = comparison.substring(index + operator.length()).trim();
+				
+				if (operator.equals("!=")) {
+					return 1;
+				} else if (!operator.equals("=") && !operator.equals("==")) {
+					return COMPARISON_SELECTIVITY;
+				} else if (SIMPLE_VARIABLE_PATTERN.matcher(left).matches() && !bound.containsKey(left)) {
+					bound.put(left, getMaxDistinct(right, bound));
+					return 1;
+				}
+				
+				return 1 / Math.max(getMaxDistinct(left, bound), getMaxDistinct(right, bound));
+			}
+			
+			return 1;
+		}
+		
+		private static double getMaxDistinct(String term, Map<String, Double> bound) {
+			double max = 1;
+			
+			for (String variable : getVariables(term)) {
+				Double distinct = bound.get(variable);
+				
+				if (null != distinct) {
+					max = Math.max(max, distinct);
+				}
+			}
+			
+			return max;
+		}
+	}
+}
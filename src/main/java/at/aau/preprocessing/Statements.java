@@ -0,0 +1,138 @@
+package at.aau.preprocessing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a logic program without comments into its statements and finds the
+ * predicates they use.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public final class Statements {
+	/** A single '.' that terminates a statement */
+	private static final Pattern STATEMENT_END_PATTERN = Pattern.compile("(?<!\\.)\\.(?!\\.)");
+	
+	private Statements() {
+	}
+	
+	/**
+	 * Splits the given program into its statements.
+	 *
+	 * @return The statements, each with the whitespace before it and the
+	 *         terminating '.', so they concatenate to the program. Returns
+	 *         <code>null</code> if the program ends with an unterminated
+	 *         statement.
+	 */
+	public static List<String> split(String logicProgram) {
+		List<String> statements = new ArrayList<String>();
+		Matcher statementEnd = STATEMENT_END_PATTERN.matcher(logicProgram);
+		int start = 0;
+		
+		while (statementEnd.find()) {
+			statements.add(logicProgram.substring(start, statementEnd.end()));
+			start = statementEnd.end();
+		}
+		
+		if (!logicProgram.substring(start).trim().isEmpty()) {
+			return null;
+		}
+		
+		return statements;
+	}
+	
+	/**
+	 * Returns the position of the ':-' that separates the head from the body
+	 * of the statement, or -1 if the statement has no body.
+	 */
+	public static int indexOfNeck(String statement) {
+		int depth = 0;
+		int length = statement.length();
+		
+		for (int i = 0; i < length; i ++) {
+			char c = statement.charAt(i);
+			
+			if (c == '"') {
+				i = skipString(statement, i);
+			} else if (c == '(') {
+				depth ++;
+			} else if (c == ')') {
+				depth --;
+			} else if (depth == 0 && c == ':' && i + 1 < length && statement.charAt(i + 1) == '-') {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Returns the names of the predicates of the given statement, i.e. the
+	 * identifiers outside of parentheses, in the order they occur. This
+	 * includes constants that are compared outside of parentheses.
+	 */
+	public static List<String> getPredicateNames(String statement) {
+		List<String> names = new ArrayList<String>();
+		int depth = 0;
+		int length = statement.length();
+		
+		for (int i = 0; i < length; i ++) {
+			char c = statement.charAt(i);
+			
+			if (c == '"') {
+				i = skipString(statement, i);
+			} else if (c == '(') {
+				depth ++;
+			} else if (c == ')') {
+				depth --;
+			} else if (isIdentifierPart(c)) {
+				int end = i + 1;
+				
+				while (end < length && isIdentifierPart(statement.charAt(end))) {
+					end ++;
+				}
+				
+				boolean keyword = i > 0 && statement.charAt(i - 1) == '#';
+				String name = statement.substring(i, end);
+				
+				if (depth == 0 && !keyword && isName(name) && !name.equals("not")) {
+					names.add(name);
+				}
+				
+				i = end - 1;
+			}
+		}
+		
+		return names;
+	}
+	
+	private static int skipString(String statement, int start) {
+		int i = start + 1;
+		
+		while (i < statement.length() && statement.charAt(i) != '"') {
+			i += statement.charAt(i) == '\\' ? 2 : 1;
+		}
+		
+		return i;
+	}
+	
+	private static boolean isIdentifierPart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '\'';
+	}
+	
+	/**
+	 * Checks whether the identifier is a name, i.e. not a variable or number.
+	 */
+	private static boolean isName(String identifier) {
+		int first = 0;
+		
+		while (first < identifier.length() && identifier.charAt(first) == '_') {
+			first ++;
+		}
+		
+		return first < identifier.length() && identifier.charAt(first) >= 'a' && identifier.charAt(first) <= 'z';
+	}
+}
@@ -0,0 +1,128 @@
+package at.aau.statistics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters of a running grounding, which a {@link ProgressReporter} reads
+ * while they are updated. The I/O and postprocessing loops update the
+ * counters once per chunk of data, not per byte or rule, and the reporter
+ * samples them in its own interval, so the loops do not wait for the
+ * reporting.
+ * <p>
+ * The counters of all programs grounded with the same progress add up.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class Progress {
+	private final long start = System.nanoTime();
+	
+	/** The current stage, or <code>null</code> if no stage started yet */
+	private volatile String stage;
+	
+	private volatile long stageStart = start;
+	
+	private final AtomicLong bytesSent = new AtomicLong();
+	
+	private final AtomicLong bytesReceived = new AtomicLong();
+	
+	private final AtomicLong rules = new AtomicLong();
+	
+	/**
+	 * Sets the current stage, called by {@link Statistics#begin(String, long)}.
+	 */
+	public void stageStarted(String stage) {
+		stageStart = System.nanoTime();
+		this.stage = stage;
+	}
+	
+	/**
+	 * Returns the current stage, or <code>null</code> if no stage started yet.
+	 */
+	public String getStage() {
+		return stage;
+	}
+	
+	/**
+	 * Returns the time since the progress was created in nanoseconds.
+	 */
+	public long getElapsedTime() {
+		return System.nanoTime() - start;
+	}
+	
+	/**
+	 * Returns the time since the current stage started in nanoseconds.
+	 */
+	public long getStageElapsedTime() {
+		return System.nanoTime() - stageStart;
+	}
+	
+	/**
+	 * Adds the given number of bytes of the program that were piped to the
+	 * grounder.
+	 */
+	public void addBytesSent(long bytes) {
+		bytesSent.addAndGet(bytes);
+	}
+	
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+	
+	/**
+	 * Adds the given number of bytes of the grounded program that were
+	 * received from the grounder.
+	 */
+	public void addBytesReceived(long bytes) {
+		bytesReceived.addAndGet(bytes);
+	}
+	
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+	
+	/**
+	 * Adds the given number of ground rules that were postprocessed.
+	 */
+	public void addRules(long count) {
+		rules.addAndGet(count);
+	}
+	
+	public long getRules() {
+		return rules.get();
+	}
+	
+	/**
+	 * Returns a stream that counts the bytes read from the given stream of
+	 * the grounder as received. The bytes are counted once per read, i.e. per
+	 * chunk of the pipe.
+	 */
+	public InputStream countReceived(InputStream input) {
+		return new FilterInputStream(input) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				
+				if (b > -1) {
+					addBytesReceived(1);
+				}
+				
+				return b;
+			}
+			
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				int read = super.read(buffer, offset, length);
+				
+				if (read > 0) {
+					addBytesReceived(read);
+				}
+				
+				return read;
+			}
+		};
+	}
+}
@@ -0,0 +1,191 @@
+package at.aau.statistics;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+import at.aau.output.JsonWriter;
+
+/**
+ * Reports a {@link Progress} in a fixed interval, as a line of text, e.g. on
+ * stderr, and as a JSON object per line for other programs, e.g. on a file
+ * descriptor. The counters are sampled on a daemon thread of the reporter,
+ * so a grounding that is stuck is still reported.
+ * <p>
+ * The rates are those since the previous report.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ProgressReporter {
+	private final Progress progress;
+	
+	private final long intervalMillis;
+	
+	/** The stream of the text reports, or <code>null</code> */
+	private final PrintStream text;
+	
+	/** The stream of the JSON reports, or <code>null</code> */
+	private final PrintStream json;
+	
+	private Thread thread;
+	
+	private boolean stopped;
+	
+	private long previousTime;
+	
+	private long previousBytesReceived;
+	
+	private long previousRules;
+	
+	/**
+	 * Creates a reporter of the given progress.
+	 *
+	 * @param intervalMillis
+	 *            The milliseconds between two reports.
+	 * @param text
+	 *            The stream of the text reports, or <code>null</code>.
+	 * @param json
+	 *            The stream of the JSON reports, or <code>null</code>.
+	 */
+	public ProgressReporter(Progress progress, long intervalMillis, PrintStream text, PrintStream json) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("The interval of the progress reports must be positive");
+		}
+		
+		this.progress = progress;
+		this.intervalMillis = intervalMillis;
+		this.text = text;
+		this.json = json;
+	}
+	
+	/**
+	 * Starts to report the progress.
+	 */
+	public synchronized void start() {
+		if (null != thread || stopped) {
+			return;
+		}
+		
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						Thread.sleep(intervalMillis);
+						report(false);
+					}
+				} catch (InterruptedException e) {
+					// stopped
+				}
+			}
+		}, "progress-reporter");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Stops the reports and reports the progress a last time. Further calls
+	 * do nothing.
+	 */
+	public void stop() {
+		Thread thread;
+		
+		synchronized (this) {
+			if (stopped) {
+				return;
+			}
+			
+			stopped = true;
+			thread = this.thread;
+		}
+		
+		if (null != thread) {
+			thread.interrupt();
+			
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		report(true);
+	}
+	
+	/**
+	 * Samples the counters and writes the reports.
+	 *
+	 * @param last
+	 *            Whether this is the report after the grounding.
+	 */
+	synchronized void report(boolean last) {
+		String stage = null == progress.getStage() ? "starting" : progress.getStage();
+		long time = progress.getElapsedTime();
+		long stageTime = progress.getStageElapsedTime();
+		long bytesSent = progress.getBytesSent();
+		long bytesReceived = progress.getBytesReceived();
+		long rules = progress.getRules();
+		double seconds = (time - previousTime) / 1e9;
+		double bytesPerSecond = seconds > 0 ? (bytesReceived - previousBytesReceived) / seconds : 0;
+		double rulesPerSecond = seconds > 0 ? (rules - previousRules) / seconds : 0;
+		
+		previousTime = time;
+		previousBytesReceived = bytesReceived;
+		previousRules = rules;
+		
+		if (null != text) {
+			text.println(formatText(stage, last, time, stageTime, bytesSent, bytesReceived, bytesPerSecond, rules, rulesPerSecond));
+			text.flush();
+		}
+		
+		if (null != json) {
+			json.println(formatJson(stage, last, time, stageTime, bytesSent, bytesReceived, bytesPerSecond, rules, rulesPerSecond));
+			json.flush();
+		}
+	}
+	
+	static String formatText(String stage, boolean last, long time, long stageTime, long bytesSent, long bytesReceived,
+			double bytesPerSecond, long rules, double rulesPerSecond) {
+		return String.format(Locale.ROOT, "progress: %s %.1f s (total %.1f s), sent %s, received %s (%s/s), %d rules (%.0f/s)",
+				last ? "done, " + stage : stage, stageTime / 1e9, time / 1e9, formatBytes(bytesSent), formatBytes(bytesReceived),
+				formatBytes((long) bytesPerSecond), rules, rulesPerSecond);
+	}
+	
+	static String formatJson(String stage, boolean last, long time, long stageTime, long bytesSent, long bytesReceived,
+			double bytesPerSecond, long rules, double rulesPerSecond) {
+		JsonWriter writer = new JsonWriter();
+		writer.beginObject();
+		writer.name("stage").value(stage);
+		writer.name("done").value(last);
+		writer.name("elapsedNs").value(time);
+		writer.name("stageElapsedNs").value(stageTime);
+		writer.name("bytesSent").value(bytesSent);
+		writer.name("bytesReceived").value(bytesReceived);
+		writer.name("bytesReceivedPerSecond").value(bytesPerSecond);
+		writer.name("rules").value(rules);
+		writer.name("rulesPerSecond").value(rulesPerSecond);
+		writer.endObject();
+		
+		return writer.toString();
+	}
+	
+	/**
+	 * Returns the given number of bytes in B, KB, MB or GB.
+	 */
+	static String formatBytes(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		
+		String[] units = { "KB", "MB", "GB" };
+		double value = bytes / 1024.0;
+		int unit = 0;
+		
+		while (value >= 1024 && unit < units.length - 1) {
+			value /= 1024;
+			unit ++;
+		}
+		
+		return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+	}
+}
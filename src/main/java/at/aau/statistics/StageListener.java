@@ -0,0 +1,32 @@
+package at.aau.statistics;
+
+/**
+ * Gets notified about the start and the end of the stages recorded by
+ * {@link Statistics}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public interface StageListener {
+	/**
+	 * Called when a stage starts.
+	 * 
+	 * @param stage
+	 *            The name of the stage.
+	 * @return A handle that is passed to
+	 *         {@link #stageFinished(Object, StageStatistics)}, may be
+	 *         <code>null</code>.
+	 */
+	public Object stageStarted(String stage);
+	
+	/**
+	 * Called when a stage ends.
+	 * 
+	 * @param handle
+	 *            The handle returned by {@link #stageStarted(String)}.
+	 * @param statistics
+	 *            The statistics of the stage. The resource usage is only
+	 *            measured if the statistics are collected.
+	 */
+	public void stageFinished(Object handle, StageStatistics statistics);
+}
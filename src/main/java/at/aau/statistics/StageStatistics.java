@@ -0,0 +1,104 @@
+package at.aau.statistics;
+
+/**
+ * The resources used by a single stage of the grounding, e.g. the
+ * preprocessing or the grounder.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class StageStatistics {
+	private final String stage;
+	
+	private long wallTime;
+	
+	private long cpuTime;
+	
+	private long allocatedBytes;
+	
+	private long inputBytes;
+	
+	private long outputBytes;
+	
+	private long processTime = -1;
+	
+	public StageStatistics(String stage) {
+		this.stage = stage;
+	}
+	
+	public String getStage() {
+		return stage;
+	}
+	
+	/**
+	 * Returns the elapsed time of the stage in nanoseconds.
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+	
+	/**
+	 * Returns the CPU time of the JVM during the stage in nanoseconds,
+	 * including all threads of the stage and the garbage collector.
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+	
+	/**
+	 * Returns the number of bytes allocated by the threads of the JVM during
+	 * the stage.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+	
+	/**
+	 * Returns the size of the input of the stage. The size of a text is the
+	 * number of its characters.
+	 */
+	public long getInputBytes() {
+		return inputBytes;
+	}
+	
+	/**
+	 * Returns the size of the output of the stage. The size of a text is the
+	 * number of its characters.
+	 */
+	public long getOutputBytes() {
+		return outputBytes;
+	}
+	
+	/**
+	 * Returns the time from the start of the external process of the stage
+	 * until it closed its output in nanoseconds, or -1 if the stage has no
+	 * external process.
+	 */
+	public long getProcessTime() {
+		return processTime;
+	}
+	
+	void setWallTime(long wallTime) {
+		this.wallTime = wallTime;
+	}
+	
+	void setCpuTime(long cpuTime) {
+		this.cpuTime = cpuTime;
+	}
+	
+	void setAllocatedBytes(long allocatedBytes) {
+		this.allocatedBytes = allocatedBytes;
+	}
+	
+	void setInputBytes(long inputBytes) {
+		this.inputBytes = inputBytes;
+	}
+	
+	void setOutputBytes(long outputBytes) {
+		this.outputBytes = outputBytes;
+	}
+	
+	void setProcessTime(long processTime) {
+		this.processTime = processTime;
+	}
+}
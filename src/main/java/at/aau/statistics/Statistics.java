@@ -0,0 +1,277 @@
+package at.aau.statistics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import at.aau.output.JsonWriter;
+
+/**
+ * Records the elapsed time, the CPU time, the allocated memory and the input
+ * and output sizes of the stages of a grounding run. The stages are also
+ * reported to a {@link StageListener}, by default the one that emits JFR
+ * events if the JVM supports them.
+ * <p>
+ * If the statistics are not collected and there is no listener or progress,
+ * recording a stage does nothing.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class Statistics {
+	/** The listener that emits JFR events, only compiled on JDK 11 and later */
+	private static final String JFR_LISTENER_CLASS = "at.aau.statistics.JfrStageListener";
+	
+	private static final StageListener DEFAULT_LISTENER = loadListener(JFR_LISTENER_CLASS);
+	
+	private final boolean collect;
+	
+	private final StageListener listener;
+	
+	private final List<StageStatistics> stages = new ArrayList<StageStatistics>();
+	
+	/** The progress of the grounding, or <code>null</code> if it is not reported */
+	private Progress progress;
+	
+	/** The current stage, or <code>null</code> if no stage is running */
+	private StageStatistics current;
+	
+	private Object handle;
+	
+	private long startWallTime;
+	
+	private long startCpuTime;
+	
+	private long startAllocatedBytes;
+	
+	/**
+	 * Creates the statistics of a grounding run that report to the default
+	 * listener.
+	 * 
+	 * @param collect
+	 *            Whether to measure and keep the statistics of the stages.
+	 */
+	public Statistics(boolean collect) {
+		this(collect, DEFAULT_LISTENER);
+	}
+	
+	/**
+	 * Creates the statistics of a grounding run.
+	 * 
+	 * @param collect
+	 *            Whether to measure and keep the statistics of the stages.
+	 * @param listener
+	 *            The listener of the stages, or <code>null</code>.
+	 */
+	public Statistics(boolean collect, StageListener listener) {
+		this.collect = collect;
+		this.listener = listener;
+	}
+	
+	/**
+	 * Starts the given stage.
+	 * 
+	 * @param stage
+	 *            The name of the stage.
+	 * @param inputBytes
+	 *            The size of the input of the stage.
+	 */
+	public void begin(String stage, long inputBytes) {
+		if (null != progress) {
+			progress.stageStarted(stage);
+		}
+		
+		if (!collect && null == listener) {
+			return;
+		}
+		
+		current = new StageStatistics(stage);
+		current.setInputBytes(inputBytes);
+		
+		if (collect) {
+			startCpuTime = getProcessCpuTime();
+			startAllocatedBytes = getAllocatedBytes();
+		}
+		
+		if (null != listener) {
+			handle = listener.stageStarted(stage);
+		}
+		
+		startWallTime = System.nanoTime();
+	}
+	
+	/**
+	 * Sets the progress that is told the current stage and is updated while
+	 * the stages run.
+	 * 
+	 * @param progress
+	 *            The progress, or <code>null</code> if it is not reported.
+	 */
+	public void setProgress(Progress progress) {
+		this.progress = progress;
+	}
+	
+	/**
+	 * Returns the progress to update while the stages run, or
+	 * <code>null</code> if it is not reported.
+	 */
+	public Progress getProgress() {
+		return progress;
+	}
+	
+	/**
+	 * Sets the time of the external process of the current stage.
+	 * 
+	 * @param processTime
+	 *            The time in nanoseconds.
+	 */
+	public void setProcessTime(long processTime) {
+		if (null != current) {
+			current.setProcessTime(processTime);
+		}
+	}
+	
+	/**
+	 * Ends the current stage.
+	 * 
+	 * @param outputBytes
+	 *            The size of the output of the stage.
+	 */
+	public void end(long outputBytes) {
+		if (null == current) {
+			return;
+		}
+		
+		current.setWallTime(System.nanoTime() - startWallTime);
+		current.setOutputBytes(outputBytes);
+		
+		if (null != listener) {
+			listener.stageFinished(handle, current);
+		}
+		
+		if (collect) {
+			current.setCpuTime(difference(startCpuTime, getProcessCpuTime()));
+			current.setAllocatedBytes(difference(startAllocatedBytes, getAllocatedBytes()));
+			stages.add(current);
+		}
+		
+		current = null;
+		handle = null;
+	}
+	
+	/**
+	 * Returns the statistics of the finished stages, if they are collected.
+	 */
+	public List<StageStatistics> getStages() {
+		return Collections.unmodifiableList(stages);
+	}
+	
+	/**
+	 * Returns the statistics of the stages and their total as JSON document.
+	 * All times are in nanoseconds, -1 if they could not be measured.
+	 */
+	public String toJson() {
+		JsonWriter json = new JsonWriter();
+		long wallTime = 0;
+		long cpuTime = 0;
+		long allocatedBytes = 0;
+		
+		json.beginObject();
+		json.name("stages").beginArray();
+		
+		for (StageStatistics stage : stages) {
+			json.beginObject();
+			json.name("stage").value(stage.getStage());
+			json.name("wallTimeNs").value(stage.getWallTime());
+			json.name("cpuTimeNs").value(stage.getCpuTime());
+			json.name("allocatedBytes").value(stage.getAllocatedBytes());
+			json.name("inputBytes").value(stage.getInputBytes());
+			json.name("outputBytes").value(stage.getOutputBytes());
+			
+			if (stage.getProcessTime() > -1) {
+				json.name("processTimeNs").value(stage.getProcessTime());
+			}
+			
+			json.endObject();
+			
+			wallTime += stage.getWallTime();
+			cpuTime = sum(cpuTime, stage.getCpuTime());
+			allocatedBytes = sum(allocatedBytes, stage.getAllocatedBytes());
+		}
+		
+		json.endArray();
+		json.name("total").beginObject();
+		json.name("wallTimeNs").value(wallTime);
+		json.name("cpuTimeNs").value(cpuTime);
+		json.name("allocatedBytes").value(allocatedBytes);
+		json.endObject();
+		json.endObject();
+		
+		return json.toString();
+	}
+	
+	private static long difference(long start, long end) {
+		return start < 0 || end < 0 ? -1 : end - start;
+	}
+	
+	private static long sum(long a, long b) {
+		return a < 0 || b < 0 ? -1 : a + b;
+	}
+	
+	/**
+	 * Returns the CPU time of the JVM in nanoseconds, or -1 if it is not
+	 * supported.
+	 */
+	private static long getProcessCpuTime() {
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Returns the number of bytes allocated by the live threads of the JVM,
+	 * or -1 if it is not supported.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		
+		com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+		
+		if (!allocation.isThreadAllocatedMemorySupported() || !allocation.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+		
+		long allocatedBytes = 0;
+		
+		for (long bytes : allocation.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			if (bytes > 0) {
+				allocatedBytes += bytes;
+			}
+		}
+		
+		return allocatedBytes;
+	}
+	
+	private static StageListener loadListener(String className) {
+		try {
+			return (StageListener) Class.forName(className).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			// e.g. InvocationTargetException or NoSuchMethodException
+			return null;
+		} catch (LinkageError e) {
+			// compiled, but JFR is not available at runtime
+			return null;
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package at.aau.streaming;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Publisher} for a single subscriber, whose items are produced by
+ * {@link #produce()} on a thread of an executor. The producing thread blocks
+ * in {@link #emit(Object)} until the subscriber requested the next item, i.e.
+ * the production runs only as fast as the subscriber consumes the items.
+ *
+ * @author Philip Gasteiger
+ *
+ * @param <T>
+ *            The type of the items.
+ */
+public abstract class BlockingPublisher<T> implements Publisher<T> {
+	private final ExecutorService executor;
+	
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+	
+	private volatile Demand demand;
+	
+	/**
+	 * Creates a publisher that produces the items on the given executor.
+	 */
+	protected BlockingPublisher(ExecutorService executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Subscribes the given subscriber and starts the production. A second
+	 * subscriber fails with an {@link IllegalStateException}.
+	 */
+	@Override
+	public void subscribe(Subscriber<? super T> subscriber) {
+		if (null == subscriber) {
+			throw new NullPointerException("The subscriber must not be null");
+		}
+		
+		if (!subscribed.compareAndSet(false, true)) {
+			Demand rejected = new Demand(subscriber);
+			rejected.cancelled = true;
+			subscriber.onSubscribe(rejected);
+			subscriber.onError(new IllegalStateException("The publisher allows only a single subscriber"));
+			return;
+		}
+		
+		final Demand demand = this.demand = new Demand(subscriber);
+		subscriber.onSubscribe(demand);
+		
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				demand.run();
+			}
+		});
+	}
+	
+	/**
+	 * Produces the items by calling {@link #emit(Object)} for each item. The
+	 * subscriber is completed once it returns, or fails with the exception it
+	 * throws.
+	 */
+	protected abstract void produce() throws Exception;
+	
+	/**
+	 * Called when the subscription is cancelled, on the thread of the
+	 * subscriber, after the producing thread was interrupted. Stops the
+	 * resources of a production that may be blocked outside of
+	 * {@link #emit(Object)}.
+	 */
+	protected void cancelled() {
+	}
+	
+	/**
+	 * Passes the given item to the subscriber once it is requested.
+	 *
+	 * @throws InterruptedIOException
+	 *             If the subscription was cancelled, or the thread was
+	 *             interrupted while waiting for the request.
+	 */
+	protected final void emit(T item) throws InterruptedIOException {
+		demand.emit(item);
+	}
+	
+	/** The subscription of the subscriber */
+	private class Demand implements Subscription {
+		private final Subscriber<? super T> subscriber;
+		
+		/** The number of requested items that were not emitted yet */
+		private long requested;
+		
+		private boolean cancelled;
+		
+		private IllegalArgumentException invalidRequest;
+		
+		/** The thread that runs {@link BlockingPublisher#produce()}, or <code>null</code> */
+		private Thread producer;
+		
+		public Demand(Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+		
+		@Override
+		public void request(long n) {
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				
+				if (n > 0) {
+					requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+					notifyAll();
+					return;
+				}
+				
+				invalidRequest = new IllegalArgumentException("The number of requested items must be positive, but was " + n);
+			}
+			
+			cancel();
+		}
+		
+		@Override
+		public void cancel() {
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				
+				cancelled = true;
+				notifyAll();
+				
+				if (null != producer) {
+					producer.interrupt();
+				}
+			}
+			
+			cancelled();
+		}
+		
+		public void emit(T item) throws InterruptedIOException {
+			synchronized (this) {
+				try {
+					while (requested == 0 && !cancelled) {
+						wait();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for the subscriber");
+				}
+				
+				if (cancelled) {
+					throw new InterruptedIOException("The subscription was cancelled");
+				}
+				
+				if (requested != Long.MAX_VALUE) {
+					requested --;
+				}
+			}
+			
+			subscriber.onNext(item);
+		}
+		
+		public void run() {
+			Exception failure = null;
+			boolean started;
+			
+			synchronized (this) {
+				started = !cancelled;
+				producer = started ? Thread.currentThread() : null;
+			}
+			
+			try {
+				if (started) {
+					produce();
+				}
+			} catch (Exception e) {
+				failure = e;
+			}
+			
+			synchronized (this) {
+				producer = null;
+				
+				if (started && cancelled) {
+					// clear the interrupt of the cancellation, the thread is reused
+					Thread.interrupted();
+				}
+				
+				if (null != invalidRequest) {
+					failure = invalidRequest;
+				} else if (cancelled) {
+					// no signals after the cancellation
+					return;
+				}
+				
+				cancelled = true;
+			}
+			
+			if (null == failure) {
+				subscriber.onComplete();
+			} else {
+				subscriber.onError(failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package at.aau.streaming;
+
+/**
+ * A producer of items that are passed to a {@link Subscriber} on demand. This
+ * is the <code>java.util.concurrent.Flow.Publisher</code> interface of JDK 9
+ * and later, see <code>FlowAdapters</code> on JDK 11 and later.
+ *
+ * @author Philip Gasteiger
+ *
+ * @param <T>
+ *            The type of the items.
+ */
+public interface Publisher<T> {
+	/**
+	 * Adds the given subscriber. The publisher calls
+	 * {@link Subscriber#onSubscribe(Subscription)} first.
+	 */
+	public void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,34 @@
+package at.aau.streaming;
+
+/**
+ * A receiver of the items of a {@link Publisher}. This is the
+ * <code>java.util.concurrent.Flow.Subscriber</code> interface of JDK 9 and
+ * later.
+ *
+ * @author Philip Gasteiger
+ *
+ * @param <T>
+ *            The type of the items.
+ */
+public interface Subscriber<T> {
+	/**
+	 * Called before any other method. No items are passed until the
+	 * subscriber requests them from the subscription.
+	 */
+	public void onSubscribe(Subscription subscription);
+	
+	/**
+	 * Called for each requested item.
+	 */
+	public void onNext(T item);
+	
+	/**
+	 * Called if the publisher failed, no other method is called afterwards.
+	 */
+	public void onError(Throwable throwable);
+	
+	/**
+	 * Called after the last item, no other method is called afterwards.
+	 */
+	public void onComplete();
+}
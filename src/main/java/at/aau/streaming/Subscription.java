@@ -0,0 +1,26 @@
+package at.aau.streaming;
+
+/**
+ * The link between a {@link Publisher} and a {@link Subscriber}. This is the
+ * <code>java.util.concurrent.Flow.Subscription</code> interface of JDK 9 and
+ * later.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public interface Subscription {
+	/**
+	 * Requests the given number of further items.
+	 *
+	 * @param n
+	 *            The number of items, a value that is not positive fails the
+	 *            subscription with an {@link IllegalArgumentException}.
+	 */
+	public void request(long n);
+	
+	/**
+	 * Stops passing items to the subscriber. Items that are in progress may
+	 * still be passed.
+	 */
+	public void cancel();
+}
@@ -0,0 +1,86 @@
+package at.aau.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive <code>int</code> values.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class IntList {
+	private int[] values;
+	
+	private int size;
+	
+	public IntList() {
+		this(16);
+	}
+	
+	public IntList(int initialCapacity) {
+		this.values = new int[Math.max(1, initialCapacity)];
+		this.size = 0;
+	}
+	
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length << 1);
+		}
+		
+		values[size ++] = value;
+	}
+	
+	public void addAll(IntList other) {
+		if (size + other.size > values.length) {
+			values = Arrays.copyOf(values, Math.max(values.length << 1, size + other.size));
+		}
+		
+		System.arraycopy(other.values, 0, values, size, other.size);
+		size += other.size;
+	}
+	
+	public int get(int idx) {
+		if (idx >= size) {
+			throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + size);
+		}
+		
+		return values[idx];
+	}
+	
+	public void set(int idx, int value) {
+		if (idx >= size) {
+			throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + size);
+		}
+		
+		values[idx] = value;
+	}
+	
+	/**
+	 * Inserts the given values at the given index.
+	 */
+	public void insert(int idx, int... inserted) {
+		if (size + inserted.length > values.length) {
+			values = Arrays.copyOf(values, Math.max(values.length << 1, size + inserted.length));
+		}
+		
+		System.arraycopy(values, idx, values, idx + inserted.length, size - idx);
+		System.arraycopy(inserted, 0, values, idx, inserted.length);
+		size += inserted.length;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public void clear() {
+		size = 0;
+	}
+	
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
@@ -0,0 +1,88 @@
+package at.aau.statistics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits a JFR event for each stage, so the stages show up in flight
+ * recordings. The event is only created if it is enabled in the recording.
+ * <p>
+ * No event is created before the flight recorder is initialized, i.e. before
+ * the first recording is started, since the registration of the event class
+ * starts the flight recorder infrastructure, which takes longer than a small
+ * grounding run.
+ * <p>
+ * This class is only compiled on JDK 11 and later and is loaded by
+ * {@link Statistics} if available.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class JfrStageListener implements StageListener {
+	public JfrStageListener() {
+		// fails if JFR is not available at runtime
+		FlightRecorder.isInitialized();
+	}
+	
+	@Override
+	public Object stageStarted(String stage) {
+		if (!FlightRecorder.isInitialized()) {
+			return null;
+		}
+		
+		StageEvent event = new StageEvent();
+		
+		if (!event.isEnabled()) {
+			return null;
+		}
+		
+		event.stage = stage;
+		event.begin();
+		return event;
+	}
+	
+	@Override
+	public void stageFinished(Object handle, StageStatistics statistics) {
+		if (null == handle) {
+			return;
+		}
+		
+		StageEvent event = (StageEvent) handle;
+		event.end();
+		
+		if (event.shouldCommit()) {
+			event.inputBytes = statistics.getInputBytes();
+			event.outputBytes = statistics.getOutputBytes();
+			event.processTime = statistics.getProcessTime() < 0 ? Long.MIN_VALUE : statistics.getProcessTime();
+			event.commit();
+		}
+	}
+	
+	@Name("at.aau.Stage")
+	@Label("Grounding Stage")
+	@Category("Gringo Wrapper")
+	@Description("A stage of the grounding, e.g. the preprocessing or the grounder")
+	static class StageEvent extends Event {
+		@Label("Stage")
+		String stage;
+		
+		@Label("Input Size")
+		@DataAmount
+		long inputBytes;
+		
+		@Label("Output Size")
+		@DataAmount
+		long outputBytes;
+		
+		@Label("Process Time")
+		@Description("The time of the external process of the stage, if there is one")
+		@Timespan
+		long processTime;
+	}
+}
@@ -0,0 +1,60 @@
+package at.aau.streaming;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Adapts the publishers of the wrapper to {@link Flow.Publisher}, e.g. for
+ * reactive libraries that build on the Flow interfaces.
+ * <p>
+ * This class is only compiled on JDK 11 and later.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public final class FlowAdapters {
+	private FlowAdapters() {
+	}
+	
+	/**
+	 * Returns a {@link Flow.Publisher} that subscribes its subscribers to the
+	 * given publisher.
+	 */
+	public static <T> Flow.Publisher<T> toFlowPublisher(final Publisher<T> publisher) {
+		return new Flow.Publisher<T>() {
+			@Override
+			public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+				publisher.subscribe(new Subscriber<T>() {
+					@Override
+					public void onSubscribe(final Subscription subscription) {
+						subscriber.onSubscribe(new Flow.Subscription() {
+							@Override
+							public void request(long n) {
+								subscription.request(n);
+							}
+							
+							@Override
+							public void cancel() {
+								subscription.cancel();
+							}
+						});
+					}
+					
+					@Override
+					public void onNext(T item) {
+						subscriber.onNext(item);
+					}
+					
+					@Override
+					public void onError(Throwable throwable) {
+						subscriber.onError(throwable);
+					}
+					
+					@Override
+					public void onComplete() {
+						subscriber.onComplete();
+					}
+				});
+			}
+		};
+	}
+}
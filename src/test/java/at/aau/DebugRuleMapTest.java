@@ -0,0 +1,163 @@
+package at.aau;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import at.aau.output.OutputBuilder;
+import at.aau.preprocessing.Preprocessor;
+
+/**
+ * Unit tests for {@link DebugRuleMap}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DebugRuleMapTest {
+	private final String program =
+			"a :- b.\n"
+		  + "p(1). p(2).\n"
+		  + "  q(X) :-\n p(X).\n"
+		  + "{ r(X,Y) } :- p(X), q(Y).\n"
+		  + "s | t.";
+	
+	// =========================================================================
+	// addDebugConstants tests
+	// =========================================================================
+	@Test
+	public void addDebugConstants_debugRuleMap_equalsHashMap() {
+		Map<String, Rule> expected = new HashMap<String, Rule>();
+		String expectedProgram = new Preprocessor().addDebugConstants(program, "_debug", expected);
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		
+		String preprocessed = new Preprocessor().addDebugConstants(program, "_debug", debugRuleMap);
+		
+		assertEquals(expectedProgram, preprocessed);
+		assertEquals(4, debugRuleMap.size());
+		assertThat(debugRuleMap, is(expected));
+		assertThat(expected, is((Map<String, Rule>) debugRuleMap));
+	}
+	
+	@Test
+	public void addDebugConstants_twice_replacesRules() {
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		Preprocessor preprocessor = new Preprocessor();
+		preprocessor.addDebugConstants(program, "_debug", debugRuleMap);
+		
+		preprocessor.addDebugConstants("c :- d.", "_d", debugRuleMap);
+		
+		assertEquals(1, debugRuleMap.size());
+		assertEquals(new Rule("c :- d."), debugRuleMap.get("_d1"));
+		assertNull(debugRuleMap.get("_debug1"));
+	}
+	
+	// =========================================================================
+	// lookup tests
+	// =========================================================================
+	@Test
+	public void get_debugConstant_returnsRule() {
+		DebugRuleMap debugRuleMap = fill();
+		
+		assertEquals(new Rule("q(X) :- p(X).", Arrays.asList("X")), debugRuleMap.get("_debug2"));
+		assertEquals("{ r(X,Y) } :- p(X), q(Y).", debugRuleMap.getRuleText(3));
+		assertEquals(Arrays.asList("X", "Y"), debugRuleMap.getVariables(3));
+		assertTrue(debugRuleMap.containsKey("_debug4"));
+	}
+	
+	@Test
+	public void hashCode_equalMaps_sameAndStable() {
+		Map<String, Rule> expected = new HashMap<String, Rule>();
+		new Preprocessor().addDebugConstants(program, "_debug", expected);
+		DebugRuleMap debugRuleMap = fill();
+		
+		assertEquals(debugRuleMap.hashCode(), debugRuleMap.hashCode());
+		assertEquals(expected.hashCode(), debugRuleMap.hashCode());
+		assertEquals(fill().hashCode(), debugRuleMap.hashCode());
+	}
+	
+	@Test
+	public void get_otherKeys_returnsNull() {
+		DebugRuleMap debugRuleMap = fill();
+		
+		assertNull(debugRuleMap.get("_debug0"));
+		assertNull(debugRuleMap.get("_debug5"));
+		assertNull(debugRuleMap.get("_debug01"));
+		assertNull(debugRuleMap.get("_debug1x"));
+		assertNull(debugRuleMap.get("_debug99999999999"));
+		assertNull(debugRuleMap.get("_debug"));
+		assertNull(debugRuleMap.get(1));
+		assertNull(debugRuleMap.getRule(0));
+		assertFalse(debugRuleMap.containsKey("debug1"));
+	}
+	
+	// =========================================================================
+	// iteration tests
+	// =========================================================================
+	@Test
+	public void keySet_manyRules_numericOrder() {
+		StringBuilder rules = new StringBuilder();
+		List<String> expected = new ArrayList<String>();
+		
+		for (int i = 1; i <= 12; i ++) {
+			rules.append("a").append(i).append(" :- b.\n");
+			expected.add("_debug" + i);
+		}
+		
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		new Preprocessor().addDebugConstants(rules.toString(), "_debug", debugRuleMap);
+		
+		assertEquals(expected, new ArrayList<String>(debugRuleMap.keySet()));
+	}
+	
+	@Test
+	public void keySet_numbersWithGaps_skipsGaps() {
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		debugRuleMap.reset(program, "_debug");
+		debugRuleMap.addRule(5, 0, 6, new ArrayList<String>());
+		debugRuleMap.addRule(2, 22, 31, Arrays.asList("X"));
+		
+		assertEquals(Arrays.asList("_debug2", "_debug5"), new ArrayList<String>(debugRuleMap.keySet()));
+		assertEquals("a :- b.", debugRuleMap.getRuleText(5));
+		assertNull(debugRuleMap.get("_debug3"));
+		assertEquals(2, debugRuleMap.size());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void addRule_usedNumber_throwsException() {
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		debugRuleMap.reset(program, "_debug");
+		debugRuleMap.addRule(2, 0, 6, new ArrayList<String>());
+		
+		debugRuleMap.addRule(2, 0, 6, new ArrayList<String>());
+	}
+	
+	@Test
+	public void buildRuleTable_debugRuleMap_numericOrder() {
+		String expected =
+				"10 _debug1 0 a :- b.\n"
+			  + "10 _debug2 1 X q(X) :- p(X).\n"
+			  + "10 _debug3 2 X Y { r(X,Y) } :- p(X), q(Y).\n"
+			  + "10 _debug4 0 s | t.\n"
+			  + "0\n";
+		
+		assertEquals(expected, new OutputBuilder().buildRuleTable(fill()));
+	}
+	
+	private DebugRuleMap fill() {
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		new Preprocessor().addDebugConstants(program, "_debug", debugRuleMap);
+		
+		return debugRuleMap;
+	}
+}
@@ -0,0 +1,227 @@
+package at.aau;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+import at.aau.differential.CanonicalProgram;
+import at.aau.differential.DifferentialHarness;
+import at.aau.differential.GroundedProgramGenerator;
+import at.aau.differential.ProgramGenerator;
+import at.aau.differential.ReferencePostprocessor;
+import at.aau.differential.ReferencePreprocessor;
+import at.aau.grounder.Grounder;
+import at.aau.grounder.GroundingException;
+import at.aau.io.ByteBuffers;
+import at.aau.postprocessing.AtomOrder;
+import at.aau.preprocessing.PreprocessingContext;
+
+/**
+ * Differential tests of the grounding paths of {@link GringoWrapper} against
+ * the reference pipeline, i.e. the {@link ReferencePreprocessor} followed by
+ * the {@link ReferencePostprocessor}, on random logic programs. The grounder
+ * generates a random grounded program for the fact literal and the debug
+ * constants of the preprocessed program.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GringoWrapperDifferentialTest {
+	private static final String DEBUG_PREFIX = "_debug";
+	
+	private static final String FACT_LITERAL = "_fl0123456789abcdef";
+	
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+	
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	// =========================================================================
+	// ground tests
+	// =========================================================================
+	@Test
+	public void ground_randomPrograms_equalsReference() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			harness(seed, true).check(seed, new ProgramGenerator(random).generate(1 + random.nextInt(16)));
+		}
+	}
+	
+	@Test
+	public void ground_randomProgramsWithoutDebugConstants_equalsReference() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			harness(seed, false).check(seed, new ProgramGenerator(random).generate(1 + random.nextInt(16)));
+		}
+	}
+	
+	@Test
+	public void ground_randomProgramsRenumbered_equalsReferenceUpToRenumbering() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			final GeneratingGrounder grounder = new GeneratingGrounder(seed);
+			final DifferentialHarness.Implementation reference = reference(grounder, true);
+			
+			DifferentialHarness harness = new DifferentialHarness(new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) throws Exception {
+					return CanonicalProgram.of(reference.run(input));
+				}
+			});
+			
+			for (final AtomOrder order : AtomOrder.values()) {
+				harness.add("ground with atoms renumbered by " + order.getOptionName(), new DifferentialHarness.Implementation() {
+					@Override
+					public String run(String input) throws Exception {
+						GringoWrapper wrapper = wrapper(grounder);
+						wrapper.setAtomOrder(order);
+						return CanonicalProgram.of(grounder.normalize(wrapper.ground(input, true, new DebugRuleMap())));
+					}
+				});
+			}
+			
+			harness.check(seed, new ProgramGenerator(random).generate(1 + random.nextInt(16)));
+		}
+	}
+	
+	private DifferentialHarness harness(long seed, final boolean addDebugConstants) {
+		final GeneratingGrounder grounder = new GeneratingGrounder(seed);
+		DifferentialHarness harness = new DifferentialHarness(reference(grounder, addDebugConstants));
+		harness.add("ground with a hash map", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) throws Exception {
+				return grounder.normalize(wrapper(grounder).ground(input, addDebugConstants, new HashMap<String, Rule>()));
+			}
+		});
+		harness.add("ground with a single postprocessing thread", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) throws Exception {
+				GringoWrapper wrapper = wrapper(grounder);
+				wrapper.setPostprocessingThreads(1);
+				return grounder.normalize(wrapper.ground(input, addDebugConstants, new DebugRuleMap()));
+			}
+		});
+		harness.add("groundAsync", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) throws Exception {
+				GringoWrapper wrapper = wrapper(grounder);
+				wrapper.setExecutor(executor);
+				return grounder.normalize(wrapper.groundAsync(input, addDebugConstants, new DebugRuleMap()).get());
+			}
+		});
+		harness.add("ground to a stream", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) throws Exception {
+				ByteArrayOutputStream output = new ByteArrayOutputStream();
+				wrapper(grounder).ground(input, addDebugConstants, new DebugRuleMap(), output);
+				return grounder.normalize(new String(output.toByteArray(), StandardCharsets.UTF_8));
+			}
+		});
+		harness.add("separate preprocess and postprocess", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) throws Exception {
+				GringoWrapper wrapper = wrapper(grounder);
+				ByteArrayOutputStream program = new ByteArrayOutputStream();
+				ByteArrayOutputStream context = new ByteArrayOutputStream();
+				wrapper.preprocess(input, addDebugConstants, new DebugRuleMap(), program).write(context);
+				ByteBuffer grounded = ByteBuffers.wrap(grounder.ground(new String(program.toByteArray(), StandardCharsets.UTF_8)));
+				
+				return grounder.normalize(wrapper.postprocess(grounded,
+						PreprocessingContext.read(new ByteArrayInputStream(context.toByteArray()))));
+			}
+		});
+		
+		return harness;
+	}
+	
+	/**
+	 * Returns the reference pipeline with the given grounder.
+	 */
+	private static DifferentialHarness.Implementation reference(final GeneratingGrounder grounder, final boolean addDebugConstants) {
+		return new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) throws GroundingException {
+				ReferencePreprocessor preprocessor = new ReferencePreprocessor();
+				ReferencePostprocessor postprocessor = new ReferencePostprocessor();
+				Map<String, Rule> debugRuleMap = new HashMap<String, Rule>();
+				List<String> fixedModel = preprocessor.getFixedModel(preprocessor.removeComments(input));
+				String program = preprocessor.preprocess(input, FACT_LITERAL, addDebugConstants ? DEBUG_PREFIX : null, debugRuleMap);
+				String output = postprocessor.postprocess(grounder.ground(program), DEBUG_PREFIX, FACT_LITERAL, fixedModel);
+				
+				return addDebugConstants ? output + postprocessor.buildRuleTable(debugRuleMap) : output;
+			}
+		};
+	}
+	
+	private static GringoWrapper wrapper(Grounder grounder) {
+		return new GringoWrapper(grounder, DEBUG_PREFIX, false, false);
+	}
+	
+	/**
+	 * Generates a random grounded program for the fact literal and the number
+	 * of debug constants of the preprocessed program. The same program is
+	 * generated for each call with the same number of debug constants, up to
+	 * the name of the fact literal.
+	 */
+	private static class GeneratingGrounder implements Grounder {
+		private static final Pattern FACT_LITERAL_PATTERN = Pattern.compile("(_fl[0-9a-f]+) \\| -\\1\\.$");
+		
+		private static final Pattern DEBUG_CONSTANT_PATTERN = Pattern.compile(DEBUG_PREFIX + "(\\d+)");
+		
+		private final long seed;
+		
+		/** The fact literal of the last call */
+		private String factLiteral;
+		
+		public GeneratingGrounder(long seed) {
+			this.seed = seed;
+		}
+		
+		/**
+		 * Replaces the fact literal of the last call with the one of the
+		 * reference, since it is random in the gringo-wrapper.
+		 */
+		public String normalize(String output) {
+			return output.replace(factLiteral, FACT_LITERAL);
+		}
+		
+		@Override
+		public String ground(String logicProgram) throws GroundingException {
+			Matcher factLiteral = FACT_LITERAL_PATTERN.matcher(logicProgram);
+			
+			if (!factLiteral.find()) {
+				throw new GroundingException("no fact literal");
+			}
+			
+			this.factLiteral = factLiteral.group(1);
+			Matcher debugConstant = DEBUG_CONSTANT_PATTERN.matcher(logicProgram);
+			int debugConstants = 0;
+			
+			while (debugConstant.find()) {
+				debugConstants = Math.max(debugConstants, Integer.parseInt(debugConstant.group(1)));
+			}
+			
+			StringBuilder grounded = new StringBuilder();
+			
+			for (String line : new GroundedProgramGenerator(new Random(seed)).generate(DEBUG_PREFIX, this.factLiteral, debugConstants)) {
+				grounded.append(line);
+			}
+			
+			return grounded.toString();
+		}
+	}
+}
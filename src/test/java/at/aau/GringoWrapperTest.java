@@ -0,0 +1,482 @@
+package at.aau;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hamcrest.core.StringContains;
+import org.junit.After;
+import org.junit.Test;
+
+import at.aau.grounder.BufferGrounder;
+import at.aau.grounder.Grounder;
+import at.aau.grounder.GroundingException;
+import at.aau.io.ByteBuffers;
+import at.aau.output.DebugMapFile;
+import at.aau.output.SolverProcess;
+import at.aau.postprocessing.AtomOrder;
+import at.aau.postprocessing.GroundEvent;
+import at.aau.postprocessing.GroundSymbol;
+import at.aau.postprocessing.PostprocessingException;
+import at.aau.preprocessing.PreprocessingContext;
+import at.aau.statistics.Statistics;
+import at.aau.streaming.Subscriber;
+import at.aau.streaming.Subscription;
+
+/**
+ * Concurrency and size estimate tests for {@link GringoWrapper}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GringoWrapperTest {
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+	
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	// =========================================================================
+	// groundAsync tests
+	// =========================================================================
+	@Test
+	public void groundAsync_manyConcurrentCalls_returnsResultOfEachProgram() throws Exception {
+		IdGrounder grounder = new IdGrounder(1);
+		GringoWrapper wrapper = new GringoWrapper(grounder, "_debug", false, false);
+		wrapper.setExecutor(executor);
+		wrapper.setAtomOrder(AtomOrder.NAME);
+		wrapper.setIndexDebugAtoms(true);
+		
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		
+		for (int id = 0; id < 400; id ++) {
+			results.add(wrapper.groundAsync(program(id), true, new DebugRuleMap()));
+		}
+		
+		for (int id = 0; id < results.size(); id ++) {
+			String grounded = results.get(id).get();
+			
+			assertThat(grounded, StringContains.containsString(" id(" + id + ")\n"));
+			assertThat(grounded, StringContains.containsString("10 _debug1 1 X a(X) :- id(X), b(X).\n"));
+		}
+		
+		assertEquals(400, grounder.calls.get());
+		assertNotNull(wrapper.getDebugAtomIndex());
+	}
+	
+	@Test
+	public void groundAsync_grounderProcessLimit_limitsConcurrentGrounders() throws Exception {
+		IdGrounder grounder = new IdGrounder(5);
+		GringoWrapper wrapper = new GringoWrapper(grounder, "_debug", false, false);
+		wrapper.setExecutor(executor);
+		wrapper.setMaxGrounderProcesses(2);
+		
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		
+		for (int id = 0; id < 40; id ++) {
+			results.add(wrapper.groundAsync(program(id), true, new DebugRuleMap()));
+		}
+		
+		for (Future<String> result : results) {
+			result.get();
+		}
+		
+		assertTrue("at most 2 grounders at a time, was " + grounder.maxRunning.get(), grounder.maxRunning.get() <= 2);
+		assertEquals(2, grounder.maxRunning.get());
+	}
+	
+	@Test
+	public void groundAsync_grounderFails_throwsGroundingException() throws InterruptedException {
+		GringoWrapper wrapper = new GringoWrapper(new IdGrounder(0), "_debug", false, false);
+		wrapper.setExecutor(executor);
+		
+		Future<String> result = wrapper.groundAsync("a :- b.", true, new DebugRuleMap());
+		
+		try {
+			result.get();
+			fail("The grounding must fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof GroundingException);
+		}
+	}
+	
+	@Test
+	public void ground_concurrentThreads_returnsSameAsSequential() throws Exception {
+		final GringoWrapper wrapper = new GringoWrapper(new IdGrounder(0), "_debug", false, false);
+		final String expected = wrapper.ground(program(7), true);
+		final AtomicInteger mismatches = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		
+		for (int i = 0; i < 8; i ++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					for (int run = 0; run < 100; run ++) {
+						try {
+							if (!expected.equals(wrapper.ground(program(7), true))) {
+								mismatches.incrementAndGet();
+							}
+						} catch (Exception e) {
+							mismatches.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		assertEquals(0, mismatches.get());
+	}
+	
+	// =========================================================================
+	// size estimate tests
+	// =========================================================================
+	@Test
+	public void ground_estimateAboveMaximum_grounderNotCalled() {
+		IdGrounder grounder = new IdGrounder(0);
+		GringoWrapper wrapper = new GringoWrapper(grounder, "_debug", false, false);
+		wrapper.setMaxEstimatedRules(100);
+		
+		try {
+			wrapper.ground("id(1..1000).\na(X) :- id(X).\n", true);
+			fail("The grounding must be refused");
+		} catch (GroundingException | PostprocessingException e) {
+			assertThat(e.getMessage(), StringContains.containsString("estimated to have 3000 rules"));
+		}
+		
+		assertEquals(0, grounder.calls.get());
+		assertEquals(3000, wrapper.getSizeEstimate().getTotalRules());
+	}
+	
+	@Test
+	public void ground_estimateBelowMaximum_grounds() throws Exception {
+		IdGrounder grounder = new IdGrounder(0);
+		GringoWrapper wrapper = new GringoWrapper(grounder, "_debug", false, false);
+		wrapper.setMaxEstimatedRules(100);
+		
+		wrapper.ground(program(3), true);
+		
+		assertEquals(1, grounder.calls.get());
+		assertEquals(5, wrapper.getSizeEstimate().getTotalRules());
+	}
+	
+	// =========================================================================
+	// grounder tests
+	// =========================================================================
+	@Test
+	public void ground_grounderWithoutBuffers_returnsSameAsBufferGrounder() throws Exception {
+		final IdGrounder idGrounder = new IdGrounder(0);
+		Grounder grounder = new Grounder() {
+			@Override
+			public String ground(String logicProgram) throws GroundingException {
+				return idGrounder.ground(logicProgram);
+			}
+		};
+		
+		String grounded = new GringoWrapper(grounder, "_debug", false, false).ground(program(5), true);
+		
+		assertEquals(new GringoWrapper(idGrounder, "_debug", false, false).ground(program(5), true), grounded);
+		assertThat(grounded, StringContains.containsString(" id(5)\n"));
+	}
+	
+	// =========================================================================
+	// ground to stream tests
+	// =========================================================================
+	@Test
+	public void ground_standInSolver_receivesSameProgramAsString() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper(new IdGrounder(0), "_debug", false, false);
+		File received = File.createTempFile("solver", ".out");
+		SolverProcess solver = new SolverProcess("cat");
+		solver.setOutput(Redirect.to(received));
+		
+		try {
+			wrapper.ground(program(5), true, new DebugRuleMap(), solver.start());
+			
+			assertEquals(0, solver.finish());
+			assertEquals(wrapper.ground(program(5), true), new String(Files.readAllBytes(received.toPath()), StandardCharsets.UTF_8));
+		} finally {
+			received.delete();
+		}
+	}
+	
+	@Test
+	public void ground_debugMap_writesRulesToDebugMapInsteadOfProgram() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper(new IdGrounder(0), "_debug", false, false);
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		ByteArrayOutputStream program = new ByteArrayOutputStream();
+		File debugMapFile = File.createTempFile("debug", ".map");
+		
+		try {
+			OutputStream debugMap = new FileOutputStream(debugMapFile);
+			
+			try {
+				wrapper.ground(program(5), true, debugRuleMap, program, debugMap);
+			} finally {
+				debugMap.close();
+			}
+			
+			String grounded = wrapper.ground(program(5), true);
+			String withoutRuleTable = grounded.substring(0, grounded.indexOf("10 _debug1 "));
+			DebugMapFile debugMapReader = DebugMapFile.open(debugMapFile);
+			
+			assertEquals(withoutRuleTable + "0\n", program.toString("UTF-8"));
+			assertEquals(debugRuleMap.size(), debugMapReader.getMaxNumber());
+			
+			for (Map.Entry<String, Rule> entry : debugRuleMap.entrySet()) {
+				assertEquals(entry.getValue().getRule(), debugMapReader.getRule(entry.getKey()).getRule());
+				assertEquals(entry.getValue().getVariables(), debugMapReader.getRule(entry.getKey()).getVariables());
+			}
+		} finally {
+			debugMapFile.delete();
+		}
+	}
+	
+	// =========================================================================
+	// removed rules tests
+	// =========================================================================
+	@Test
+	public void ground_warnRulesRemoved_dumpsRulesWithoutDebugAtoms() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper(new IdGrounder(0), "_debug", false, true);
+		ByteArrayOutputStream dump = new ByteArrayOutputStream();
+		wrapper.setWarningsShown(0);
+		wrapper.setWarningDump(new PrintStream(dump, true, "UTF-8"));
+		
+		wrapper.ground(program(2), true);
+		wrapper.ground(program(2), true, new DebugRuleMap(), new ByteArrayOutputStream());
+		
+		String removed = "warning: the grounder removed the following rules:\n  a(X) :- id(X), b(X).\n";
+		assertEquals(removed + removed, dump.toString("UTF-8"));
+		assertNull(wrapper.getDebugAtomIndex());
+	}
+	
+	// =========================================================================
+	// preprocess and postprocess tests
+	// =========================================================================
+	@Test
+	public void postprocess_savedContext_returnsSameProgramAsGround() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper(new IdGrounder(0), "_debug", false, false);
+		ByteArrayOutputStream preprocessed = new ByteArrayOutputStream();
+		ByteArrayOutputStream savedContext = new ByteArrayOutputStream();
+		
+		wrapper.preprocess(program(3), true, new DebugRuleMap(), preprocessed).write(savedContext);
+		ByteBuffer grounded = new IdGrounder(0).ground(preprocessed.toString("UTF-8"), null);
+		PreprocessingContext context = PreprocessingContext.read(new ByteArrayInputStream(savedContext.toByteArray()));
+		
+		assertEquals(wrapper.ground(program(3), true), wrapper.postprocess(grounded, context));
+	}
+	
+	// =========================================================================
+	// groundStream tests
+	// =========================================================================
+	@Test
+	public void groundStream_requestOneByOne_publishesGroundedProgram() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper(new IdGrounder(0), "_debug", false, false);
+		String grounded = wrapper.ground(program(7), false);
+		RecordingSubscriber subscriber = new RecordingSubscriber(1);
+		
+		wrapper.groundStream(program(7), false, new DebugRuleMap()).subscribe(subscriber);
+		List<Object> signals = subscriber.await(10);
+		
+		StringBuilder rules = new StringBuilder();
+		StringBuilder symbols = new StringBuilder();
+		
+		for (Object signal : signals.subList(0, signals.size() - 2)) {
+			(signal instanceof GroundSymbol ? symbols : rules).append(signal).append('\n');
+		}
+		
+		assertEquals(grounded, rules + "0\n" + symbols + "0\n" + signals.get(signals.size() - 2));
+		assertEquals(RecordingSubscriber.COMPLETE, signals.get(signals.size() - 1));
+	}
+	
+	@Test
+	public void groundStream_cancelled_stopsGrounder() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		GringoWrapper wrapper = new GringoWrapper("sleep", "30", "_debug", false, false);
+		wrapper.setExecutor(executor);
+		RecordingSubscriber subscriber = new RecordingSubscriber(1);
+		
+		wrapper.groundStream(program(1), false, new DebugRuleMap()).subscribe(subscriber);
+		Thread.sleep(500);
+		subscriber.subscription.cancel();
+		executor.shutdown();
+		
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertTrue(subscriber.signals.isEmpty());
+	}
+	
+	private static String program(int id) {
+		return "id(" + id + ").\na(X) :- id(X), b(X).\nb(X) :- id(X).\n";
+	}
+	
+	/**
+	 * Subscriber that requests a fixed number of events at a time and records
+	 * the events, the completion and the errors.
+	 */
+	private static class RecordingSubscriber implements Subscriber<GroundEvent> {
+		private static final Object COMPLETE = "complete";
+		
+		private final BlockingQueue<Object> signals = new LinkedBlockingQueue<Object>();
+		private final int batch;
+		private volatile Subscription subscription;
+		private int received;
+		
+		public RecordingSubscriber(int batch) {
+			this.batch = batch;
+		}
+		
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(batch);
+		}
+		
+		@Override
+		public void onNext(GroundEvent item) {
+			signals.add(item);
+			
+			if (++ received % batch == 0) {
+				subscription.request(batch);
+			}
+		}
+		
+		@Override
+		public void onError(Throwable throwable) {
+			signals.add(throwable);
+		}
+		
+		@Override
+		public void onComplete() {
+			signals.add(COMPLETE);
+		}
+		
+		/**
+		 * Waits for the completion or the error and returns all signals.
+		 */
+		public List<Object> await(int seconds) throws InterruptedException {
+			List<Object> received = new ArrayList<Object>();
+			
+			while (true) {
+				Object signal = signals.poll(seconds, TimeUnit.SECONDS);
+				
+				if (null == signal) {
+					fail("The publisher did not finish");
+				}
+				
+				received.add(signal);
+				
+				if (COMPLETE == signal || signal instanceof Throwable) {
+					return received;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Grounder that returns a grounded program with the single fact
+	 * <code>id(n)</code> for a program that contains the fact, and records how
+	 * many grounders run at the same time.
+	 */
+	private static class IdGrounder implements BufferGrounder {
+		private static final Pattern ID_PATTERN = Pattern.compile("id\\((\\d+)\\)");
+		
+		private final long delayMillis;
+		private final AtomicInteger calls = new AtomicInteger();
+		private final AtomicInteger running = new AtomicInteger();
+		private final AtomicInteger maxRunning = new AtomicInteger();
+		
+		public IdGrounder(long delayMillis) {
+			this.delayMillis = delayMillis;
+		}
+		
+		@Override
+		public String ground(String logicProgram) throws GroundingException {
+			return ByteBuffers.toString(ground(logicProgram, null));
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+			return ground(logicProgram, buffer, null);
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+			calls.incrementAndGet();
+			int current = running.incrementAndGet();
+			
+			try {
+				while (true) {
+					int max = maxRunning.get();
+					
+					if (current <= max || maxRunning.compareAndSet(max, current)) {
+						break;
+					}
+				}
+				
+				if (delayMillis > 0) {
+					Thread.sleep(delayMillis);
+				}
+				
+				Matcher matcher = ID_PATTERN.matcher(logicProgram);
+				
+				if (!matcher.find()) {
+					throw new GroundingException("no id");
+				}
+				
+				String id = matcher.group(1);
+				ByteBuffer grounded = ByteBuffers.wrap(
+						"1 2 0 0\n"
+					  + "1 3 1 0 4\n"
+					  + "1 4 0 0\n"
+					  + "3 1 4 0 0\n"
+					  + "0\n"
+					  + "2 id(" + id + ")\n"
+					  + "3 b(" + id + ")\n"
+					  + "4 _debug2(" + id + ")\n"
+					  + "0\nB+\n0\nB-\n1\n0\n1\n");
+				ByteBuffer output = ByteBuffers.reuse(buffer, grounded.remaining());
+				output.put(grounded);
+				output.flip();
+				
+				return output;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GroundingException(e);
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package at.aau;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Rule}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class RuleTest {
+	// =========================================================================
+	// getSubstitution tests
+	// =========================================================================
+	@Test
+	public void getSubstitution_functionArgument_keepsParentheses() {
+		Rule rule = new Rule("a(X,Y) :- b(X,Y).", Arrays.asList("X", "Y"));
+		
+		Map<String, String> substitution = rule.getSubstitution("f(1,g(2)),b");
+		
+		assertEquals("f(1,g(2))", substitution.get("X"));
+		assertEquals("b", substitution.get("Y"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void getSubstitution_tooManyArguments_throwsException() {
+		new Rule("a(X) :- b(X).", Arrays.asList("X")).getSubstitution("1,2");
+	}
+	
+	// =========================================================================
+	// getGroundedRule tests
+	// =========================================================================
+	@Test
+	public void getGroundedRule_noVariables_returnsRule() {
+		assertEquals("a :- b.", new Rule("a :- b.").getGroundedRule(""));
+	}
+	
+	@Test
+	public void getGroundedRule_variables_replacesAllOccurrences() {
+		Rule rule = new Rule("{pred(X,Y); pred(Y,X)} :- a(X), b(Y), X != Y.", Arrays.asList("X", "Y"));
+		
+		assertEquals("{pred(1,f(a,b)); pred(f(a,b),1)} :- a(1), b(f(a,b)), 1 != f(a,b).", rule.getGroundedRule("1,f(a,b)"));
+	}
+	
+	@Test
+	public void getGroundedRule_similarIdentifiers_replacesOnlyVariables() {
+		Rule rule = new Rule("x(X,X1) :- b(X1), c(X), \"X\" != X.", Arrays.asList("X1", "X"));
+		
+		assertEquals("x(2,1) :- b(1), c(2), \"X\" != 2.", rule.getGroundedRule("1,2"));
+	}
+	
+	@Test
+	public void getGroundedRule_substitution_replacesSubstitutedVariables() {
+		Rule rule = new Rule("a(X,Y) :- b(X), c(Y).", Arrays.asList("X", "Y"));
+		Map<String, String> substitution = new HashMap<String, String>();
+		substitution.put("X", "$1");
+		
+		assertEquals("a($1,Y) :- b($1), c(Y).", rule.getGroundedRule(substitution));
+	}
+	
+	// =========================================================================
+	// equals tests
+	// =========================================================================
+	@Test
+	public void hashCode_equalRules_sameHashCode() {
+		Rule rule = new Rule("a(X) :- b(X).", Arrays.asList("X"));
+		Rule equal = new Rule("a(X) :- b(X).", new ArrayList<String>(Arrays.asList("X")));
+		
+		assertEquals(rule, equal);
+		assertEquals(rule.hashCode(), equal.hashCode());
+		assertFalse(rule.equals(null));
+	}
+	
+	// =========================================================================
+	// writeGroundedRules tests
+	// =========================================================================
+	@Test
+	public void writeGroundedRules_multipleTerms_writesOneRulePerLine() throws IOException {
+		Rule rule = new Rule("a(X) :- b(X,Y), c(Y).", Arrays.asList("X", "Y"));
+		StringBuilder sink = new StringBuilder();
+		
+		int written = rule.writeGroundedRules(Arrays.asList("1,2", "f(3,4),\"a,b\""), sink);
+		
+		assertEquals(2, written);
+		assertEquals("a(1) :- b(1,2), c(2).\na(f(3,4)) :- b(f(3,4),\"a,b\"), c(\"a,b\").\n", sink.toString());
+	}
+}
@@ -0,0 +1,340 @@
+package at.aau.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+import at.aau.GringoWrapper;
+import at.aau.grounder.BufferGrounder;
+import at.aau.grounder.Grounder;
+import at.aau.grounder.GroundingException;
+import at.aau.io.ByteBuffers;
+import at.aau.statistics.Statistics;
+
+/**
+ * Tests for the {@link Coordinator} and its {@link Worker}s.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ClusterTest {
+	private static final String RULES = "a(X) :- id(X), b(X).\nb(X) :- id(X).\n";
+	
+	// =========================================================================
+	// local transport tests
+	// =========================================================================
+	@Test
+	public void awaitResults_localWorkers_returnsResultOfEachJob() throws Exception {
+		Coordinator coordinator = new Coordinator(new ContentStore(), 3, 60000);
+		String rules = coordinator.getContentStore().put(bytes(RULES));
+		
+		for (int id = 0; id < 20; id ++) {
+			String fact = coordinator.getContentStore().put(bytes("id(" + id + ").\n"));
+			coordinator.submit(new JobSpec("job" + id, Arrays.asList(fact, rules), true));
+		}
+		
+		for (int i = 0; i < 3; i ++) {
+			LocalTransport.connect(coordinator, worker(new IdGrounder(), "worker" + i));
+		}
+		
+		List<JobResult> results = coordinator.awaitResults();
+		ClusterReport report = coordinator.getReport();
+		
+		for (int id = 0; id < 20; id ++) {
+			JobResult result = results.get(id);
+			
+			assertEquals("job" + id, result.getSpec().getName());
+			assertTrue(result.isSuccess());
+			assertThat(result.getOutputText(), StringContains.containsString(" id(" + id + ")\n"));
+			assertThat(result.getOutputText(), StringContains.containsString("10 _debug1 1 X a(X) :- id(X), b(X).\n"));
+		}
+		
+		assertEquals(20, report.getSucceededJobs());
+		assertEquals(0, report.getFailedJobs());
+		// the rules are shared by all jobs and sent at most once to each worker
+		assertTrue(report.getTransferredInputs() >= 21 && report.getTransferredInputs() <= 23);
+		assertEquals(3, report.getWorkers().size());
+	}
+	
+	@Test
+	public void awaitResults_identicalJobs_groundsOnce() throws Exception {
+		Coordinator coordinator = new Coordinator(new ContentStore(), 3, 60000);
+		String program = coordinator.getContentStore().put(bytes("id(1).\n" + RULES));
+		coordinator.submit(new JobSpec("first", Arrays.asList(program), true));
+		coordinator.submit(new JobSpec("second", Arrays.asList(program), true));
+		
+		IdGrounder grounder = new IdGrounder();
+		LocalTransport.connect(coordinator, worker(grounder, "worker"));
+		
+		List<JobResult> results = coordinator.awaitResults();
+		
+		assertEquals(2, results.size());
+		assertEquals("second", results.get(1).getSpec().getName());
+		assertEquals(results.get(0).getOutputText(), results.get(1).getOutputText());
+		assertEquals(1, grounder.calls.get());
+		assertEquals(1, coordinator.getReport().getDistinctJobs());
+	}
+	
+	@Test
+	public void awaitResults_failingJob_retriesUntilMaxAttempts() throws Exception {
+		Coordinator coordinator = new Coordinator(new ContentStore(), 3, 60000);
+		coordinator.submit(new JobSpec("bad", Arrays.asList(coordinator.getContentStore().put(bytes(RULES))), true));
+		coordinator.submit(new JobSpec("good", Arrays.asList(coordinator.getContentStore().put(bytes("id(2).\n" + RULES))), true));
+		
+		LocalTransport.connect(coordinator, worker(new IdGrounder(), "worker"));
+		
+		List<JobResult> results = coordinator.awaitResults();
+		
+		assertFalse(results.get(0).isSuccess());
+		assertNull(results.get(0).getOutput());
+		assertEquals(3, results.get(0).getAttempts());
+		assertThat(results.get(0).getError(), StringContains.containsString("no id"));
+		assertTrue(results.get(1).isSuccess());
+		assertEquals(2, coordinator.getReport().getRetries());
+		assertEquals(1, coordinator.getReport().getFailedJobs());
+	}
+	
+	@Test
+	public void awaitResults_slowWorker_idleWorkerStealsJob() throws Exception {
+		Coordinator coordinator = new Coordinator(new ContentStore(), 3, 50);
+		coordinator.submit(new JobSpec("job", Arrays.asList(coordinator.getContentStore().put(bytes("id(3).\n" + RULES))), true));
+		
+		BlockingGrounder slow = new BlockingGrounder();
+		Thread slowWorker = LocalTransport.connect(coordinator, worker(slow, "slow"));
+		assertTrue(slow.started.await(10, TimeUnit.SECONDS));
+		LocalTransport.connect(coordinator, worker(new IdGrounder(), "fast"));
+		
+		List<JobResult> results = coordinator.awaitResults();
+		
+		assertTrue(results.get(0).isSuccess());
+		assertEquals("fast", results.get(0).getWorker());
+		assertEquals(2, results.get(0).getAttempts());
+		
+		slow.release.countDown();
+		slowWorker.join(10000);
+		
+		assertEquals(1, coordinator.getReport().getSteals());
+		assertEquals(1, coordinator.getReport().getDuplicateResults());
+	}
+	
+	// =========================================================================
+	// TCP tests
+	// =========================================================================
+	@Test
+	public void awaitResults_lostWorker_handsOutJobAgain() throws Exception {
+		Coordinator coordinator = new Coordinator(new ContentStore(), 3, 60000);
+		coordinator.submit(new JobSpec("job", Arrays.asList(coordinator.getContentStore().put(bytes("id(4).\n" + RULES))), true));
+		final int port = coordinator.start(0);
+		
+		try {
+			// a worker that takes the job and disconnects
+			Socket socket = new Socket("127.0.0.1", port);
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			output.writeByte(Protocol.HELLO);
+			output.writeInt(Protocol.VERSION);
+			output.writeUTF("lost");
+			output.writeByte(Protocol.REQUEST);
+			output.flush();
+			assertEquals(Protocol.JOB, input.readByte());
+			socket.close();
+			
+			final Worker worker = worker(new IdGrounder(), "worker");
+			Thread workerThread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						worker.connect("127.0.0.1", port);
+					} catch (IOException e) {
+						// fails the test by not returning a result
+					}
+				}
+			};
+			workerThread.start();
+			
+			List<JobResult> results = coordinator.awaitResults();
+			workerThread.join(10000);
+			
+			assertTrue(results.get(0).isSuccess());
+			assertEquals(2, results.get(0).getAttempts());
+			assertEquals(1, coordinator.getReport().getRetries());
+			assertEquals(1, coordinator.getReport().getWorkers().get(0).getLostJobs());
+		} finally {
+			coordinator.close();
+		}
+	}
+	
+	@Test
+	public void awaitResults_workerProcesses_groundsJobsOverTcp() throws Exception {
+		Coordinator coordinator = new Coordinator(new ContentStore(), 3, 60000);
+		String rules = coordinator.getContentStore().put(bytes(RULES));
+		
+		for (int id = 0; id < 10; id ++) {
+			String fact = coordinator.getContentStore().put(bytes("id(" + id + ").\n"));
+			coordinator.submit(new JobSpec("job" + id, Arrays.asList(fact, rules), true));
+		}
+		
+		int port = coordinator.start(0);
+		List<Process> processes = new ArrayList<Process>();
+		List<File> outputs = new ArrayList<File>();
+		
+		try {
+			for (int i = 0; i < 2; i ++) {
+				// not inherited, the output of the test JVM is the channel to maven
+				outputs.add(File.createTempFile("worker", ".out"));
+				processes.add(new ProcessBuilder(
+						new File(System.getProperty("java.home"), "bin/java").getPath(),
+						"-cp", System.getProperty("java.class.path"),
+						"at.aau.App",
+						"--worker", "127.0.0.1:" + port,
+						"--worker-slots", "2",
+						"-gc", IdGrounder.class.getName())
+					.redirectErrorStream(true)
+					.redirectOutput(outputs.get(i))
+					.start());
+			}
+			
+			List<JobResult> results = coordinator.awaitResults();
+			
+			for (int id = 0; id < 10; id ++) {
+				assertTrue(results.get(id).isSuccess());
+				assertThat(results.get(id).getOutputText(), StringContains.containsString(" id(" + id + ")\n"));
+			}
+			
+			for (Process process : processes) {
+				assertEquals(0, process.waitFor());
+			}
+			
+			assertEquals(10, coordinator.getReport().getSucceededJobs());
+		} catch (AssertionError e) {
+			throw new AssertionError(e.getMessage() + readOutputs(outputs), e);
+		} finally {
+			coordinator.close();
+			
+			for (Process process : processes) {
+				process.destroy();
+			}
+			
+			for (File output : outputs) {
+				output.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the output of the worker processes, to be shown if the test
+	 * fails.
+	 */
+	private static String readOutputs(List<File> outputs) throws IOException {
+		StringBuilder text = new StringBuilder();
+		
+		for (int i = 0; i < outputs.size(); i ++) {
+			text.append("\n--- output of worker ").append(i).append(" ---\n");
+			text.append(new String(Files.readAllBytes(outputs.get(i).toPath()), StandardCharsets.UTF_8));
+		}
+		
+		return text.toString();
+	}
+	
+	private static Worker worker(Grounder grounder, String name) {
+		return new Worker(new GringoWrapper(grounder, "_debug", false, false), name);
+	}
+	
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Grounder that returns a grounded program with the single fact
+	 * <code>id(n)</code> for a program that contains the fact, and fails for
+	 * any other program. It is public to be loaded by the worker processes.
+	 */
+	public static class IdGrounder implements BufferGrounder {
+		private static final Pattern ID_PATTERN = Pattern.compile("id\\((\\d+)\\)");
+		
+		private final AtomicInteger calls = new AtomicInteger();
+		
+		@Override
+		public String ground(String logicProgram) throws GroundingException {
+			return ByteBuffers.toString(ground(logicProgram, null));
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+			return ground(logicProgram, buffer, null);
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+			calls.incrementAndGet();
+			Matcher matcher = ID_PATTERN.matcher(logicProgram);
+			
+			if (!matcher.find()) {
+				throw new GroundingException("no id");
+			}
+			
+			String id = matcher.group(1);
+			ByteBuffer grounded = ByteBuffers.wrap(
+					"1 2 0 0\n"
+				  + "1 3 1 0 4\n"
+				  + "1 4 0 0\n"
+				  + "3 1 4 0 0\n"
+				  + "0\n"
+				  + "2 id(" + id + ")\n"
+				  + "3 b(" + id + ")\n"
+				  + "4 _debug2(" + id + ")\n"
+				  + "0\nB+\n0\nB-\n1\n0\n1\n");
+			ByteBuffer output = ByteBuffers.reuse(buffer, grounded.remaining());
+			output.put(grounded);
+			output.flip();
+			
+			return output;
+		}
+	}
+	
+	/**
+	 * Grounder that blocks until it is released.
+	 */
+	private static class BlockingGrounder extends IdGrounder {
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+			started.countDown();
+			
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GroundingException(e);
+			}
+			
+			return super.ground(logicProgram, buffer, statistics);
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package at.aau.differential;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renumbers the atoms of a program in the smodels format canonically, so two
+ * programs that differ only in the numbers of their atoms have the same
+ * canonical form. The named atoms are numbered in the order of their names,
+ * followed by the atoms without names in the order of their first use. The
+ * order of the rules and literals is kept, the symbol table is ordered by the
+ * names and the compute statement by the atoms.
+ * <p>
+ * Atom 1 is the false atom of the constraints and keeps its number.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class CanonicalProgram {
+	private CanonicalProgram() {
+	}
+	
+	/**
+	 * Returns the canonical form of the given program.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the program is not a complete program in the smodels
+	 *             format.
+	 */
+	public static String of(String program) {
+		try {
+			return canonicalize(lines(program));
+		} catch (IllegalArgumentException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Malformed program: " + e, e);
+		}
+	}
+	
+	private static String canonicalize(List<String> lines) {
+		int rulesEnd = lines.indexOf("0");
+		int symbolsEnd = lines.subList(rulesEnd + 1, lines.size()).indexOf("0") + rulesEnd + 1;
+		
+		// the rules as numbers, with the positions of their atoms
+		List<int[]> rules = new ArrayList<int[]>();
+		List<boolean[]> atomPositions = new ArrayList<boolean[]>();
+		
+		for (String line : lines.subList(0, rulesEnd)) {
+			String[] tokens = line.split(" ");
+			int[] rule = new int[tokens.length];
+			
+			for (int i = 0; i < tokens.length; i ++) {
+				rule[i] = Integer.parseInt(tokens[i]);
+			}
+			
+			rules.add(rule);
+			atomPositions.add(getAtomPositions(rule));
+		}
+		
+		// number the named atoms by their names
+		final Map<Integer, String> names = new HashMap<Integer, String>();
+		Set<String> uniqueNames = new HashSet<String>();
+		List<Integer> named = new ArrayList<Integer>();
+		
+		for (String line : lines.subList(rulesEnd + 1, symbolsEnd)) {
+			int separator = line.indexOf(' ');
+			int atom = Integer.parseInt(line.substring(0, separator));
+			
+			if (null != names.put(atom, line.substring(separator + 1))) {
+				throw new IllegalArgumentException("Duplicate symbol " + atom);
+			}
+			
+			if (!uniqueNames.add(names.get(atom))) {
+				throw new IllegalArgumentException("Duplicate name " + names.get(atom));
+			}
+			
+			named.add(atom);
+		}
+		
+		Collections.sort(named, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return names.get(a).compareTo(names.get(b));
+			}
+		});
+		
+		Map<Integer, Integer> mapping = new HashMap<Integer, Integer>();
+		mapping.put(1, 1);
+		
+		for (int atom : named) {
+			map(mapping, atom);
+		}
+		
+		// number the other atoms by their first use
+		StringBuilder canonical = new StringBuilder();
+		
+		for (int i = 0; i < rules.size(); i ++) {
+			int[] rule = rules.get(i);
+			
+			for (int j = 0; j < rule.length; j ++) {
+				canonical.append(j == 0 ? "" : " ").append(atomPositions.get(i)[j] ? map(mapping, rule[j]) : rule[j]);
+			}
+			
+			canonical.append('\n');
+		}
+		
+		canonical.append("0\n");
+		
+		for (int atom : named) {
+			canonical.append(mapping.get(atom)).append(' ').append(names.get(atom)).append('\n');
+		}
+		
+		// the compute statement 'B+ atoms 0 B- atoms 0 models'
+		int computeFalse = lines.indexOf("B-");
+		canonical.append("0\nB+\n");
+		appendSorted(canonical, lines.subList(symbolsEnd + 2, computeFalse - 1), mapping);
+		canonical.append("0\nB-\n");
+		int computeEnd = lines.subList(computeFalse, lines.size()).indexOf("0") + computeFalse;
+		appendSorted(canonical, lines.subList(computeFalse + 1, computeEnd), mapping);
+		canonical.append("0\n");
+		
+		for (String line : lines.subList(computeEnd + 1, lines.size())) {
+			canonical.append(line).append('\n');
+		}
+		
+		return canonical.toString();
+	}
+	
+	/**
+	 * Returns which tokens of the given rule are atoms.
+	 */
+	private static boolean[] getAtomPositions(int[] rule) {
+		boolean[] atoms = new boolean[rule.length];
+		int size = 2;
+		int literals;
+		
+		switch (rule[0]) {
+		case 1:
+			// 1 head size negative literals
+			atoms[1] = true;
+			literals = 4;
+			break;
+		case 2:
+			// 2 head size negative bound literals
+			atoms[1] = true;
+			literals = 5;
+			break;
+		case 3:
+		case 8:
+			// 3 heads head* size negative literals
+			for (int i = 0; i < rule[1]; i ++) {
+				atoms[2 + i] = true;
+			}
+			
+			size = 2 + rule[1];
+			literals = 4 + rule[1];
+			break;
+		case 5:
+			// 5 head bound size negative literals weights
+			atoms[1] = true;
+			size = 3;
+			literals = 5;
+			break;
+		case 6:
+			// 6 0 size negative literals weights
+			literals = 4;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown rule type " + rule[0]);
+		}
+		
+		for (int i = literals; i < literals + rule[size]; i ++) {
+			atoms[i] = true;
+		}
+		
+		return atoms;
+	}
+	
+	private static int map(Map<Integer, Integer> mapping, int atom) {
+		Integer mapped = mapping.get(atom);
+		
+		if (null == mapped) {
+			mapped = mapping.size() + 1;
+			mapping.put(atom, mapped);
+		}
+		
+		return mapped;
+	}
+	
+	private static void appendSorted(StringBuilder canonical, List<String> lines, Map<Integer, Integer> mapping) {
+		List<Integer> atoms = new ArrayList<Integer>();
+		
+		for (String line : lines) {
+			atoms.add(map(mapping, Integer.parseInt(line)));
+		}
+		
+		Collections.sort(atoms);
+		
+		for (int atom : atoms) {
+			canonical.append(atom).append('\n');
+		}
+	}
+	
+	/**
+	 * Splits the given program into lines. A final line without a line
+	 * terminator is a line, the empty text after a final line terminator is
+	 * not.
+	 */
+	private static List<String> lines(String program) {
+		List<String> lines = new ArrayList<String>();
+		int start = 0;
+		
+		while (start < program.length()) {
+			int end = program.indexOf('\n', start);
+			end = end < 0 ? program.length() : end;
+			lines.add(program.substring(start, end));
+			start = end + 1;
+		}
+		
+		return lines;
+	}
+}
@@ -0,0 +1,129 @@
+package at.aau.differential;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs inputs through a reference implementation and through alternative
+ * implementations, and fails if an alternative produces another output than
+ * the reference. The failing input is minimized first, so the failure shows
+ * a small input along with both outputs.
+ * <p>
+ * An input is given as its parts, e.g. the statements of a logic program or
+ * the lines of a grounded program, and is passed to the implementations as
+ * the concatenation of the parts. Implementations that fail on an input agree
+ * with each other, whatever the exception. While an input is minimized, only
+ * the inputs on which the same implementations fail are kept, so the
+ * minimization does not end up at some other difference, e.g. at an input
+ * that the alternative rejects as malformed and the reference accepts.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DifferentialHarness {
+	/** The number of random inputs of each test, e.g. -Ddifferential.runs=10000 */
+	public static final int RUNS = Integer.getInteger("differential.runs", 300);
+	
+	/** An implementation whose output is compared. */
+	public interface Implementation {
+		/**
+		 * Returns the output of the given input, normalized for the
+		 * comparison, e.g. by {@link CanonicalProgram#of(String)}.
+		 */
+		public String run(String input) throws Exception;
+	}
+	
+	/** The output of an implementation that failed */
+	private static final String FAILED = "<failed>";
+	
+	private final Implementation reference;
+	
+	private final Map<String, Implementation> alternatives = new LinkedHashMap<String, Implementation>();
+	
+	public DifferentialHarness(Implementation reference) {
+		this.reference = reference;
+	}
+	
+	/**
+	 * Adds an alternative implementation that must produce the output of the
+	 * reference.
+	 */
+	public DifferentialHarness add(String name, Implementation alternative) {
+		alternatives.put(name, alternative);
+		return this;
+	}
+	
+	/**
+	 * Checks the given input on all alternatives.
+	 *
+	 * @param seed
+	 *            The seed the input was generated from, for the failure
+	 *            message.
+	 * @throws AssertionError
+	 *             If an alternative produced another output than the
+	 *             reference.
+	 */
+	public void check(long seed, List<String> input) {
+		for (Map.Entry<String, Implementation> alternative : alternatives.entrySet()) {
+			final Implementation implementation = alternative.getValue();
+			final String referenceOutput = run(reference, join(input));
+			final String alternativeOutput = run(implementation, join(input));
+			
+			if (referenceOutput.equals(alternativeOutput)) {
+				continue;
+			}
+			
+			List<String> minimized = Minimizer.minimize(input, new Minimizer.Check<String>() {
+				@Override
+				public boolean fails(List<String> candidate) {
+					String candidateReference = run(reference, join(candidate));
+					String candidateAlternative = run(implementation, join(candidate));
+					
+					return !candidateReference.equals(candidateAlternative)
+							&& candidateReference.equals(FAILED) == referenceOutput.equals(FAILED)
+							&& candidateAlternative.equals(FAILED) == alternativeOutput.equals(FAILED);
+				}
+			});
+			
+			String minimizedInput = join(minimized);
+			throw new AssertionError("The " + alternative.getKey() + " differs from the reference for the input of seed " + seed
+					+ ", minimized from " + input.size() + " to " + minimized.size() + " parts:\n" + minimizedInput
+					+ "\n--- reference ---\n" + describe(reference, minimizedInput)
+					+ "\n--- " + alternative.getKey() + " ---\n" + describe(implementation, minimizedInput));
+		}
+	}
+	
+	/**
+	 * Returns the output of the implementation, or a marker if it failed.
+	 */
+	private static String run(Implementation implementation, String input) {
+		try {
+			return implementation.run(input);
+		} catch (Exception | StackOverflowError e) {
+			return FAILED;
+		}
+	}
+	
+	/**
+	 * Returns the output of the implementation, or the exception if it
+	 * failed.
+	 */
+	private static String describe(Implementation implementation, String input) {
+		try {
+			return implementation.run(input);
+		} catch (Exception | StackOverflowError e) {
+			return FAILED + " " + e;
+		}
+	}
+	
+	private static String join(List<String> parts) {
+		StringBuilder joined = new StringBuilder();
+		
+		for (String part : parts) {
+			joined.append(part);
+		}
+		
+		return joined.toString();
+	}
+}
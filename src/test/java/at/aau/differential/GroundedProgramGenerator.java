@@ -0,0 +1,234 @@
+package at.aau.differential;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random outputs of the grounder in the smodels format, like gringo
+ * produces them for a preprocessed program: rules of all types, the fact
+ * rules <code>f :- _fl</code>, the rules of the debug constants, the
+ * constraint and the disjunction of the fact literal, a symbol table with
+ * holes in the atom numbers and atoms without names, and a compute
+ * statement.
+ * <p>
+ * The fact literal, its constraint and its disjunction are missing or
+ * repeated now and then, since the postprocessing must handle programs that
+ * the grounder simplified.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundedProgramGenerator {
+	private final Random random;
+	
+	public GroundedProgramGenerator(Random random) {
+		this.random = random;
+	}
+	
+	/**
+	 * Generates a grounded program.
+	 *
+	 * @param debugAtomPrefix
+	 *            The prefix of the debug constants.
+	 * @param factAtom
+	 *            The fact literal.
+	 * @param debugConstants
+	 *            The number of debug constants of the preprocessed program.
+	 * @return The lines of the grounded program, each terminated by
+	 *         <code>\n</code>.
+	 */
+	public List<String> generate(String debugAtomPrefix, String factAtom, int debugConstants) {
+		List<String> names = new ArrayList<String>();
+		
+		for (String atom : ProgramGenerator.ATOMS) {
+			if (random.nextInt(3) > 0) {
+				names.add(atom);
+			}
+		}
+		
+		if (random.nextInt(8) == 0) {
+			names.add("fixModel(" + ProgramGenerator.ATOMS[0] + "," + ProgramGenerator.ATOMS[1] + ")");
+		}
+		
+		for (int constant = 1; constant <= debugConstants; constant ++) {
+			for (int instance = random.nextInt(3); instance > 0; instance --) {
+				// the names are unique, like in the symbol table of gringo
+				names.add(debugAtomPrefix + constant + (instance == 1 && random.nextBoolean() ? "" : "(" + instance + "," + pick(ProgramGenerator.CONSTANTS) + ")"));
+			}
+		}
+		
+		boolean hasFactAtom = random.nextInt(10) > 0;
+		boolean hasNegatedFactAtom = random.nextInt(10) > 0;
+		
+		if (hasFactAtom) {
+			names.add(factAtom);
+		}
+		
+		if (hasNegatedFactAtom) {
+			names.add("-" + factAtom);
+		}
+		
+		// number the atoms with holes, which stand for atoms without names
+		Collections.shuffle(names, random);
+		List<Integer> atoms = new ArrayList<Integer>();
+		List<Integer> unnamed = new ArrayList<Integer>();
+		int next = 2;
+		
+		for (int i = 0; i < names.size(); i ++) {
+			while (random.nextInt(5) == 0) {
+				unnamed.add(next ++);
+			}
+			
+			atoms.add(next ++);
+		}
+		
+		int factAtomSymbol = hasFactAtom ? atoms.get(names.indexOf(factAtom)) : next ++;
+		int factAtomNegSymbol = hasNegatedFactAtom ? atoms.get(names.indexOf("-" + factAtom)) : next ++;
+		List<Integer> allAtoms = new ArrayList<Integer>(atoms);
+		allAtoms.addAll(unnamed);
+		
+		if (allAtoms.isEmpty()) {
+			allAtoms.add(next ++);
+		}
+		
+		List<Integer> debugAtoms = new ArrayList<Integer>();
+		
+		for (int i = 0; i < names.size(); i ++) {
+			if (names.get(i).startsWith(debugAtomPrefix)) {
+				debugAtoms.add(atoms.get(i));
+			}
+		}
+		
+		// the rules
+		List<String> lines = new ArrayList<String>();
+		
+		for (int rules = random.nextInt(24); rules > 0; rules --) {
+			switch (random.nextInt(12)) {
+			case 0:
+			case 1:
+				lines.add("1 " + pick(allAtoms) + " 1 0 " + factAtomSymbol);
+				break;
+			case 2:
+				if (!debugAtoms.isEmpty()) {
+					lines.add("1 " + pick(debugAtoms) + body(allAtoms));
+				}
+				break;
+			case 3:
+				lines.add("1 1" + body(allAtoms));
+				break;
+			case 4:
+				lines.add("2 " + pick(allAtoms) + weightlessBody(allAtoms, true));
+				break;
+			case 5:
+				lines.add("3 " + atoms(allAtoms, 1 + random.nextInt(3)) + body(allAtoms));
+				break;
+			case 6:
+				lines.add("5 " + pick(allAtoms) + weightedBody(allAtoms, true));
+				break;
+			case 7:
+				lines.add("6 0" + weightedBody(allAtoms, false));
+				break;
+			case 8:
+				lines.add("8 " + atoms(allAtoms, 2 + random.nextInt(2)) + body(allAtoms));
+				break;
+			case 9:
+				lines.add("1 1 2 0 " + factAtomSymbol + " " + factAtomNegSymbol);
+				break;
+			case 10:
+				lines.add(random.nextBoolean()
+						? "8 2 " + factAtomSymbol + " " + factAtomNegSymbol + " 0 0"
+						: "8 2 " + factAtomNegSymbol + " " + factAtomSymbol + " 0 0");
+				break;
+			default:
+				lines.add("1 " + pick(allAtoms) + body(allAtoms));
+				break;
+			}
+		}
+		
+		if (random.nextInt(4) > 0) {
+			lines.add(random.nextInt(lines.size() + 1), "1 1 2 0 " + factAtomSymbol + " " + factAtomNegSymbol);
+			lines.add(random.nextInt(lines.size() + 1), "8 2 " + factAtomSymbol + " " + factAtomNegSymbol + " 0 0");
+		}
+		
+		lines.add("0");
+		
+		// the symbol table
+		for (int i = 0; i < names.size(); i ++) {
+			lines.add(atoms.get(i) + " " + names.get(i));
+		}
+		
+		lines.add("0");
+		lines.add("B+");
+		
+		for (int i = random.nextInt(3); i > 0; i --) {
+			lines.add(String.valueOf(pick(allAtoms)));
+		}
+		
+		lines.add("0");
+		lines.add("B-");
+		lines.add("1");
+		lines.add("0");
+		lines.add(String.valueOf(random.nextInt(3)));
+		
+		List<String> terminated = new ArrayList<String>(lines.size());
+		
+		for (String line : lines) {
+			terminated.add(line + "\n");
+		}
+		
+		return terminated;
+	}
+	
+	/**
+	 * Returns the body of a basic, choice or disjunctive rule, i.e. the number
+	 * of literals, the number of negative literals and the literals.
+	 */
+	private String body(List<Integer> allAtoms) {
+		return weightlessBody(allAtoms, false);
+	}
+	
+	private String weightlessBody(List<Integer> allAtoms, boolean bound) {
+		int size = random.nextInt(4);
+		int negative = size == 0 ? 0 : random.nextInt(size + 1);
+		String literals = size == 0 ? "" : " " + atoms(allAtoms, size).substring(String.valueOf(size).length() + 1);
+		
+		return " " + size + " " + negative + (bound ? " " + random.nextInt(size + 1) : "") + literals;
+	}
+	
+	private String weightedBody(List<Integer> allAtoms, boolean bound) {
+		int size = 1 + random.nextInt(3);
+		int negative = random.nextInt(size + 1);
+		StringBuilder body = new StringBuilder(bound ? " " + random.nextInt(size + 2) : "");
+		body.append(' ').append(size).append(' ').append(negative);
+		body.append(atoms(allAtoms, size).substring(String.valueOf(size).length()));
+		
+		for (int i = 0; i < size; i ++) {
+			body.append(' ').append(1 + random.nextInt(3));
+		}
+		
+		return body.toString();
+	}
+	
+	/**
+	 * Returns the given number of atoms, preceded by the number.
+	 */
+	private String atoms(List<Integer> allAtoms, int count) {
+		StringBuilder atoms = new StringBuilder().append(count);
+		
+		for (int i = 0; i < count; i ++) {
+			atoms.append(' ').append(pick(allAtoms));
+		}
+		
+		return atoms.toString();
+	}
+	
+	private <T> T pick(List<T> values) {
+		return values.isEmpty() ? null : values.get(random.nextInt(values.size()));
+	}
+	
+	private String pick(String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+}
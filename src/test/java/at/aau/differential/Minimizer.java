@@ -0,0 +1,64 @@
+package at.aau.differential;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimizes a failing input by delta debugging: parts of the input are
+ * removed as long as the input still fails, first large blocks, then smaller
+ * ones down to single parts. The result fails, and removing any single part
+ * of it makes it pass.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class Minimizer {
+	/** Decides whether an input fails. */
+	public interface Check<T> {
+		public boolean fails(List<T> input);
+	}
+	
+	private Minimizer() {
+	}
+	
+	/**
+	 * Returns a minimal part of the given failing input that still fails.
+	 *
+	 * @param input
+	 *            The parts of the failing input, e.g. its statements or lines.
+	 */
+	public static <T> List<T> minimize(List<T> input, Check<T> check) {
+		List<T> current = new ArrayList<T>(input);
+		int granularity = 2;
+		
+		while (current.size() > 1) {
+			int blockSize = (current.size() + granularity - 1) / granularity;
+			boolean reduced = false;
+			
+			for (int start = 0; start < current.size() && !reduced; start += blockSize) {
+				List<T> complement = new ArrayList<T>(current.subList(0, start));
+				complement.addAll(current.subList(Math.min(current.size(), start + blockSize), current.size()));
+				
+				if (check.fails(complement)) {
+					current = complement;
+					granularity = Math.max(granularity - 1, 2);
+					reduced = true;
+				}
+			}
+			
+			if (!reduced) {
+				if (blockSize == 1) {
+					break;
+				}
+				
+				granularity = Math.min(current.size(), 2 * granularity);
+			}
+		}
+		
+		if (current.size() == 1 && check.fails(new ArrayList<T>())) {
+			current.clear();
+		}
+		
+		return current;
+	}
+}
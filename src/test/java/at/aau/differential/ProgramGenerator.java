@@ -0,0 +1,156 @@
+package at.aau.differential;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random logic programs in the input language of the
+ * gringo-wrapper: facts, normal rules, constraints, aggregates, choice rules,
+ * disjunctions, assertions, fixModel commands and comments, on a single line
+ * or spread over several lines.
+ * <p>
+ * The programs are made of a small set of predicates, so the atoms of the
+ * rules, the assertions and the fixed model overlap. They are not meant to be
+ * grounded by gringo, some are not even safe.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ProgramGenerator {
+	/** The ground atoms of the programs, as gringo writes them */
+	static final String[] ATOMS = { "a", "b", "c", "-a", "p(1)", "p(2)", "q(1,a)", "q(2,b)", "r(a)", "s" };
+	
+	static final String[] CONSTANTS = { "1", "2", "a", "b" };
+	
+	private static final String[] VARIABLES = { "X", "Y", "Z", "_V" };
+	
+	private static final String[] AGGREGATES = { "#count", "#sum", "#min", "#max" };
+	
+	private final Random random;
+	
+	public ProgramGenerator(Random random) {
+		this.random = random;
+	}
+	
+	/**
+	 * Generates a program of the given number of statements.
+	 *
+	 * @return The statements of the program, each followed by its separator,
+	 *         i.e. the program is the concatenation of the statements.
+	 */
+	public List<String> generate(int statements) {
+		List<String> program = new ArrayList<String>(statements);
+		
+		for (int i = 0; i < statements; i ++) {
+			String statement = statement();
+			
+			if (random.nextInt(8) == 0) {
+				statement += " % " + atom();
+			}
+			
+			program.add(statement + (random.nextInt(4) == 0 ? " " : "\n"));
+		}
+		
+		return program;
+	}
+	
+	private String statement() {
+		switch (random.nextInt(16)) {
+		case 0:
+		case 1:
+			return atom() + ".";
+		case 2:
+			return "n(1.." + (1 + random.nextInt(3)) + ").";
+		case 3:
+			return literal(true) + " :- " + body() + ".";
+		case 4:
+			return literal(true) + " :-\n  " + body() + ".";
+		case 5:
+			return ":- " + body() + ".";
+		case 6:
+			return literal(true) + " :- " + aggregate() + (random.nextBoolean() ? "" : ", " + body()) + ".";
+		case 7:
+			return ":- " + (random.nextBoolean() ? "" : body() + ", ") + aggregate() + ".";
+		case 8:
+			return choice() + ".";
+		case 9:
+			return choice() + " :- " + body() + ".";
+		case 10:
+			return literal(true) + " | " + literal(true) + (random.nextBoolean() ? "" : " :- " + body()) + ".";
+		case 11:
+			return (random.nextBoolean() ? "assertTrue" : "assertFalse") + (random.nextBoolean() ? "(" : " ( ") + atom() + ").";
+		case 12:
+			return "fixModel(" + atom() + (random.nextBoolean() ? "," : ", ") + atom() + ").";
+		case 13:
+			return "% " + atom() + " :- " + body() + ".";
+		case 14:
+			return "n(" + variable() + ") :- n(" + variable() + "), " + variable() + " = " + variable() + " + 1.";
+		default:
+			return literal(true) + " :- " + body() + ", not " + literal(true) + ".";
+		}
+	}
+	
+	private String body() {
+		StringBuilder body = new StringBuilder(literal(false));
+		
+		for (int i = random.nextInt(3); i > 0; i --) {
+			body.append(", ").append(random.nextInt(3) == 0 ? "not " : "").append(literal(false));
+		}
+		
+		return body.toString();
+	}
+	
+	/**
+	 * Returns an atom or, unless it is a head, a comparison of variables.
+	 */
+	private String literal(boolean head) {
+		switch (random.nextInt(head ? 4 : 6)) {
+		case 0:
+			return atom();
+		case 1:
+			return "p(" + variable() + ")";
+		case 2:
+			return "q(" + variable() + ", " + term() + ")";
+		case 3:
+			return "r(" + term() + ")";
+		case 4:
+			return variable() + " < " + variable();
+		default:
+			return "n(" + variable() + ")";
+		}
+	}
+	
+	private String aggregate() {
+		String variable = variable();
+		String aggregate = pick(AGGREGATES) + " { " + variable + " : p(" + variable + ")"
+				+ (random.nextBoolean() ? "" : "; " + variable + " : q(" + variable + ", " + term() + ")") + " }";
+		
+		return random.nextBoolean() ? aggregate + " > " + random.nextInt(3) : random.nextInt(3) + " " + aggregate;
+	}
+	
+	private String choice() {
+		if (random.nextBoolean()) {
+			return "{ " + atom() + "; " + atom() + " }";
+		}
+		
+		String variable = variable();
+		return (random.nextBoolean() ? "" : "1 ") + "{ p(" + variable + ") : n(" + variable + ") }" + (random.nextBoolean() ? "" : " 2");
+	}
+	
+	private String atom() {
+		return pick(ATOMS);
+	}
+	
+	private String term() {
+		return random.nextBoolean() ? pick(CONSTANTS) : variable();
+	}
+	
+	private String variable() {
+		return pick(VARIABLES);
+	}
+	
+	private String pick(String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+}
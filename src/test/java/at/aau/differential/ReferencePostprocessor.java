@@ -0,0 +1,58 @@
+package at.aau.differential;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import at.aau.Rule;
+import at.aau.differential.reference.OutputBuilder;
+import at.aau.differential.reference.Postprocessor;
+
+/**
+ * The postprocessing and the output stage of the original gringo-wrapper, the
+ * reference of the differential tests. It calls the unchanged copies of the
+ * original {@link Postprocessor} and {@link OutputBuilder}.
+ * <p>
+ * The original rule table follows the iteration order of the hash map of the
+ * debug rules, the table is ordered by the number of the debug constants since
+ * the debug rule map is dense. So the rules are passed to the
+ * {@link OutputBuilder} in this order.
+ * <p>
+ * Do not optimize or fix the copies along with the postprocessor, their output
+ * defines the expected output of all postprocessing paths.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ReferencePostprocessor {
+	private final Postprocessor postprocessor = new Postprocessor();
+	
+	/**
+	 * Postprocesses the given grounded program in the smodels format.
+	 *
+	 * @param fixedModel
+	 *            The atoms of the fixed model, or <code>null</code>.
+	 */
+	public String postprocess(String groundedProgram, String debugAtomPrefix, String factAtom, List<String> fixedModel) {
+		return postprocessor.performPostprocessing(groundedProgram, debugAtomPrefix, factAtom, fixedModel);
+	}
+	
+	/**
+	 * Returns the table of the rules of the debug constants that the output
+	 * stage appends to the postprocessed program, ordered by the number of the
+	 * debug constants.
+	 */
+	public String buildRuleTable(Map<String, Rule> debugRuleMap) {
+		Map<String, Rule> ordered = new TreeMap<String, Rule>(new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				int difference = Integer.compare(a.length(), b.length());
+				return difference != 0 ? difference : a.compareTo(b);
+			}
+		});
+		ordered.putAll(debugRuleMap);
+		
+		return new OutputBuilder().buildRuleTable(ordered);
+	}
+}
@@ -0,0 +1,60 @@
+package at.aau.differential;
+
+import java.util.List;
+import java.util.Map;
+
+import at.aau.Rule;
+import at.aau.differential.reference.Preprocessor;
+
+/**
+ * The preprocessing of the original gringo-wrapper, the reference of the
+ * differential tests. It calls the unchanged copy of the original
+ * {@link Preprocessor} in the order of the original
+ * <code>GringoWrapper.ground</code>. Only the fact literal is given instead of
+ * random, so the outputs can be compared.
+ * <p>
+ * Do not optimize or fix the copy along with the preprocessor, its output
+ * defines the expected output of all preprocessing paths.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ReferencePreprocessor {
+	private final Preprocessor preprocessor = new Preprocessor();
+	
+	/**
+	 * Preprocesses the given program like the gringo-wrapper before it is
+	 * passed to the grounder.
+	 *
+	 * @param factLiteral
+	 *            The fact literal, which is random in the gringo-wrapper.
+	 * @param debugConstantPrefix
+	 *            The prefix of the debug constants, or <code>null</code> to
+	 *            add no debug constants.
+	 * @param debugRuleMap
+	 *            Gets filled with the rules of the debug constants.
+	 * @return The program that is passed to the grounder.
+	 */
+	public String preprocess(String logicProgram, String factLiteral, String debugConstantPrefix, Map<String, Rule> debugRuleMap) {
+		logicProgram = preprocessor.removeComments(logicProgram);
+		logicProgram = preprocessor.rewriteAssertions(logicProgram);
+		
+		if (null != debugConstantPrefix) {
+			logicProgram = preprocessor.addDebugConstants(logicProgram, debugConstantPrefix, debugRuleMap);
+		}
+		
+		return preprocessor.addFactLiteral(logicProgram, factLiteral);
+	}
+	
+	public String removeComments(String logicProgram) {
+		return preprocessor.removeComments(logicProgram);
+	}
+	
+	/**
+	 * Returns the atoms of the first fixModel command of the program without
+	 * comments, or <code>null</code> if there is none.
+	 */
+	public List<String> getFixedModel(String logicProgram) {
+		return preprocessor.getFixedModel(logicProgram);
+	}
+}
@@ -0,0 +1,144 @@
+package at.aau.grounder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.hamcrest.core.StringContains;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link GrounderGringoImpl}. The grounder is a stand-in shell
+ * script that prints the messages of gringo to stderr.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GrounderGringoImplTest {
+	private static final String GROUNDED_PROGRAM = "1 2 0 0\n0\n2 a\n0\nB+\n0\nB-\n1\n0\n1\n";
+	
+	/** Prints more messages than fit into the error pipe before the grounded program */
+	private static final String NOISY_SCRIPT =
+			"#!/bin/sh\n"
+		  + "cat > /dev/null\n"
+		  + "i=0\n"
+		  + "while [ $i -lt 5000 ]; do\n"
+		  + "  printf '<stdin>:1:7-8: info: atom does not occur in any rule head:\\n  b(%d)\\n\\n' $i >&2\n"
+		  + "  i=$((i + 1))\n"
+		  + "done\n"
+		  + "printf '" + GROUNDED_PROGRAM.replace("\n", "\\n") + "'\n";
+	
+	/** Prints many infos with distinct locations before an error */
+	private static final String NOISY_FAILING_SCRIPT =
+			"#!/bin/sh\n"
+		  + "cat > /dev/null\n"
+		  + "i=0\n"
+		  + "while [ $i -lt 5000 ]; do\n"
+		  + "  printf '<stdin>:%d:7-8: info: atom does not occur in any rule head:\\n  b(%d)\\n\\n' $i $i >&2\n"
+		  + "  i=$((i + 1))\n"
+		  + "done\n"
+		  + "echo '<stdin>:9999:1-5: error: syntax error, unexpected .' >&2\n"
+		  + "echo '*** ERROR: (gringo): grounding stopped because of errors' >&2\n"
+		  + "exit 65\n";
+	
+	private static final String FAILING_SCRIPT =
+			"#!/bin/sh\n"
+		  + "cat > /dev/null\n"
+		  + "echo '<stdin>:1:2: error: syntax error, unexpected .' >&2\n"
+		  + "exit 65\n";
+	
+	private File script;
+	
+	@Before
+	public void setUp() throws IOException {
+		script = File.createTempFile("grounder", ".sh");
+	}
+	
+	@After
+	public void tearDown() {
+		script.delete();
+	}
+	
+	// =========================================================================
+	// ground tests
+	// =========================================================================
+	@Test
+	public void ground_manyMessages_readsMessagesWhileGrounding() throws IOException, GroundingException {
+		ByteArrayOutputStream dump = new ByteArrayOutputStream();
+		GrounderGringoImpl grounder = grounder(NOISY_SCRIPT);
+		grounder.setWarningsShown(0);
+		grounder.setWarningDump(new PrintStream(dump));
+		
+		assertEquals(GROUNDED_PROGRAM, grounder.ground("a."));
+		
+		String dumped = dump.toString();
+		assertEquals(15000, dumped.split("\n", -1).length - 1);
+		assertThat(dumped, StringContains.containsString("  b(4999)\n"));
+	}
+	
+	@Test
+	public void ground_errorWithoutOutput_throwsWithMessage() throws IOException {
+		try {
+			grounder(FAILING_SCRIPT).ground("a");
+			fail();
+		} catch (GroundingException e) {
+			assertEquals("<stdin>:1:2: error: syntax error, unexpected .\n", e.getMessage());
+		}
+	}
+	
+	@Test
+	public void ground_errorAfterManyInfos_throwsWithError() throws IOException {
+		try {
+			grounder(NOISY_FAILING_SCRIPT).ground("a");
+			fail();
+		} catch (GroundingException e) {
+			assertThat(e.getMessage(), StringContains.containsString("\n<stdin>:9999:1-5: error: syntax error, unexpected .\n"));
+			assertThat(e.getMessage(), StringContains.containsString("\n*** ERROR: (gringo): grounding stopped because of errors\n"));
+		}
+	}
+	
+	// =========================================================================
+	// groundTo tests
+	// =========================================================================
+	@Test
+	public void groundTo_outputFails_throwsWithCause() throws IOException {
+		final IOException failure = new IOException("Broken pipe");
+		
+		try {
+			grounder(NOISY_SCRIPT).groundTo("a.", new OutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					throw failure;
+				}
+			}, null);
+			fail();
+		} catch (GroundingException e) {
+			assertEquals("Could not write the grounded program to the output", e.getMessage());
+			assertSame(failure, e.getCause());
+		}
+	}
+	
+	// =========================================================================
+	// setWarningsShown tests
+	// =========================================================================
+	@Test(expected = IllegalArgumentException.class)
+	public void setWarningsShown_negative_throws() {
+		new GrounderGringoImpl("sh", "").setWarningsShown(-1);
+	}
+	
+	private GrounderGringoImpl grounder(String content) throws IOException {
+		Files.write(script.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return new GrounderGringoImpl("sh", script.getPath());
+	}
+}
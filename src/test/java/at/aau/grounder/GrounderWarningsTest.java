@@ -0,0 +1,186 @@
+package at.aau.grounder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link GrounderWarnings}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GrounderWarningsTest {
+	// =========================================================================
+	// format tests
+	// =========================================================================
+	@Test
+	public void format_gringoInfos_groupsByKind() throws IOException {
+		GrounderWarnings warnings = read(
+				"<stdin>:1:7-8: info: atom does not occur in any rule head:\n"
+			  + "  b\n"
+			  + "\n"
+			  + "<stdin>:2:3-4: info: atom does not occur in any rule head:\n"
+			  + "  c\n"
+			  + "\n"
+			  + "<stdin>:3:1-2: info: operation undefined:\n"
+			  + "  (1/0)\n"
+			  + "\n");
+		
+		assertEquals(3, warnings.getCount());
+		assertEquals(
+				"warning: the grounder printed 3 messages:\n"
+			  + "  2x <stdin>:1:7-8: info: atom does not occur in any rule head:\n"
+			  + "       b\n"
+			  + "  1x <stdin>:3:1-2: info: operation undefined:\n"
+			  + "       (1/0)\n",
+				warnings.format(10));
+	}
+	
+	@Test
+	public void format_gringoErrors_groupsByKindAndLocation() throws IOException {
+		GrounderWarnings warnings = read(
+				"-:1:2: error: syntax error, unexpected .\n"
+			  + "-:4:2: error: syntax error, unexpected .\n"
+			  + "-:1:2: error: syntax error, unexpected .\n");
+		
+		assertEquals(
+				"warning: the grounder printed 3 messages:\n"
+			  + "  2x -:1:2: error: syntax error, unexpected .\n"
+			  + "  1x -:4:2: error: syntax error, unexpected .\n",
+				warnings.format(10));
+	}
+	
+	@Test
+	public void format_errorsAndInfos_showsErrorsFirst() throws IOException {
+		GrounderWarnings warnings = read(
+				"-:1:1-2: info: atom does not occur in any rule head:\n"
+			  + "  b\n"
+			  + "-:1:1-2: info: atom does not occur in any rule head:\n"
+			  + "  b\n"
+			  + "-:3:5: error: syntax error, unexpected .\n"
+			  + "*** ERROR: (gringo): grounding stopped because of errors\n");
+		
+		assertEquals(
+				"warning: the grounder printed 4 messages:\n"
+			  + "  1x -:3:5: error: syntax error, unexpected .\n"
+			  + "  1x *** ERROR: (gringo): grounding stopped because of errors\n"
+			  + "  ... and 2 more messages\n",
+				warnings.format(2));
+	}
+	
+	@Test
+	public void format_noneShown_printsOnlyCount() throws IOException {
+		GrounderWarnings warnings = read("-:1:1-2: warning: b/0 is never defined\n");
+		
+		assertEquals("warning: the grounder printed 1 message:\n  ... and 1 more message\n", warnings.format(0));
+	}
+	
+	@Test
+	public void format_noMessages_returnsEmptyString() throws IOException {
+		GrounderWarnings warnings = read("\n");
+		
+		assertEquals("", warnings.format(10));
+		assertEquals(0, warnings.getCount());
+	}
+	
+	// =========================================================================
+	// add tests
+	// =========================================================================
+	@Test
+	public void add_manyMessages_keepsSummaryAndTextBounded() {
+		GrounderWarnings warnings = new GrounderWarnings(null);
+		
+		for (int i = 0; i < 100000; i ++) {
+			warnings.add("-:" + i + ":1-2: info: atom does not occur in any rule head:");
+			warnings.add("  b(" + i + ")");
+		}
+		
+		String summary = warnings.format(3);
+		
+		assertEquals(100000, warnings.getCount());
+		assertThat(summary, StringContains.containsString("  100000x -:0:1-2: info: atom does not occur in any rule head:\n"));
+		assertTrue(summary.length() < 1000);
+		assertTrue(warnings.getText().length() < 70000);
+		assertThat(warnings.getText(), StringContains.containsString("more lines)\n"));
+	}
+	
+	@Test
+	public void add_errorAfterManyInfos_keepsError() {
+		GrounderWarnings warnings = new GrounderWarnings(null);
+		
+		for (int i = 0; i < 5000; i ++) {
+			warnings.add("<stdin>:" + i + ":1-2: info: atom does not occur in any rule head:");
+			warnings.add("  b(" + i + ")");
+			warnings.add("");
+		}
+		
+		warnings.add("<stdin>:9999:1-5: error: syntax error, unexpected .");
+		warnings.add("");
+		warnings.add("*** ERROR: (gringo): grounding stopped because of errors");
+		
+		String summary = warnings.format(1);
+		String text = warnings.getText();
+		
+		assertThat(summary, StringContains.containsString("  1x <stdin>:9999:1-5: error: syntax error, unexpected .\n"));
+		assertThat(text, StringContains.containsString("more lines)\n<stdin>:9999:1-5: error: syntax error, unexpected .\n"));
+		assertTrue(text.endsWith("\n*** ERROR: (gringo): grounding stopped because of errors\n"));
+		assertTrue(text.length() < 70000);
+	}
+	
+	@Test
+	public void add_manyDistinctWarnings_limitsGroups() {
+		GrounderWarnings warnings = new GrounderWarnings(null);
+		
+		for (int i = 0; i < 3000; i ++) {
+			warnings.add("-:" + i + ":1-2: warning: b/0 is never defined");
+			warnings.add("% warning: p" + i + "/1 is never defined.");
+		}
+		
+		warnings.add("-:9999:1-5: error: syntax error, unexpected .");
+		
+		String summary = warnings.format(Integer.MAX_VALUE);
+		
+		assertEquals(6001, warnings.getCount());
+		assertEquals(1001, summary.split("\n  1x ").length - 1);
+		assertThat(summary, StringContains.containsString("  1x -:9999:1-5: error: syntax error, unexpected .\n"));
+		assertThat(summary, StringContains.containsString("  1x % warning: p499/1 is never defined.\n"));
+		assertFalse(summary.contains("-:500:1-2"));
+		assertTrue(summary.endsWith("  ... and 5000 more messages\n"));
+	}
+	
+	@Test
+	public void add_dump_writesAllLines() {
+		ByteArrayOutputStream dump = new ByteArrayOutputStream();
+		GrounderWarnings warnings = new GrounderWarnings(new PrintStream(dump));
+		
+		for (int i = 0; i < 3; i ++) {
+			warnings.add("-:1:1-2: info: atom does not occur in any rule head:");
+			warnings.add("  b(" + i + ")");
+		}
+		
+		assertEquals(
+				"-:1:1-2: info: atom does not occur in any rule head:\n  b(0)\n"
+			  + "-:1:1-2: info: atom does not occur in any rule head:\n  b(1)\n"
+			  + "-:1:1-2: info: atom does not occur in any rule head:\n  b(2)\n",
+				dump.toString());
+		assertThat(warnings.format(5), StringContains.containsString("  3x -:1:1-2: info"));
+	}
+	
+	private static GrounderWarnings read(String errors) throws IOException {
+		GrounderWarnings warnings = new GrounderWarnings(null);
+		warnings.read(new ByteArrayInputStream(errors.getBytes(StandardCharsets.UTF_8)));
+		
+		return warnings;
+	}
+}
@@ -0,0 +1,135 @@
+package at.aau.grounder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+import at.aau.io.ByteBuffers;
+import at.aau.statistics.Statistics;
+
+/**
+ * Unit tests for {@link IncrementalGrounder}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class IncrementalGrounderTest {
+	private static final String FACT_LITERAL = "_fl0123456789abcdef0123456789abcdef";
+	
+	private static final String FACT_LITERAL_RULE = "\n" + FACT_LITERAL + " | -" + FACT_LITERAL + ".\n";
+	
+	// =========================================================================
+	// split tests
+	// =========================================================================
+	@Test
+	public void split_sharedPredicates_oneComponentPerPredicateGroup() {
+		String program = "a :- b. c(X) :- d(X), not e. b :- f(1).\ne :- " + FACT_LITERAL + ".";
+		
+		List<String> components = IncrementalGrounder.split(program, FACT_LITERAL);
+		
+		assertEquals(Arrays.asList("a :- b. b :- f(1).", " c(X) :- d(X), not e.\ne :- " + FACT_LITERAL + "."), components);
+	}
+	
+	@Test
+	public void split_directiveOrUnterminatedRule_returnsNull() {
+		assertNull(IncrementalGrounder.split("#const n = 3. a :- b.", FACT_LITERAL));
+		assertNull(IncrementalGrounder.split("a :- b. c :- d", FACT_LITERAL));
+	}
+	
+	// =========================================================================
+	// ground tests
+	// =========================================================================
+	@Test
+	public void ground_changedRule_groundsOnlyItsComponent() throws GroundingException {
+		HeadGrounder headGrounder = new HeadGrounder();
+		IncrementalGrounder grounder = new IncrementalGrounder(headGrounder);
+		grounder.ground("a :- b. c :- d." + FACT_LITERAL_RULE);
+		
+		String grounded = grounder.ground("a :- b. c :- d, e." + FACT_LITERAL_RULE);
+		
+		assertEquals(1, grounder.getGroundedComponents());
+		assertEquals(1, grounder.getReusedComponents());
+		assertEquals(Arrays.asList("a :- b.", " c :- d.", " c :- d, e."), headGrounder.programs);
+		assertEquals("1 2 0 0\n1 3 0 0\n0\n2 a\n3 c\n0\nB+\n0\nB-\n0\n1\n", grounded);
+	}
+	
+	@Test
+	public void ground_newFactLiteral_reusesComponents() throws GroundingException {
+		String otherFactLiteral = "_flfedcba9876543210fedcba9876543210";
+		HeadGrounder headGrounder = new HeadGrounder();
+		IncrementalGrounder grounder = new IncrementalGrounder(headGrounder);
+		grounder.ground("a :- " + FACT_LITERAL + ". c." + FACT_LITERAL_RULE);
+		
+		String grounded = grounder.ground("a :- " + otherFactLiteral + ". c.\n" + otherFactLiteral + " | -" + otherFactLiteral + ".\n");
+		
+		assertEquals(0, grounder.getGroundedComponents());
+		assertEquals(2, headGrounder.programs.size());
+		assertThat(grounded, StringContains.containsString(" " + otherFactLiteral + "\n"));
+		assertEquals(-1, grounded.indexOf(FACT_LITERAL));
+	}
+	
+	@Test
+	public void ground_directive_groundsWholeProgram() throws GroundingException {
+		HeadGrounder headGrounder = new HeadGrounder();
+		IncrementalGrounder grounder = new IncrementalGrounder(headGrounder);
+		String program = "#const n = 1. a :- b. c :- d." + FACT_LITERAL_RULE;
+		
+		grounder.ground(program);
+		
+		assertEquals(Arrays.asList(program), headGrounder.programs);
+		assertEquals(1, grounder.getGroundedComponents());
+	}
+	
+	/**
+	 * Grounds each rule to its head atom, i.e. the first name of the rule.
+	 */
+	private static class HeadGrounder implements BufferGrounder {
+		private final List<String> programs = new ArrayList<String>();
+		
+		@Override
+		public String ground(String logicProgram) throws GroundingException {
+			return ByteBuffers.toString(ground(logicProgram, null));
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer) throws GroundingException {
+			return ground(logicProgram, buffer, null);
+		}
+		
+		@Override
+		public ByteBuffer ground(String logicProgram, ByteBuffer buffer, Statistics statistics) throws GroundingException {
+			programs.add(logicProgram);
+			Map<String, Integer> atoms = new LinkedHashMap<String, Integer>();
+			StringBuilder rules = new StringBuilder();
+			
+			for (String rule : logicProgram.split("\\.")) {
+				String head = rule.trim().split("[^A-Za-z0-9_]", 2)[0];
+				
+				if (!head.isEmpty() && !head.startsWith("#") && !atoms.containsKey(head)) {
+					atoms.put(head, atoms.size() + 2);
+					rules.append("1 ").append(atoms.get(head)).append(" 0 0\n");
+				}
+			}
+			
+			StringBuilder grounded = new StringBuilder(rules).append("0\n");
+			
+			for (Map.Entry<String, Integer> atom : atoms.entrySet()) {
+				grounded.append(atom.getValue()).append(' ').append(atom.getKey()).append('\n');
+			}
+			
+			grounded.append("0\nB+\n0\nB-\n0\n1\n");
+			return ByteBuffer.wrap(grounded.toString().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
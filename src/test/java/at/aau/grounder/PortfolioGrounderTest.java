@@ -0,0 +1,110 @@
+package at.aau.grounder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PortfolioGrounder} and {@link PortfolioRecord}. The
+ * configurations are standard commands: <code>cat</code> returns the program,
+ * <code>sleep</code> never finishes in time and <code>false</code> fails.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PortfolioGrounderTest {
+	private static final String FACT_LITERAL = "_fl0123456789abcdef0123456789abcdef";
+	
+	private static final String PROGRAM = "a :- b.\nb :- " + FACT_LITERAL + ".\n" + FACT_LITERAL + " | -" + FACT_LITERAL + ".\n";
+	
+	// =========================================================================
+	// ground tests
+	// =========================================================================
+	@Test
+	public void ground_slowAndFastConfiguration_returnsFastResultAndStopsSlow() throws GroundingException {
+		PortfolioGrounder grounder = new PortfolioGrounder(Arrays.asList("sleep 30", "cat"));
+		long start = System.nanoTime();
+		
+		String grounded = grounder.ground(PROGRAM);
+		
+		assertEquals(PROGRAM, grounded);
+		assertTrue((System.nanoTime() - start) / 1000000 < 10000);
+		assertEquals("cat", grounder.getReport().getWinner());
+		assertEquals(PortfolioReport.State.STOPPED, grounder.getReport().getRuns().get(0).getState());
+		assertEquals(PortfolioReport.State.WON, grounder.getReport().getRuns().get(1).getState());
+		assertFalse(grounder.getReport().isRecorded());
+	}
+	
+	@Test
+	public void ground_failingConfiguration_usesOtherConfiguration() throws GroundingException {
+		PortfolioGrounder grounder = new PortfolioGrounder(Arrays.asList("false", "cat"));
+		
+		assertEquals(PROGRAM, grounder.ground(PROGRAM));
+		assertEquals("cat", grounder.getReport().getWinner());
+	}
+	
+	@Test
+	public void ground_allConfigurationsFail_throwsWithAllErrors() {
+		PortfolioGrounder grounder = new PortfolioGrounder(Arrays.asList("false", "no-such-grounder-command"));
+		
+		try {
+			grounder.ground(PROGRAM);
+			fail("Expected a GroundingException");
+		} catch (GroundingException e) {
+			assertThat(e.getMessage(), StringContains.containsString("\nfalse: "));
+			assertThat(e.getMessage(), StringContains.containsString("no-such-grounder-command: Starting the grounder failed"));
+			assertEquals(PortfolioReport.State.FAILED, grounder.getReport().getRuns().get(1).getState());
+		}
+	}
+	
+	@Test
+	public void ground_recordedEncoding_startsOnlyRecordedConfiguration() throws GroundingException {
+		PortfolioGrounder grounder = new PortfolioGrounder(Arrays.asList("sleep 30", "cat"));
+		grounder.setRecord(new PortfolioRecord());
+		grounder.ground(PROGRAM);
+		
+		String grounded = grounder.ground("c.\n" + PROGRAM);
+		
+		assertEquals("c.\n" + PROGRAM, grounded);
+		assertTrue(grounder.getReport().isRecorded());
+		assertEquals(1, grounder.getReport().getRuns().size());
+	}
+	
+	// =========================================================================
+	// record tests
+	// =========================================================================
+	@Test
+	public void getEncodingKey_differentFacts_sameKey() {
+		String encoding = "p(X) :- q(X, Y), not r(Y).\n";
+		
+		assertEquals(PortfolioRecord.getEncodingKey(encoding + "q(1,a). r(b).\n"),
+				PortfolioRecord.getEncodingKey(encoding + "q(2,c).  q(a_b,\"x\").\n"));
+		assertNotEquals(PortfolioRecord.getEncodingKey(encoding),
+				PortfolioRecord.getEncodingKey(encoding + "q(X,a) :- r(X).\n"));
+	}
+	
+	@Test
+	public void writeAndRead_record_keepsWinners() throws IOException {
+		PortfolioRecord record = new PortfolioRecord();
+		record.put("0123", "gringo-4.5 --keep-facts");
+		StringWriter writer = new StringWriter();
+		
+		record.write(writer);
+		PortfolioRecord read = PortfolioRecord.read(new StringReader(writer.toString()));
+		
+		assertEquals("0123 gringo-4.5 --keep-facts\n", writer.toString());
+		assertEquals("gringo-4.5 --keep-facts", read.get("0123"));
+		assertEquals(1, read.size());
+	}
+}
@@ -0,0 +1,48 @@
+package at.aau.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Options}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class OptionsTest {
+	// =========================================================================
+	// threads tests
+	// =========================================================================
+	@Test
+	public void options_threads_parsesThreads() throws InvalidOptionException {
+		Options options = new Options(new String[] { "-t", "3", "program.lp" });
+		
+		assertEquals(3, options.getThreads());
+	}
+	
+	@Test
+	public void options_zeroThreads_throwsWithUsage() {
+		assertInvalid(new String[] { "-t", "0", "program.lp" }, "The option -t must be a positive integer, but was '0'");
+	}
+	
+	@Test
+	public void options_negativeThreads_throwsWithUsage() {
+		assertInvalid(new String[] { "--threads", "-2", "program.lp" }, "The option -t must be a positive integer, but was '-2'");
+	}
+	
+	private static void assertInvalid(String[] args, String message) {
+		try {
+			new Options(args);
+			fail("The options " + Arrays.toString(args) + " were accepted");
+		} catch (InvalidOptionException e) {
+			assertThat(e.getMessage(), StringContains.containsString(message));
+			assertThat(e.getMessage(), StringContains.containsString("Usage: "));
+		}
+	}
+}
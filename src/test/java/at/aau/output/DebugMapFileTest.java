@@ -0,0 +1,151 @@
+package at.aau.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import at.aau.Rule;
+
+/**
+ * Unit tests for {@link DebugMapFile}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DebugMapFileTest {
+	private File file;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("debug", ".map");
+	}
+	
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+	
+	// =========================================================================
+	// write and open tests
+	// =========================================================================
+	@Test
+	public void open_writtenMap_returnsRulesAndVariables() throws IOException {
+		Map<String, Rule> ruleMap = new HashMap<String, Rule>();
+		ruleMap.put("_debug1", new Rule("a :- b."));
+		ruleMap.put("_debug2", new Rule("{pred(X,Y); pred(Y,X)} :- a(X), b(Y).", Arrays.asList("X", "Y")));
+		ruleMap.put("_debug3", new Rule("ä(X) :- b(X).", Arrays.asList("X")));
+		
+		DebugMapFile debugMap = writeAndOpen(ruleMap, "_debug");
+		
+		assertEquals("_debug", debugMap.getDebugConstantPrefix());
+		assertEquals(3, debugMap.getMaxNumber());
+		assertEquals("a :- b.", debugMap.getRuleText(1));
+		assertEquals(0, debugMap.getRule(1).getVariables().size());
+		assertEquals("{pred(X,Y); pred(Y,X)} :- a(X), b(Y).", debugMap.getRule("_debug2").getRule());
+		assertEquals(Arrays.asList("X", "Y"), debugMap.getRule(2).getVariables());
+		assertEquals("ä(X) :- b(X).", debugMap.getRule(3).getRule());
+	}
+	
+	@Test
+	public void open_gapsAndOtherConstants_returnsNullForMissingRules() throws IOException {
+		Map<String, Rule> ruleMap = new HashMap<String, Rule>();
+		ruleMap.put("_debug2", new Rule("a :- b."));
+		ruleMap.put("_debug5", new Rule("c :- a."));
+		ruleMap.put("_other1", new Rule("d :- c."));
+		
+		DebugMapFile debugMap = writeAndOpen(ruleMap, "_debug");
+		
+		assertEquals(5, debugMap.getMaxNumber());
+		assertFalse(debugMap.hasRule(1));
+		assertTrue(debugMap.hasRule(2));
+		assertNull(debugMap.getRule(4));
+		assertNull(debugMap.getRule(6));
+		assertNull(debugMap.getRule("_other1"));
+		assertNull(debugMap.getRule("_debug05"));
+		assertEquals("c :- a.", debugMap.getRuleText(5));
+	}
+	
+	@Test
+	public void open_emptyMap_hasNoRules() throws IOException {
+		DebugMapFile debugMap = writeAndOpen(new HashMap<String, Rule>(), "_debug");
+		
+		assertEquals(0, debugMap.getMaxNumber());
+		assertNull(debugMap.getRule(1));
+	}
+	
+	@Test(expected = IOException.class)
+	public void open_otherFile_throws() throws IOException {
+		Files.write(file.toPath(), "10 _debug1 0 a :- b.\n0\n".getBytes("UTF-8"));
+		
+		DebugMapFile.open(file);
+	}
+	
+	@Test(expected = IOException.class)
+	public void open_truncatedMap_throws() throws IOException {
+		Map<String, Rule> ruleMap = new HashMap<String, Rule>();
+		ruleMap.put("_debug1", new Rule("a :- b."));
+		writeAndOpen(ruleMap, "_debug");
+		byte[] data = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(data, data.length - 4));
+		
+		DebugMapFile.open(file);
+	}
+	
+	@Test
+	public void read_mapAfterOtherData_returnsRules() throws IOException {
+		Map<String, Rule> ruleMap = new HashMap<String, Rule>();
+		ruleMap.put("_debug2", new Rule("a(X) :- b(X).", Arrays.asList("X")));
+		writeAndOpen(ruleMap, "_debug");
+		byte[] data = Files.readAllBytes(file.toPath());
+		ByteBuffer buffer = ByteBuffer.allocate(data.length + 3);
+		buffer.put(new byte[3]).put(data).flip();
+		buffer.position(3);
+		
+		DebugMapFile debugMap = DebugMapFile.read(buffer);
+		
+		assertEquals("_debug", debugMap.getDebugConstantPrefix());
+		assertEquals("a(X) :- b(X).", debugMap.getRule(2).getRule());
+		assertFalse(debugMap.hasRule(1));
+	}
+	
+	@Test
+	public void write_sameMap_writesSameBytes() throws IOException {
+		Map<String, Rule> ruleMap = new HashMap<String, Rule>();
+		ruleMap.put("_debug1", new Rule("a(X) :- b(X).", Arrays.asList("X")));
+		ruleMap.put("_debug2", new Rule("c :- a(1)."));
+		
+		writeAndOpen(ruleMap, "_debug");
+		byte[] first = Files.readAllBytes(file.toPath());
+		writeAndOpen(new HashMap<String, Rule>(ruleMap), "_debug");
+		
+		assertArrayEquals(first, Files.readAllBytes(file.toPath()));
+	}
+	
+	private DebugMapFile writeAndOpen(Map<String, Rule> ruleMap, String prefix) throws IOException {
+		OutputStream output = new FileOutputStream(file);
+		
+		try {
+			DebugMapFile.write(ruleMap, prefix, output);
+		} finally {
+			output.close();
+		}
+		
+		return DebugMapFile.open(file);
+	}
+}
@@ -63,4 +63,16 @@ public class OutputBuilderTest {
 		assertThat(ruleTable, StringEndsWith.endsWith("\n0\n"));
 		assertEquals(ruleTable.length(), 86);
 	}
+	
+	@Test
+	public void buildRuleTable_hashMap_numericOrder() {
+		Map<String, Rule> ruleMap = new HashMap<String, Rule>();
+		ruleMap.put("_debug10", new Rule("c :- d."));
+		ruleMap.put("_debug9", new Rule("b :- d."));
+		ruleMap.put("_debug1", new Rule("a :- d."));
+		
+		String ruleTable = outputBuilder.buildRuleTable(ruleMap);
+		
+		assertEquals("10 _debug1 0 a :- d.\n10 _debug9 0 b :- d.\n10 _debug10 0 c :- d.\n0\n", ruleTable);
+	}
 }
@@ -0,0 +1,102 @@
+package at.aau.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Before;
+import org.junit.Test;
+
+import at.aau.Rule;
+import at.aau.io.ByteBuffers;
+import at.aau.postprocessing.GroundingProfile;
+import at.aau.postprocessing.PostprocessingException;
+import at.aau.postprocessing.Postprocessor;
+
+/**
+ * Unit tests for {@link ProfileReportBuilder}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class ProfileReportBuilderTest {
+	/** The class under test */
+	private ProfileReportBuilder reportBuilder = new ProfileReportBuilder();
+	
+	private GroundingProfile profile;
+	
+	private Map<String, Rule> debugRuleMap;
+	
+	@Before
+	public void setUp() throws PostprocessingException {
+		// a(1..3).
+		// b(X) :- a(X), _debug1(X).
+		// c :- d, _debug2.
+		String groundedProgram =
+				"1 2 0 0\n"
+			  + "1 3 0 0\n"
+			  + "1 4 0 0\n"
+			  + "1 5 2 0 2 6\n"
+			  + "1 7 2 0 3 8\n"
+			  + "1 9 2 0 4 10\n"
+			  + "0\n"
+			  + "2 a(1)\n"
+			  + "3 a(2)\n"
+			  + "4 a(3)\n"
+			  + "5 b(1)\n"
+			  + "6 _debug1(1)\n"
+			  + "7 b(2)\n"
+			  + "8 _debug1(2)\n"
+			  + "9 b(3)\n"
+			  + "10 _debug1(3)\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1";
+		
+		profile = new GroundingProfile();
+		new Postprocessor(1).performPostprocessing(ByteBuffers.wrap(groundedProgram), "_debug", "_fl", null, null, profile);
+		
+		debugRuleMap = new LinkedHashMap<String, Rule>();
+		debugRuleMap.put("_debug2", new Rule("c :- d.", Arrays.<String>asList()));
+		debugRuleMap.put("_debug1", new Rule("b(X) :- a(X).", Arrays.asList("X")));
+	}
+	
+	// =========================================================================
+	// buildTable tests
+	// =========================================================================
+	@Test
+	public void buildTable_rulesSortedByInstances_returnsCorrect() {
+		String table = reportBuilder.buildTable(profile, debugRuleMap);
+		
+		assertThat(table, StringContains.containsString(
+				"         3  100.0%  _debug1      b(X) :- a(X).\n"
+			  + "         0    0.0%  _debug2      c :- d.\n"));
+		assertThat(table, StringContains.containsString(
+				"         3          3  a/1\n"
+			  + "         3          3  b/1\n"));
+	}
+	
+	// =========================================================================
+	// buildJson tests
+	// =========================================================================
+	@Test
+	public void buildJson_returnsCorrect() {
+		String expected = "{\"rules\":6,\"atoms\":9,"
+				+ "\"debugConstants\":["
+				+ "{\"constant\":\"_debug1\",\"groundInstances\":3,\"share\":1.0,\"rule\":\"b(X) :- a(X).\"},"
+				+ "{\"constant\":\"_debug2\",\"groundInstances\":0,\"share\":0.0,\"rule\":\"c :- d.\"}],"
+				+ "\"predicates\":["
+				+ "{\"name\":\"a\",\"arity\":1,\"rules\":3,\"atoms\":3},"
+				+ "{\"name\":\"b\",\"arity\":1,\"rules\":3,\"atoms\":3}]}";
+		
+		assertEquals(expected, reportBuilder.buildJson(profile, debugRuleMap));
+	}
+}
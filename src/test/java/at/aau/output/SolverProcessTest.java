@@ -0,0 +1,84 @@
+package at.aau.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SolverProcess}. The solver is a stand-in shell script
+ * that counts the lines of its input and exits with the satisfiable exit code
+ * of clasp.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class SolverProcessTest {
+	private static final String SOLVER_SCRIPT =
+			"#!/bin/sh\n"
+		  + "lines=$(wc -l | tr -d ' ')\n"
+		  + "echo \"read $lines lines\"\n"
+		  + "exit 10\n";
+	
+	private File script;
+	
+	private File output;
+	
+	@Before
+	public void setUp() throws IOException {
+		script = File.createTempFile("solver", ".sh");
+		output = File.createTempFile("solver", ".out");
+		Files.write(script.toPath(), SOLVER_SCRIPT.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@After
+	public void tearDown() {
+		script.delete();
+		output.delete();
+	}
+	
+	// =========================================================================
+	// finish tests
+	// =========================================================================
+	@Test
+	public void finish_programWritten_passesOutputAndExitCode() throws IOException {
+		SolverProcess solver = new SolverProcess("sh " + script.getPath());
+		solver.setOutput(Redirect.to(output));
+		
+		OutputStream input = solver.start();
+		input.write("1 2 0 0\n0\n2 a\n0\nB+\n0\nB-\n1\n0\n1\n".getBytes(StandardCharsets.UTF_8));
+		
+		assertEquals(10, solver.finish());
+		assertEquals("read 10 lines\n", new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void finish_solverExitedEarly_returnsExitCode() throws IOException, InterruptedException {
+		SolverProcess solver = new SolverProcess("false");
+		solver.setOutput(Redirect.to(output));
+		
+		OutputStream input = solver.start();
+		Thread.sleep(200);
+		
+		try {
+			input.write(new byte[1 << 20]);
+		} catch (IOException e) {
+			// broken pipe
+		}
+		
+		assertEquals(1, solver.finish());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_emptyCommand_throws() {
+		new SolverProcess("  ");
+	}
+}
@@ -0,0 +1,142 @@
+package at.aau.postprocessing;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AtomRenumberer}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class AtomRenumbererTest {
+	/**
+	 * Postprocessed program with holes in the atom numbers, a debug choice rule
+	 * and a fixed model constraint. Original logic program:
+	 * c :- not d, _debug1.
+	 * d :- not c, _debug2.
+	 * b.
+	 * #fixModel c.
+	 */
+	private final String postprocessed =
+			"1 9 0 0\n"
+		  + "1 7 2 1 8 11\n"
+		  + "1 8 2 1 7 12\n"
+		  + "3 2 11 12 0 0\n"
+		  + "1 1 1 1 7\n"
+		  + "0\n"
+		  + "9 b\n"
+		  + "7 c\n"
+		  + "8 d\n"
+		  + "11 _debug1\n"
+		  + "12 _debug2\n"
+		  + "0\n"
+		  + "B+\n"
+		  + "9\n"
+		  + "0\n"
+		  + "B-\n"
+		  + "1\n"
+		  + "0\n"
+		  + "1\n";
+	
+	@Test
+	public void renumber_firstUse_numbersByFirstOccurrence() throws PostprocessingException {
+		String expected =
+				"1 2 0 0\n"
+			  + "1 3 2 1 4 5\n"
+			  + "1 4 2 1 3 6\n"
+			  + "3 2 5 6 0 0\n"
+			  + "1 1 1 1 3\n"
+			  + "0\n"
+			  + "2 b\n"
+			  + "3 c\n"
+			  + "4 d\n"
+			  + "5 _debug1\n"
+			  + "6 _debug2\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "2\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1\n";
+		
+		assertEquals(expected, new AtomRenumberer(AtomOrder.FIRST_USE).renumber(postprocessed));
+	}
+	
+	@Test
+	public void renumber_name_numbersBySymbolName() throws PostprocessingException {
+		String expected =
+				"1 4 0 0\n"
+			  + "1 5 2 1 6 2\n"
+			  + "1 6 2 1 5 3\n"
+			  + "3 2 2 3 0 0\n"
+			  + "1 1 1 1 5\n"
+			  + "0\n"
+			  + "2 _debug1\n"
+			  + "3 _debug2\n"
+			  + "4 b\n"
+			  + "5 c\n"
+			  + "6 d\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "4\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1\n";
+		
+		assertEquals(expected, new AtomRenumberer(AtomOrder.NAME).renumber(postprocessed));
+	}
+	
+	@Test
+	public void renumber_nameUnnamedAtoms_numbersUnnamedAtomsLast() throws PostprocessingException {
+		// weight rule with an auxiliary atom that has no symbol table entry
+		String program =
+				"5 20 1 2 0 15 16 1 2\n"
+			  + "1 15 1 0 20\n"
+			  + "0\n"
+			  + "16 b\n"
+			  + "15 a\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1\n";
+		
+		String expected =
+				"5 4 1 2 0 2 3 1 2\n"
+			  + "1 2 1 0 4\n"
+			  + "0\n"
+			  + "2 a\n"
+			  + "3 b\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1\n";
+		
+		assertEquals(expected, new AtomRenumberer(AtomOrder.NAME).renumber(program));
+	}
+	
+	@Test
+	public void renumber_differentGrounderNumbering_returnsSame() throws PostprocessingException {
+		String renumbered = new AtomRenumberer(AtomOrder.NAME).renumber(postprocessed);
+		String shifted = new AtomRenumberer(AtomOrder.NAME).renumber(postprocessed
+				.replace("9", "31").replace("7", "29").replace("8", "30"));
+		
+		assertEquals(renumbered, shifted);
+	}
+	
+	@Test(expected = PostprocessingException.class)
+	public void renumber_unknownRuleType_throwsException() throws PostprocessingException {
+		new AtomRenumberer(AtomOrder.NAME).renumber("4 2 0 0\n0\n0\nB+\n0\nB-\n1\n0\n1\n");
+	}
+}
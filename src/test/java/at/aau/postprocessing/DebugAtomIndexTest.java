@@ -0,0 +1,195 @@
+package at.aau.postprocessing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import at.aau.Rule;
+import at.aau.io.ByteBuffers;
+
+/**
+ * Unit tests for {@link DebugAtomIndex}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class DebugAtomIndexTest {
+	/**
+	 * Grounded program of the logic program:
+	 * a(1). a(2).
+	 * b(X) :- a(X), _debug1(X).
+	 * c :- b(X), _debug2.
+	 */
+	private final String groundedProgram =
+			"1 2 1 0 3\n"
+		  + "1 4 1 0 3\n"
+		  + "1 5 1 0 2\n"
+		  + "1 6 1 0 4\n"
+		  + "1 7 2 0 2 5\n"
+		  + "1 8 2 0 4 6\n"
+		  + "1 9 0 0\n"
+		  + "1 10 2 0 7 9\n"
+		  + "1 10 2 0 8 9\n"
+		  + "1 1 2 0 3 11\n"
+		  + "8 2 3 11 0 0\n"
+		  + "0\n"
+		  + "3 _fl\n"
+		  + "2 a(1)\n"
+		  + "4 a(2)\n"
+		  + "5 _debug1(1)\n"
+		  + "6 _debug1(f(a,\"b,c\"))\n"
+		  + "7 b(1)\n"
+		  + "8 b(2)\n"
+		  + "9 _debug2\n"
+		  + "10 c\n"
+		  + "11 -_fl\n"
+		  + "0\n"
+		  + "B+\n"
+		  + "0\n"
+		  + "B-\n"
+		  + "1\n"
+		  + "0\n"
+		  + "1\n";
+	
+	// =========================================================================
+	// lookup tests
+	// =========================================================================
+	@Test
+	public void getRuleIndex_debugAtoms_returnsDebugConstantNumber() throws PostprocessingException {
+		DebugAtomIndex index = index(new Postprocessor(1));
+		
+		assertEquals(3, index.size());
+		assertEquals(1, index.getRuleIndex(5));
+		assertEquals(1, index.getRuleIndex(6));
+		assertEquals(2, index.getRuleIndex(9));
+		assertEquals("_debug2", index.getDebugConstant(9));
+	}
+	
+	@Test
+	public void getRuleIndex_otherAtoms_returnsMinusOne() throws PostprocessingException {
+		DebugAtomIndex index = index(new Postprocessor(1));
+		
+		assertEquals(-1, index.getRuleIndex(2));
+		assertEquals(-1, index.getRuleIndex(0));
+		assertEquals(-1, index.getRuleIndex(123456));
+		assertFalse(index.isDebugAtom(7));
+		assertTrue(index.isDebugAtom(5));
+		assertNull(index.getArguments(10));
+		assertNull(index.getDebugConstant(10));
+	}
+	
+	@Test
+	public void getArguments_debugAtoms_returnsArgumentText() throws PostprocessingException {
+		DebugAtomIndex index = index(new Postprocessor(1));
+		
+		assertEquals("1", index.getArguments(5).toString());
+		assertEquals("f(a,\"b,c\")", index.getArguments(6).toString());
+		assertEquals("", index.getArguments(9).toString());
+	}
+	
+	@Test
+	public void getGroundedRule_debugAtom_instantiatesRule() throws PostprocessingException {
+		DebugAtomIndex index = index(new Postprocessor(1));
+		Map<String, Rule> debugRuleMap = new HashMap<String, Rule>();
+		debugRuleMap.put("_debug1", new Rule("b(X) :- a(X).", Arrays.asList("X")));
+		debugRuleMap.put("_debug2", new Rule("c :- b(X)."));
+		
+		Rule rule = index.getRule(6, debugRuleMap);
+		
+		assertEquals("b(f(a,\"b,c\")) :- a(f(a,\"b,c\")).", index.getGroundedRule(6, rule));
+		assertEquals("f(a,\"b,c\")", index.getSubstitution(6, rule).get("X"));
+		assertEquals("c :- b(X).", index.getGroundedRule(9, index.getRule(9, debugRuleMap)));
+	}
+	
+	@Test
+	public void index_parallel_returnsSameAsSequential() throws PostprocessingException {
+		StringBuilder program = new StringBuilder("1 1 0 0\n0\n");
+		
+		for (int i = 2; i < 5000; i ++) {
+			program.append(i).append(" _debug").append(i % 7).append("(").append(i).append(",x)\n");
+		}
+		
+		program.append("0\nB+\n0\nB-\n1\n0\n1\n");
+		
+		DebugAtomIndex index = new DebugAtomIndex();
+		new Postprocessor(8, 64).performPostprocessing(ByteBuffers.wrap(program.toString()), "_debug", "_fl", null, null, null, index);
+		
+		assertEquals(4998, index.size());
+		
+		for (int i = 2; i < 5000; i ++) {
+			assertEquals(i - 2, indexOfEntry(index, i));
+			assertEquals(i % 7, index.getRuleIndex(i));
+			assertEquals(i + ",x", index.getArguments(i).toString());
+		}
+	}
+	
+	// =========================================================================
+	// renumbering tests
+	// =========================================================================
+	@Test
+	public void renumber_firstUse_mapsNewAtomNumbers() throws PostprocessingException {
+		DebugAtomIndex index = new DebugAtomIndex();
+		String postprocessed = ByteBuffers.toString(new Postprocessor(1).performPostprocessing(
+				ByteBuffers.wrap(groundedProgram), "_debug", "_fl", null, null, null, index));
+		
+		new AtomRenumberer(AtomOrder.FIRST_USE).renumber(ByteBuffers.wrap(postprocessed), null, index);
+		
+		// a(1), a(2), b(1), _debug1(1), b(2), _debug1(f(a,"b,c")), c, _debug2
+		assertEquals(1, index.getRuleIndex(5));
+		assertEquals("1", index.getArguments(5).toString());
+		assertEquals("f(a,\"b,c\")", index.getArguments(7).toString());
+		assertEquals(2, index.getRuleIndex(9));
+		assertEquals(-1, index.getRuleIndex(8));
+	}
+	
+	// =========================================================================
+	// serialization tests
+	// =========================================================================
+	@Test
+	public void read_writtenIndex_returnsEqualIndex() throws PostprocessingException, IOException {
+		DebugAtomIndex index = index(new Postprocessor(1));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		index.write(output);
+		
+		DebugAtomIndex read = DebugAtomIndex.read(new ByteArrayInputStream(output.toByteArray()));
+		
+		assertEquals(3, read.size());
+		assertEquals("_debug", read.getDebugAtomPrefix());
+		assertEquals("_debug1", read.getDebugConstant(6));
+		assertEquals("f(a,\"b,c\")", read.getArguments(6).toString());
+		assertEquals("", read.getArguments(9).toString());
+		assertFalse(read.isDebugAtom(7));
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_otherData_throwsIOException() throws IOException {
+		DebugAtomIndex.read(new ByteArrayInputStream("1 2 0 0\n0\n".getBytes("UTF-8")));
+	}
+	
+	private DebugAtomIndex index(Postprocessor postprocessor) throws PostprocessingException {
+		DebugAtomIndex index = new DebugAtomIndex();
+		postprocessor.performPostprocessing(ByteBuffers.wrap(groundedProgram), "_debug", "_fl", null, null, null, index);
+		
+		return index;
+	}
+	
+	private static int indexOfEntry(DebugAtomIndex index, int atom) {
+		for (int entry = 0; entry < index.size(); entry ++) {
+			if (index.getAtom(entry) == atom) {
+				return entry;
+			}
+		}
+		
+		return -1;
+	}
+}
@@ -0,0 +1,53 @@
+package at.aau.postprocessing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import at.aau.io.ByteBuffers;
+
+/**
+ * Unit tests for {@link GroundProgramMerger}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundProgramMergerTest {
+	private final GroundProgramMerger merger = new GroundProgramMerger();
+	
+	// =========================================================================
+	// merge tests
+	// =========================================================================
+	@Test
+	public void merge_sharedNames_sameAtom() throws PostprocessingException {
+		String first = "1 2 1 0 3\n3 1 4 0 0\n0\n2 a\n3 _fl\n0\nB+\n3\n0\nB-\n1\n0\n1\n";
+		String second = "1 2 1 0 3\n1 4 0 0\n0\n2 b\n3 _fl\n4 c\n0\nB+\n3\n0\nB-\n0\n1\n";
+		
+		ByteBuffer merged = merger.merge(Arrays.asList(buffer(first), buffer(second)), null);
+		
+		assertEquals("1 2 1 0 3\n3 1 4 0 0\n1 5 1 0 3\n1 6 0 0\n0\n2 a\n3 _fl\n5 b\n6 c\n0\nB+\n3\n0\nB-\n1\n0\n1\n",
+				ByteBuffers.toString(merged));
+	}
+	
+	@Test
+	public void merge_duplicateRules_writtenOnce() throws PostprocessingException {
+		String program = "1 2 0 0\n6 0 1 0 2 1\n0\n2 a\n0\nB+\n0\nB-\n0\n1\n";
+		
+		ByteBuffer merged = merger.merge(Arrays.asList(buffer(program), buffer(program)), null);
+		
+		assertEquals("1 2 0 0\n6 0 1 0 2 1\n6 0 1 0 2 1\n0\n2 a\n0\nB+\n0\nB-\n0\n1\n", ByteBuffers.toString(merged));
+	}
+	
+	@Test(expected = PostprocessingException.class)
+	public void merge_noEndOfRules_throwsException() throws PostprocessingException {
+		merger.merge(Arrays.asList(buffer("1 2 0 0\n")), null);
+	}
+	
+	private static ByteBuffer buffer(String program) {
+		return ByteBuffer.wrap(program.getBytes(StandardCharsets.UTF_8));
+	}
+}
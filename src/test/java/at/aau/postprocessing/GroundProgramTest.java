@@ -0,0 +1,167 @@
+package at.aau.postprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.aau.io.ByteBuffers;
+
+/**
+ * Unit tests for {@link GroundProgram}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class GroundProgramTest {
+	private static final String FACT_LITERAL = "_fl";
+	
+	/** A grounded program with a rule of each type */
+	private static final String ALL_RULE_TYPES =
+			"1 2 0 0\n"
+		  + "1 3 2 1 4 2\n"
+		  + "2 5 2 0 1 2 3\n"
+		  + "3 2 4 6 0 0\n"
+		  + "5 7 2 2 1 4 2 1 3\n"
+		  + "6 0 1 0 2 2\n"
+		  + "8 2 8 9 0 0\n"
+		  + "0\n"
+		  + "2 a\n"
+		  + "3 b\n"
+		  + "4 c\n"
+		  + "6 d\n"
+		  + "7 e\n"
+		  + "8 f\n"
+		  + "9 g\n"
+		  + "0\n"
+		  + "B+\n"
+		  + "2\n"
+		  + "0\n"
+		  + "B-\n"
+		  + "1\n"
+		  + "0\n"
+		  + "3\n";
+	
+	// =========================================================================
+	// read tests
+	// =========================================================================
+	@Test
+	public void read_allRuleTypes_writesSameProgram() throws PostprocessingException {
+		GroundProgram program = GroundProgram.read(ByteBuffers.wrap(ALL_RULE_TYPES));
+		
+		assertEquals(ALL_RULE_TYPES, program.toString());
+		assertEquals(7, program.getRuleCount());
+		assertEquals(7, program.getSymbolCount());
+		assertArrayEquals(new int[] { 2 }, program.getComputeTrue());
+		assertArrayEquals(new int[] { 1 }, program.getComputeFalse());
+		assertEquals(3, program.getModels());
+	}
+	
+	@Test
+	public void read_allRuleTypes_returnsHeadsBodiesAndWeights() throws PostprocessingException {
+		GroundProgram program = GroundProgram.read(ByteBuffers.wrap(ALL_RULE_TYPES));
+		
+		// 3 :- 2, not 4.
+		assertEquals(GroundProgram.BASIC_RULE, program.getRuleType(1));
+		assertArrayEquals(new int[] { 3 }, program.getHead(1));
+		assertArrayEquals(new int[] { 4 }, program.getNegativeBody(1));
+		assertArrayEquals(new int[] { 2 }, program.getPositiveBody(1));
+		
+		// constraint rule with bound 1
+		assertEquals(1, program.getBound(2));
+		assertArrayEquals(new int[] { 2, 3 }, program.getPositiveBody(2));
+		
+		// choice rule
+		assertArrayEquals(new int[] { 4, 6 }, program.getHead(3));
+		assertArrayEquals(new int[0], program.getPositiveBody(3));
+		
+		// weight rule
+		assertEquals(2, program.getBound(4));
+		assertArrayEquals(new int[] { 4 }, program.getNegativeBody(4));
+		assertArrayEquals(new int[] { 2 }, program.getPositiveBody(4));
+		assertArrayEquals(new int[] { 1, 3 }, program.getWeights(4));
+		
+		// minimize rule
+		assertArrayEquals(new int[0], program.getHead(5));
+		assertArrayEquals(new int[] { 2 }, program.getWeights(5));
+		
+		// disjunctive rule
+		assertArrayEquals(new int[] { 8, 9 }, program.getHead(6));
+		
+		assertEquals(6, program.getSymbolAtom(3));
+		assertEquals("d", program.getSymbolName(3));
+	}
+	
+	@Test(expected = PostprocessingException.class)
+	public void read_missingComputeStatement_throws() throws PostprocessingException {
+		GroundProgram.read(ByteBuffers.wrap("1 2 0 0\n0\n2 a\n0\n"));
+	}
+	
+	// =========================================================================
+	// buildGroundProgram tests
+	// =========================================================================
+	@Test
+	public void buildGroundProgram_parallel_writesSameAsPostprocessing() throws PostprocessingException {
+		String groundedProgram = createGroundedProgram(500);
+		List<String> model = Arrays.asList("a(1)", "b(7)");
+		Postprocessor postprocessor = new Postprocessor(8, 64);
+		
+		String postprocessed = ByteBuffers.toString(postprocessor.performPostprocessing(
+				ByteBuffers.wrap(groundedProgram), "_debug", FACT_LITERAL, model, null));
+		GroundProgram program = postprocessor.buildGroundProgram(
+				ByteBuffers.wrap(groundedProgram), "_debug", FACT_LITERAL, model, null, null);
+		
+		assertEquals(postprocessed, program.toString());
+		assertEquals(500, program.getDebugAtoms().length);
+		assertTrue(program.hasFixedModelConstraint());
+		assertArrayEquals(new int[] { 7, 27 }, program.getFixedModelAtoms());
+	}
+	
+	@Test
+	public void buildGroundProgram_factRules_storesFacts() throws PostprocessingException {
+		GroundProgram program = new Postprocessor(1).buildGroundProgram(
+				ByteBuffers.wrap(createGroundedProgram(3)), "_debug", FACT_LITERAL, null, null, null);
+		
+		// a(0) :- _fl. becomes a(0).
+		assertArrayEquals(new int[] { 4 }, program.getHead(0));
+		assertArrayEquals(new int[0], program.getPositiveBody(0));
+		assertFalse(program.hasFixedModelConstraint());
+		assertEquals("a(0)", program.getSymbolName(0));
+	}
+	
+	/**
+	 * Creates a grounded program with facts, debug rules and normal rules that
+	 * is large enough to be split into several chunks.
+	 */
+	private static String createGroundedProgram(int size) {
+		StringBuilder rules = new StringBuilder();
+		StringBuilder symbols = new StringBuilder();
+		int fl = 2;
+		int negFl = 3;
+		
+		for (int i = 0; i < size; i ++) {
+			int fact = 3 * i + 4;
+			int debug = fact + 1;
+			int head = fact + 2;
+			
+			rules.append("1 " + fact + " 1 0 " + fl + "\n");
+			rules.append("1 " + debug + " 1 0 " + fact + "\n");
+			rules.append("1 " + head + " 2 0 " + fact + " " + debug + "\n");
+			symbols.append(fact + " a(" + i + ")\n");
+			symbols.append(debug + " _debug1(" + i + ")\n");
+			symbols.append(head + " b(" + i + ")\n");
+		}
+		
+		rules.append("1 1 2 0 " + fl + " " + negFl + "\n");
+		rules.append("8 2 " + fl + " " + negFl + " 0 0\n");
+		symbols.append(fl + " " + FACT_LITERAL + "\n");
+		symbols.append(negFl + " -" + FACT_LITERAL + "\n");
+		
+		return rules + "0\n" + symbols + "0\nB+\n0\nB-\n1\n0\n1\n";
+	}
+}
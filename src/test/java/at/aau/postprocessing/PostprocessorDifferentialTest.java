@@ -0,0 +1,198 @@
+package at.aau.postprocessing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.aau.differential.CanonicalProgram;
+import at.aau.differential.DifferentialHarness;
+import at.aau.differential.GroundedProgramGenerator;
+import at.aau.differential.ReferencePostprocessor;
+import at.aau.io.ByteBuffers;
+
+/**
+ * Differential tests of the postprocessing paths against the
+ * {@link ReferencePostprocessor}, on random grounded programs.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PostprocessorDifferentialTest {
+	private static final String DEBUG_PREFIX = "_debug";
+	
+	private static final String FACT_ATOM = "_fl0123456789abcdef";
+	
+	// =========================================================================
+	// performPostprocessing tests
+	// =========================================================================
+	@Test
+	public void performPostprocessing_randomPrograms_equalsReference() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			final List<String> fixedModel = fixedModel(random);
+			
+			DifferentialHarness harness = new DifferentialHarness(reference(fixedModel));
+			harness.add("sequential postprocessor", new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) {
+					return new Postprocessor(1).performPostprocessing(input, DEBUG_PREFIX, FACT_ATOM, fixedModel);
+				}
+			});
+			harness.add("parallel postprocessor", new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) throws PostprocessingException {
+					return ByteBuffers.toString(new Postprocessor(4, 16).performPostprocessing(
+							ByteBuffers.wrap(input), DEBUG_PREFIX, FACT_ATOM, fixedModel, null));
+				}
+			});
+			harness.add("profiling and indexing postprocessor", new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) throws PostprocessingException {
+					return ByteBuffers.toString(new Postprocessor(3, 8).performPostprocessing(ByteBuffers.wrap(input),
+							DEBUG_PREFIX, FACT_ATOM, fixedModel, ByteBuffer.allocate(4), new GroundingProfile(), new DebugAtomIndex()));
+				}
+			});
+			
+			harness.check(seed, new GroundedProgramGenerator(random).generate(DEBUG_PREFIX, FACT_ATOM, random.nextInt(6)));
+		}
+	}
+	
+	// =========================================================================
+	// buildGroundProgram tests
+	// =========================================================================
+	@Test
+	public void buildGroundProgram_randomPrograms_equalsReference() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			final List<String> fixedModel = fixedModel(random);
+			
+			DifferentialHarness harness = new DifferentialHarness(reference(fixedModel));
+			harness.add("ground program model", new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) throws PostprocessingException {
+					return new Postprocessor(1).buildGroundProgram(ByteBuffers.wrap(input), DEBUG_PREFIX, FACT_ATOM, fixedModel, null, null)
+							.toString();
+				}
+			});
+			harness.add("parallel ground program model", new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) throws PostprocessingException {
+					return new Postprocessor(4, 16).buildGroundProgram(ByteBuffers.wrap(input), DEBUG_PREFIX, FACT_ATOM, fixedModel, null, null)
+							.toString();
+				}
+			});
+			
+			harness.check(seed, new GroundedProgramGenerator(random).generate(DEBUG_PREFIX, FACT_ATOM, random.nextInt(6)));
+		}
+	}
+	
+	// =========================================================================
+	// StreamingPostprocessor tests
+	// =========================================================================
+	@Test
+	public void streamingPostprocessor_randomPrograms_equalsReference() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			final List<String> fixedModel = fixedModel(random);
+			final int chunkSize = 1 + random.nextInt(64);
+			
+			DifferentialHarness harness = new DifferentialHarness(reference(fixedModel));
+			harness.add("streaming postprocessor", new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) throws IOException, PostprocessingException {
+					return stream(input, fixedModel, chunkSize);
+				}
+			});
+			
+			harness.check(seed, new GroundedProgramGenerator(random).generate(DEBUG_PREFIX, FACT_ATOM, random.nextInt(6)));
+		}
+	}
+	
+	// =========================================================================
+	// AtomRenumberer tests
+	// =========================================================================
+	@Test
+	public void atomRenumberer_randomPrograms_equalsReferenceUpToRenumbering() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			final List<String> fixedModel = fixedModel(random);
+			final DifferentialHarness.Implementation reference = reference(fixedModel);
+			
+			DifferentialHarness harness = new DifferentialHarness(new DifferentialHarness.Implementation() {
+				@Override
+				public String run(String input) throws Exception {
+					return CanonicalProgram.of(reference.run(input));
+				}
+			});
+			
+			for (final AtomOrder order : AtomOrder.values()) {
+				harness.add("renumbering by " + order.getOptionName(), new DifferentialHarness.Implementation() {
+					@Override
+					public String run(String input) throws PostprocessingException {
+						String postprocessed = new Postprocessor(1).performPostprocessing(input, DEBUG_PREFIX, FACT_ATOM, fixedModel);
+						return CanonicalProgram.of(new AtomRenumberer(order).renumber(postprocessed));
+					}
+				});
+			}
+			
+			harness.check(seed, new GroundedProgramGenerator(random).generate(DEBUG_PREFIX, FACT_ATOM, random.nextInt(6)));
+		}
+	}
+	
+	private static DifferentialHarness.Implementation reference(final List<String> fixedModel) {
+		return new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) {
+				return new ReferencePostprocessor().postprocess(input, DEBUG_PREFIX, FACT_ATOM, fixedModel);
+			}
+		};
+	}
+	
+	/**
+	 * Returns a random fixed model, or <code>null</code> for half of the
+	 * programs.
+	 */
+	private static List<String> fixedModel(Random random) {
+		return random.nextBoolean() ? null : Arrays.asList("a", "p(1)", "q(2,b)").subList(0, random.nextInt(4));
+	}
+	
+	/**
+	 * Writes the given grounded program in chunks of the given size to a
+	 * streaming postprocessor and returns the program of the events.
+	 */
+	private static String stream(String groundedProgram, List<String> fixedModel, int chunkSize) throws IOException, PostprocessingException {
+		final List<GroundEvent> events = new ArrayList<GroundEvent>();
+		byte[] data = groundedProgram.getBytes(StandardCharsets.UTF_8);
+		StreamingPostprocessor postprocessor = new StreamingPostprocessor(DEBUG_PREFIX, FACT_ATOM, fixedModel, new StreamingPostprocessor.Listener() {
+			@Override
+			public void event(GroundEvent event) {
+				events.add(event);
+			}
+		});
+		
+		try {
+			for (int off = 0; off < data.length; off += chunkSize) {
+				postprocessor.write(data, off, Math.min(chunkSize, data.length - off));
+			}
+			
+			postprocessor.finish();
+		} finally {
+			postprocessor.close();
+		}
+		
+		StringBuilder rules = new StringBuilder();
+		StringBuilder symbols = new StringBuilder();
+		
+		for (GroundEvent event : events.subList(0, events.size() - 1)) {
+			(event instanceof GroundSymbol ? symbols : rules).append(event).append('\n');
+		}
+		
+		return rules + "0\n" + symbols + "0\n" + events.get(events.size() - 1);
+	}
+}
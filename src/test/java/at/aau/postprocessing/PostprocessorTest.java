@@ -8,6 +8,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +18,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import at.aau.Rule;
+import at.aau.io.ByteBuffers;
+import at.aau.postprocessing.GroundingProfile.PredicateCount;
+import at.aau.statistics.Progress;
 
 /**
  * Unit tests for {@link Postprocessor}.
@@ -952,6 +956,36 @@ public class PostprocessorTest {
 		assertEquals(expected, postprocessed);
 	}
 	
+	@Test
+	public void postprocessAll_addDebugChoiceRule_debugPrefixInOtherSymbols_ignoresOtherSymbols() {
+		// a.
+		// b :- a, _debug1.
+		// p(_debug1).
+		// _debugger.
+		String groundedProgram = 
+				"1 2 0 0\n"
+			  + "1 4 2 0 2 5\n"
+			  + "1 6 0 0\n"
+			  + "1 7 0 0\n"
+			  + "0\n"
+			  + "2 a\n"
+			  + "5 _debug1\n"
+			  + "4 b\n"
+			  + "6 p(_debug1)\n"
+			  + "7 _debugger\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1";
+		
+		String postprocessed = postprocessor.performPostprocessing(groundedProgram, "_debug", factLiteral, null);
+		
+		assertThat(postprocessed, containsString("1 6 0 0\n1 7 0 0\n3 1 5 0 0\n0\n"));
+	}
+	
 	@Test
 	public void postprocessAll_addFixedModel_returnsCorrect() {
 		// a(1) :- _fl.
@@ -1180,4 +1214,208 @@ public class PostprocessorTest {
 		
 		assertEquals(expected, postprocessed);
 	}
+	
+	/**
+	 * Tests whether the facts are rewritten if the grounder printed no symbol
+	 * for -_fl, like the original postprocessor does.
+	 */
+	@Test
+	public void postprocessAll_noNegatedFactLiteral_rewritesFacts() throws PostprocessingException {
+		String groundedProgram =
+				"1 7 1 0 6\n"
+			  + "0\n"
+			  + "6 _fl\n"
+			  + "7 a\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1\n";
+		
+		String postprocessed = postprocessor.performPostprocessing(groundedProgram, "_debug", "_fl", null);
+		
+		assertEquals("1 7 0 0\n0\n7 a\n0\nB+\n0\nB-\n1\n0\n1\n", postprocessed);
+	}
+	
+	// =========================================================================
+	// parallel postprocessing tests
+	// =========================================================================
+	@Test
+	public void constructor_moreThreadsThanProcessors_growsWorkerPool() {
+		int threads = Runtime.getRuntime().availableProcessors() + 2;
+		
+		new Postprocessor(threads);
+		
+		assertTrue(Postprocessor.getWorkerThreads() >= threads);
+	}
+	
+	@Test
+	public void postprocessAll_parallel_returnsSameAsSequential() {
+		String groundedProgram = createLargeGroundedProgram(2000, false);
+		List<String> model = Arrays.asList("a(1)", "b(7)", "c(12)");
+		
+		String sequential = new Postprocessor(1).performPostprocessing(groundedProgram, "_debug", factLiteral, model);
+		String parallel = new Postprocessor(8, 64).performPostprocessing(groundedProgram, "_debug", factLiteral, model);
+		
+		assertEquals(sequential, parallel);
+		assertThat(sequential, not(containsString(factLiteral)));
+	}
+	
+	@Test
+	public void postprocessAll_parallelRepeatedFactAtomRules_removesFirstOccurrenceOnly() {
+		String groundedProgram = createLargeGroundedProgram(500, true);
+		
+		String sequential = new Postprocessor(1).performPostprocessing(groundedProgram, "_debug", factLiteral, null);
+		String parallel = new Postprocessor(4, 32).performPostprocessing(groundedProgram, "_debug", factLiteral, null);
+		
+		assertEquals(sequential, parallel);
+	}
+	
+	@Test
+	public void postprocessAll_parallelWithProgress_countsAllRules() {
+		String groundedProgram = createLargeGroundedProgram(5000, false);
+		Postprocessor parallel = new Postprocessor(4, 64);
+		Progress progress = new Progress();
+		parallel.setProgress(progress);
+		
+		parallel.performPostprocessing(groundedProgram, "_debug", factLiteral, null);
+		
+		int rules = groundedProgram.substring(0, groundedProgram.indexOf("\n0\n") + 1).split("\n").length;
+		assertEquals(rules, progress.getRules());
+	}
+	
+	// =========================================================================
+	// profiling tests
+	// =========================================================================
+	@Test
+	public void postprocessAll_profile_countsInstancesAndPredicates() throws PostprocessingException {
+		// a(1). a(2).
+		// b(X) :- a(X), _debug1(X).
+		// c :- b(X), _debug2.
+		String groundedProgram = 
+				"1 2 1 0 3\n"
+			  + "1 4 1 0 3\n"
+			  + "1 5 1 0 2\n"
+			  + "1 6 1 0 4\n"
+			  + "1 7 2 0 2 5\n"
+			  + "1 8 2 0 4 6\n"
+			  + "1 9 0 0\n"
+			  + "1 10 2 0 7 9\n"
+			  + "1 10 2 0 8 9\n"
+			  + "1 1 2 0 3 11\n"
+			  + "8 2 3 11 0 0\n"
+			  + "0\n"
+			  + "3 _fl\n"
+			  + "2 a(1)\n"
+			  + "4 a(2)\n"
+			  + "5 _debug1(1)\n"
+			  + "6 _debug1(2)\n"
+			  + "7 b(1)\n"
+			  + "8 b(2)\n"
+			  + "9 _debug2\n"
+			  + "10 c\n"
+			  + "11 -_fl\n"
+			  + "0\n"
+			  + "B+\n"
+			  + "0\n"
+			  + "B-\n"
+			  + "1\n"
+			  + "0\n"
+			  + "1";
+		
+		Map<String, Integer> expectedInstances = new LinkedHashMap<String, Integer>();
+		expectedInstances.put("_debug1", 2);
+		expectedInstances.put("_debug2", 1);
+		
+		GroundingProfile profile = profile(postprocessor, groundedProgram);
+		
+		assertEquals(6, profile.getRules());
+		assertEquals(8, profile.getAtoms());
+		assertEquals(expectedInstances, profile.getGroundInstances());
+		assertEquals("[a/1 2 2, b/1 2 2, c/0 2 1]", toString(profile.getPredicates()));
+	}
+	
+	@Test
+	public void postprocessAll_profileParallel_returnsSameAsSequential() throws PostprocessingException {
+		String groundedProgram = createLargeGroundedProgram(2000, false);
+		
+		GroundingProfile sequential = profile(new Postprocessor(1), groundedProgram);
+		GroundingProfile parallel = profile(new Postprocessor(8, 64), groundedProgram);
+		
+		assertEquals(Integer.valueOf(2000), sequential.getGroundInstances().get("_debug1"));
+		assertEquals("[a/1 2000 2000, b/1 2000 2000]", toString(sequential.getPredicates()));
+		assertEquals(sequential.getRules(), parallel.getRules());
+		assertEquals(sequential.getAtoms(), parallel.getAtoms());
+		assertEquals(sequential.getGroundInstances(), parallel.getGroundInstances());
+		assertEquals(toString(sequential.getPredicates()), toString(parallel.getPredicates()));
+	}
+	
+	private GroundingProfile profile(Postprocessor postprocessor, String groundedProgram) throws PostprocessingException {
+		GroundingProfile profile = new GroundingProfile();
+		postprocessor.performPostprocessing(ByteBuffers.wrap(groundedProgram), "_debug", factLiteral, null, null, profile);
+		
+		return profile;
+	}
+	
+	private static String toString(List<PredicateCount> predicates) {
+		StringBuilder result = new StringBuilder();
+		
+		for (PredicateCount predicate : predicates) {
+			result.append(result.length() == 0 ? "[" : ", ");
+			result.append(predicate + " " + predicate.getRules() + " " + predicate.getAtoms());
+		}
+		
+		return result.append("]").toString();
+	}
+	
+	/**
+	 * Creates a grounded program with facts, debug rules and normal rules that
+	 * is large enough to be split into several chunks.
+	 * 
+	 * @param size
+	 *            The number of facts of the program.
+	 * @param repeatFactAtomRules
+	 *            Whether the rules of the fact literal occur a second time at
+	 *            the end of the rules.
+	 */
+	private String createLargeGroundedProgram(int size, boolean repeatFactAtomRules) {
+		StringBuilder rules = new StringBuilder();
+		StringBuilder symbols = new StringBuilder();
+		int fl = 2;
+		int negFl = 3;
+		
+		for (int i = 0; i < size; i ++) {
+			int fact = 4 * i + 4;
+			int debug = fact + 1;
+			int head = fact + 2;
+			
+			rules.append("1 " + fact + " 1 0 " + fl + "\n");
+			rules.append("1 " + debug + " 1 0 " + fact + "\n");
+			rules.append("1 " + head + " 2 0 " + fact + " " + debug + "\n");
+			
+			if (i == size / 2) {
+				rules.append("1 1 2 0 " + fl + " " + negFl + "\n");
+				rules.append("8 2 " + negFl + " " + fl + " 0 0\n");
+			}
+			
+			symbols.append(fact + " a(" + i + ")\n");
+			symbols.append(debug + " _debug1(" + i + ")\n");
+			symbols.append(head + " b(" + i + ")\n");
+			
+			if (i == size / 3) {
+				symbols.append(fl + " " + factLiteral + "\n");
+			} else if (i == 2 * size / 3) {
+				symbols.append(negFl + " -" + factLiteral + "\n");
+			}
+		}
+		
+		if (repeatFactAtomRules) {
+			rules.append("1 1 2 0 " + fl + " " + negFl + "\n");
+			rules.append("8 2 " + fl + " " + negFl + " 0 0\n");
+		}
+		
+		return rules + "0\n" + symbols + "0\nB+\n0\nB-\n1\n0\n1";
+	}
 }
@@ -0,0 +1,125 @@
+package at.aau.postprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StreamingPostprocessor}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class StreamingPostprocessorTest {
+	/**
+	 * Original logic program:
+	 * a :- _fl.
+	 * _debug1 :- a.
+	 * b :- a, _debug1.
+	 * c :- not b.
+	 * _fl | -_fl.
+	 */
+	private static final String GROUNDED_PROGRAM =
+			"1 2 1 0 3\n"
+		  + "1 4 1 0 2\n"
+		  + "1 5 2 0 2 4\n"
+		  + "1 6 1 1 5\n"
+		  + "1 1 2 0 3 7\n"
+		  + "8 2 3 7 0 0\n"
+		  + "0\n"
+		  + "3 _fl\n"
+		  + "2 a\n"
+		  + "4 _debug1\n"
+		  + "5 b\n"
+		  + "6 c\n"
+		  + "7 -_fl\n"
+		  + "0\n"
+		  + "B+\n"
+		  + "0\n"
+		  + "B-\n"
+		  + "1\n"
+		  + "0\n"
+		  + "1\n";
+	
+	// =========================================================================
+	// write tests
+	// =========================================================================
+	@Test
+	public void write_smallChunks_passesSameProgramAsPostprocessor() throws IOException, PostprocessingException {
+		List<String> fixedModel = Arrays.asList("a", "b");
+		List<GroundEvent> events = stream(GROUNDED_PROGRAM, fixedModel, 3);
+		StringBuilder rules = new StringBuilder();
+		StringBuilder symbols = new StringBuilder();
+		
+		for (GroundEvent event : events.subList(0, events.size() - 1)) {
+			(event instanceof GroundSymbol ? symbols : rules).append(event).append('\n');
+		}
+		
+		String expected = new Postprocessor(1).performPostprocessing(GROUNDED_PROGRAM, "_debug", "_fl", fixedModel);
+		
+		assertEquals(expected, rules + "0\n" + symbols + "0\n" + events.get(events.size() - 1));
+	}
+	
+	@Test
+	public void write_program_passesSymbolsBeforeRules() throws IOException, PostprocessingException {
+		List<GroundEvent> events = stream(GROUNDED_PROGRAM, null, 1 << 10);
+		
+		assertEquals("2 a", events.get(0).toString());
+		assertEquals("1 2 0 0", events.get(4).toString());
+		
+		GroundRule rule = (GroundRule) events.get(6);
+		assertArrayEquals(new int[] { 6 }, rule.getHead());
+		assertArrayEquals(new int[] { 5 }, rule.getNegativeBody());
+		assertArrayEquals(new int[0], rule.getPositiveBody());
+		
+		GroundRule debugChoice = (GroundRule) events.get(7);
+		assertEquals(GroundProgram.CHOICE_RULE, debugChoice.getType());
+		assertArrayEquals(new int[] { 4 }, debugChoice.getHead());
+		assertEquals(1, ((GroundCompute) events.get(8)).getModels());
+	}
+	
+	@Test(expected = PostprocessingException.class)
+	public void finish_incompleteProgram_throws() throws IOException, PostprocessingException {
+		stream(GROUNDED_PROGRAM.substring(0, GROUNDED_PROGRAM.indexOf("B+")), null, 16);
+	}
+	
+	@Test(expected = PostprocessingException.class)
+	public void finish_malformedRule_throws() throws IOException, PostprocessingException {
+		stream("1 2 x\n" + GROUNDED_PROGRAM, null, 16);
+	}
+	
+	/**
+	 * Writes the given grounded program in chunks of the given size and
+	 * returns the events.
+	 */
+	private static List<GroundEvent> stream(String groundedProgram, List<String> fixedModel, int chunkSize)
+			throws IOException, PostprocessingException {
+		final List<GroundEvent> events = new ArrayList<GroundEvent>();
+		byte[] data = groundedProgram.getBytes(StandardCharsets.UTF_8);
+		StreamingPostprocessor postprocessor = new StreamingPostprocessor("_debug", "_fl", fixedModel, new StreamingPostprocessor.Listener() {
+			@Override
+			public void event(GroundEvent event) {
+				events.add(event);
+			}
+		});
+		
+		try {
+			for (int off = 0; off < data.length; off += chunkSize) {
+				postprocessor.write(data, off, Math.min(chunkSize, data.length - off));
+			}
+			
+			postprocessor.finish();
+		} finally {
+			postprocessor.close();
+		}
+		
+		return events;
+	}
+}
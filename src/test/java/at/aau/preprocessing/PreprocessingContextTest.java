@@ -0,0 +1,100 @@
+package at.aau.preprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import at.aau.DebugRuleMap;
+import at.aau.Rule;
+import at.aau.output.DebugMapFile;
+
+/**
+ * Unit tests for {@link PreprocessingContext}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PreprocessingContextTest {
+	// =========================================================================
+	// write and read tests
+	// =========================================================================
+	@Test
+	public void read_writtenContext_returnsSameContext() throws IOException {
+		String program = "a(X) :- b(X), c.\nd :- not a(1).\n";
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		debugRuleMap.reset(program, "_debug");
+		debugRuleMap.addRule(2, 0, program.indexOf('.'), Arrays.asList("X"));
+		debugRuleMap.addRule(5, program.indexOf('d'), program.lastIndexOf('.'), Collections.<String>emptyList());
+		
+		PreprocessingContext context = writeAndRead(new PreprocessingContext("_fl", Arrays.asList("a(1)", "ü"), true, "_debug", debugRuleMap));
+		
+		assertEquals("_fl", context.getFactLiteral());
+		assertEquals(Arrays.asList("a(1)", "ü"), context.getFixedModel());
+		assertTrue(context.hasDebugConstants());
+		assertEquals("_debug", context.getDebugConstantPrefix());
+		assertEquals(debugRuleMap, context.getDebugRuleMap());
+		assertEquals("a(X) :- b(X), c.", context.getDebugRuleMap().get("_debug2").getRule());
+		assertEquals(Arrays.asList("X"), context.getDebugRuleMap().get("_debug2").getVariables());
+		assertNull(context.getDebugRuleMap().get("_debug3"));
+	}
+	
+	@Test
+	public void read_noFixedModelAndDebugConstants_returnsNullFixedModel() throws IOException {
+		PreprocessingContext context = writeAndRead(new PreprocessingContext("_fl1", null, false, "_debug", new DebugRuleMap()));
+		
+		assertNull(context.getFixedModel());
+		assertFalse(context.hasDebugConstants());
+		assertTrue(context.getDebugRuleMap().isEmpty());
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_otherStream_throws() throws IOException {
+		PreprocessingContext.read(new ByteArrayInputStream("a :- b.\n".getBytes("UTF-8")));
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_truncatedContext_throws() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		debugRuleMap.reset("a :- b.", "_debug");
+		debugRuleMap.addRule(0, 6, Collections.<String>emptyList());
+		new PreprocessingContext("_fl", null, true, "_debug", debugRuleMap).write(output);
+		byte[] data = output.toByteArray();
+		
+		PreprocessingContext.read(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 3)));
+	}
+	
+	@Test
+	public void write_rules_endsWithDebugMap() throws IOException {
+		String program = "a(X) :- b(X), c.\n";
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		debugRuleMap.reset(program, "_debug");
+		debugRuleMap.addRule(3, 0, program.indexOf('.'), Arrays.asList("X"));
+		ByteArrayOutputStream context = new ByteArrayOutputStream();
+		ByteArrayOutputStream debugMap = new ByteArrayOutputStream();
+		
+		new PreprocessingContext("_fl", null, true, "_debug", debugRuleMap).write(context);
+		DebugMapFile.write(debugRuleMap, "_debug", debugMap);
+		
+		byte[] data = context.toByteArray();
+		byte[] expected = debugMap.toByteArray();
+		assertArrayEquals(expected, Arrays.copyOfRange(data, data.length - expected.length, data.length));
+	}
+	
+	private static PreprocessingContext writeAndRead(PreprocessingContext context) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		context.write(output);
+		
+		return PreprocessingContext.read(new ByteArrayInputStream(output.toByteArray()));
+	}
+}
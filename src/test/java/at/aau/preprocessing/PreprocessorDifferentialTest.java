@@ -0,0 +1,127 @@
+package at.aau.preprocessing;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.aau.DebugRuleMap;
+import at.aau.GringoWrapper;
+import at.aau.Rule;
+import at.aau.differential.DifferentialHarness;
+import at.aau.differential.ProgramGenerator;
+import at.aau.differential.ReferencePreprocessor;
+
+/**
+ * Differential tests of the preprocessing paths against the
+ * {@link ReferencePreprocessor}, on random logic programs. The output of a
+ * path is the preprocessed program, followed by the fixed model and the rules
+ * of the debug constants.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class PreprocessorDifferentialTest {
+	private static final String DEBUG_PREFIX = "_debug";
+	
+	private static final String FACT_LITERAL = "_fl0123456789abcdef";
+	
+	// =========================================================================
+	// preprocessing tests
+	// =========================================================================
+	@Test
+	public void preprocess_randomPrograms_equalsReference() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			harness(true).check(seed, new ProgramGenerator(random).generate(1 + random.nextInt(16)));
+		}
+	}
+	
+	@Test
+	public void preprocess_randomProgramsWithoutDebugConstants_equalsReference() {
+		for (long seed = 0; seed < DifferentialHarness.RUNS; seed ++) {
+			Random random = new Random(seed);
+			harness(false).check(seed, new ProgramGenerator(random).generate(1 + random.nextInt(16)));
+		}
+	}
+	
+	private static DifferentialHarness harness(final boolean addDebugConstants) {
+		DifferentialHarness harness = new DifferentialHarness(new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) {
+				ReferencePreprocessor preprocessor = new ReferencePreprocessor();
+				Map<String, Rule> debugRuleMap = new HashMap<String, Rule>();
+				List<String> fixedModel = preprocessor.getFixedModel(preprocessor.removeComments(input));
+				String program = preprocessor.preprocess(input, FACT_LITERAL, addDebugConstants ? DEBUG_PREFIX : null, debugRuleMap);
+				
+				return describe(program, fixedModel, debugRuleMap);
+			}
+		});
+		
+		harness.add("preprocessor with a hash map", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) {
+				return preprocess(input, addDebugConstants, new HashMap<String, Rule>());
+			}
+		});
+		harness.add("preprocessor with a debug rule map", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) {
+				return preprocess(input, addDebugConstants, new DebugRuleMap());
+			}
+		});
+		harness.add("gringo-wrapper preprocessing", new DifferentialHarness.Implementation() {
+			@Override
+			public String run(String input) throws Exception {
+				GringoWrapper wrapper = new GringoWrapper("gringo", "", DEBUG_PREFIX, false, false);
+				ByteArrayOutputStream output = new ByteArrayOutputStream();
+				DebugRuleMap debugRuleMap = new DebugRuleMap();
+				PreprocessingContext context = wrapper.preprocess(input, addDebugConstants, debugRuleMap, output);
+				
+				// the fact literal of the gringo-wrapper is random
+				String program = new String(output.toByteArray(), StandardCharsets.UTF_8).replace(context.getFactLiteral(), FACT_LITERAL);
+				return describe(program, context.getFixedModel(), debugRuleMap);
+			}
+		});
+		
+		return harness;
+	}
+	
+	/**
+	 * Preprocesses the program like the gringo-wrapper, with the fact literal
+	 * of the reference.
+	 */
+	private static String preprocess(String logicProgram, boolean addDebugConstants, Map<String, Rule> debugRuleMap) {
+		Preprocessor preprocessor = new Preprocessor();
+		logicProgram = preprocessor.removeComments(logicProgram);
+		List<String> fixedModel = preprocessor.getFixedModel(logicProgram);
+		logicProgram = preprocessor.rewriteAssertions(logicProgram);
+		
+		if (addDebugConstants) {
+			logicProgram = preprocessor.addDebugConstants(logicProgram, DEBUG_PREFIX, debugRuleMap);
+		}
+		
+		return describe(preprocessor.addFactLiteral(logicProgram, FACT_LITERAL), fixedModel, debugRuleMap);
+	}
+	
+	/**
+	 * Returns the preprocessed program, the fixed model and the rules of the
+	 * debug constants, ordered by the debug constants.
+	 */
+	private static String describe(String program, List<String> fixedModel, Map<String, Rule> debugRuleMap) {
+		StringBuilder description = new StringBuilder(program);
+		description.append("\n--- fixed model ---\n").append(fixedModel).append("\n--- debug rules ---\n");
+		
+		for (int number = 1; number <= debugRuleMap.size(); number ++) {
+			Rule rule = debugRuleMap.get(DEBUG_PREFIX + number);
+			description.append(DEBUG_PREFIX).append(number).append(' ').append(null == rule ? null : rule.getVariables())
+					.append(' ').append(null == rule ? null : rule.getRule()).append('\n');
+		}
+		
+		return description.toString();
+	}
+}
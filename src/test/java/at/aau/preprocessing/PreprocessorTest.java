@@ -7,6 +7,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -753,4 +756,41 @@ public class PreprocessorTest {
 		assertEquals(correct, preprocessed);
 		assertThat(debugRuleMap, is(correctDebugRuleMap));
 	}
+	
+	// =========================================================================
+	// debug constant numbering tests
+	// =========================================================================
+	@Test
+	public void addDebugConstants_numberingAndInsertedRule_keepsNumbers() {
+		DebugConstantNumbering numbering = new DebugConstantNumbering();
+		preprocessor.addDebugConstants("a :- b.\nc :- d.\n", "_debug", new HashMap<String, Rule>(), numbering);
+		
+		Map<String, Rule> debugRuleMap = new HashMap<String, Rule>();
+		preprocessor.addDebugConstants("e :- f.\nc  :-  d.\na :- b.\na :- b.\n", "_debug", debugRuleMap, numbering);
+		
+		assertEquals(new Rule("a :- b."), debugRuleMap.get("_debug1"));
+		assertEquals(new Rule("c  :-  d."), debugRuleMap.get("_debug2"));
+		assertEquals(new Rule("e :- f."), debugRuleMap.get("_debug3"));
+		assertEquals(new Rule("a :- b."), debugRuleMap.get("_debug4"));
+		assertEquals(4, numbering.size());
+	}
+	
+	@Test
+	public void read_writtenNumbering_sameNumbers() throws IOException {
+		DebugConstantNumbering numbering = new DebugConstantNumbering();
+		numbering.getNumber("a :- b", 0);
+		numbering.getNumber("c :- d", 0);
+		StringWriter writer = new StringWriter();
+		numbering.write(writer);
+		
+		DebugConstantNumbering read = DebugConstantNumbering.read(new StringReader(writer.toString()));
+		
+		assertEquals(2, read.getNumber("c:-d", 0));
+		assertEquals(3, read.getNumber("c :- d", 1));
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_malformedLine_throwsException() throws IOException {
+		DebugConstantNumbering.read(new StringReader("x 0123\n"));
+	}
 }
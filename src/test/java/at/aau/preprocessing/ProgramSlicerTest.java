@@ -0,0 +1,113 @@
+package at.aau.preprocessing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import at.aau.DebugRuleMap;
+import at.aau.GringoWrapper;
+import at.aau.Rule;
+
+/**
+ * Unit tests for {@link ProgramSlicer}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ProgramSlicerTest {
+	private final ProgramSlicer slicer = new ProgramSlicer();
+	
+	// =========================================================================
+	// slice tests
+	// =========================================================================
+	@Test
+	public void slice_predicate_keepsBackwardDependencies() {
+		String program =
+				"node(1..3). edge(1,2). color(red).\n"
+			  + "reach(X) :- edge(1,X).\n"
+			  + "reach(Y) :- reach(X), edge(X,Y).\n"
+			  + "{ assign(X,C) } :- node(X), color(C).\n"
+			  + "unreached(X) :- node(X), not reach(X).\n";
+		List<String> removedRules = new ArrayList<String>();
+		
+		String slice = slicer.slice(program, Arrays.asList("reach/1"), removedRules);
+		
+		assertEquals(" edge(1,2).\nreach(X) :- edge(1,X).\nreach(Y) :- reach(X), edge(X,Y).", slice);
+		assertEquals(Arrays.asList("{ assign(X,C) } :- node(X), color(C).", "unreached(X) :- node(X), not reach(X)."), removedRules);
+	}
+	
+	@Test
+	public void slice_constraintOnCone_keptWithItsPredicates() {
+		String program =
+				"a :- b. b :- not c. c :- d. d.\n"
+			  + ":- a, e.\n"
+			  + "e :- f. f.\n"
+			  + "g :- h. h.\n"
+			  + ":- g.\n";
+		
+		String slice = slicer.slice(program, Arrays.asList("a"), null);
+		
+		assertEquals("a :- b. b :- not c. c :- d. d.\n:- a, e.\ne :- f. f.", slice);
+	}
+	
+	@Test
+	public void slice_atomTarget_slicesToItsPredicate() {
+		String program = "p(1). p(2). q(X) :- p(X). r(X) :- q(X).";
+		
+		String slice = slicer.slice(program, Arrays.asList("q(1)"), null);
+		
+		assertEquals("p(1). p(2). q(X) :- p(X).", slice);
+	}
+	
+	@Test
+	public void slice_directivesAndFixModel_keptIfRelevant() {
+		String program = "#const n = 3. p(1..n). q :- r.\nfixModel(p(1),p(2)).\nfixModel(q).";
+		
+		String slice = slicer.slice(program, Arrays.asList("p"), null);
+		
+		assertEquals("#const n = 3. p(1..n).\nfixModel(p(1),p(2)).", slice);
+	}
+	
+	@Test
+	public void ground_sliceTargets_recordsSlicedRulesInDebugRuleMap() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper("gringo", "", "_debug", true, false);
+		wrapper.setSliceTargets(Arrays.asList("a"));
+		DebugRuleMap debugRuleMap = new DebugRuleMap();
+		
+		String preprocessed = wrapper.ground("a :- b. b. c :- d. d.\nassertTrue(a).", true, debugRuleMap);
+		
+		assertEquals(Arrays.asList("c :- d."), debugRuleMap.getSlicedRules());
+		assertEquals(2, debugRuleMap.size());
+		assertTrue(preprocessed.contains(":- not a"));
+		assertTrue(!preprocessed.contains("c :- d"));
+	}
+	
+	@Test
+	public void ground_sliceTargetsWithOtherMap_returnsSlicedRules() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper("gringo", "", "_debug", true, false);
+		wrapper.setSliceTargets(Arrays.asList("a"));
+		Map<String, Rule> debugRuleMap = new HashMap<String, Rule>();
+		
+		wrapper.ground("a :- b. b. c :- d. d.\nassertTrue(a).", true, debugRuleMap);
+		
+		assertEquals(Arrays.asList("c :- d."), wrapper.getSlicedRules());
+		assertEquals(2, debugRuleMap.size());
+	}
+	
+	@Test
+	public void ground_noSliceTargets_returnsNoSlicedRules() throws Exception {
+		GringoWrapper wrapper = new GringoWrapper("gringo", "", "_debug", true, false);
+		
+		wrapper.ground("a :- b. b.", true, new DebugRuleMap());
+		
+		assertNull(wrapper.getSlicedRules());
+	}
+}
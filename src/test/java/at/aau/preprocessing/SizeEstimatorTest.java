@@ -0,0 +1,118 @@
+package at.aau.preprocessing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+import at.aau.Rule;
+
+/**
+ * Unit tests for {@link SizeEstimator}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class SizeEstimatorTest {
+	private final SizeEstimator estimator = new SizeEstimator();
+	
+	// =========================================================================
+	// fact tests
+	// =========================================================================
+	@Test
+	public void estimate_factsWithRangesAndPools_countsAllFacts() {
+		String program = "#const n = 10. node(1..n). color(red;green;blue). edge(1,2). edge(2,3).";
+		
+		SizeEstimate estimate = estimator.estimate(program, "_debug");
+		
+		assertEquals(15, estimate.getFacts());
+		assertEquals(15, estimate.getTotalRules());
+		assertTrue(estimate.getRules().isEmpty());
+	}
+	
+	// =========================================================================
+	// rule tests
+	// =========================================================================
+	@Test
+	public void estimate_independentAtoms_crossProduct() {
+		SizeEstimate estimate = estimator.estimate("node(1..10). color(red;green;blue). { assign(X,C) } :- node(X), color(C).", null);
+		
+		assertEquals(30, estimate.getRules().get(0).getInstances());
+		assertEquals(43, estimate.getTotalRules());
+	}
+	
+	@Test
+	public void estimate_sharedVariable_joinsOnVariable() {
+		String program = "p(1..10). q(1..10,a;b). r(X,Y) :- p(X), q(X,Y).";
+		
+		SizeEstimate estimate = estimator.estimate(program, null);
+		
+		assertEquals(20, estimate.getRules().get(0).getInstances());
+	}
+	
+	@Test
+	public void estimate_comparison_keepsAThird() {
+		SizeEstimate estimate = estimator.estimate("p(1..30). lt(X,Y) :- p(X), p(Y), X < Y.", null);
+		
+		assertEquals(300, estimate.getRules().get(0).getInstances());
+	}
+	
+	@Test
+	public void estimate_derivedPredicateOfLaterRule_usesItsEstimate() {
+		SizeEstimate estimate = estimator.estimate("p(1..10). a(X) :- b(X). b(X) :- p(X).", null);
+		
+		assertEquals(10, estimate.getRules().get(0).getInstances());
+		assertEquals(10, estimate.getRules().get(1).getInstances());
+	}
+	
+	@Test
+	public void estimate_recursiveRule_boundedByConstants() {
+		String program = "edge(1..20,1..20). reach(1). reach(Y) :- reach(X), edge(X,Y).";
+		
+		SizeEstimate estimate = estimator.estimate(program, null);
+		
+		assertTrue(estimate.getRules().get(0).getInstances() <= 400);
+	}
+	
+	@Test
+	public void estimate_debugConstants_guardRulesEstimatedLikeTheirRules() {
+		String program = new Preprocessor().addDebugConstants(
+				"p(1..10). q(1..10,a;b). r(X,Y) :- p(X), q(X,Y), X > 2.", "_debug", new HashMap<String, Rule>());
+		
+		SizeEstimate estimate = estimator.estimate(program, "_debug");
+		
+		assertEquals(2, estimate.getRules().size());
+		assertEquals("_debug1", estimate.getRules().get(0).getDebugConstant());
+		assertEquals("_debug1", estimate.getRules().get(1).getDebugConstant());
+		assertEquals(7, estimate.getRules().get(0).getInstances());
+		assertEquals(7, estimate.getRules().get(1).getInstances());
+	}
+	
+	@Test
+	public void estimate_unknownPredicate_noInstances() {
+		SizeEstimate estimate = estimator.estimate("a(X) :- b(X). :- c, not d.", null);
+		
+		assertEquals(0, estimate.getRules().get(0).getInstances());
+		assertEquals(0, estimate.getRules().get(1).getInstances());
+		assertNull(estimate.getRules().get(0).getDebugConstant());
+	}
+	
+	// =========================================================================
+	// format tests
+	// =========================================================================
+	@Test
+	public void format_maxRules_largestRulesFirst() {
+		SizeEstimate estimate = estimator.estimate("p(1..10). a :- p(X). b(X,Y) :- p(X), p(Y). c(X) :- p(X).", null);
+		
+		String table = estimate.format(1);
+		
+		assertThat(table, StringContains.containsString("size estimate: 130 rules, 10 facts\n"));
+		assertThat(table, StringContains.containsString("         100   76.9%               b(X,Y) :- p(X), p(Y).\n"));
+		assertThat(table, StringContains.containsString("(2 more rules)"));
+	}
+}
@@ -0,0 +1,101 @@
+package at.aau.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ProgressReporter} and {@link Progress}.
+ *
+ * @author Philip Gasteiger
+ *
+ */
+public class ProgressReporterTest {
+	// =========================================================================
+	// report tests
+	// =========================================================================
+	@Test
+	public void stop_notStarted_reportsOnce() {
+		Progress progress = new Progress();
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		ProgressReporter reporter = new ProgressReporter(progress, 1000, new PrintStream(text), new PrintStream(json));
+		
+		progress.stageStarted("grounding");
+		progress.addBytesSent(10);
+		progress.addBytesReceived(2048);
+		progress.addRules(7);
+		reporter.stop();
+		reporter.stop();
+		
+		String[] lines = text.toString().split("\n");
+		assertEquals(1, lines.length);
+		assertThat(lines[0], StringContains.containsString("progress: done, grounding "));
+		assertThat(lines[0], StringContains.containsString("sent 10 B, received 2.0 KB ("));
+		assertThat(lines[0], StringContains.containsString("7 rules ("));
+		assertThat(json.toString(), StringContains.containsString(
+				"{\"stage\":\"grounding\",\"done\":true,\"elapsedNs\":"));
+		assertThat(json.toString(), StringContains.containsString(
+				"\"bytesSent\":10,\"bytesReceived\":2048,\"bytesReceivedPerSecond\":"));
+	}
+	
+	@Test
+	public void start_shortInterval_reportsRepeatedly() throws InterruptedException {
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		ProgressReporter reporter = new ProgressReporter(new Progress(), 5, null, new PrintStream(json));
+		
+		reporter.start();
+		Thread.sleep(100);
+		reporter.stop();
+		
+		String[] lines = json.toString().split("\n");
+		assertTrue(lines.length > 2);
+		assertThat(lines[0], StringContains.containsString("{\"stage\":\"starting\",\"done\":false,"));
+		assertThat(lines[lines.length - 1], StringContains.containsString("\"done\":true"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_zeroInterval_throws() {
+		new ProgressReporter(new Progress(), 0, System.err, null);
+	}
+	
+	@Test
+	public void formatText_rates_formatsBytesAndRules() {
+		String text = ProgressReporter.formatText("postprocessing", false, 3500000000L, 1200000000L, 100, 5L << 20, 1536, 42, 2.5);
+		
+		assertEquals("progress: postprocessing 1.2 s (total 3.5 s), sent 100 B, received 5.0 MB (1.5 KB/s), 42 rules (3/s)", text);
+	}
+	
+	@Test
+	public void formatBytes_largeSizes_usesLargestUnit() {
+		assertEquals("1023 B", ProgressReporter.formatBytes(1023));
+		assertEquals("1.5 GB", ProgressReporter.formatBytes(3L << 29));
+		assertEquals("2048.0 GB", ProgressReporter.formatBytes(1L << 41));
+	}
+	
+	// =========================================================================
+	// countReceived tests
+	// =========================================================================
+	@Test
+	public void countReceived_readFully_countsAllBytes() throws IOException {
+		Progress progress = new Progress();
+		InputStream input = progress.countReceived(new ByteArrayInputStream("1 2 0 0\n0\n".getBytes(StandardCharsets.UTF_8)));
+		
+		input.read();
+		input.read(new byte[4]);
+		input.read(new byte[16]);
+		
+		assertEquals(-1, input.read());
+		assertEquals(10, progress.getBytesReceived());
+	}
+}
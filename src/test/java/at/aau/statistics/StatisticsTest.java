@@ -0,0 +1,114 @@
+package at.aau.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.core.StringContains;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Statistics}.
+ * 
+ * @author Philip Gasteiger
+ *
+ */
+public class StatisticsTest {
+	// =========================================================================
+	// stage tests
+	// =========================================================================
+	@Test
+	public void end_collect_recordsStages() {
+		Statistics statistics = new Statistics(true, null);
+		
+		statistics.begin("preprocessing", 10);
+		statistics.end(20);
+		statistics.begin("grounding", 20);
+		statistics.setProcessTime(42);
+		statistics.end(300);
+		
+		List<StageStatistics> stages = statistics.getStages();
+		
+		assertEquals(2, stages.size());
+		assertEquals("preprocessing", stages.get(0).getStage());
+		assertEquals(10, stages.get(0).getInputBytes());
+		assertEquals(20, stages.get(0).getOutputBytes());
+		assertEquals(-1, stages.get(0).getProcessTime());
+		assertTrue(stages.get(0).getWallTime() >= 0);
+		assertEquals("grounding", stages.get(1).getStage());
+		assertEquals(300, stages.get(1).getOutputBytes());
+		assertEquals(42, stages.get(1).getProcessTime());
+	}
+	
+	@Test
+	public void end_notCollected_onlyNotifiesListener() {
+		RecordingListener listener = new RecordingListener();
+		Statistics statistics = new Statistics(false, listener);
+		
+		statistics.begin("postprocessing", 5);
+		statistics.end(7);
+		
+		assertTrue(statistics.getStages().isEmpty());
+		assertEquals("[start postprocessing, end postprocessing 5 7]", listener.events.toString());
+	}
+	
+	@Test
+	public void end_noStageStarted_doesNothing() {
+		RecordingListener listener = new RecordingListener();
+		Statistics statistics = new Statistics(true, listener);
+		
+		statistics.setProcessTime(1);
+		statistics.end(7);
+		
+		assertTrue(statistics.getStages().isEmpty());
+		assertTrue(listener.events.isEmpty());
+	}
+	
+	@Test
+	public void begin_notCollectedWithProgress_setsStage() {
+		Progress progress = new Progress();
+		Statistics statistics = new Statistics(false, null);
+		statistics.setProgress(progress);
+		
+		statistics.begin("grounding", 5);
+		
+		assertEquals("grounding", progress.getStage());
+		assertSame(progress, statistics.getProgress());
+	}
+	
+	// =========================================================================
+	// toJson tests
+	// =========================================================================
+	@Test
+	public void toJson_returnsStagesAndTotal() {
+		Statistics statistics = new Statistics(true, null);
+		
+		statistics.begin("grounding", 1);
+		statistics.setProcessTime(3);
+		statistics.end(2);
+		
+		String json = statistics.toJson();
+		
+		assertThat(json, StringContains.containsString("{\"stages\":[{\"stage\":\"grounding\",\"wallTimeNs\":"));
+		assertThat(json, StringContains.containsString("\"inputBytes\":1,\"outputBytes\":2,\"processTimeNs\":3}],\"total\":{\"wallTimeNs\":"));
+	}
+	
+	private static class RecordingListener implements StageListener {
+		private final List<String> events = new ArrayList<String>();
+		
+		@Override
+		public Object stageStarted(String stage) {
+			events.add("start " + stage);
+			return stage;
+		}
+		
+		@Override
+		public void stageFinished(Object handle, StageStatistics statistics) {
+			events.add("end " + handle + " " + statistics.getInputBytes() + " " + statistics.getOutputBytes());
+		}
+	}
+}